@@ -0,0 +1,64 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sarxos.webcam.util.AdaptiveSizeWriter;
+
+
+/**
+ * Measures {@link AdaptiveSizeWriter} writing frames of different content, so the writer has to
+ * keep the size under the limit for a changing scene.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdaptiveSizeWriterBenchmark {
+
+	@Param({ "640x480" })
+	public String resolution;
+
+	/**
+	 * Maximum size of the written image in bytes.
+	 */
+	@Param({ "20000", "100000" })
+	public int size;
+
+	private AdaptiveSizeWriter writer;
+	private BufferedImage[] frames;
+	private int index = 0;
+
+	@Setup
+	public void setup() {
+
+		writer = new AdaptiveSizeWriter(size);
+		frames = new BufferedImage[4];
+
+		for (int i = 0; i < frames.length; i++) {
+			frames[i] = Frames.frame(Frames.parse(resolution), i);
+		}
+	}
+
+	@Benchmark
+	public byte[] write() {
+		index = (index + 1) % frames.length;
+		return writer.write(frames[index]);
+	}
+}
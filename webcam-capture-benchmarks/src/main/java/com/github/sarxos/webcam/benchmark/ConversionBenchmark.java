@@ -0,0 +1,67 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sarxos.webcam.util.ImageUtils;
+
+
+/**
+ * Measures conversion of the native RGB buffer into {@link BufferedImage}, done the same way as in
+ * {@link com.github.sarxos.webcam.ds.buildin.WebcamDefaultDevice}, and the opposite conversion
+ * used by devices which do not provide direct buffer access.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+	@Param({ "640x480", "1920x1080" })
+	public String resolution;
+
+	private SyntheticDevice device;
+	private ByteBuffer buffer;
+	private BufferedImage image;
+
+	@Setup
+	public void setup() {
+		device = new SyntheticDevice("Synthetic", Frames.parse(resolution), 1);
+		device.open();
+		buffer = device.getImageBytes();
+		image = device.getImage();
+	}
+
+	@TearDown
+	public void teardown() {
+		device.close();
+	}
+
+	@Benchmark
+	public BufferedImage bufferToImage() {
+		return device.toImage(buffer.duplicate());
+	}
+
+	@Benchmark
+	public byte[] imageToBytes() {
+		return ImageUtils.imageToBytes(image);
+	}
+}
@@ -0,0 +1,82 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sarxos.webcam.util.GrayBlurFilter;
+import com.github.sarxos.webcam.util.ImageUtils;
+import com.github.sarxos.webcam.util.jh.JHBlurFilter;
+import com.github.sarxos.webcam.util.jh.JHFlipFilter;
+import com.github.sarxos.webcam.util.jh.JHGrayFilter;
+import com.github.sarxos.webcam.util.jh.JHNormalizeFilter;
+
+
+/**
+ * Measures image filters from the util.jh package, with the same parameters as they are used with
+ * in the library, e.g. blur radius of the motion detector.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+	@Param({ "640x480", "1920x1080" })
+	public String resolution;
+
+	private final JHBlurFilter blur = new JHBlurFilter(6, 6, 1);
+	private final JHGrayFilter gray = new JHGrayFilter();
+	private final JHFlipFilter flip = new JHFlipFilter(JHFlipFilter.FLIP_90CW);
+	private final JHNormalizeFilter normalize = new JHNormalizeFilter();
+	private final GrayBlurFilter grayBlur = new GrayBlurFilter(6);
+
+	private BufferedImage frame;
+	private BufferedImage normalized;
+
+	@Setup
+	public void setup() {
+		frame = Frames.frame(Frames.parse(resolution), 1);
+		normalized = ImageUtils.createEmptyImage(frame);
+	}
+
+	@Benchmark
+	public BufferedImage blur() {
+		return blur.filter(frame, null);
+	}
+
+	@Benchmark
+	public BufferedImage gray() {
+		return gray.filter(frame, null);
+	}
+
+	@Benchmark
+	public BufferedImage flip() {
+		return flip.filter(frame, null);
+	}
+
+	@Benchmark
+	public BufferedImage normalize() {
+		return normalize.filter(frame, normalized);
+	}
+
+	@Benchmark
+	public BufferedImage grayBlurFused() {
+		return grayBlur.filter(frame, null);
+	}
+}
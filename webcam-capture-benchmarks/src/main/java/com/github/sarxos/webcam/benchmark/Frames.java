@@ -0,0 +1,119 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+
+/**
+ * Synthetic frames used by benchmarks. Frames contain random noise and a bright object, so they
+ * compress and detect similarly to the real camera images, and they are reproducible, since every
+ * frame is generated from the given seed.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public final class Frames {
+
+	private Frames() {
+		// utility class
+	}
+
+	/**
+	 * Parse resolution in the form of WIDTHxHEIGHT, e.g. 640x480.
+	 *
+	 * @param resolution the resolution string
+	 * @return Dimension
+	 */
+	public static Dimension parse(String resolution) {
+		final String[] parts = resolution.split("x");
+		return new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+	}
+
+	/**
+	 * Create frame of {@link BufferedImage#TYPE_3BYTE_BGR} type.
+	 *
+	 * @param width the frame width
+	 * @param height the frame height
+	 * @param seed the random seed
+	 * @param bx the horizontal position of bright object
+	 * @return New frame
+	 */
+	public static BufferedImage frame(int width, int height, long seed, int bx) {
+
+		final BufferedImage bi = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+		final Random random = new Random(seed);
+		final Graphics2D g2 = bi.createGraphics();
+
+		try {
+			g2.setColor(Color.DARK_GRAY);
+			g2.fillRect(0, 0, width, height);
+			for (int i = 0; i < width * height / 100; i++) {
+				g2.setColor(new Color(random.nextInt(0xFFFFFF)));
+				g2.fillRect(random.nextInt(width), random.nextInt(height), 2, 2);
+			}
+			g2.setColor(Color.WHITE);
+			g2.fillOval(bx, height / 3, width / 5, height / 5);
+		} finally {
+			g2.dispose();
+		}
+
+		return bi;
+	}
+
+	/**
+	 * Create frame of the given size.
+	 *
+	 * @param size the frame size
+	 * @param seed the random seed
+	 * @return New frame
+	 */
+	public static BufferedImage frame(Dimension size, long seed) {
+		return frame(size.width, size.height, seed, (int) (seed * 37 % Math.max(1, size.width - size.width / 5)));
+	}
+
+	/**
+	 * Encode frame as JPEG.
+	 *
+	 * @param bi the frame
+	 * @return JPEG bytes
+	 */
+	public static byte[] jpeg(BufferedImage bi) {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try {
+			ImageIO.write(bi, "JPG", baos);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Return frame pixels as RGB bytes, 3 bytes per pixel, the same layout as native devices use.
+	 *
+	 * @param bi the frame
+	 * @return RGB bytes
+	 */
+	public static byte[] rgb(BufferedImage bi) {
+
+		final int w = bi.getWidth();
+		final int h = bi.getHeight();
+		final byte[] bytes = new byte[w * h * 3];
+
+		for (int y = 0, i = 0; y < h; y++) {
+			for (int x = 0; x < w; x++) {
+				final int p = bi.getRGB(x, y);
+				bytes[i++] = (byte) (p >> 16);
+				bytes[i++] = (byte) (p >> 8);
+				bytes[i++] = (byte) p;
+			}
+		}
+
+		return bytes;
+	}
+}
@@ -0,0 +1,113 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sarxos.webcam.util.MjpegInputStream;
+
+
+/**
+ * Measures reading frames from the MJPEG stream, both decoded and as raw JPEG bytes. Stream is
+ * served from memory and it never ends.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MjpegBenchmark {
+
+	/**
+	 * Stream repeating the same bytes forever.
+	 */
+	private static final class CyclicInputStream extends InputStream {
+
+		private final byte[] bytes;
+		private int position = 0;
+
+		public CyclicInputStream(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int b = bytes[position] & 0xFF;
+			position = (position + 1) % bytes.length;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			final int n = Math.min(len, bytes.length - position);
+			System.arraycopy(bytes, position, b, off, n);
+			position = (position + n) % bytes.length;
+			return n;
+		}
+	}
+
+	@Param({ "640x480", "1920x1080" })
+	public String resolution;
+
+	/**
+	 * Should parts contain Content-Length header.
+	 */
+	@Param({ "true", "false" })
+	public boolean length;
+
+	private MjpegInputStream stream;
+
+	@Setup
+	public void setup() throws IOException {
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+		for (int i = 0; i < 4; i++) {
+
+			final byte[] jpeg = Frames.jpeg(Frames.frame(Frames.parse(resolution), i));
+			final StringBuilder sb = new StringBuilder();
+
+			sb.append("--mjpegframe\r\n");
+			sb.append("Content-Type: image/jpeg\r\n");
+			if (length) {
+				sb.append("Content-Length: ").append(jpeg.length).append("\r\n");
+			}
+			sb.append("\r\n");
+
+			baos.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+			baos.write(jpeg);
+			baos.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+		}
+
+		stream = new MjpegInputStream(new CyclicInputStream(baos.toByteArray()));
+	}
+
+	@Benchmark
+	public BufferedImage readFrame() throws IOException {
+		return stream.readFrame();
+	}
+
+	@Benchmark
+	public ByteBuffer readRawFrame() throws IOException {
+		return stream.readRawFrame();
+	}
+}
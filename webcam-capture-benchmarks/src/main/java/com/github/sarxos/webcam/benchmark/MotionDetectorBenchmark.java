@@ -0,0 +1,94 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sarxos.webcam.WebcamMotionDetectorAlgorithm;
+import com.github.sarxos.webcam.WebcamMotionDetectorDefaultAlgorithm;
+import com.github.sarxos.webcam.WebcamMotionDetectorParallelAlgorithm;
+import com.github.sarxos.webcam.WebcamMotionDetectorParallelAlgorithm.PreFilter;
+
+
+/**
+ * Compares motion detection of the default and the parallel algorithm. Images for detection are
+ * filtered in the setup, so filtering and detection are measured separately.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MotionDetectorBenchmark {
+
+	@Param({ "640x480", "1920x1080" })
+	public String resolution;
+
+	private WebcamMotionDetectorAlgorithm defaultAlgorithm;
+	private WebcamMotionDetectorAlgorithm parallelAlgorithm;
+	private WebcamMotionDetectorAlgorithm fusedAlgorithm;
+
+	private BufferedImage frame;
+
+	private BufferedImage defaultPrevious;
+	private BufferedImage defaultCurrent;
+	private BufferedImage parallelPrevious;
+	private BufferedImage parallelCurrent;
+
+	@Setup
+	public void setup() {
+
+		final Dimension size = Frames.parse(resolution);
+		final BufferedImage a = Frames.frame(size.width, size.height, 1, size.width / 5);
+		final BufferedImage b = Frames.frame(size.width, size.height, 2, size.width / 2);
+
+		defaultAlgorithm = new WebcamMotionDetectorDefaultAlgorithm();
+		defaultPrevious = defaultAlgorithm.filter(a);
+		defaultCurrent = defaultAlgorithm.filter(b);
+
+		parallelAlgorithm = new WebcamMotionDetectorParallelAlgorithm();
+		parallelPrevious = parallelAlgorithm.filter(a);
+		parallelCurrent = parallelAlgorithm.filter(b);
+
+		WebcamMotionDetectorParallelAlgorithm fused = new WebcamMotionDetectorParallelAlgorithm();
+		fused.setPreFilter(PreFilter.FUSED_GRAY_BLUR);
+		fusedAlgorithm = fused;
+
+		frame = a;
+	}
+
+	@Benchmark
+	public BufferedImage filterDefault() {
+		return defaultAlgorithm.filter(frame);
+	}
+
+	@Benchmark
+	public BufferedImage filterFused() {
+		return fusedAlgorithm.filter(frame);
+	}
+
+	@Benchmark
+	public boolean detectDefault() {
+		return defaultAlgorithm.detect(defaultPrevious, defaultCurrent);
+	}
+
+	@Benchmark
+	public boolean detectParallel() {
+		return parallelAlgorithm.detect(parallelPrevious, parallelCurrent);
+	}
+}
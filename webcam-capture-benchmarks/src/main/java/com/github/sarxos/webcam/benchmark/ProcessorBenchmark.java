@@ -0,0 +1,132 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamProcessor;
+import com.github.sarxos.webcam.WebcamTask;
+import com.github.sarxos.webcam.ds.cgt.WebcamGetImageTask;
+
+
+/**
+ * Measures the round-trip of the task submitted to {@link WebcamProcessor}, i.e. hand-off to the
+ * processor thread and back, in both processor modes, and compares it with the task executed
+ * directly in the caller thread, which is what happens for thread-safe drivers.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessorBenchmark {
+
+	private static final int DEVICES = 4;
+
+	private static final class NoopTask extends WebcamTask {
+
+		public NoopTask(SyntheticDriver driver, WebcamDevice device) {
+			super(driver, device);
+		}
+
+		@Override
+		protected void handle() {
+			// nothing, only the round-trip is measured
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Processor {
+
+		@Param({ "GLOBAL", "PER_DEVICE" })
+		public WebcamProcessor.Mode mode;
+
+		private SyntheticDriver synchronous;
+		private SyntheticDriver threadSafe;
+		private WebcamProcessor.Mode previous;
+		private final AtomicInteger next = new AtomicInteger(0);
+
+		@Setup(Level.Trial)
+		public void setup() {
+
+			final WebcamProcessor processor = WebcamProcessor.getInstance();
+
+			// mode can be changed only when processor is not running
+
+			previous = processor.getMode();
+			processor.shutdown();
+			processor.setMode(mode);
+
+			synchronous = new SyntheticDriver(DEVICES, new Dimension(176, 144), false);
+			threadSafe = new SyntheticDriver(1, new Dimension(176, 144), true);
+
+			for (WebcamDevice device : synchronous.getDevices()) {
+				device.open();
+			}
+			for (WebcamDevice device : threadSafe.getDevices()) {
+				device.open();
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void teardown() {
+			final WebcamProcessor processor = WebcamProcessor.getInstance();
+			processor.shutdown();
+			processor.setMode(previous);
+		}
+	}
+
+	/**
+	 * Every benchmark thread works with its own device.
+	 */
+	@State(Scope.Thread)
+	public static class Device {
+
+		private WebcamDevice device;
+
+		@Setup(Level.Trial)
+		public void setup(Processor processor) {
+			device = processor.synchronous.getDevices().get(processor.next.getAndIncrement() % DEVICES);
+		}
+	}
+
+	@Benchmark
+	public void noopTask(Processor processor, Device device) throws InterruptedException {
+		new NoopTask(processor.synchronous, device.device).process();
+	}
+
+	@Benchmark
+	@Threads(DEVICES)
+	public void noopTaskContended(Processor processor, Device device) throws InterruptedException {
+		new NoopTask(processor.synchronous, device.device).process();
+	}
+
+	@Benchmark
+	public void noopTaskDirect(Processor processor) throws InterruptedException {
+		new NoopTask(processor.threadSafe, processor.threadSafe.getDevices().get(0)).process();
+	}
+
+	@Benchmark
+	public BufferedImage getImageTask(Processor processor, Device device) {
+		return new WebcamGetImageTask(processor.synchronous, device.device).getImage();
+	}
+}
@@ -0,0 +1,157 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamStreamer;
+import com.github.sarxos.webcam.util.ImageUtils;
+import com.github.sarxos.webcam.util.JpegEncoder;
+
+
+/**
+ * Measures {@link WebcamStreamer}: JPEG encoding of a single device frame with the configured
+ * {@link JpegEncoder}, as done by the streamer for every frame, and the complete path from the synthetic device to the frame received by the
+ * client connected to the streamer.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamerBenchmark {
+
+	@Param({ "640x480" })
+	public String resolution;
+
+	@Param({ "THREAD_PER_CONNECTION", "SELECTOR" })
+	public WebcamStreamer.Mode mode;
+
+	private WebcamStreamer streamer;
+	private Socket socket;
+	private InputStream input;
+	private byte[] body = new byte[0];
+	private BufferedImage image;
+	private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+
+		Webcam.setDriver(new SyntheticDriver(1, Frames.parse(resolution), false));
+
+		final int port;
+		try (ServerSocket ss = new ServerSocket(0)) {
+			port = ss.getLocalPort();
+		}
+
+		// fps above 1000 means there is no delay between frames
+
+		streamer = new WebcamStreamer(port, Webcam.getDefault(), 10000, true, mode);
+		image = Webcam.getDefault().getImage();
+
+		for (int i = 0; socket == null; i++) {
+			try {
+				socket = new Socket("localhost", port);
+			} catch (IOException e) {
+				if (i == 50) {
+					throw e;
+				}
+				Thread.sleep(100);
+			}
+		}
+
+		final OutputStream os = socket.getOutputStream();
+		os.write("GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+		os.flush();
+
+		input = new BufferedInputStream(socket.getInputStream());
+
+		readHeader();
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		socket.close();
+		streamer.stop();
+	}
+
+	private String readHeader() throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		int b;
+		while ((b = input.read()) != -1) {
+			baos.write(b);
+			final int n = baos.size();
+			if (n >= 4 && b == '\n' && baos.toString("US-ASCII").endsWith("\r\n\r\n")) {
+				return baos.toString("US-ASCII");
+			}
+		}
+		throw new EOFException("Stream closed");
+	}
+
+	/**
+	 * Encode frame the same way streamer does, with the encoder from
+	 * {@link ImageUtils#getJpegEncoder()} and the output buffer reused between frames.
+	 */
+	@Benchmark
+	public int encode() throws IOException {
+		baos.reset();
+		ImageUtils.getJpegEncoder().encode(image, JpegEncoder.DEFAULT_QUALITY, baos);
+		return baos.size();
+	}
+
+	/**
+	 * Baseline: encode frame with plain {@link javax.imageio.ImageIO#write}, which looks up and
+	 * creates new image writer and output buffer for every frame.
+	 */
+	@Benchmark
+	public byte[] encodeImageIOBaseline() {
+		return Frames.jpeg(image);
+	}
+
+	@Benchmark
+	public int receiveFrame() throws IOException {
+
+		final String header = readHeader();
+		final int i = header.indexOf("Content-Length: ") + "Content-Length: ".length();
+		final int length = Integer.parseInt(header.substring(i, header.indexOf("\r\n", i)));
+
+		if (body.length < length + 2) {
+			body = new byte[length + 2];
+		}
+
+		// body and CRLF terminator
+
+		for (int n = 0, r; n < length + 2; n += r) {
+			if ((r = input.read(body, n, length + 2 - n)) < 0) {
+				throw new EOFException("Stream closed");
+			}
+		}
+
+		return length;
+	}
+}
@@ -0,0 +1,156 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.Dimension;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDevice.BufferAccess;
+import com.github.sarxos.webcam.WebcamException;
+
+
+/**
+ * Zero-latency synthetic device. Frames are rendered once, when device is created, and then served
+ * round-robin without any delay, so benchmarks measure the library code and not the camera.
+ * Images are created from RGB bytes in the same way as
+ * {@link com.github.sarxos.webcam.ds.buildin.WebcamDefaultDevice} does.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class SyntheticDevice implements WebcamDevice, BufferAccess {
+
+	private static final int[] BAND_OFFSETS = new int[] { 0, 1, 2 };
+	private static final int[] BITS = { 8, 8, 8 };
+	private static final int[] OFFSET = new int[] { 0 };
+
+	private final String name;
+	private final Dimension size;
+	private final byte[][] frames;
+	private final ComponentSampleModel smodel;
+	private final ComponentColorModel cmodel;
+
+	private volatile boolean open = false;
+	private int index = 0;
+
+	/**
+	 * Create new synthetic device.
+	 *
+	 * @param name the device name
+	 * @param size the frame size
+	 * @param count the number of distinct frames to serve
+	 */
+	public SyntheticDevice(String name, Dimension size, int count) {
+
+		if (count < 1) {
+			throw new IllegalArgumentException(String.format("Frames count must be positive (%d)", count));
+		}
+
+		this.name = name;
+		this.size = size;
+		this.frames = new byte[count][];
+
+		for (int i = 0; i < count; i++) {
+			frames[i] = Frames.rgb(Frames.frame(size, i));
+		}
+
+		this.smodel = new ComponentSampleModel(DataBuffer.TYPE_BYTE, size.width, size.height, 3, size.width * 3, BAND_OFFSETS);
+		this.cmodel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), BITS, false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+	}
+
+	private synchronized byte[] next() {
+		if (!open) {
+			throw new WebcamException("Device is not open");
+		}
+		final byte[] frame = frames[index];
+		index = (index + 1) % frames.length;
+		return frame;
+	}
+
+	/**
+	 * Convert RGB bytes into {@link BufferedImage}. Bytes are copied, so the image does not share
+	 * memory with the device.
+	 *
+	 * @param buffer the RGB bytes
+	 * @return New image
+	 */
+	public BufferedImage toImage(ByteBuffer buffer) {
+
+		final byte[] bytes = new byte[size.width * size.height * 3];
+		final byte[][] data = new byte[][] { bytes };
+
+		buffer.get(bytes);
+
+		final DataBufferByte dbuf = new DataBufferByte(data, bytes.length, OFFSET);
+		final WritableRaster raster = Raster.createWritableRaster(smodel, dbuf, null);
+		final BufferedImage bi = new BufferedImage(cmodel, raster, false, null);
+
+		bi.flush();
+
+		return bi;
+	}
+
+	@Override
+	public ByteBuffer getImageBytes() {
+		return ByteBuffer.wrap(next()).asReadOnlyBuffer();
+	}
+
+	@Override
+	public void getImageBytes(ByteBuffer target) {
+		target.put(next());
+	}
+
+	@Override
+	public BufferedImage getImage() {
+		return toImage(getImageBytes());
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Dimension[] getResolutions() {
+		return new Dimension[] { size };
+	}
+
+	@Override
+	public Dimension getResolution() {
+		return size;
+	}
+
+	@Override
+	public void setResolution(Dimension size) {
+		if (!this.size.equals(size)) {
+			throw new IllegalArgumentException("Synthetic device supports only " + this.size);
+		}
+	}
+
+	@Override
+	public void open() {
+		open = true;
+	}
+
+	@Override
+	public void close() {
+		open = false;
+	}
+
+	@Override
+	public void dispose() {
+		open = false;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+}
@@ -0,0 +1,44 @@
+package com.github.sarxos.webcam.benchmark;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDriver;
+
+
+/**
+ * Driver providing {@link SyntheticDevice} instances.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class SyntheticDriver implements WebcamDriver, WebcamDriver.ParallelDevices {
+
+	private final List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+	private final boolean threadSafe;
+
+	/**
+	 * Create new driver.
+	 *
+	 * @param count the number of devices
+	 * @param size the frame size
+	 * @param threadSafe should tasks bypass the processor
+	 */
+	public SyntheticDriver(int count, Dimension size, boolean threadSafe) {
+		for (int i = 0; i < count; i++) {
+			devices.add(new SyntheticDevice("Synthetic " + i, size, 4));
+		}
+		this.threadSafe = threadSafe;
+	}
+
+	@Override
+	public List<WebcamDevice> getDevices() {
+		return devices;
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return threadSafe;
+	}
+}
@@ -2,14 +2,13 @@ package com.github.sarxos.webcam.ds.ffmpegcli;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bridj.Platform;
 import org.slf4j.Logger;
@@ -17,13 +16,25 @@ import org.slf4j.LoggerFactory;
 
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamException;
+import com.github.sarxos.webcam.WebcamExceptionHandler;
+import com.github.sarxos.webcam.util.PooledImage;
 
 
 public class FFmpegCliDevice implements WebcamDevice, WebcamDevice.BufferAccess {
 
 	private static final Logger LOG = LoggerFactory.getLogger(FFmpegCliDevice.class);
 
+	private static final AtomicInteger READER_NUMBER = new AtomicInteger(0);
+
 	private volatile Process process = null;
+	private volatile FFmpegCliFrameReader reader = null;
+
+	/**
+	 * Frame from which the last image returned by {@link #getImage()} has been copied, and that
+	 * copy, so the same frame is not copied again.
+	 */
+	private PooledImage copied = null;
+	private BufferedImage copy = null;
 
 	private String path = "";
 	private String name = null;
@@ -48,54 +59,33 @@ public class FFmpegCliDevice implements WebcamDevice, WebcamDevice.BufferAccess
 		builder.redirectErrorStream(true); // so we can ignore the error stream
 
 		process = builder.start();
-	}
 
-	private byte[] readNextFrame() throws IOException {
-		InputStream out = process.getInputStream();
+		// frames are read by dedicated thread, so consumers never wait for the pipe
 
-		final int SIZE = arraySize();
-		final int CHUNK_SIZE = SIZE / 20;
+		final Dimension size = getResolution();
 
-		int cursor = 0;
-		byte[] buffer = new byte[SIZE];
+		reader = new FFmpegCliFrameReader(process.getInputStream(), size.width, size.height);
 
-		while (isAlive(process)) {
-			int no = out.available();
-			if (no >= CHUNK_SIZE) {
-
-				// If buffer is not full yet
-				if (cursor < SIZE) {
-					out.read(buffer, cursor, CHUNK_SIZE);
-					cursor += CHUNK_SIZE;
-				} else {
-					break;
-				}
-			}
-		}
-
-		return buffer;
+		final Thread t = new Thread(reader, "ffmpeg-reader-" + READER_NUMBER.incrementAndGet());
+		t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+		t.setDaemon(true);
+		t.start();
 	}
 
 	/**
-	 * Based on answer: https://stackoverflow.com/a/12062505/7030976
-	 *
-	 * @param bgr - byte array in bgr format
-	 * @return new image
+	 * @return The most recent frame, which must be released, or null if there is none
 	 */
-	private BufferedImage buildImage(byte[] bgr) {
-		BufferedImage image = new BufferedImage(resolution.width, resolution.height, BufferedImage.TYPE_3BYTE_BGR);
-		byte[] imageData = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
-		System.arraycopy(bgr, 0, imageData, 0, bgr.length);
+	private PooledImage readNextFrame() {
 
-		return image;
-	}
+		final FFmpegCliFrameReader reader = this.reader;
+		if (reader == null) {
+			return null;
+		}
 
-	private static boolean isAlive(Process p) {
 		try {
-			p.exitValue();
-			return false;
-		} catch (IllegalThreadStateException e) {
-			return true;
+			return reader.take();
+		} catch (InterruptedException e) {
+			throw new WebcamException(e);
 		}
 	}
 
@@ -158,6 +148,14 @@ public class FFmpegCliDevice implements WebcamDevice, WebcamDevice.BufferAccess
 			return;
 		}
 
+		reader.halt();
+		reader = null;
+
+		synchronized (this) {
+			copied = null;
+			copy = null;
+		}
+
 		process.destroy();
 
 		try {
@@ -197,24 +195,41 @@ public class FFmpegCliDevice implements WebcamDevice, WebcamDevice.BufferAccess
 			"-f", "rawvideo", // raw output
 			"-vf", "hflip", // flip image horizontally
 			"-vsync", "vfr", // avoid frame duplication
-			"-pix_fmt", "bgr24", // output format as bgr24
+			"-pix_fmt", "rgb24", // output format as rgb24, the same as pooled images
 			"-", // output to stdout
 		};
 	}
 
+	/**
+	 * Return copy of the most recent frame, because image given to the caller is never reused.
+	 * Use {@link #getImageBytes(ByteBuffer)}, e.g. with webcam image pooling, to read frames
+	 * without creating new images.
+	 */
 	@Override
-	public BufferedImage getImage() {
+	public synchronized BufferedImage getImage() {
 		if (!open.get()) {
 			return null;
 		}
 
+		final PooledImage frame = readNextFrame();
+		if (frame == null) {
+			return null;
+		}
+
 		try {
-			return buildImage(readNextFrame());
-		} catch (IOException e) {
-			throw new WebcamException(e);
+			if (frame != copied) {
+				copy = frame.copy();
+				copied = frame;
+			}
+			return copy;
+		} finally {
+			frame.release();
 		}
 	}
 
+	/**
+	 * Return copy of the most recent frame bytes in RGB format.
+	 */
 	@Override
 	public ByteBuffer getImageBytes() {
 
@@ -222,27 +237,27 @@ public class FFmpegCliDevice implements WebcamDevice, WebcamDevice.BufferAccess
 			return null;
 		}
 
-		final ByteBuffer buffer;
-		try {
-			buffer = ByteBuffer.allocate(arraySize());
-			buffer.put(readNextFrame());
-		} catch (IOException e) {
-			throw new WebcamException(e);
+		final PooledImage frame = readNextFrame();
+		if (frame == null) {
+			return null;
 		}
 
-		return buffer;
+		try {
+			return ByteBuffer.wrap(frame.getData().clone());
+		} finally {
+			frame.release();
+		}
 	}
 
 	@Override
 	public void getImageBytes(ByteBuffer byteBuffer) {
-		try {
-			byteBuffer.put(readNextFrame());
-		} catch (IOException e) {
-			throw new WebcamException(e);
+		final PooledImage frame = readNextFrame();
+		if (frame != null) {
+			try {
+				byteBuffer.put(frame.getData());
+			} finally {
+				frame.release();
+			}
 		}
 	}
-
-	private int arraySize() {
-		return resolution.width * resolution.height * 3;
-	}
 }
\ No newline at end of file
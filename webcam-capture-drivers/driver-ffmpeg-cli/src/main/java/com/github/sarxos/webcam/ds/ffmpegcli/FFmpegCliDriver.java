@@ -20,7 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-public class FFmpegCliDriver implements WebcamDriver, WebcamDiscoverySupport {
+public class FFmpegCliDriver implements WebcamDriver, WebcamDriver.ParallelDevices, WebcamDiscoverySupport, WebcamDiscoverySupport.NixVideoDevices {
 
 	private static final Logger LOG = LoggerFactory.getLogger(FFmpegCliDriver.class);
 
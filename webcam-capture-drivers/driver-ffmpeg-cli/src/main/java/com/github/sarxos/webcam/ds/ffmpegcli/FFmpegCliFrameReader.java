@@ -0,0 +1,170 @@
+package com.github.sarxos.webcam.ds.ffmpegcli;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.util.ImagePool;
+import com.github.sarxos.webcam.util.PooledImage;
+
+
+/**
+ * Reads raw RGB frames which ffmpeg writes to its standard output. Every frame is read with
+ * blocking reads straight into the bytes of an image leased from the small {@link ImagePool}
+ * owned by this reader, and then it replaces the frame waiting for the consumer. Consumer gets
+ * its own reference to the frame and releases it when done, so in the steady state reader cycles
+ * through the same three images: one being read, one waiting and one used by the consumer.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+class FFmpegCliFrameReader implements Runnable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FFmpegCliFrameReader.class);
+
+	/**
+	 * Number of idle images kept in the pool.
+	 */
+	private static final int POOL_CAPACITY = 3;
+
+	private final InputStream in;
+	private final ImagePool pool;
+
+	/**
+	 * Guards frames and notifies consumer waiting for the first one.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * Frame which has not been taken by consumer yet.
+	 */
+	private PooledImage ready = null;
+
+	/**
+	 * Frame taken by consumer most recently, reader holds one reference to it, so it can be given
+	 * again when there is no newer frame.
+	 */
+	private PooledImage last = null;
+
+	private volatile boolean running = true;
+
+	/**
+	 * @param in the ffmpeg output stream with raw RGB frames
+	 * @param width the frame width
+	 * @param height the frame height
+	 */
+	public FFmpegCliFrameReader(InputStream in, int width, int height) {
+		this.in = in;
+		this.pool = new ImagePool(new Dimension(width, height), POOL_CAPACITY);
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (running) {
+
+				final PooledImage frame = pool.lease();
+
+				if (!readFully(frame.getData())) {
+					frame.release();
+					break;
+				}
+
+				synchronized (lock) {
+
+					if (!running) {
+						frame.release();
+						break;
+					}
+
+					// frame which consumer did not take goes back to the pool
+
+					if (ready != null) {
+						ready.release();
+					}
+
+					ready = frame;
+					lock.notifyAll();
+				}
+			}
+		} catch (IOException e) {
+			if (running) {
+				LOG.error("Cannot read frame from ffmpeg", e);
+			}
+		} finally {
+			synchronized (lock) {
+				running = false;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private boolean readFully(byte[] data) throws IOException {
+		int offset = 0;
+		while (offset < data.length) {
+			final int n = in.read(data, offset, data.length - offset);
+			if (n < 0) {
+				if (offset > 0) {
+					LOG.debug("End of stream in the middle of frame, {} of {} bytes read", offset, data.length);
+				}
+				return false;
+			}
+			offset += n;
+		}
+		return true;
+	}
+
+	/**
+	 * Take the most recent frame. When no new frame has been read since the previous call, the
+	 * previous frame is returned again. Waits only for the very first frame. Every returned frame
+	 * must be released by the caller.
+	 *
+	 * @return The most recent frame or null if reader stopped before the first frame
+	 * @throws InterruptedException when interrupted while waiting for the first frame
+	 */
+	public PooledImage take() throws InterruptedException {
+		synchronized (lock) {
+
+			while (running && ready == null && last == null) {
+				lock.wait();
+			}
+
+			if (ready != null) {
+				if (last != null) {
+					last.release();
+				}
+				last = ready;
+				ready = null;
+			}
+
+			return last == null ? null : last.retain();
+		}
+	}
+
+	/**
+	 * @return True if reader is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Stop reading and give frames back to the pool. Frames taken by consumer stay valid until
+	 * they are released. Reader exits when the stream is closed.
+	 */
+	public void halt() {
+		synchronized (lock) {
+			running = false;
+			for (PooledImage frame : new PooledImage[] { ready, last }) {
+				if (frame != null) {
+					frame.release();
+				}
+			}
+			ready = null;
+			last = null;
+			lock.notifyAll();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.github.sarxos.webcam.ds.ffmpegcli;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.util.PooledImage;
+
+
+public class FFmpegCliFrameReaderTest {
+
+	/**
+	 * Stream returning at most few bytes from every read, like a pipe would.
+	 */
+	private static class ShortReadInputStream extends FilterInputStream {
+
+		public ShortReadInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, 5));
+		}
+	}
+
+	private static byte[] frames(int size, int count) {
+		final byte[] bytes = new byte[size * count];
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < size; j++) {
+				bytes[i * size + j] = (byte) (i + 1);
+			}
+		}
+		return bytes;
+	}
+
+	@Test
+	public void test_shortReadsDoNotCorruptFrames() throws InterruptedException {
+
+		final int width = 4;
+		final int height = 3;
+		final byte[] bytes = frames(width * height * 3, 3);
+
+		final FFmpegCliFrameReader reader = new FFmpegCliFrameReader(new ShortReadInputStream(new ByteArrayInputStream(bytes)), width, height);
+		reader.run();
+
+		final PooledImage frame = reader.take();
+		final BufferedImage image = frame.getImage();
+
+		Assert.assertNotNull(image);
+		Assert.assertEquals(width, image.getWidth());
+		Assert.assertEquals(0x030303, image.getRGB(0, 0) & 0xFFFFFF);
+		Assert.assertEquals(0x030303, image.getRGB(width - 1, height - 1) & 0xFFFFFF);
+		Assert.assertFalse(reader.isRunning());
+
+		frame.release();
+	}
+
+	@Test
+	public void test_takenFrameIsNotOverwritten() throws Exception {
+
+		final int width = 2;
+		final int height = 2;
+		final int size = width * height * 3;
+
+		final PipedOutputStream out = new PipedOutputStream();
+		final FFmpegCliFrameReader reader = new FFmpegCliFrameReader(new PipedInputStream(out, size), width, height);
+
+		final Thread t = new Thread(reader);
+		t.setDaemon(true);
+		t.start();
+
+		out.write(frames(size, 1));
+
+		final PooledImage first = reader.take();
+		Assert.assertEquals(0x010101, first.getImage().getRGB(0, 0) & 0xFFFFFF);
+		Assert.assertSame(first, reader.take());
+
+		final byte[] second = frames(size, 2);
+		out.write(second, size, size);
+		out.close();
+		t.join(5000);
+
+		final PooledImage next = reader.take();
+		Assert.assertNotSame(first, next);
+		Assert.assertEquals(0x020202, next.getImage().getRGB(0, 0) & 0xFFFFFF);
+		Assert.assertEquals(0x010101, first.getImage().getRGB(0, 0) & 0xFFFFFF);
+
+		first.release();
+		first.release();
+		next.release();
+	}
+
+	@Test
+	public void test_releasedFramesAreReused() throws Exception {
+
+		final int width = 2;
+		final int height = 2;
+		final int size = width * height * 3;
+
+		final PipedOutputStream out = new PipedOutputStream();
+		final FFmpegCliFrameReader reader = new FFmpegCliFrameReader(new PipedInputStream(out, size), width, height);
+		final Set<BufferedImage> images = Collections.newSetFromMap(new IdentityHashMap<BufferedImage, Boolean>());
+
+		final Thread t = new Thread(reader);
+		t.setDaemon(true);
+		t.start();
+
+		final byte[] bytes = frames(size, 50);
+
+		for (int i = 0; i < 50; i++) {
+
+			out.write(bytes, i * size, size);
+			out.flush();
+
+			// wait until the frame written above is read
+
+			PooledImage frame = null;
+			for (int j = 0; j < 500; j++) {
+				frame = reader.take();
+				if ((frame.getImage().getRGB(0, 0) & 0xFF) == i + 1) {
+					break;
+				}
+				frame.release();
+				frame = null;
+				Thread.sleep(1);
+			}
+
+			Assert.assertNotNull(frame);
+
+			images.add(frame.getImage());
+			frame.release();
+		}
+
+		out.close();
+		t.join(5000);
+		reader.halt();
+
+		Assert.assertTrue(images.size() <= 3);
+	}
+}
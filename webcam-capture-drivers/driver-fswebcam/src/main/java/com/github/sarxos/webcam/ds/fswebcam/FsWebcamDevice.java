@@ -26,6 +26,7 @@ import javax.imageio.ImageIO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.EncodedFrame;
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamDevice.Configurable;
 import com.github.sarxos.webcam.WebcamExceptionHandler;
@@ -40,6 +41,13 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 	public static final String PARAM_KEY_FRAMES = "frames";
 	public static final String PARAM_KEY_LOG = "log";
 	public static final String PARAM_KEY_VERBOSE = "verbose";
+	public static final String PARAM_KEY_STREAMING = "streaming";
+	public static final String PARAM_KEY_LOOP = "loop";
+
+	/**
+	 * Time to wait for the first frame in streaming mode (ms), in addition to the loop interval.
+	 */
+	private static final long STREAM_START_TIMEOUT = 10000;
 
 	public static final class ExecutorThreadFactory implements ThreadFactory {
 
@@ -107,6 +115,7 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 	private File pipe = null;
 	private ByteArrayOutputStream baos = new ByteArrayOutputStream();
 	private DataInputStream dis = null;
+	private FsWebcamPipeReader reader = null;
 
 	private AtomicBoolean open = new AtomicBoolean(false);
 	private AtomicBoolean disposed = new AtomicBoolean(false);
@@ -117,6 +126,8 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 	private String format = "jpeg";
 	private int compression = -1;
 	private boolean verbose = false;
+	private boolean streaming = false;
+	private int loop = 1;
 	
 	protected FsWebcamDevice(File vfile) {
 		this.vfile = vfile;
@@ -200,6 +211,10 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 			return null;
 		}
 
+		if (reader != null) {
+			return getStreamImage();
+		}
+
 		BufferedImage image = null;
 
 		try {
@@ -255,6 +270,27 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 		return image;
 	}
 
+	/**
+	 * @return The most recent image written by fswebcam running in loop
+	 */
+	private BufferedImage getStreamImage() {
+
+		final EncodedFrame frame;
+		try {
+			frame = reader.getFrame(loop * 1000L + STREAM_START_TIMEOUT);
+		} catch (InterruptedException e) {
+			throw new RuntimeException("Thread has been interrupted #" + counter, e);
+		}
+
+		if (frame == null) {
+			return null;
+		}
+
+		// the same frame is decoded only once
+
+		return frame.getImage();
+	}
+
 	private void executeFsWebcamProcess() throws IOException {
 		//@formatter:off
 		List<String> c = new ArrayList<String>(24);
@@ -276,6 +312,10 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 		c.add("--no-overlay");
 		c.add("--resolution");					// resolution
 		c.add(getResolutionString());
+		if (reader != null) {
+			c.add("--loop");					// capture every given number of seconds
+			c.add(String.valueOf(loop));
+		}
 		if (verbose) {
 			c.add("--verbose");					 
 		}
@@ -288,8 +328,11 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 		c.add(pipe.getAbsolutePath());			// output file (pipe)
 		//@formatter:on
 
-		String[] cmd = c.toArray(new String[c.size()]);
-		
+		execute(c.toArray(new String[c.size()]));
+	}
+
+	private void execute(String[] cmd) throws IOException {
+
 		if (LOG.isDebugEnabled()) {
 			StringBuilder sb = new StringBuilder();
 			for (String cc : cmd) {
@@ -342,6 +385,54 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 		} finally {
 			p.destroy();
 		}
+
+		if (streaming) {
+			if (!"jpeg".equals(format)) {
+				LOG.warn("Streaming is supported for jpeg format only, falling back to single frame capture");
+			} else if (loop < 1) {
+				LOG.info("Loop interval {} is shorter than one second, which fswebcam cannot do, falling back to single frame capture", loop);
+			} else {
+				startStreaming();
+			}
+		}
+	}
+
+	/**
+	 * Start single fswebcam process which writes frames to the pipe in loop, and the background
+	 * reader which reads them.
+	 */
+	private void startStreaming() {
+		try {
+			reader = new FsWebcamPipeReader(pipe);
+			executeFsWebcamProcess();
+		} catch (IOException e) {
+			if (reader != null) {
+				reader.halt();
+				reader = null;
+			}
+			throw new RuntimeException(e);
+		}
+
+		final FsWebcamPipeReader reader = this.reader;
+		final Process process = this.process;
+
+		EXECUTOR.execute(reader);
+		EXECUTOR.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				// nothing will be written to the pipe when fswebcam exits
+
+				try {
+					LOG.debug("FsWebcam process exited with code {}", process.waitFor());
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				reader.halt();
+			}
+		});
 	}
 
 	@Override
@@ -351,6 +442,11 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 			return;
 		}
 
+		if (reader != null) {
+			reader.halt();
+			reader = null;
+		}
+
 		if (dis != null) {
 			try {
 				dis.close();
@@ -361,12 +457,11 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 
 		if (process != null) {
 			process.destroy();
-		}
-
-		try {
-			process.waitFor();
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+			try {
+				process.waitFor();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
 		}
 
 		if (!pipe.delete()) {
@@ -402,6 +497,8 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 	 * <li>skip - Integer type - If set, it's passed to fswebcam as value of command-line option --skip.
 	 * <li>format - String type - Possible values are: "jpeg" (default) | "png". Passed to fswebcam as option: --[format]
 	 * <li>compression - Integer type - Passed to fswebcam together with format --[format] [compression]. Default is -1, which means automatic.
+	 * <li>streaming - Boolean type - If true, single fswebcam process is started on open and it writes frames to the pipe in loop, instead of new process being started for every frame. Supported for jpeg format only.
+	 * <li>loop - Integer type - Number of seconds between frames in streaming mode, passed to fswebcam as value of command-line option --loop. Default is 1. Fswebcam loop interval is given in whole seconds, so streaming mode gives at most one frame per second. Set it to 0 when faster rate is needed, then new process is started for every frame, as if streaming was disabled. For continuous capture at the camera frame rate use driver-ffmpeg-cli.
 	 * </ul>
 	 * All Boolean or Integer types may be also specified as String values. E.g. both "true" String or Boolean.TRUE are valid values.
 	 */
@@ -433,6 +530,14 @@ public class FsWebcamDevice implements WebcamDevice, Configurable {
 			if (value != null) {
 				compression  = Integer.parseInt(String.valueOf(value)); 
 			}
+			value = parameters.get(PARAM_KEY_STREAMING);
+			if (value != null) {
+				streaming = Boolean.parseBoolean(String.valueOf(value));
+			}
+			value = parameters.get(PARAM_KEY_LOOP);
+			if (value != null) {
+				loop = Math.max(0, Integer.parseInt(String.valueOf(value)));
+			}
 		}
 	}
 	
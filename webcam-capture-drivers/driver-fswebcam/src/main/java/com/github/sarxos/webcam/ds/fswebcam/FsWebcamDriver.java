@@ -13,7 +13,7 @@ import com.github.sarxos.webcam.WebcamDriver;
 import com.github.sarxos.webcam.ds.fswebcam.impl.VideoDeviceFilenameFilter;
 
 
-public class FsWebcamDriver implements WebcamDriver, WebcamDiscoverySupport {
+public class FsWebcamDriver implements WebcamDriver, WebcamDriver.ParallelDevices, WebcamDiscoverySupport, WebcamDiscoverySupport.NixVideoDevices {
 
 	private static final Logger LOG = LoggerFactory.getLogger(FsWebcamDriver.class);
 
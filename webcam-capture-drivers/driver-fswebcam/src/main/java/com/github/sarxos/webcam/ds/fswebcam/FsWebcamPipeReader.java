@@ -0,0 +1,113 @@
+package com.github.sarxos.webcam.ds.fswebcam;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.EncodedFrame;
+import com.github.sarxos.webcam.util.MjpegParser;
+
+
+/**
+ * Reads JPEG frames written to the pipe by the long-running capture process. Frames are found by
+ * scanning for SOI and EOI markers, so any stream of concatenated JPEG images can be read. Only the
+ * most recent frame is kept.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+class FsWebcamPipeReader implements Runnable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FsWebcamPipeReader.class);
+
+	private final InputStream input;
+	private final Closeable source;
+	private final CountDownLatch first = new CountDownLatch(1);
+	private volatile EncodedFrame frame = null;
+	private volatile boolean running = true;
+
+	/**
+	 * @param pipe the named pipe to read frames from
+	 * @throws IOException when pipe cannot be open
+	 */
+	public FsWebcamPipeReader(File pipe) throws IOException {
+
+		// pipe is opened for both reading and writing, so the open does not block and end of
+		// stream is not reached when writer closes the pipe
+
+		final FileChannel channel = new RandomAccessFile(pipe, "rw").getChannel();
+
+		this.input = Channels.newInputStream(channel);
+		this.source = channel;
+	}
+
+	/**
+	 * @param input the stream to read frames from
+	 */
+	FsWebcamPipeReader(InputStream input) {
+		this.input = input;
+		this.source = input;
+	}
+
+	@Override
+	public void run() {
+
+		final MjpegParser parser = new MjpegParser(input);
+
+		try {
+			ByteBuffer bytes;
+			while (running && (bytes = parser.next()) != null) {
+				frame = new EncodedFrame(EncodedFrame.JPEG, MjpegParser.toBytes(bytes));
+				first.countDown();
+			}
+		} catch (ClosedChannelException e) {
+			LOG.trace("Pipe has been closed", e);
+		} catch (IOException e) {
+			if (running) {
+				LOG.error("Cannot read frame from pipe", e);
+			}
+		} finally {
+			running = false;
+			first.countDown();
+		}
+	}
+
+	/**
+	 * @param timeout the maximum time to wait for the first frame in milliseconds
+	 * @return The most recent frame or null if no frame has been read or reader has stopped
+	 * @throws InterruptedException when interrupted while waiting for the first frame
+	 */
+	public EncodedFrame getFrame(long timeout) throws InterruptedException {
+		first.await(timeout, TimeUnit.MILLISECONDS);
+		return running ? frame : null;
+	}
+
+	/**
+	 * @return True if reader has not been stopped and has not reached end of stream
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Stop reading and close the pipe.
+	 */
+	public void halt() {
+		running = false;
+		try {
+			source.close();
+		} catch (IOException e) {
+			LOG.debug("Cannot close pipe", e);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.github.sarxos.webcam.ds.fswebcam;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.EncodedFrame;
+import com.github.sarxos.webcam.util.ImageUtils;
+
+
+public class FsWebcamPipeReaderTest {
+
+	private static byte[] jpeg(Color color) {
+		final BufferedImage image = new BufferedImage(32, 24, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g2 = image.createGraphics();
+		g2.setColor(color);
+		g2.fillRect(0, 0, 32, 24);
+		g2.dispose();
+		return ImageUtils.toByteArray(image, ImageUtils.FORMAT_JPG);
+	}
+
+	/**
+	 * Wait until reader returns given frame.
+	 */
+	private static boolean await(FsWebcamPipeReader reader, byte[] bytes) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			final EncodedFrame frame = reader.getFrame(100);
+			if (frame != null && Arrays.equals(bytes, frame.getBytes())) {
+				return true;
+			}
+			Thread.sleep(10);
+		}
+		return false;
+	}
+
+	private static void write(OutputStream os, byte[] bytes, int chunk) throws IOException {
+		for (int i = 0; i < bytes.length; i += chunk) {
+			os.write(bytes, i, Math.min(chunk, bytes.length - i));
+			os.flush();
+		}
+	}
+
+	@Test
+	public void test_latestFrameIsReadFromStream() throws Exception {
+
+		final byte[] red = jpeg(Color.RED);
+		final byte[] blue = jpeg(Color.BLUE);
+
+		final PipedOutputStream pos = new PipedOutputStream();
+		final FsWebcamPipeReader reader = new FsWebcamPipeReader(new PipedInputStream(pos, 64 * 1024));
+		final Thread thread = new Thread(reader);
+
+		thread.start();
+
+		// garbage between frames is skipped, frames split into many writes are joined
+
+		write(pos, new byte[] { 1, 2, 3 }, 3);
+		write(pos, red, red.length);
+
+		Assert.assertTrue(await(reader, red));
+
+		write(pos, blue, 7);
+
+		Assert.assertTrue(await(reader, blue));
+
+		reader.halt();
+		pos.close();
+		thread.join(5000);
+
+		Assert.assertFalse(thread.isAlive());
+		Assert.assertFalse(reader.isRunning());
+		Assert.assertNull(reader.getFrame(0));
+	}
+
+	@Test
+	public void test_readerSurvivesWriterReopeningFifo() throws Exception {
+
+		Assume.assumeTrue(new File("/usr/bin/mkfifo").canExecute());
+
+		final File fifo = new File(System.getProperty("java.io.tmpdir"), "fswebcam-test-" + System.nanoTime() + ".mjpeg");
+
+		Assert.assertEquals(0, Runtime.getRuntime().exec(new String[] { "/usr/bin/mkfifo", fifo.getAbsolutePath() }).waitFor());
+
+		try {
+
+			final byte[] red = jpeg(Color.RED);
+			final byte[] blue = jpeg(Color.BLUE);
+
+			final FsWebcamPipeReader reader = new FsWebcamPipeReader(fifo);
+			final Thread thread = new Thread(reader);
+
+			thread.start();
+
+			// every writer closes the pipe, this must not end the stream
+
+			try (FileOutputStream fos = new FileOutputStream(fifo)) {
+				write(fos, red, 100);
+			}
+
+			Assert.assertTrue(await(reader, red));
+
+			try (FileOutputStream fos = new FileOutputStream(fifo)) {
+				write(fos, blue, 100);
+			}
+
+			Assert.assertTrue(await(reader, blue));
+			Assert.assertTrue(reader.isRunning());
+
+			reader.halt();
+			thread.join(5000);
+
+			Assert.assertFalse(thread.isAlive());
+
+		} finally {
+			fifo.delete();
+		}
+	}
+}
@@ -28,7 +28,7 @@ import com.github.sarxos.webcam.util.Initializable;
 import com.github.sarxos.webcam.util.WebcamInitializer;
 
 
-public class Gst1Device implements WebcamDevice, Initializable {
+public class Gst1Device implements WebcamDevice, WebcamDevice.FrameNotifier, Initializable {
 
 	/**
 	 * Logger.
@@ -62,6 +62,7 @@ public class Gst1Device implements WebcamDevice, Initializable {
 	};
 
 	private final Exchanger<BufferedImage> exchanger = new Exchanger<>();
+	private final AppSinkNewSampleListener sampleListener = new AppSinkNewSampleListener(exchanger, this);
 	private final WebcamInitializer initializer = new WebcamInitializer(this);
 	private final String name;
 
@@ -270,7 +271,7 @@ public class Gst1Device implements WebcamDevice, Initializable {
 		LOG.debug("Creating video sink with caps {}", caps);
 
 		sink.set("emit-signals", true);
-		sink.connect(new AppSinkNewSampleListener(exchanger));
+		sink.connect(sampleListener);
 		sink.setCaps(caps);
 		sink.setMaximumLateness(LATENESS, TimeUnit.MILLISECONDS);
 		sink.setQOSEnabled(true);
@@ -397,6 +398,11 @@ public class Gst1Device implements WebcamDevice, Initializable {
 		}
 	}
 
+	@Override
+	public void setFrameListener(FrameListener listener) {
+		sampleListener.setFrameListener(listener);
+	}
+
 	@Override
 	public void close() {
 
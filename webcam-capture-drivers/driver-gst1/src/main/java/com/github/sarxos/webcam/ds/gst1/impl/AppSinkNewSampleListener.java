@@ -14,6 +14,8 @@ import org.freedesktop.gstreamer.elements.AppSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDevice.FrameListener;
 import com.github.sarxos.webcam.WebcamException;
 
 
@@ -30,9 +32,21 @@ public class AppSinkNewSampleListener implements AppSink.NEW_SAMPLE {
 	private static final Logger LOG = LoggerFactory.getLogger(AppSinkNewSampleListener.class);
 
 	private final Exchanger<BufferedImage> exchanger;
+	private final WebcamDevice device;
+	private volatile FrameListener listener;
 
-	public AppSinkNewSampleListener(Exchanger<BufferedImage> exchanger) {
+	public AppSinkNewSampleListener(Exchanger<BufferedImage> exchanger, WebcamDevice device) {
 		this.exchanger = exchanger;
+		this.device = device;
+	}
+
+	/**
+	 * Set listener notified when new frame is ready to be exchanged.
+	 *
+	 * @param listener the frame listener, may be null
+	 */
+	public void setFrameListener(FrameListener listener) {
+		this.listener = listener;
 	}
 
 	public void rgbFrame(boolean isPrerollFrame, int width, int height, IntBuffer rgb) {
@@ -44,6 +58,14 @@ public class AppSinkNewSampleListener implements AppSink.NEW_SAMPLE {
 
 		rgb.get(pixels, 0, width * height);
 
+		// let the consumer know there is a frame waiting for the exchange, so it does not have
+		// to poll the device
+
+		final FrameListener l = listener;
+		if (l != null) {
+			l.frameReady(device);
+		}
+
 		try {
 			exchanger.exchange(image);
 		} catch (InterruptedException e) {
@@ -11,8 +11,6 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 
-import javax.imageio.ImageIO;
-
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
@@ -23,6 +21,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.AuthCache;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.protocol.HttpClientContext;
@@ -31,11 +30,14 @@ import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.EncodedFrame;
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamDevice.BufferAccess;
+import com.github.sarxos.webcam.WebcamDevice.EncodedFrameSource;
 import com.github.sarxos.webcam.WebcamDevice.FPSSource;
 import com.github.sarxos.webcam.WebcamException;
 import com.github.sarxos.webcam.util.ImageUtils;
@@ -43,11 +45,14 @@ import com.github.sarxos.webcam.util.MjpegInputStream;
 
 
 /**
- * IP camera device.
+ * IP camera device. Frames are kept in the form received from the camera and they are decoded only
+ * when image is requested, so they can be forwarded without decoding (see
+ * {@link EncodedFrameSource}). In {@link IpCamMode#PUSH} mode the stream can be read either by
+ * dedicated thread or by the selector threads shared by all cameras, see {@link IpCamTransport}.
  *
  * @author Bartosz Firyn (sarxos)
  */
-public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
+public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess, EncodedFrameSource {
 
 	/**
 	 * Logger.
@@ -56,6 +61,8 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 
 	private interface ImageReader extends FPSSource {
 
+		EncodedFrame readFrame() throws InterruptedException;
+
 		BufferedImage readImage() throws InterruptedException;
 
 		void halt();
@@ -66,9 +73,9 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 	private final class PushImageReader extends Thread implements ImageReader {
 
 		private final URI uri;
+		private final Object lock = new Object();
 		private volatile boolean running = true;
-		private volatile BufferedImage image = null;
-		private BufferedImage tmp;
+		private volatile EncodedFrame frame = null;
 		private volatile double fps = 0;
 
 		public PushImageReader(final URI uri) {
@@ -89,37 +96,62 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 
 			long t1;
 			long t2;
+			byte[] bytes;
 
-			while (running) {
-				try (final MjpegInputStream stream = request(uri)) {
-					do {
-						t1 = System.currentTimeMillis();
-						if ((tmp = stream.readFrame()) != null) {
-							image = tmp;
+			try {
+				while (running) {
+					try (final MjpegInputStream stream = request(uri)) {
+						do {
+							t1 = System.currentTimeMillis();
+							if ((bytes = stream.readFrameBytes()) != null) {
+								update(new EncodedFrame(EncodedFrame.JPEG, bytes));
+							}
+							t2 = System.currentTimeMillis();
+							fps = (double) 1000 / (t2 - t1 + 1);
+						} while (running && !stream.isClosed());
+					} catch (IOException e) {
+						if (e instanceof EOFException) { // EOF, ignore error and recreate stream
+							continue;
 						}
-						t2 = System.currentTimeMillis();
-						fps = (double) 1000 / (t2 - t1 + 1);
-					} while (running && !stream.isClosed());
-				} catch (IOException e) {
-					if (e instanceof EOFException) { // EOF, ignore error and recreate stream
-						continue;
+						LOG.error("Cannot read MJPEG frame", e);
+					}
+				}
+			} finally {
+				halt();
+			}
+		}
+
+		private void update(EncodedFrame frame) {
+			synchronized (lock) {
+				this.frame = frame;
+				lock.notifyAll();
+			}
+		}
+
+		@Override
+		public EncodedFrame readFrame() throws InterruptedException {
+			if (frame == null) {
+				synchronized (lock) {
+					while (running && frame == null) {
+						lock.wait();
 					}
-					LOG.error("Cannot read MJPEG frame", e);
 				}
 			}
+			return frame;
 		}
 
 		@Override
 		public BufferedImage readImage() throws InterruptedException {
-			while (running && image == null) {
-				Thread.sleep(10);
-			}
-			return image;
+			final EncodedFrame frame = readFrame();
+			return frame == null ? null : frame.getImage();
 		}
 
 		@Override
 		public void halt() {
-			running = false;
+			synchronized (lock) {
+				running = false;
+				lock.notifyAll();
+			}
 		}
 
 		@Override
@@ -138,14 +170,16 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 		}
 
 		@Override
-		public BufferedImage readImage() throws InterruptedException {
+		public EncodedFrame readFrame() throws InterruptedException {
 
 			long t1;
 			long t2;
 
 			t1 = System.currentTimeMillis();
-			try (final InputStream is = request(uri)) {
-				return ImageIO.read(is);
+			try {
+				final HttpEntity entity = request(uri);
+				final Header type = entity.getContentType();
+				return new EncodedFrame(codec(type), EntityUtils.toByteArray(entity));
 			} catch (IOException e) {
 				throw new WebcamException(e);
 			} finally {
@@ -154,14 +188,28 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 			}
 		}
 
-		private InputStream request(final URI uri) {
+		private HttpEntity request(final URI uri) {
 			try {
-				return get(uri, false);
+				return execute(uri, false);
 			} catch (Exception e) {
 				throw new WebcamException("Cannot download image", e);
 			}
 		}
 
+		@Override
+		public BufferedImage readImage() throws InterruptedException {
+			return readFrame().getImage();
+		}
+
+		private String codec(final Header type) {
+			if (type == null) {
+				return EncodedFrame.JPEG;
+			}
+			final String value = type.getValue();
+			final int i = value.indexOf(';');
+			return (i < 0 ? value : value.substring(0, i)).trim().toLowerCase();
+		}
+
 		@Override
 		public void halt() {
 			// do nothing, no need to stop this reader
@@ -178,6 +226,115 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 		}
 	}
 
+	/**
+	 * Reads MJPEG stream with the selector threads shared by all cameras. Frames are decoded in the
+	 * thread requesting image. Connection is re-established when it has been lost.
+	 */
+	private final class SelectorImageReader implements ImageReader, IpCamEventLoop.FrameHandler {
+
+		/**
+		 * Delay before reconnecting (ms).
+		 */
+		private static final long RECONNECT_DELAY = 1000;
+
+		private final URI uri;
+		private final IpCamEventLoop loop = IpCamEventLoop.getInstance();
+		private final Object lock = new Object();
+		private volatile IpCamEventLoop.Connection connection = null;
+		private volatile boolean running = false;
+		private volatile EncodedFrame frame = null;
+		private volatile Throwable error = null;
+		private volatile double fps = 0;
+
+		public SelectorImageReader(final URI uri) {
+			this.uri = uri;
+		}
+
+		@Override
+		public void start() {
+			running = true;
+			connection = loop.connect(uri, getAuth(), this);
+		}
+
+		@Override
+		public void frameReceived(EncodedFrame frame) {
+
+			final EncodedFrame previous = this.frame;
+			if (previous != null) {
+				fps = (double) 1000 / (frame.getTimestamp() - previous.getTimestamp() + 1);
+			}
+
+			synchronized (lock) {
+				this.frame = frame;
+				lock.notifyAll();
+			}
+		}
+
+		@Override
+		public void connectionClosed(Throwable cause) {
+
+			// camera does not serve MJPEG, there is no point to reconnect
+
+			if (cause instanceof WebcamException) {
+				synchronized (lock) {
+					error = cause;
+					lock.notifyAll();
+				}
+				return;
+			}
+
+			LOG.debug("Connection to {} lost, reconnecting", uri);
+
+			loop.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					if (running) {
+						connection = loop.connect(uri, getAuth(), SelectorImageReader.this);
+					}
+				}
+			}, RECONNECT_DELAY);
+		}
+
+		@Override
+		public EncodedFrame readFrame() throws InterruptedException {
+			if (frame == null) {
+				synchronized (lock) {
+					while (running && frame == null && error == null) {
+						lock.wait();
+					}
+				}
+				if (frame == null && error != null) {
+					throw new WebcamException("Cannot read MJPEG stream from " + uri, error);
+				}
+			}
+			return frame;
+		}
+
+		@Override
+		public BufferedImage readImage() throws InterruptedException {
+			final EncodedFrame frame = readFrame();
+			return frame == null ? null : loop.decode(frame);
+		}
+
+		@Override
+		public void halt() {
+			synchronized (lock) {
+				running = false;
+				lock.notifyAll();
+			}
+			final IpCamEventLoop.Connection connection = this.connection;
+			if (connection != null) {
+				connection.close();
+			}
+		}
+
+		@Override
+		public double getFPS() {
+			return fps;
+		}
+	}
+
 	private final String name;
 	private final URL url;
 	private final IpCamMode mode;
@@ -186,6 +343,7 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 	private final HttpClient client;
 	private final HttpContext context;
 	private ImageReader reader;
+	private IpCamTransport transport = IpCamTransport.BLOCKING;
 
 	private boolean open = false;
 
@@ -251,6 +409,9 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 			case PULL:
 				return new PullImageReader(toURI(url));
 			case PUSH:
+				if (transport == IpCamTransport.SELECTOR) {
+					return new SelectorImageReader(toURI(url));
+				}
 				return new PushImageReader(toURI(url));
 			default:
 				throw new WebcamException("Unsupported mode " + mode);
@@ -282,6 +443,10 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 	}
 
 	private InputStream get(final URI uri, boolean withoutImageMime) throws UnsupportedOperationException, IOException {
+		return execute(uri, withoutImageMime).getContent();
+	}
+
+	private HttpEntity execute(final URI uri, boolean withoutImageMime) throws IOException {
 
 		final HttpGet get = new HttpGet(uri);
 		final HttpResponse respone = client.execute(get, context);
@@ -299,7 +464,7 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 			}
 		}
 
-		return entity.getContent();
+		return entity;
 	}
 
 	@Override
@@ -365,6 +530,18 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 		}
 	}
 
+	@Override
+	public synchronized EncodedFrame getEncodedFrame() {
+		if (!open) {
+			return null;
+		}
+		try {
+			return reader.readFrame();
+		} catch (InterruptedException e) {
+			throw new WebcamException(e);
+		}
+	}
+
 	/**
 	 * This method will send HTTP HEAD request to the camera URL to check whether it's online or
 	 * offline. It's online when this request succeed and it's offline if any exception occurs or
@@ -373,14 +550,36 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 	 * @return True if camera is online, false otherwise
 	 */
 	public boolean isOnline() {
+		return isOnline(0);
+	}
+
+	/**
+	 * The same as {@link #isOnline()}, but camera is considered offline when it does not respond
+	 * within the given timeout.
+	 *
+	 * @param timeout the connect and read timeout in milliseconds, zero means no timeout
+	 * @return True if camera is online, false otherwise
+	 */
+	public boolean isOnline(int timeout) {
 		LOG.debug("Checking online status for {} at {}", getName(), getURL());
+		final HttpHead head = new HttpHead(toURI(getURL()));
+		if (timeout > 0) {
+			head.setConfig(RequestConfig
+				.custom()
+				.setConnectTimeout(timeout)
+				.setConnectionRequestTimeout(timeout)
+				.setSocketTimeout(timeout)
+				.build());
+		}
 		try {
 			return client
-				.execute(new HttpHead(toURI(getURL())))
+				.execute(head)
 				.getStatusLine()
 				.getStatusCode() != 404;
 		} catch (Exception e) {
 			return false;
+		} finally {
+			head.releaseConnection();
 		}
 	}
 
@@ -392,7 +591,7 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 			reader.start();
 
 			try {
-				reader.readImage();
+				reader.readFrame();
 			} catch (InterruptedException e) {
 				throw new WebcamException(e);
 			}
@@ -420,6 +619,26 @@ public class IpCamDevice implements WebcamDevice, FPSSource, BufferAccess {
 		return auth;
 	}
 
+	public IpCamTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Set how the MJPEG stream is read in {@link IpCamMode#PUSH} mode. Transport cannot be changed
+	 * when camera is open.
+	 *
+	 * @param transport the transport to be used
+	 */
+	public void setTransport(IpCamTransport transport) {
+		if (transport == null) {
+			throw new IllegalArgumentException("Transport cannot be null");
+		}
+		if (open) {
+			throw new IllegalStateException("Cannot change transport when camera is open, please close it first");
+		}
+		this.transport = transport;
+	}
+
 	@Override
 	public void dispose() {
 		// ignore
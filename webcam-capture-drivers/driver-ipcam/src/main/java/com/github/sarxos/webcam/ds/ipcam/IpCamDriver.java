@@ -1,18 +1,7 @@
 package com.github.sarxos.webcam.ds.ipcam;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,91 +9,29 @@ import org.slf4j.LoggerFactory;
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamDiscoverySupport;
 import com.github.sarxos.webcam.WebcamDriver;
-import com.github.sarxos.webcam.WebcamExceptionHandler;
 
 
 /**
- * IP camera driver.
+ * IP camera driver. When discovery scanning is enabled, online status of the cameras is cached
+ * and refreshed in background, so scans do not wait for the cameras (see {@link IpCamOnlineCache}).
  *
  * @author Bartosz Firyn (sarxos)
  */
 public class IpCamDriver implements WebcamDriver, WebcamDiscoverySupport {
 
-	/**
-	 * Thread factory.
-	 *
-	 * @author Bartosz Firyn (sarxos)
-	 */
-	private static class DeviceCheckThreadFactory implements ThreadFactory {
-
-		/**
-		 * Next number for created thread.
-		 */
-		private AtomicInteger number = new AtomicInteger();
-
-		@Override
-		public Thread newThread(Runnable r) {
-			Thread t = new Thread(r, "online-check-" + number.incrementAndGet());
-			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
-			t.setDaemon(true);
-			return t;
-		}
-	}
-
 	/**
 	 * Logger.
 	 */
 	private static final Logger LOG = LoggerFactory.getLogger(IpCamDriver.class);
 
-	/**
-	 * Thread factory.
-	 */
-	private static final ThreadFactory THREAD_FACTORY = new DeviceCheckThreadFactory();
-
-	/**
-	 * The callable to query single IP camera device. Callable getter will return device if it's
-	 * online or null if it's offline.
-	 *
-	 * @author Bartosz Firyn (sarxos)
-	 */
-	private static class DeviceOnlineCheck implements Callable<IpCamDevice> {
-
-		/**
-		 * IP camera device.
-		 */
-		private final IpCamDevice device;
-
-		private final CountDownLatch latch;
-
-		/**
-		 * The callable to query single IP camera device.
-		 *
-		 * @param device the device to check online status
-		 * @param latch the count down latch
-		 */
-		public DeviceOnlineCheck(IpCamDevice device, CountDownLatch latch) {
-			this.device = device;
-			this.latch = latch;
-		}
-
-		@Override
-		public IpCamDevice call() throws Exception {
-			try {
-				return device.isOnline() ? device : null;
-			} finally {
-				latch.countDown();
-			}
-		}
-	}
-
 	/**
 	 * Discovery scan interval in milliseconds.
 	 */
 	private volatile long scanInterval = 10000;
 
 	/**
-	 * Discovery scan timeout in milliseconds. This is maximum time which executor will wait for
-	 * online detection to succeed.
+	 * Discovery scan timeout in milliseconds. This is maximum time for which camera is probed, and
+	 * the maximum time for which scan waits for cameras which status is not known yet.
 	 */
 	private volatile long scanTimeout = 10000;
 
@@ -114,9 +41,9 @@ public class IpCamDriver implements WebcamDriver, WebcamDiscoverySupport {
 	private volatile boolean scanning = false;
 
 	/**
-	 * Execution service.
+	 * Online status cache.
 	 */
-	private final ExecutorService executor = Executors.newCachedThreadPool(THREAD_FACTORY);
+	private final IpCamOnlineCache cache = new IpCamOnlineCache();
 
 	public IpCamDriver() {
 		this(null, false);
@@ -147,47 +74,17 @@ public class IpCamDriver implements WebcamDriver, WebcamDiscoverySupport {
 			return Collections.unmodifiableList((List<? extends WebcamDevice>) IpCamDeviceRegistry.getIpCameras());
 		}
 
-		// if scanning is enabled, this method will first perform HTTP lookup
-		// for every IP camera device and only online devices will be returned
-
-		List<IpCamDevice> devices = IpCamDeviceRegistry.getIpCameras();
-		CountDownLatch latch = new CountDownLatch(devices.size());
-		List<Future<IpCamDevice>> futures = new ArrayList<Future<IpCamDevice>>(devices.size());
-
-		for (IpCamDevice device : devices) {
-			futures.add(executor.submit(new DeviceOnlineCheck(device, latch)));
-		}
+		// if scanning is enabled, only online devices will be returned, status is taken
+		// from cache and expired entries are refreshed in background
 
+		final List<IpCamDevice> online;
 		try {
-			if (!latch.await(scanTimeout, TimeUnit.MILLISECONDS)) {
-				for (Future<IpCamDevice> future : futures) {
-					if (!future.isDone()) {
-						future.cancel(true);
-					}
-				}
-			}
-		} catch (InterruptedException e1) {
+			online = cache.getOnline(IpCamDeviceRegistry.getIpCameras(), (int) Math.min(scanTimeout, Integer.MAX_VALUE));
+		} catch (InterruptedException e) {
+			LOG.debug("Interrupted while waiting for online check", e);
 			return null;
 		}
 
-		List<IpCamDevice> online = new ArrayList<IpCamDevice>(devices.size());
-
-		for (Future<IpCamDevice> future : futures) {
-
-			IpCamDevice device = null;
-			try {
-				if ((device = future.get()) != null) {
-					online.add(device);
-				}
-			} catch (InterruptedException e) {
-				LOG.debug(e.getMessage(), e);
-			} catch (CancellationException e) {
-				continue;
-			} catch (ExecutionException e) {
-				LOG.error(e.getMessage(), e);
-			}
-		}
-
 		return Collections.unmodifiableList((List<? extends WebcamDevice>) online);
 	}
 
@@ -260,4 +157,11 @@ public class IpCamDriver implements WebcamDriver, WebcamDiscoverySupport {
 		}
 		this.scanTimeout = scanTimeout;
 	}
+
+	/**
+	 * @return Online status cache used by discovery scans
+	 */
+	public IpCamOnlineCache getOnlineCache() {
+		return cache;
+	}
 }
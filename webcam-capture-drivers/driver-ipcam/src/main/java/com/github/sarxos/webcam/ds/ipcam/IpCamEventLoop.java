@@ -0,0 +1,513 @@
+package com.github.sarxos.webcam.ds.ipcam;
+
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.EncodedFrame;
+import com.github.sarxos.webcam.WebcamException;
+import com.github.sarxos.webcam.WebcamExceptionHandler;
+import com.github.sarxos.webcam.util.MjpegParser;
+
+
+/**
+ * Non-blocking transport shared by all IP cameras using {@link IpCamTransport#SELECTOR}. MJPEG
+ * streams of all cameras are read by a small number of selector threads and parsed in place, and
+ * only the most recent frame from every read is kept, still encoded. Frames are decoded only when
+ * image is requested, in the requesting thread, with the number of concurrent decodings bounded.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+final class IpCamEventLoop {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IpCamEventLoop.class);
+
+	/**
+	 * Connection is closed when no bytes have been received for this long (ms).
+	 */
+	private static final long IDLE_TIMEOUT = 30000;
+
+	/**
+	 * Maximum length of HTTP response header.
+	 */
+	private static final int HEADER_MAX_LENGTH = 8 * 1024;
+
+	/**
+	 * Maximum number of reads from single connection in one selection, so busy camera cannot
+	 * starve the other ones.
+	 */
+	private static final int READS_PER_SELECT = 16;
+
+	/**
+	 * Receives frames from the connection.
+	 */
+	interface FrameHandler {
+
+		/**
+		 * New frame has been received. Invoked from the selector thread, must not block.
+		 *
+		 * @param frame the encoded frame
+		 */
+		void frameReceived(EncodedFrame frame);
+
+		/**
+		 * Connection has been closed because of an error or because camera closed the stream. Not
+		 * invoked when connection is closed by {@link Connection#close()}.
+		 *
+		 * @param cause the failure cause
+		 */
+		void connectionClosed(Throwable cause);
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger number = new AtomicInteger(0);
+		private final String prefix;
+
+		public DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, String.format("%s-%d", prefix, number.incrementAndGet()));
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	private enum State {
+		CONNECTING,
+		REQUEST,
+		HEADER,
+		BODY,
+	}
+
+	/**
+	 * Single camera connection.
+	 */
+	final class Connection {
+
+		private final URI uri;
+		private final InetSocketAddress address;
+		private final ByteBuffer request;
+		private final FrameHandler handler;
+		private final MjpegParser parser = new MjpegParser(MjpegParser.DEFAULT_CAPACITY, MjpegParser.DEFAULT_MAX_FRAME_LENGTH);
+
+		private Loop loop;
+		private SocketChannel channel;
+		private SelectionKey key;
+		private ByteBuffer header = ByteBuffer.allocate(1024);
+		private State state = State.CONNECTING;
+		private long activity = System.currentTimeMillis();
+		private volatile boolean closed = false;
+
+		private Connection(URI uri, IpCamAuth auth, FrameHandler handler) {
+
+			if (!"http".equalsIgnoreCase(uri.getScheme())) {
+				throw new WebcamException("Selector transport supports only HTTP, cannot connect to " + uri);
+			}
+
+			final int port = uri.getPort() < 0 ? 80 : uri.getPort();
+			final String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+			final StringBuilder sb = new StringBuilder();
+			sb.append("GET ").append(path);
+			if (uri.getRawQuery() != null) {
+				sb.append('?').append(uri.getRawQuery());
+			}
+			sb.append(" HTTP/1.0\r\n");
+			sb.append("Host: ").append(uri.getHost());
+			if (uri.getPort() >= 0) {
+				sb.append(':').append(port);
+			}
+			sb.append("\r\n");
+			if (auth != null) {
+				final String credentials = auth.getUserName() + ":" + auth.getPassword();
+				sb.append("Authorization: Basic ").append(DatatypeConverter.printBase64Binary(credentials.getBytes(StandardCharsets.UTF_8))).append("\r\n");
+			}
+			sb.append("Connection: close\r\n");
+			sb.append("\r\n");
+
+			this.uri = uri;
+			this.address = new InetSocketAddress(uri.getHost(), port);
+			this.request = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.US_ASCII));
+			this.handler = handler;
+		}
+
+		/**
+		 * Close connection. Handler will not be notified about it.
+		 */
+		public void close() {
+			closed = true;
+			loop.closing.add(this);
+			loop.selector.wakeup();
+		}
+
+		public URI getURI() {
+			return uri;
+		}
+
+		private void start(Loop loop) throws IOException {
+
+			if (address.isUnresolved()) {
+				throw new IOException("Cannot resolve host " + address.getHostName());
+			}
+
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+
+			if (channel.connect(address)) {
+				state = State.REQUEST;
+				key = channel.register(loop.selector, SelectionKey.OP_WRITE, this);
+			} else {
+				key = channel.register(loop.selector, SelectionKey.OP_CONNECT, this);
+			}
+		}
+
+		private void handle() throws IOException {
+
+			activity = System.currentTimeMillis();
+
+			switch (state) {
+				case CONNECTING:
+					if (channel.finishConnect()) {
+						state = State.REQUEST;
+						key.interestOps(SelectionKey.OP_WRITE);
+					}
+					break;
+				case REQUEST:
+					channel.write(request);
+					if (!request.hasRemaining()) {
+						state = State.HEADER;
+						key.interestOps(SelectionKey.OP_READ);
+					}
+					break;
+				case HEADER:
+					readHeader();
+					break;
+				case BODY:
+					readBody();
+					break;
+			}
+		}
+
+		private void readHeader() throws IOException {
+
+			if (!header.hasRemaining()) {
+				if (header.capacity() >= HEADER_MAX_LENGTH) {
+					throw new IOException("HTTP response header too long");
+				}
+				final ByteBuffer bigger = ByteBuffer.allocate(header.capacity() * 2);
+				header.flip();
+				bigger.put(header);
+				header = bigger;
+			}
+
+			if (channel.read(header) < 0) {
+				throw new EOFException("Stream closed before HTTP response header has been received");
+			}
+
+			final int end = endOfHeader();
+			if (end < 0) {
+				return;
+			}
+
+			final String text = new String(header.array(), 0, end, StandardCharsets.US_ASCII);
+			final String[] lines = text.split("\r\n");
+			final String[] status = lines[0].split(" ");
+
+			if (status.length < 2 || !"200".equals(status[1])) {
+				throw new IOException(String.format("Unexpected HTTP response from %s: %s", uri, lines[0]));
+			}
+
+			for (int i = 1; i < lines.length; i++) {
+				final String line = lines[i].toLowerCase();
+				if (line.startsWith("content-type:") && line.substring(13).trim().startsWith("image/")) {
+					throw new WebcamException("Cannot read images in PUSH mode, change mode to PULL " + lines[i]);
+				}
+			}
+
+			// whatever has been read after header is the beginning of MJPEG stream
+
+			header.flip();
+			header.position(end + 4);
+			parser.feed(header);
+			header = null;
+
+			state = State.BODY;
+
+			deliver();
+		}
+
+		private int endOfHeader() {
+			final byte[] b = header.array();
+			for (int i = 0, n = header.position() - 3; i < n; i++) {
+				if (b[i] == '\r' && b[i + 1] == '\n' && b[i + 2] == '\r' && b[i + 3] == '\n') {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private void readBody() throws IOException {
+
+			for (int i = 0; i < READS_PER_SELECT; i++) {
+
+				final int n = parser.read(channel);
+				if (n < 0) {
+					throw new EOFException("Camera closed MJPEG stream " + uri);
+				}
+
+				// frames are slices of parser buffer, so they have to be taken before next read
+
+				deliver();
+
+				if (n == 0) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Pass the most recent complete frame to the handler, older frames are skipped.
+		 */
+		private void deliver() {
+
+			ByteBuffer latest = null;
+			ByteBuffer frame;
+
+			while ((frame = parser.poll()) != null) {
+				latest = frame;
+			}
+
+			if (latest != null) {
+				handler.frameReceived(new EncodedFrame(EncodedFrame.JPEG, MjpegParser.toBytes(latest)));
+			}
+		}
+
+		private void fail(Throwable cause) {
+			if (release()) {
+				LOG.debug("Connection to {} closed", uri, cause);
+				handler.connectionClosed(cause);
+			}
+		}
+
+		/**
+		 * @return True if connection has been released by this call
+		 */
+		private boolean release() {
+
+			final boolean removed = loop.connections.remove(this);
+
+			if (key != null) {
+				key.cancel();
+			}
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					LOG.trace("Cannot close channel", e);
+				}
+			}
+
+			return removed && !closed;
+		}
+	}
+
+	/**
+	 * Single selector thread.
+	 */
+	private final class Loop implements Runnable {
+
+		private final Selector selector;
+		private final Queue<Connection> opening = new ConcurrentLinkedQueue<Connection>();
+		private final Queue<Connection> closing = new ConcurrentLinkedQueue<Connection>();
+		private final Set<Connection> connections = new HashSet<Connection>();
+
+		public Loop() {
+			try {
+				selector = Selector.open();
+			} catch (IOException e) {
+				throw new WebcamException("Cannot open selector", e);
+			}
+		}
+
+		@Override
+		public void run() {
+
+			long check = System.currentTimeMillis();
+
+			for (;;) {
+
+				try {
+					selector.select(1000);
+				} catch (IOException e) {
+					LOG.error("Selector failure", e);
+					continue;
+				}
+
+				Connection connection;
+
+				while ((connection = opening.poll()) != null) {
+					if (connection.closed) {
+						continue;
+					}
+					connections.add(connection);
+					try {
+						connection.start(this);
+					} catch (IOException e) {
+						connection.fail(e);
+					}
+				}
+
+				while ((connection = closing.poll()) != null) {
+					connection.release();
+				}
+
+				final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+
+					final SelectionKey key = keys.next();
+					keys.remove();
+
+					connection = (Connection) key.attachment();
+
+					try {
+						if (key.isValid()) {
+							connection.handle();
+						}
+					} catch (ClosedChannelException e) {
+						connection.fail(e);
+					} catch (IOException e) {
+						connection.fail(e);
+					} catch (RuntimeException e) {
+						connection.fail(e);
+					}
+				}
+
+				final long now = System.currentTimeMillis();
+				if (now - check > 1000) {
+					check = now;
+					for (Connection c : connections.toArray(new Connection[connections.size()])) {
+						if (now - c.activity > IDLE_TIMEOUT) {
+							c.fail(new SocketTimeoutException("No data received from " + c.uri + " for " + IDLE_TIMEOUT + " ms"));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static IpCamEventLoop instance = null;
+
+	private final Loop[] loops;
+	private final AtomicInteger next = new AtomicInteger(0);
+	private final Semaphore decoders;
+	private final ScheduledExecutorService timer;
+
+	private IpCamEventLoop(int selectors, int decoders) {
+
+		final ThreadFactory factory = new DaemonThreadFactory("ipcam-selector");
+
+		loops = new Loop[selectors];
+		for (int i = 0; i < selectors; i++) {
+			loops[i] = new Loop();
+			factory.newThread(loops[i]).start();
+		}
+
+		this.decoders = new Semaphore(decoders, true);
+
+		timer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ipcam-reconnect"));
+	}
+
+	/**
+	 * @return Shared event loop, started when invoked for the first time
+	 */
+	public static synchronized IpCamEventLoop getInstance() {
+		if (instance == null) {
+			final int cpus = Runtime.getRuntime().availableProcessors();
+			instance = new IpCamEventLoop(Math.max(1, Math.min(4, cpus / 2)), Math.max(1, cpus));
+		}
+		return instance;
+	}
+
+	/**
+	 * Connect to the camera MJPEG stream. Host name is resolved in the calling thread.
+	 *
+	 * @param uri the MJPEG stream URI
+	 * @param auth the authentication data, can be null
+	 * @param handler the handler receiving frames
+	 * @return New connection
+	 */
+	public Connection connect(URI uri, IpCamAuth auth, FrameHandler handler) {
+
+		final Connection connection = new Connection(uri, auth, handler);
+		final Loop loop = loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+
+		connection.loop = loop;
+		loop.opening.add(connection);
+		loop.selector.wakeup();
+
+		return connection;
+	}
+
+	/**
+	 * Decode frame in the calling thread, waiting while the maximum number of frames is being
+	 * decoded by other threads. Frame which has been already decoded is not decoded again.
+	 *
+	 * @param frame the frame to decode
+	 * @return Decoded image
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	public BufferedImage decode(final EncodedFrame frame) throws InterruptedException {
+
+		if (frame.isDecoded()) {
+			return frame.getImage();
+		}
+
+		decoders.acquire();
+		try {
+			return frame.getImage();
+		} finally {
+			decoders.release();
+		}
+	}
+
+	/**
+	 * Run task after given delay, used to reconnect.
+	 *
+	 * @param task the task to run
+	 * @param delay the delay in milliseconds
+	 */
+	public void schedule(Runnable task, long delay) {
+		timer.schedule(task, delay, TimeUnit.MILLISECONDS);
+	}
+}
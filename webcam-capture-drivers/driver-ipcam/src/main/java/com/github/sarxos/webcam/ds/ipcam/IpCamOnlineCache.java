@@ -0,0 +1,276 @@
+package com.github.sarxos.webcam.ds.ipcam;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.WebcamExceptionHandler;
+
+
+/**
+ * Cache of IP cameras online status used by the discovery. Status of every camera is kept for
+ * some time (TTL) and, when it expires, the old status is still returned while the camera is
+ * probed again in background. Offline cameras are probed less and less often (exponential
+ * backoff), so dead cameras do not cost anything. Cameras which are open are online by
+ * definition and they are never probed. Number of concurrent probes is limited.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class IpCamOnlineCache {
+
+	/**
+	 * Thread factory.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	private static class DeviceCheckThreadFactory implements ThreadFactory {
+
+		/**
+		 * Next number for created thread.
+		 */
+		private AtomicInteger number = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "online-check-" + number.incrementAndGet());
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/**
+	 * Online status of single camera.
+	 */
+	private static class Status {
+
+		/**
+		 * Released when status is known for the first time.
+		 */
+		private final CountDownLatch known = new CountDownLatch(1);
+
+		/**
+		 * Is probe in progress.
+		 */
+		private final AtomicBoolean probing = new AtomicBoolean(false);
+
+		private volatile boolean online = false;
+		private volatile long expires = 0;
+		private volatile int failures = 0;
+	}
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(IpCamOnlineCache.class);
+
+	/**
+	 * Default number of cameras probed at the same time.
+	 */
+	public static final int DEFAULT_CONCURRENCY = 8;
+
+	/**
+	 * Default time for which online status is valid (ms).
+	 */
+	public static final long DEFAULT_ONLINE_TTL = 10000;
+
+	/**
+	 * Default time for which offline status is valid after first failed probe (ms).
+	 */
+	public static final long DEFAULT_OFFLINE_TTL = 10000;
+
+	/**
+	 * Default maximum time for which offline status is valid (ms).
+	 */
+	public static final long DEFAULT_MAX_OFFLINE_TTL = 5 * 60 * 1000;
+
+	private final ConcurrentHashMap<IpCamDevice, Status> statuses = new ConcurrentHashMap<IpCamDevice, Status>();
+	private final ThreadPoolExecutor executor;
+
+	private volatile long onlineTTL = DEFAULT_ONLINE_TTL;
+	private volatile long offlineTTL = DEFAULT_OFFLINE_TTL;
+	private volatile long maxOfflineTTL = DEFAULT_MAX_OFFLINE_TTL;
+
+	public IpCamOnlineCache() {
+		this(DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * @param concurrency the maximum number of cameras probed at the same time
+	 */
+	public IpCamOnlineCache(int concurrency) {
+
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency must be positive");
+		}
+
+		executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DeviceCheckThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Return cameras which are online according to cached status and start probes for cameras
+	 * whose status has expired. This method does not wait for the probes, except for the cameras
+	 * probed for the first time, which status is not known yet - these are awaited, but not longer
+	 * than the given timeout.
+	 *
+	 * @param devices the cameras to check
+	 * @param timeout the probe timeout in milliseconds
+	 * @return Online cameras
+	 * @throws InterruptedException when interrupted while waiting for first probes
+	 */
+	public List<IpCamDevice> getOnline(List<IpCamDevice> devices, int timeout) throws InterruptedException {
+
+		final long now = System.currentTimeMillis();
+		final Set<IpCamDevice> current = new HashSet<IpCamDevice>(devices);
+
+		// forget cameras which are not registered any more
+
+		statuses.keySet().retainAll(current);
+
+		for (IpCamDevice device : devices) {
+
+			Status status = statuses.get(device);
+			if (status == null) {
+				final Status created = new Status();
+				status = statuses.putIfAbsent(device, created);
+				if (status == null) {
+					status = created;
+				}
+			}
+
+			if (device.isOpen()) {
+				update(status, true, now);
+			} else if (status.expires <= now) {
+				probe(device, status, timeout);
+			}
+		}
+
+		final long deadline = now + timeout;
+		final List<IpCamDevice> online = new ArrayList<IpCamDevice>(devices.size());
+
+		for (IpCamDevice device : devices) {
+
+			final Status status = statuses.get(device);
+			if (status == null) {
+				continue;
+			}
+
+			final long remaining = deadline - System.currentTimeMillis();
+			if (remaining > 0) {
+				status.known.await(remaining, TimeUnit.MILLISECONDS);
+			}
+
+			if (status.online) {
+				online.add(device);
+			}
+		}
+
+		return online;
+	}
+
+	/**
+	 * Forget cached status of the given camera, so it is probed again on the next scan.
+	 *
+	 * @param device the camera
+	 */
+	public void invalidate(IpCamDevice device) {
+		final Status status = statuses.get(device);
+		if (status != null) {
+			status.expires = 0;
+		}
+	}
+
+	private void probe(final IpCamDevice device, final Status status, final int timeout) {
+
+		if (!status.probing.compareAndSet(false, true)) {
+			return;
+		}
+
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				boolean online = false;
+				try {
+					online = device.isOnline(timeout);
+				} finally {
+					update(status, online, System.currentTimeMillis());
+					status.probing.set(false);
+				}
+
+				LOG.trace("Camera {} is {}", device.getName(), online ? "online" : "offline");
+			}
+		});
+	}
+
+	private void update(Status status, boolean online, long now) {
+
+		if (online) {
+			status.failures = 0;
+			status.expires = now + onlineTTL;
+		} else {
+			final int failures = status.failures++;
+			status.expires = now + Math.min(maxOfflineTTL, offlineTTL << Math.min(failures, 16));
+		}
+
+		status.online = online;
+		status.known.countDown();
+	}
+
+	public long getOnlineTTL() {
+		return onlineTTL;
+	}
+
+	/**
+	 * @param onlineTTL the time in milliseconds for which online status is valid
+	 */
+	public void setOnlineTTL(long onlineTTL) {
+		if (onlineTTL < 0) {
+			throw new IllegalArgumentException("Online TTL cannot be negative");
+		}
+		this.onlineTTL = onlineTTL;
+	}
+
+	public long getOfflineTTL() {
+		return offlineTTL;
+	}
+
+	/**
+	 * @param offlineTTL the time in milliseconds for which offline status is valid after the first
+	 *            failed probe, it doubles with every next failed probe
+	 */
+	public void setOfflineTTL(long offlineTTL) {
+		if (offlineTTL < 0) {
+			throw new IllegalArgumentException("Offline TTL cannot be negative");
+		}
+		this.offlineTTL = offlineTTL;
+	}
+
+	public long getMaxOfflineTTL() {
+		return maxOfflineTTL;
+	}
+
+	/**
+	 * @param maxOfflineTTL the maximum time in milliseconds for which offline status is valid
+	 */
+	public void setMaxOfflineTTL(long maxOfflineTTL) {
+		if (maxOfflineTTL < 0) {
+			throw new IllegalArgumentException("Max offline TTL cannot be negative");
+		}
+		this.maxOfflineTTL = maxOfflineTTL;
+	}
+}
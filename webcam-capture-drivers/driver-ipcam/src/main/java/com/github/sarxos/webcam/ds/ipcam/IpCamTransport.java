@@ -0,0 +1,22 @@
+package com.github.sarxos.webcam.ds.ipcam;
+
+/**
+ * How connections to the IP cameras in {@link IpCamMode#PUSH} mode are handled.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public enum IpCamTransport {
+
+	/**
+	 * Every camera has its own thread reading the MJPEG stream.
+	 */
+	BLOCKING,
+
+	/**
+	 * All cameras share a small pool of non-blocking selector threads, and frames are decoded,
+	 * with bounded parallelism, only when image is requested. Suitable for large number of cameras. Supports
+	 * plain HTTP only.
+	 */
+	SELECTOR,
+
+}
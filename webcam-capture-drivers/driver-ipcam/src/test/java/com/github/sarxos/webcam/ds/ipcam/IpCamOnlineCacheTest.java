@@ -0,0 +1,74 @@
+package com.github.sarxos.webcam.ds.ipcam;
+
+import java.net.MalformedURLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class IpCamOnlineCacheTest {
+
+	private static class ProbedDevice extends IpCamDevice {
+
+		private final AtomicInteger probes = new AtomicInteger();
+		private final boolean online;
+		private final boolean open;
+
+		public ProbedDevice(String name, boolean online, boolean open) throws MalformedURLException {
+			super(name, "http://127.0.0.1/" + name, IpCamMode.PULL);
+			this.online = online;
+			this.open = open;
+		}
+
+		@Override
+		public boolean isOnline(int timeout) {
+			probes.incrementAndGet();
+			return online;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+	}
+
+	@Test
+	public void test_statusIsCached() throws Exception {
+
+		final ProbedDevice online = new ProbedDevice("online", true, false);
+		final ProbedDevice offline = new ProbedDevice("offline", false, false);
+		final ProbedDevice open = new ProbedDevice("open", false, true);
+		final List<IpCamDevice> devices = Arrays.<IpCamDevice> asList(online, offline, open);
+
+		final IpCamOnlineCache cache = new IpCamOnlineCache(2);
+
+		Assert.assertEquals(Arrays.asList(online, open), cache.getOnline(devices, 5000));
+		Assert.assertEquals(Arrays.asList(online, open), cache.getOnline(devices, 5000));
+
+		Assert.assertEquals(1, online.probes.get());
+		Assert.assertEquals(1, offline.probes.get());
+		Assert.assertEquals(0, open.probes.get());
+	}
+
+	@Test
+	public void test_expiredStatusIsRefreshed() throws Exception {
+
+		final ProbedDevice offline = new ProbedDevice("offline", false, false);
+		final List<IpCamDevice> devices = Arrays.<IpCamDevice> asList(offline);
+
+		final IpCamOnlineCache cache = new IpCamOnlineCache(1);
+		cache.setOfflineTTL(0);
+
+		cache.getOnline(devices, 5000);
+
+		for (int i = 0; i < 100 && offline.probes.get() < 2; i++) {
+			cache.getOnline(devices, 5000);
+			Thread.sleep(10);
+		}
+
+		Assert.assertTrue(offline.probes.get() >= 2);
+	}
+}
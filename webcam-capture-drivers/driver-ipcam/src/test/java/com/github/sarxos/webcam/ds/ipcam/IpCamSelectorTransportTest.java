@@ -0,0 +1,145 @@
+package com.github.sarxos.webcam.ds.ipcam;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.EncodedFrame;
+
+
+public class IpCamSelectorTransportTest {
+
+	/**
+	 * Serves the same JPEG as MJPEG stream to every connected client.
+	 */
+	private static class MjpegServer extends Thread {
+
+		private final ServerSocket server;
+		private final byte[] jpeg;
+
+		public MjpegServer(byte[] jpeg) throws IOException {
+			this.server = new ServerSocket(0);
+			this.jpeg = jpeg;
+			this.setDaemon(true);
+		}
+
+		public int getPort() {
+			return server.getLocalPort();
+		}
+
+		@Override
+		public void run() {
+			while (!server.isClosed()) {
+				try (Socket socket = server.accept()) {
+					serve(socket);
+				} catch (IOException e) {
+					// client disconnected or server closed
+				}
+			}
+		}
+
+		private void serve(Socket socket) throws IOException {
+
+			final InputStream is = socket.getInputStream();
+			final OutputStream os = socket.getOutputStream();
+
+			// skip request header
+
+			int match = 0;
+			while (match < 4) {
+				final int b = is.read();
+				if (b < 0) {
+					return;
+				}
+				match = b == (match % 2 == 0 ? '\r' : '\n') ? match + 1 : b == '\r' ? 1 : 0;
+			}
+
+			os.write("HTTP/1.0 200 OK\r\nContent-Type: multipart/x-mixed-replace; boundary=frame\r\n\r\n".getBytes());
+
+			while (!server.isClosed()) {
+				os.write(("--frame\r\nContent-Type: image/jpeg\r\nContent-Length: " + jpeg.length + "\r\n\r\n").getBytes());
+				os.write(jpeg);
+				os.write("\r\n".getBytes());
+				os.flush();
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+
+		public void close() throws IOException {
+			server.close();
+		}
+	}
+
+	private MjpegServer server;
+	private byte[] jpeg;
+
+	@Before
+	public void start() throws IOException {
+
+		final BufferedImage bi = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(bi, "jpg", baos);
+
+		jpeg = baos.toByteArray();
+		server = new MjpegServer(jpeg);
+		server.start();
+	}
+
+	@After
+	public void stop() throws IOException {
+		server.close();
+	}
+
+	@Test
+	public void test_pushModeWithSelectorTransport() throws Exception {
+
+		final IpCamDevice device = new IpCamDevice("selector", new URL("http://127.0.0.1:" + server.getPort() + "/video.mjpg"), IpCamMode.PUSH);
+		device.setTransport(IpCamTransport.SELECTOR);
+		device.open();
+
+		try {
+
+			final EncodedFrame frame = device.getEncodedFrame();
+			Assert.assertNotNull(frame);
+			Assert.assertArrayEquals(jpeg, frame.getBytes());
+
+			final BufferedImage image = device.getImage();
+			Assert.assertNotNull(image);
+			Assert.assertEquals(320, image.getWidth());
+			Assert.assertEquals(240, image.getHeight());
+
+		} finally {
+			device.close();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_cannotChangeTransportWhenOpen() throws Exception {
+
+		final IpCamDevice device = new IpCamDevice("selector", new URL("http://127.0.0.1:" + server.getPort() + "/video.mjpg"), IpCamMode.PUSH);
+		device.setTransport(IpCamTransport.SELECTOR);
+		device.open();
+
+		try {
+			device.setTransport(IpCamTransport.BLOCKING);
+		} finally {
+			device.close();
+		}
+	}
+}
@@ -7,17 +7,20 @@ import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
 
+import com.github.sarxos.webcam.EncodedFrame;
 import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDevice.EncodedFrameSource;
 import com.github.sarxos.webcam.WebcamException;
 import com.github.sarxos.webcam.util.MjpegInputStream;
 
 
 /**
- * This class abstract virtual device getting images from MJPEG source.
+ * This class abstract virtual device getting images from MJPEG source. JPEG frames can be obtained
+ * without decoding them (see {@link EncodedFrameSource}).
  *
  * @author Bartosz Firyn (sarxos)
  */
-public class MjpegCaptureDevice implements WebcamDevice {
+public class MjpegCaptureDevice implements WebcamDevice, EncodedFrameSource {
 
 	private final URL url;
 
@@ -79,6 +82,16 @@ public class MjpegCaptureDevice implements WebcamDevice {
 		}
 	}
 
+	@Override
+	public EncodedFrame getEncodedFrame() {
+		try {
+			final byte[] bytes = stream.readFrameBytes();
+			return bytes == null ? null : new EncodedFrame(EncodedFrame.JPEG, bytes);
+		} catch (IOException e) {
+			throw new WebcamException("Cannot get frame from " + url, e);
+		}
+	}
+
 	@Override
 	public void open() {
 
@@ -22,7 +22,7 @@ import com.github.sarxos.webcam.ds.mjpeg.tcp.TcpConnectionRegistrar;
  *
  * @author Bartosz Firyn (sarxos)
  */
-public class MjpegCaptureDriver implements WebcamDriver {
+public class MjpegCaptureDriver implements WebcamDriver, WebcamDriver.ParallelDevices {
 
 	static {
 		TcpConnectionRegistrar.register();
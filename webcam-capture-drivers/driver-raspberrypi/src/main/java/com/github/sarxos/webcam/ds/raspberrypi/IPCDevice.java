@@ -1,6 +1,17 @@
 package com.github.sarxos.webcam.ds.raspberrypi;
 
 import java.awt.Dimension;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -10,12 +21,16 @@ import java.util.Map.Entry;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.Frame;
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamResolution;
+import com.github.sarxos.webcam.util.ImagePool;
+import com.github.sarxos.webcam.util.PooledImage;
 
 /**
  * ClassName: IPCDevice <br/>
@@ -30,7 +45,7 @@ import com.github.sarxos.webcam.WebcamResolution;
  * @version
  * @since JDK 1.8
  */
-public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurable, WebcamDevice.BufferAccess, Constants {
+public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurable, WebcamDevice.BufferAccess, WebcamDevice.FrameSource, Constants {
 	private final static Logger LOGGER = LoggerFactory.getLogger(IPCDevice.class);
 	/**
 	 * raspi keypress mode, send new line to make capture
@@ -40,6 +55,14 @@ public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurab
 
 	private static final String THREAD_NAME_PREFIX = "raspistill-device-";
 	private static final int DEFAULT_THREADPOOL_SIZE = 2;
+
+	/**
+	 * number of idle frame buffers kept in the pool, see {@link #getPooledImage()}
+	 */
+	private static final int DEFAULT_POOL_CAPACITY = 3;
+
+	private static final ColorModel COLOR_MODEL = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+			new int[] { 8, 8, 8 }, false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
 	
 	protected int width = 320;
 	protected int height = 240;
@@ -62,6 +85,15 @@ public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurab
 	private volatile boolean isOpen = false;
 	private Dimension dimension;
 	private ExecutorService service;
+	private RawFormat rawFormat = RawFormat.RGB;
+
+	/**
+	 * raw YUV420 frame buffer and converter, reused for every frame
+	 */
+	private byte[] raw;
+	private YUV420Converter converter;
+	private volatile ImagePool pool;
+	private final AtomicLong sequence = new AtomicLong(0);
 
 	protected Process process;
 	protected OutputStream out;
@@ -107,6 +139,26 @@ public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurab
 		return DIMENSIONS;
 	}
 
+	public RawFormat getRawFormat() {
+		return rawFormat;
+	}
+
+	/**
+	 * set format of raw frames read from the process, only devices reading raw frames support it.
+	 * must be called before device is open.
+	 * 
+	 * @param rawFormat the raw format
+	 */
+	public void setRawFormat(RawFormat rawFormat) {
+		if (isOpen) {
+			throw new UnsupportedOperationException(MSG_CANNOT_CHANGE_PROP);
+		}
+		if (rawFormat == null) {
+			throw new IllegalArgumentException("raw format can not be null");
+		}
+		this.rawFormat = rawFormat;
+	}
+
 	@Override
 	public void dispose() {
 		parameters = null;
@@ -180,6 +232,8 @@ public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurab
 		}
 
 		isOpen = false;
+		converter = null;
+		raw = null;
 		afterClose();
 	}
 
@@ -288,17 +342,135 @@ public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurab
 		return Runtime.getRuntime().exec(commandString);
 	}
 	
-	protected synchronized final void readFully(byte[] buffer) throws IOException {
-		for(int i=0;i<buffer.length;i++) {
-			buffer[i]=(byte)in.read();
+	protected final void readFully(byte[] buffer) throws IOException {
+		readFully(buffer, 0, buffer.length);
+	}
+
+	/**
+	 * bulk read, blocks until all bytes are read
+	 */
+	protected synchronized final void readFully(byte[] buffer, int offset, int length) throws IOException {
+		while (length > 0) {
+			int n = in.read(buffer, offset, length);
+			if (n < 0) {
+				throw new EOFException("process output closed, " + length + " bytes of frame missing");
+			}
+			offset += n;
+			length -= n;
 		}
 	}
 
+	/**
+	 * read next raw frame from the process and write it to the destination as 3 bytes per pixel
+	 * RGB. YUV420 frames are read into the reused buffer and converted.
+	 * 
+	 * @param rgb the destination
+	 * @param offset the destination offset
+	 */
+	protected synchronized final void readFrame(byte[] rgb, int offset) throws IOException {
+
+		Dimension size = getResolution();
+
+		if (rawFormat == RawFormat.RGB) {
+			readFully(rgb, offset, size.width * size.height * 3);
+			return;
+		}
+
+		if (converter == null) {
+			converter = YUV420Converter.forRaspberryPi(size.width, size.height);
+			raw = new byte[converter.getFrameLength()];
+		}
+
+		readFully(raw);
+		converter.convert(raw, rgb, offset);
+	}
+
+	/**
+	 * read next frame into new image, caller owns the image
+	 * 
+	 * @return new image or null if frame can not be read
+	 */
+	protected BufferedImage readImage() {
+
+		Dimension size = getResolution();
+		byte[] bytes = new byte[size.width * size.height * 3];
+
+		try {
+			readFrame(bytes, 0);
+		} catch (IOException e) {
+			LOGGER.error("can not access camera", e);
+			return null;
+		}
+
+		ComponentSampleModel smodel = new ComponentSampleModel(DataBuffer.TYPE_BYTE, size.width, size.height, 3,
+				size.width * 3, new int[] { 0, 1, 2 });
+		DataBufferByte dbuf = new DataBufferByte(new byte[][] { bytes }, bytes.length, new int[] { 0 });
+		WritableRaster raster = Raster.createWritableRaster(smodel, dbuf, null);
+
+		return new BufferedImage(COLOR_MODEL, raster, false, null);
+	}
+
+	/**
+	 * read next frame into image from the pool of frame buffers, no memory is allocated as long as
+	 * pooled images are released when no longer used
+	 * 
+	 * @return pooled image, it must be released, or null if frame can not be read
+	 */
+	public PooledImage getPooledImage() {
+
+		Dimension size = getResolution();
+		ImagePool pool = this.pool;
+		if (pool == null || !pool.getSize().equals(size)) {
+			this.pool = pool = new ImagePool(size, DEFAULT_POOL_CAPACITY);
+		}
+
+		PooledImage image = pool.lease();
+		try {
+			readFrame(image.getData(), 0);
+		} catch (IOException e) {
+			image.release();
+			LOGGER.error("can not access camera", e);
+			return null;
+		}
+
+		return image;
+	}
+
+	/**
+	 * read next frame in the process raw format, YUV420 frames are returned as they are, with the
+	 * raspiyuv padding, and converted to RGB only if consumer asks for it
+	 * 
+	 * @return new frame or null if frame can not be read
+	 */
 	@Override
-	public ByteBuffer getImageBytes() {
-		byte[] bytes = new byte[width * height * 3];// must new each time!
+	public Frame getFrame() {
+
+		Dimension size = getResolution();
+
 		try {
+			if (rawFormat == RawFormat.RGB) {
+				byte[] bytes = new byte[size.width * size.height * 3];
+				readFully(bytes);
+				return new Frame(Frame.PixelFormat.RGB24, size.width, size.height, ByteBuffer.wrap(bytes), System.nanoTime(), sequence.incrementAndGet());
+			}
+
+			YUV420Converter yuv = YUV420Converter.forRaspberryPi(size.width, size.height);
+			byte[] bytes = new byte[yuv.getFrameLength()];
 			readFully(bytes);
+			return new Frame(Frame.PixelFormat.I420, size.width, size.height, yuv.getStride(), yuv.getSliceHeight(), ByteBuffer.wrap(bytes), System.nanoTime(), sequence.incrementAndGet());
+
+		} catch (IOException e) {
+			LOGGER.error("can not access camera", e);
+			return null;
+		}
+	}
+
+	@Override
+	public ByteBuffer getImageBytes() {
+		Dimension size = getResolution();
+		byte[] bytes = new byte[size.width * size.height * 3];// caller owns it
+		try {
+			readFrame(bytes, 0);
 		} catch (IOException e) {
 			LOGGER.error("can not access camera", e);
 			throw new RuntimeException(e);
@@ -306,9 +478,29 @@ public abstract class IPCDevice implements WebcamDevice, WebcamDevice.Configurab
 		return ByteBuffer.wrap(bytes);
 	}
 
+	/**
+	 * frame is read directly into the buffer backing array when it has one, e.g. when webcam reads
+	 * into its pooled images
+	 */
 	@Override
 	public void getImageBytes(ByteBuffer buffer) {
-		buffer.put(getImageBytes().array());
+
+		Dimension size = getResolution();
+		int length = size.width * size.height * 3;
+
+		if (!buffer.hasArray() || buffer.remaining() < length) {
+			buffer.put(getImageBytes());
+			return;
+		}
+
+		try {
+			readFrame(buffer.array(), buffer.arrayOffset() + buffer.position());
+		} catch (IOException e) {
+			LOGGER.error("can not access camera", e);
+			throw new RuntimeException(e);
+		}
+
+		buffer.position(buffer.position() + length);
 	}
 
 	class ErrorConsumeWorker implements Runnable {
@@ -0,0 +1,21 @@
+package com.github.sarxos.webcam.ds.raspberrypi;
+
+/**
+ * ClassName: RawFormat <br/>
+ * format of raw frames written to stdout by raspiyuv and raspividyuv<br/>
+ * 
+ * @author maoanapex88@163.com (alexmao86)
+ */
+public enum RawFormat {
+
+	/**
+	 * 3 bytes per pixel, converted by the camera firmware (--rgb)
+	 */
+	RGB,
+
+	/**
+	 * planar YUV420, 1.5 byte per pixel, so only half of RGB data goes through the pipe. Converted
+	 * to RGB by {@link YUV420Converter}
+	 */
+	YUV420,
+}
@@ -0,0 +1,146 @@
+package com.github.sarxos.webcam.ds.raspberrypi;
+
+/**
+ * ClassName: YUV420Converter <br/>
+ * converts planar YUV420 (I420) frames into 3 bytes per pixel RGB. Conversion is done row by row,
+ * every chroma sample is looked up once for two pixels in a row, and all multiplications are
+ * replaced by lookup tables, so only additions and clamping are done per pixel.
+ * 
+ * <p>
+ * raspiyuv and raspividyuv pad the frame, plane width is rounded up to multiple of 32 and plane
+ * height to multiple of 16, see {@link #forRaspberryPi(int, int)}
+ * </p>
+ * 
+ * @author maoanapex88@163.com (alexmao86)
+ */
+public final class YUV420Converter {
+
+	/**
+	 * V contribution to R, 1.402 * (V - 128)
+	 */
+	private static final int[] V_R = new int[256];
+
+	/**
+	 * U and V contribution to G, -0.344 * (U - 128) and -0.714 * (V - 128)
+	 */
+	private static final int[] U_G = new int[256];
+	private static final int[] V_G = new int[256];
+
+	/**
+	 * U contribution to B, 1.772 * (U - 128)
+	 */
+	private static final int[] U_B = new int[256];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			int c = i - 128;
+			V_R[i] = (91881 * c + 32768) >> 16;
+			U_G[i] = -22554 * c;
+			V_G[i] = -46802 * c;
+			U_B[i] = (116130 * c + 32768) >> 16;
+		}
+	}
+
+	private final int width;
+	private final int height;
+	private final int stride;
+	private final int sliceHeight;
+
+	/**
+	 * @param width the image width
+	 * @param height the image height
+	 * @param stride the luma plane row length, chroma rows are half of it
+	 * @param sliceHeight the number of luma plane rows
+	 */
+	public YUV420Converter(int width, int height, int stride, int sliceHeight) {
+		if (width < 1 || height < 1 || stride < width || sliceHeight < height) {
+			throw new IllegalArgumentException("wrong frame size " + width + "x" + height + " (" + stride + "x" + sliceHeight + ")");
+		}
+		this.width = width;
+		this.height = height;
+		this.stride = stride;
+		this.sliceHeight = sliceHeight;
+	}
+
+	/**
+	 * @param width the image width
+	 * @param height the image height
+	 * @return converter for padded frames written by raspiyuv and raspividyuv
+	 */
+	public static YUV420Converter forRaspberryPi(int width, int height) {
+		return new YUV420Converter(width, height, (width + 31) & ~31, (height + 15) & ~15);
+	}
+
+	/**
+	 * @return luma plane row length, including padding
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * @return number of luma plane rows, including padding
+	 */
+	public int getSliceHeight() {
+		return sliceHeight;
+	}
+
+	/**
+	 * @return length of the whole YUV420 frame in bytes, including padding
+	 */
+	public int getFrameLength() {
+		return stride * sliceHeight + 2 * (stride >> 1) * (sliceHeight >> 1);
+	}
+
+	/**
+	 * @param yuv the YUV420 frame
+	 * @param rgb the destination, width * height * 3 bytes are written
+	 * @param offset the destination offset
+	 */
+	public void convert(byte[] yuv, byte[] rgb, int offset) {
+
+		final int cstride = stride >> 1;
+		final int uplane = stride * sliceHeight;
+		final int vplane = uplane + cstride * (sliceHeight >> 1);
+
+		int o = offset;
+
+		for (int y = 0; y < height; y++) {
+
+			final int yrow = y * stride;
+			final int crow = (y >> 1) * cstride;
+
+			for (int x = 0; x < width; x += 2) {
+
+				final int u = yuv[uplane + crow + (x >> 1)] & 0xFF;
+				final int v = yuv[vplane + crow + (x >> 1)] & 0xFF;
+
+				final int dr = V_R[v];
+				final int dg = (U_G[u] + V_G[v] + 32768) >> 16;
+				final int db = U_B[u];
+
+				int l = yuv[yrow + x] & 0xFF;
+
+				rgb[o++] = clamp(l + dr);
+				rgb[o++] = clamp(l + dg);
+				rgb[o++] = clamp(l + db);
+
+				if (x + 1 < width) {
+
+					l = yuv[yrow + x + 1] & 0xFF;
+
+					rgb[o++] = clamp(l + dr);
+					rgb[o++] = clamp(l + dg);
+					rgb[o++] = clamp(l + db);
+				}
+			}
+		}
+	}
+
+	private static byte clamp(int c) {
+		if ((c & ~0xFF) == 0) {
+			return (byte) c;
+		}
+		return c < 0 ? 0 : (byte) 255;
+	}
+}
@@ -0,0 +1,119 @@
+package com.github.sarxos.webcam.ds.raspberrypi;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+
+import com.github.sarxos.webcam.util.PooledImage;
+
+import junit.framework.TestCase;
+
+public class TestYUV420Stream extends TestCase {
+	private static final int WIDTH = 40;
+	private static final int HEIGHT = 30;
+	private static final int FRAMES = 5;
+
+	/**
+	 * device reading recorded stream from cat instead of raspiyuv
+	 */
+	private static class RecordedYUVDevice extends RaspiYUVDevice {
+		public RecordedYUVDevice(Map<String, String> parameters, IPCDriver driver) {
+			super(0, parameters, driver);
+		}
+
+		@Override
+		protected void validateParameters() {
+			super.validateParameters();
+			parameters.clear();
+		}
+	}
+
+	private static class RecordedDriver extends MockIPCDriver {
+		private final File stream;
+
+		public RecordedDriver(File stream) {
+			this.stream = stream;
+		}
+
+		@Override
+		protected String getCommand() {
+			return "cat " + stream.getAbsolutePath();
+		}
+	}
+
+	private File stream;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		stream = File.createTempFile("raspiyuv-", ".yuv");
+		YUV420Converter converter = YUV420Converter.forRaspberryPi(WIDTH, HEIGHT);
+		for (int i = 0; i < FRAMES; i++) {
+			FileUtils.writeByteArrayToFile(stream, frame(converter, 76, 85, 255), true); // red
+		}
+	}
+
+	/**
+	 * padded frame with the same Y, U and V everywhere
+	 */
+	private static byte[] frame(YUV420Converter converter, int y, int u, int v) {
+		int stride = (WIDTH + 31) & ~31;
+		int slice = (HEIGHT + 15) & ~15;
+		byte[] bytes = new byte[converter.getFrameLength()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (i < stride * slice ? y : i < stride * slice * 5 / 4 ? u : v);
+		}
+		return bytes;
+	}
+
+	public void testConverter() {
+		YUV420Converter converter = YUV420Converter.forRaspberryPi(WIDTH, HEIGHT);
+		assertEquals(64 * 32 * 3 / 2, converter.getFrameLength());
+
+		byte[] rgb = new byte[WIDTH * HEIGHT * 3];
+		converter.convert(frame(converter, 128, 128, 128), rgb, 0);
+		for (byte b : rgb) {
+			assertEquals(128, b & 0xFF);
+		}
+
+		converter.convert(frame(converter, 76, 85, 255), rgb, 0);
+		assertTrue((rgb[0] & 0xFF) > 250);
+		assertTrue((rgb[1] & 0xFF) < 5);
+		assertTrue((rgb[2] & 0xFF) < 5);
+	}
+
+	public void testReadRecordedStream() {
+		Map<String, String> parameters = new HashMap<String, String>();
+		RecordedYUVDevice device = new RecordedYUVDevice(parameters, new RecordedDriver(stream));
+		device.setResolution(new Dimension(WIDTH, HEIGHT));
+		device.setRawFormat(RawFormat.YUV420);
+		device.open();
+		try {
+			BufferedImage image = device.getImage();
+			assertNotNull(image);
+			assertEquals(WIDTH, image.getWidth());
+			assertTrue((image.getRGB(WIDTH - 1, HEIGHT - 1) >> 16 & 0xFF) > 250);
+
+			PooledImage first = device.getPooledImage();
+			byte[] data = first.getData();
+			first.release();
+
+			PooledImage second = device.getPooledImage();
+			assertSame(data, second.getData());
+			assertTrue((second.getData()[0] & 0xFF) > 250);
+			second.release();
+		} finally {
+			device.close();
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		stream.delete();
+	}
+}
@@ -1,21 +1,31 @@
 package com.github.sarxos.webcam.ds.v4l4j;
 
 import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Exchanger;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStreamImpl;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamException;
 import com.github.sarxos.webcam.WebcamResolution;
+import com.github.sarxos.webcam.util.FrameMailbox;
+import com.github.sarxos.webcam.util.ImagePool;
+import com.github.sarxos.webcam.util.PooledImage;
 
 import au.edu.jcu.v4l4j.CaptureCallback;
 import au.edu.jcu.v4l4j.DeviceInfo;
@@ -31,10 +41,60 @@ import au.edu.jcu.v4l4j.exceptions.StateException;
 import au.edu.jcu.v4l4j.exceptions.V4L4JException;
 
 
-public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.FPSSource {
+public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.FPSSource, WebcamDevice.BufferAccess {
+
+	/**
+	 * Image input stream reading from the frame bytes directly, so JPEG reader does not need to
+	 * copy frame into its cache. Stream is reset for every frame.
+	 */
+	private static final class FrameInputStream extends ImageInputStreamImpl {
+
+		private byte[] bytes;
+		private int length;
+
+		public void reset(byte[] bytes, int length) {
+			this.bytes = bytes;
+			this.length = length;
+			this.streamPos = 0;
+			this.bitOffset = 0;
+			this.flushedPos = 0;
+		}
+
+		@Override
+		public int read() throws IOException {
+			bitOffset = 0;
+			if (streamPos >= length) {
+				return -1;
+			}
+			return bytes[(int) streamPos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			bitOffset = 0;
+			if (streamPos >= length) {
+				return -1;
+			}
+			final int n = (int) Math.min(len, length - streamPos);
+			System.arraycopy(bytes, (int) streamPos, b, off, n);
+			streamPos += n;
+			return n;
+		}
+
+		@Override
+		public long length() {
+			return length;
+		}
+	}
 
 	private static final Logger LOG = LoggerFactory.getLogger(V4l4jDevice.class);
 
+	/**
+	 * Number of idle images kept in the pool, one in the mailbox, one being decoded by the capture
+	 * callback and one being read by the consumer.
+	 */
+	private static final int POOL_CAPACITY = 3;
+
 	private static final String[] BEST_FORMATS = new String[] {
 
 		// MJPEG and JPEG are the best match because there is no need to
@@ -69,9 +129,15 @@ public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.
 	private AtomicBoolean open = new AtomicBoolean(false);
 	private AtomicBoolean disposed = new AtomicBoolean(false);
 
-	private final Exchanger<BufferedImage> exchanger = new Exchanger<BufferedImage>();
+	private final FrameMailbox mailbox = new FrameMailbox();
 	private volatile V4L4JException exception = null;
 
+	/* used only from capture callback to decode frames into pooled images */
+
+	private final FrameInputStream input = new FrameInputStream();
+	private ImageReader reader = null;
+	private ImagePool pool = null;
+
 	/* used to calculate fps */
 
 	private long t1 = -1;
@@ -280,8 +346,12 @@ public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.
 		resolution = size;
 	}
 
-	@Override
-	public BufferedImage getImage() {
+	/**
+	 * Wait for the next frame. Returned frame must be released.
+	 *
+	 * @return Pooled frame or null if it has not been captured in time
+	 */
+	private PooledImage takeFrame() {
 
 		if (!open.get()) {
 			throw new RuntimeException("Cannot get image from closed device");
@@ -294,13 +364,71 @@ public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.
 
 		int timeout = 3;
 		try {
-			return exchanger.exchange(null, timeout, TimeUnit.SECONDS);
+			PooledImage frame = mailbox.take(timeout, TimeUnit.SECONDS);
+			if (frame == null) {
+				LOG.error("Unable to get image in {} seconds timeout", timeout);
+			}
+			return frame;
 		} catch (InterruptedException e) {
 			return null;
-		} catch (TimeoutException e) {
-			LOG.error("Unable to get image in {} seconds timeout", timeout);
+		}
+	}
+
+	/**
+	 * Return copy of the most recent frame, because image given to the caller is never reused.
+	 * Use {@link #getImageBytes(ByteBuffer)}, e.g. with webcam image pooling, to read frames
+	 * without creating new images.
+	 */
+	@Override
+	public BufferedImage getImage() {
+
+		PooledImage frame = takeFrame();
+		if (frame == null) {
 			return null;
 		}
+
+		try {
+			return frame.copy();
+		} finally {
+			frame.release();
+		}
+	}
+
+	@Override
+	public ByteBuffer getImageBytes() {
+
+		PooledImage frame = takeFrame();
+		if (frame == null) {
+			return null;
+		}
+
+		try {
+			return ByteBuffer.wrap(frame.getData().clone());
+		} finally {
+			frame.release();
+		}
+	}
+
+	@Override
+	public void getImageBytes(ByteBuffer target) {
+
+		PooledImage frame = takeFrame();
+		if (frame == null) {
+			return;
+		}
+
+		try {
+
+			byte[] data = frame.getData();
+			if (data.length > target.remaining()) {
+				throw new IllegalArgumentException(String.format("Not enough remaining space in target buffer (%d necessary vs %d remaining)", data.length, target.remaining()));
+			}
+
+			target.put(data);
+
+		} finally {
+			frame.release();
+		}
 	}
 
 	@Override
@@ -366,14 +494,14 @@ public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.
 			grabber.stopCapture();
 		} catch (StateException e) {
 			LOG.trace("State exception on close", e); // ignore
-		} finally {
-			try {
-				exchanger.exchange(null, 1000, TimeUnit.MILLISECONDS);
-			} catch (InterruptedException e) {
-				LOG.debug("Exchange interrupted in close");
-			} catch (TimeoutException e) {
-				LOG.debug("Exchange timeout in close");
-			}
+		}
+
+		mailbox.clear();
+		pool = null;
+
+		if (reader != null) {
+			reader.dispose();
+			reader = null;
 		}
 
 		grabber = null;
@@ -421,9 +549,13 @@ public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.
 			t2 = System.currentTimeMillis();
 		}
 
+		// decode frame into the pooled image, images released by consumer or replaced in the
+		// mailbox before being taken are reused, callback never waits for the consumer
+
 		try {
-			exchanger.exchange(frame.getBufferedImage());
-		} catch (InterruptedException e) {
+			mailbox.publish(decode(frame));
+		} catch (IOException e) {
+			LOG.error("Cannot decode JPEG frame", e);
 			return;
 		} finally {
 			frame.recycle();
@@ -435,6 +567,83 @@ public class V4l4jDevice implements WebcamDevice, CaptureCallback, WebcamDevice.
 		fps = (4 * fps + 1000 / (t2 - t1 + 1)) / 5;
 	}
 
+	/**
+	 * Decode JPEG frame into the image leased from the pool.
+	 *
+	 * @param frame the JPEG video frame
+	 * @return Decoded image
+	 * @throws IOException when frame cannot be decoded
+	 */
+	private PooledImage decode(VideoFrame frame) throws IOException {
+
+		if (reader == null) {
+			Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("jpeg");
+			if (!readers.hasNext()) {
+				return draw(frame.getBufferedImage());
+			}
+			reader = readers.next();
+		}
+
+		input.reset(frame.getBytes(), frame.getFrameLength());
+		reader.setInput(input, true, true);
+
+		try {
+
+			PooledImage image = lease(reader.getWidth(0), reader.getHeight(0));
+
+			try {
+
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setDestination(image.getImage());
+				reader.read(0, param);
+
+				return image;
+
+			} catch (IllegalArgumentException e) {
+
+				// image type not suitable for this frame, e.g. grayscale JPEG
+
+				LOG.trace("Cannot decode frame into pooled image", e);
+
+				image.release();
+
+				return draw(frame.getBufferedImage());
+
+			} catch (IOException e) {
+				image.release();
+				throw e;
+			}
+
+		} finally {
+			reader.setInput(null);
+		}
+	}
+
+	/**
+	 * Copy image decoded by v4l4j into the image leased from the pool.
+	 *
+	 * @param bi the image to copy
+	 * @return Pooled image
+	 */
+	private PooledImage draw(BufferedImage bi) {
+		PooledImage image = lease(bi.getWidth(), bi.getHeight());
+		Graphics2D g2 = image.getImage().createGraphics();
+		try {
+			g2.drawImage(bi, 0, 0, null);
+		} finally {
+			g2.dispose();
+		}
+		return image;
+	}
+
+	private PooledImage lease(int width, int height) {
+		Dimension size = new Dimension(width, height);
+		if (pool == null || !pool.getSize().equals(size)) {
+			pool = new ImagePool(size, POOL_CAPACITY);
+		}
+		return pool.lease();
+	}
+
 	@Override
 	public void exceptionReceived(V4L4JException e) {
 		e.printStackTrace();
@@ -1,17 +1,9 @@
 package com.github.sarxos.webcam.ds.vlcj;
 
 import java.awt.Dimension;
-import java.awt.Transparency;
-import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
-import java.awt.image.ComponentColorModel;
-import java.awt.image.ComponentSampleModel;
-import java.awt.image.DataBuffer;
-import java.awt.image.DataBufferByte;
-import java.awt.image.Raster;
-import java.awt.image.WritableRaster;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -19,10 +11,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDevice.BufferAccess;
 import com.github.sarxos.webcam.WebcamDevice.FPSSource;
 import com.github.sarxos.webcam.WebcamException;
 import com.github.sarxos.webcam.WebcamResolution;
+import com.github.sarxos.webcam.util.FrameMailbox;
+import com.github.sarxos.webcam.util.ImagePool;
 import com.github.sarxos.webcam.util.OsUtils;
+import com.github.sarxos.webcam.util.PooledImage;
 import com.sun.jna.Memory;
 
 import uk.co.caprica.vlcj.medialist.MediaListItem;
@@ -41,149 +37,7 @@ import uk.co.caprica.vlcj.player.direct.format.RV32BufferFormat;
  *
  * @author Bartosz Firyn (SarXos)
  */
-public class VlcjDevice implements WebcamDevice, BufferFormatCallback, RenderCallback, FPSSource {
-
-	/**
-	 * This class is to convert vlcj {@link Memory} to {@link BufferedImage}.
-	 *
-	 * @author Bartosz Firyn (sarxos)
-	 */
-	private static class Converter {
-
-		/**
-		 * Converters are cached and created on demand for every width-height tuple.
-		 */
-		private static final Map<String, Converter> CONVERTERS = new HashMap<String, Converter>();
-
-		/**
-		 * The buffer data type (buffer consist of 4 byte values for every pixel).
-		 */
-		final int dataType = DataBuffer.TYPE_BYTE;
-
-		/**
-		 * Number of bytes per pixel.
-		 */
-		final int pixelStride = 4;
-
-		/**
-		 * Number of bytes per line.
-		 */
-		final int scanlineStride;
-
-		/**
-		 * Band offsets for BGR components (B = 2, G = 1, R = 0).
-		 */
-		final int[] bgrBandOffsets = new int[] { 2, 1, 0 };
-
-		/**
-		 * Number of bits per component.
-		 */
-		final int[] bits = { 8, 8, 8 };
-
-		/**
-		 * Offset between pixels.
-		 */
-		final int[] offsets = new int[] { 0 };
-
-		/**
-		 * Transparency type (opaque since there is no transparency in the image).
-		 */
-		final int transparency = Transparency.OPAQUE;
-
-		/**
-		 * Color space, a standard default color space for the Internet - sRGB.
-		 */
-		final ColorSpace colorSpace = ColorSpace.getInstance(ColorSpace.CS_sRGB);
-
-		/**
-		 * Image sample model.
-		 */
-		final ComponentSampleModel sampleModel;
-
-		/**
-		 * Image color model.
-		 */
-		final ComponentColorModel colorModel = new ComponentColorModel(colorSpace, bits, false, false, transparency, dataType);
-
-		private Converter(int width, int height) {
-			this.scanlineStride = width * pixelStride;
-			this.sampleModel = new ComponentSampleModel(dataType, width, height, pixelStride, scanlineStride, bgrBandOffsets);
-		}
-
-		/**
-		 * Get memory converter for given width-height tuple.
-		 *
-		 * @param width the image width
-		 * @param height the image height
-		 * @return Converter
-		 */
-		public static Converter getConverter(int width, int height) {
-			String key = key(width, height);
-			Converter converter = CONVERTERS.get(key);
-			if (converter == null) {
-				converter = new Converter(width, height);
-				CONVERTERS.put(key, converter);
-			}
-			return converter;
-		}
-
-		/**
-		 * Use width and height to create map key.
-		 *
-		 * @param width the image width
-		 * @param height the image height
-		 * @return Map key
-		 */
-		private static String key(int width, int height) {
-			return width + "x" + height;
-		}
-
-		/**
-		 * Converts {@link Memory} into {@link BufferedImage}.
-		 *
-		 * @param buffers the {@link Memory} buffers
-		 * @param format the image format
-		 * @return {@link BufferedImage} created from {@link Memory}
-		 */
-		public BufferedImage convert(Memory[] buffers, BufferFormat format) {
-
-			// sanity, check if buffers is not empty
-
-			if (buffers.length == 0) {
-				throw new RuntimeException("No memory elements found!");
-			}
-
-			// sanity check if buffer is not null
-
-			final Memory memory = buffers[0];
-			if (memory == null) {
-				throw new RuntimeException("Null memory!");
-			}
-
-			// transfer bytes into array
-
-			final byte[] bytes = new byte[scanlineStride * format.getHeight()];
-			final byte[][] data = new byte[][] { bytes };
-
-			memory
-				.getByteBuffer(0, memory.size())
-				.get(bytes);
-
-			// create image
-
-			DataBufferByte dataBuffer = new DataBufferByte(data, bytes.length, offsets);
-			WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, null);
-			BufferedImage image = new BufferedImage(colorModel, raster, false, null);
-
-			// flush reconstructable resources to free memory
-
-			image.flush();
-
-			// return image
-
-			return image;
-		}
-	}
+public class VlcjDevice implements WebcamDevice, BufferAccess, BufferFormatCallback, RenderCallback, FPSSource {
 
 	/**
 	 * Logger.
@@ -225,9 +79,20 @@ public class VlcjDevice implements WebcamDevice, BufferFormatCallback, RenderCal
 	private long t2 = -1;
 
 	/**
-	 * Image exchange reference.
+	 * Number of idle images kept in the pool, one in the mailbox, one being written by the display
+	 * callback and one being read by the consumer.
+	 */
+	private static final int POOL_CAPACITY = 3;
+
+	/**
+	 * Image exchange mailbox, holds the most recent image not taken by consumer.
+	 */
+	private final FrameMailbox mailbox = new FrameMailbox();
+
+	/**
+	 * Images to which frames are written, accessed only from display callback.
 	 */
-	private final AtomicReference<BufferedImage> imageRef = new AtomicReference<BufferedImage>();
+	private ImagePool pool = null;
 
 	/**
 	 * Current FPS.
@@ -344,26 +209,89 @@ public class VlcjDevice implements WebcamDevice, BufferFormatCallback, RenderCal
 		this.resolution = resolution;
 	}
 
-	@Override
-	public BufferedImage getImage() {
+	/**
+	 * Wait for the next frame. Returned frame must be released.
+	 *
+	 * @return Pooled frame or null if device has been closed or thread interrupted
+	 */
+	private PooledImage takeFrame() {
 
 		if (!open.get()) {
 			throw new WebcamException("Cannot get image, webcam device is not open");
 		}
 
-		BufferedImage image = null;
+		PooledImage frame = null;
 
 		// wait for image
 
-		while ((image = imageRef.getAndSet(null)) == null) {
-			try {
-				Thread.sleep(10);
-			} catch (InterruptedException e) {
-				return null;
+		try {
+			while ((frame = mailbox.take(1, TimeUnit.SECONDS)) == null) {
+				if (!open.get()) {
+					return null;
+				}
 			}
+		} catch (InterruptedException e) {
+			return null;
 		}
 
-		return image;
+		return frame;
+	}
+
+	/**
+	 * Return copy of the most recent frame, because image given to the caller is never reused.
+	 * Use {@link #getImageBytes(ByteBuffer)}, e.g. with webcam image pooling, to read frames
+	 * without creating new images.
+	 */
+	@Override
+	public BufferedImage getImage() {
+
+		final PooledImage frame = takeFrame();
+		if (frame == null) {
+			return null;
+		}
+
+		try {
+			return frame.copy();
+		} finally {
+			frame.release();
+		}
+	}
+
+	@Override
+	public ByteBuffer getImageBytes() {
+
+		final PooledImage frame = takeFrame();
+		if (frame == null) {
+			return null;
+		}
+
+		try {
+			return ByteBuffer.wrap(frame.getData().clone());
+		} finally {
+			frame.release();
+		}
+	}
+
+	@Override
+	public void getImageBytes(ByteBuffer target) {
+
+		final PooledImage frame = takeFrame();
+		if (frame == null) {
+			return;
+		}
+
+		try {
+
+			final byte[] data = frame.getData();
+			if (data.length > target.remaining()) {
+				throw new IllegalArgumentException(String.format("Not enough remaining space in target buffer (%d necessary vs %d remaining)", data.length, target.remaining()));
+			}
+
+			target.put(data);
+
+		} finally {
+			frame.release();
+		}
 	}
 
 	@Override
@@ -427,7 +355,7 @@ public class VlcjDevice implements WebcamDevice, BufferFormatCallback, RenderCal
 		int max = 100;
 		int count = 0;
 
-		while (imageRef.get() == null) {
+		while (!mailbox.isFull()) {
 
 			try {
 				Thread.sleep(wait);
@@ -455,6 +383,7 @@ public class VlcjDevice implements WebcamDevice, BufferFormatCallback, RenderCal
 
 		if (open.compareAndSet(true, false)) {
 			player.stop();
+			mailbox.clear();
 		}
 	}
 
@@ -490,11 +419,23 @@ public class VlcjDevice implements WebcamDevice, BufferFormatCallback, RenderCal
 
 		LOG.trace("Direct media player display invoked with format {}", format);
 
-		// convert memory to image
+		// convert memory into the pooled image, images released by consumer or replaced in the
+		// mailbox before being taken are reused for the next frames
 
-		Converter converter = Converter.getConverter(format.getWidth(), format.getHeight());
-		BufferedImage image = converter.convert(buffers, format);
-		imageRef.set(image);
+		final Dimension size = new Dimension(format.getWidth(), format.getHeight());
+		if (pool == null || !pool.getSize().equals(size)) {
+			pool = new ImagePool(size, POOL_CAPACITY);
+		}
+
+		final PooledImage image = pool.lease();
+		try {
+			convert(buffers, image);
+		} catch (RuntimeException e) {
+			image.release();
+			throw e;
+		}
+
+		mailbox.publish(image);
 
 		// calculate fps
 
@@ -509,8 +450,43 @@ public class VlcjDevice implements WebcamDevice, BufferFormatCallback, RenderCal
 		fps.set((4 * fps.get() + 1000 / (t2 - t1 + 1)) / 5);
 	}
 
+	/**
+	 * Converts {@link Memory} in RV32 format, where every pixel is stored in 4 bytes as B, G, R and
+	 * one unused byte, into the pooled image, where every pixel is stored in 3 bytes as R, G, B.
+	 *
+	 * @param buffers the {@link Memory} buffers
+	 * @param image the image to write to
+	 */
+	private static void convert(Memory[] buffers, PooledImage image) {
+
+		// sanity, check if buffers is not empty
+
+		if (buffers.length == 0) {
+			throw new RuntimeException("No memory elements found!");
+		}
+
+		// sanity check if buffer is not null
+
+		final Memory memory = buffers[0];
+		if (memory == null) {
+			throw new RuntimeException("Null memory!");
+		}
+
+		// transfer bytes into image raster, memory is read in place, without copying it first
+
+		final ByteBuffer src = memory.getByteBuffer(0, memory.size());
+		final byte[] dst = image.getData();
+		final int pixels = (int) Math.min(dst.length / 3, memory.size() / 4);
+
+		for (int i = 0, s = 0, d = 0; i < pixels; i++, s += 4, d += 3) {
+			dst[d] = src.get(s + 2);
+			dst[d + 1] = src.get(s + 1);
+			dst[d + 2] = src.get(s);
+		}
+	}
+
 	@Override
 	public double getFPS() {
 		return fps.get();
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
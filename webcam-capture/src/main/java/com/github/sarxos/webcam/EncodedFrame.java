@@ -0,0 +1,142 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.imageio.ImageIO;
+
+
+/**
+ * Frame in its native encoded form, e.g. JPEG image received from MJPEG stream. Frame is decoded
+ * into {@link BufferedImage} only when {@link #getImage()} is invoked for the first time, and the
+ * decoded image is cached, so devices and consumers which only forward encoded bytes never pay for
+ * decoding.<br>
+ * <br>
+ * Frame is immutable, bytes array passed to the constructor is owned by the frame and must not be
+ * modified afterwards.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class EncodedFrame {
+
+	/**
+	 * Codec identifier of JPEG frames.
+	 */
+	public static final String JPEG = "image/jpeg";
+
+	private final String codec;
+	private final byte[] bytes;
+	private final long timestamp;
+
+	/**
+	 * Decoded image, lazily created.
+	 */
+	private volatile BufferedImage image = null;
+
+	/**
+	 * Create new encoded frame.
+	 *
+	 * @param codec the codec identifier, MIME type of the frame data, e.g. {@link #JPEG}
+	 * @param bytes the encoded frame bytes
+	 */
+	public EncodedFrame(String codec, byte[] bytes) {
+
+		if (codec == null) {
+			throw new IllegalArgumentException("Codec cannot be null");
+		}
+		if (bytes == null) {
+			throw new IllegalArgumentException("Frame bytes cannot be null");
+		}
+
+		this.codec = codec;
+		this.bytes = bytes;
+		this.timestamp = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return Codec identifier, MIME type of the frame data
+	 */
+	public String getCodec() {
+		return codec;
+	}
+
+	/**
+	 * @return True if this is JPEG frame
+	 */
+	public boolean isJpeg() {
+		return JPEG.equals(codec);
+	}
+
+	/**
+	 * Return encoded bytes. This is frame internal array and it must not be modified.
+	 *
+	 * @return Encoded frame bytes
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return Read-only buffer view of the encoded frame bytes
+	 */
+	public ByteBuffer getBuffer() {
+		return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return Encoded frame length in bytes
+	 */
+	public int getLength() {
+		return bytes.length;
+	}
+
+	/**
+	 * @return Time in milliseconds when frame has been created
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Write encoded bytes to the output stream.
+	 *
+	 * @param os the output stream
+	 * @throws IOException when bytes cannot be written
+	 */
+	public void writeTo(OutputStream os) throws IOException {
+		os.write(bytes);
+	}
+
+	/**
+	 * Decode frame into image. Frame is decoded only once, next invocations return the same image
+	 * instance.
+	 *
+	 * @return Decoded image or null if frame format is not supported
+	 * @throws WebcamException when frame cannot be decoded
+	 */
+	public BufferedImage getImage() {
+
+		BufferedImage bi = image;
+		if (bi != null) {
+			return bi;
+		}
+
+		try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes)) {
+			bi = ImageIO.read(bais);
+		} catch (IOException e) {
+			throw new WebcamException("Cannot decode " + codec + " frame", e);
+		}
+
+		return image = bi;
+	}
+
+	/**
+	 * @return True if frame has been already decoded
+	 */
+	public boolean isDecoded() {
+		return image != null;
+	}
+}
@@ -0,0 +1,481 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Raw video frame in the device native pixel format, together with its dimensions, row stride,
+ * capture timestamp and sequence number. Pixels are stored in heap or direct {@link ByteBuffer}.
+ * Frame is converted into {@link BufferedImage}, RGB or grayscale bytes only when one of
+ * {@link #getImage()}, {@link #getRGB()} or {@link #getGray()} is invoked for the first time, and
+ * the result is cached, so consumers which need only luma, e.g. motion detection, never pay for
+ * color conversion.<br>
+ * <br>
+ * Frame is immutable, buffer passed to the constructor is owned by the frame and must not be
+ * modified afterwards.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class Frame {
+
+	/**
+	 * Pixel format of the frame buffer.
+	 */
+	public static enum PixelFormat {
+
+		/**
+		 * Packed 3 bytes per pixel, R, G, B order.
+		 */
+		RGB24(3),
+
+		/**
+		 * Packed 3 bytes per pixel, B, G, R order.
+		 */
+		BGR24(3),
+
+		/**
+		 * Packed 1 byte per pixel, luma only.
+		 */
+		GRAY8(1),
+
+		/**
+		 * Packed 4 bytes per 2 pixels, Y0, U, Y1, V order (YUY2).
+		 */
+		YUYV(2),
+
+		/**
+		 * Luma plane followed by interleaved U, V plane of half width and half height, chroma
+		 * rows have the same stride as luma rows.
+		 */
+		NV12(1),
+
+		/**
+		 * Luma plane followed by U plane and V plane, both of half width and half height, chroma
+		 * rows have half of the luma stride (YUV420 planar).
+		 */
+		I420(1);
+
+		private final int bytesPerPixel;
+
+		private PixelFormat(int bytesPerPixel) {
+			this.bytesPerPixel = bytesPerPixel;
+		}
+
+		/**
+		 * @return Number of bytes per pixel in the first (or only) plane
+		 */
+		public int getBytesPerPixel() {
+			return bytesPerPixel;
+		}
+
+		/**
+		 * @return True if this is YUV format with half resolution chroma planes
+		 */
+		public boolean isPlanar() {
+			return this == NV12 || this == I420;
+		}
+	}
+
+	private final PixelFormat format;
+	private final int width;
+	private final int height;
+	private final int stride;
+	private final int sliceHeight;
+	private final ByteBuffer buffer;
+	private final long timestamp;
+	private final long sequence;
+
+	private volatile BufferedImage image = null;
+	private volatile ByteBuffer rgb = null;
+	private volatile ByteBuffer gray = null;
+
+	/**
+	 * Create frame which rows are not padded.
+	 *
+	 * @param format the pixel format
+	 * @param width the frame width
+	 * @param height the frame height
+	 * @param buffer the pixels, starting at buffer position
+	 * @param timestamp the capture time in nanoseconds, see {@link System#nanoTime()}
+	 * @param sequence the frame sequence number
+	 */
+	public Frame(PixelFormat format, int width, int height, ByteBuffer buffer, long timestamp, long sequence) {
+		this(format, width, height, width * format.getBytesPerPixel(), height, buffer, timestamp, sequence);
+	}
+
+	/**
+	 * Create frame.
+	 *
+	 * @param format the pixel format
+	 * @param width the frame width
+	 * @param height the frame height
+	 * @param stride the length of the first plane row in bytes, including padding
+	 * @param sliceHeight the number of the first plane rows, including padding, used to find
+	 *            chroma planes of the planar formats
+	 * @param buffer the pixels, starting at buffer position
+	 * @param timestamp the capture time in nanoseconds, see {@link System#nanoTime()}
+	 * @param sequence the frame sequence number
+	 */
+	public Frame(PixelFormat format, int width, int height, int stride, int sliceHeight, ByteBuffer buffer, long timestamp, long sequence) {
+
+		if (format == null) {
+			throw new IllegalArgumentException("Pixel format cannot be null");
+		}
+		if (buffer == null) {
+			throw new IllegalArgumentException("Frame buffer cannot be null");
+		}
+		if (width < 1 || height < 1 || stride < width * format.getBytesPerPixel() || sliceHeight < height) {
+			throw new IllegalArgumentException(String.format("Wrong frame size %dx%d (stride %d, slice height %d)", width, height, stride, sliceHeight));
+		}
+
+		this.format = format;
+		this.width = width;
+		this.height = height;
+		this.stride = stride;
+		this.sliceHeight = sliceHeight;
+		this.buffer = buffer.slice();
+		this.timestamp = timestamp;
+		this.sequence = sequence;
+
+		int length = getLength();
+		if (this.buffer.remaining() < length) {
+			throw new IllegalArgumentException(String.format("Frame buffer is too small (%d necessary vs %d remaining)", length, this.buffer.remaining()));
+		}
+	}
+
+	/**
+	 * Create frame from image. Images of {@link BufferedImage#TYPE_3BYTE_BGR} and
+	 * {@link BufferedImage#TYPE_BYTE_GRAY} type are wrapped without copying pixels, other images
+	 * are converted to BGR. Original image is returned by {@link #getImage()}.
+	 *
+	 * @param image the image
+	 * @param timestamp the capture time in nanoseconds, see {@link System#nanoTime()}
+	 * @param sequence the frame sequence number
+	 * @return New frame
+	 */
+	public static Frame of(BufferedImage image, long timestamp, long sequence) {
+
+		if (image == null) {
+			throw new IllegalArgumentException("Image cannot be null");
+		}
+
+		final int w = image.getWidth();
+		final int h = image.getHeight();
+
+		PixelFormat format = null;
+		byte[] data = null;
+
+		if (image.getType() == BufferedImage.TYPE_3BYTE_BGR || image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+			format = image.getType() == BufferedImage.TYPE_BYTE_GRAY ? PixelFormat.GRAY8 : PixelFormat.BGR24;
+			data = getData(image.getRaster(), w * h * format.getBytesPerPixel());
+		}
+
+		if (data == null) {
+
+			BufferedImage bgr = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+			Graphics2D g2 = bgr.createGraphics();
+			try {
+				g2.drawImage(image, 0, 0, null);
+			} finally {
+				g2.dispose();
+			}
+
+			format = PixelFormat.BGR24;
+			data = ((DataBufferByte) bgr.getRaster().getDataBuffer()).getData();
+		}
+
+		Frame frame = new Frame(format, w, h, ByteBuffer.wrap(data), timestamp, sequence);
+		frame.image = image;
+
+		return frame;
+	}
+
+	/**
+	 * Return raster data if it can be wrapped, i.e. raster is not a child and has no padding.
+	 */
+	private static byte[] getData(WritableRaster raster, int length) {
+		if (raster.getParent() != null || !(raster.getDataBuffer() instanceof DataBufferByte)) {
+			return null;
+		}
+		DataBufferByte dbb = (DataBufferByte) raster.getDataBuffer();
+		if (dbb.getNumBanks() != 1 || dbb.getOffset() != 0 || dbb.getData().length != length) {
+			return null;
+		}
+		return dbb.getData();
+	}
+
+	/**
+	 * @return Number of bytes used by the frame, without padding following the last row
+	 */
+	private int getLength() {
+		final int rows = (height - 1) * stride + width * format.getBytesPerPixel();
+		switch (format) {
+			case NV12:
+				return stride * sliceHeight + stride * ((height + 1) / 2 - 1) + ((width + 1) & ~1);
+			case I420:
+				return getChromaOffset(1) + getChromaStride() * ((height + 1) / 2 - 1) + (width + 1) / 2;
+			default:
+				return rows;
+		}
+	}
+
+	private int getChromaStride() {
+		return format == PixelFormat.I420 ? (stride + 1) / 2 : stride;
+	}
+
+	/**
+	 * @param plane the chroma plane, 0 for U (or UV in NV12), 1 for V
+	 * @return Offset of the chroma plane
+	 */
+	private int getChromaOffset(int plane) {
+		return stride * sliceHeight + plane * getChromaStride() * ((sliceHeight + 1) / 2);
+	}
+
+	/**
+	 * @return Pixel format
+	 */
+	public PixelFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return Frame width in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return Frame height in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Length of the first plane row in bytes, including padding
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * @return Number of the first plane rows, including padding
+	 */
+	public int getSliceHeight() {
+		return sliceHeight;
+	}
+
+	/**
+	 * @return Capture time in nanoseconds, comparable with {@link System#nanoTime()} only
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return Frame sequence number
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return Read-only view of the frame buffer in its native pixel format
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer.asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return True if frame buffer is direct
+	 */
+	public boolean isDirect() {
+		return buffer.isDirect();
+	}
+
+	/**
+	 * Return frame as image. {@link PixelFormat#GRAY8} frames are converted into
+	 * {@link BufferedImage#TYPE_BYTE_GRAY} images and all the others into
+	 * {@link BufferedImage#TYPE_3BYTE_BGR}. Frame is converted only once, next invocations return
+	 * the same image instance.
+	 *
+	 * @return Frame image
+	 */
+	public BufferedImage getImage() {
+
+		BufferedImage bi = image;
+		if (bi != null) {
+			return bi;
+		}
+
+		if (format == PixelFormat.GRAY8) {
+			bi = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+			byte[] data = ((DataBufferByte) bi.getRaster().getDataBuffer()).getData();
+			getGray().get(data);
+		} else {
+			bi = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+			toColor(((DataBufferByte) bi.getRaster().getDataBuffer()).getData(), true);
+		}
+
+		return image = bi;
+	}
+
+	/**
+	 * Return frame pixels as 3 bytes per pixel RGB, without padding, the same layout as returned by
+	 * {@link Webcam#getImageBytes()}. Frame is converted only once.
+	 *
+	 * @return Read-only RGB buffer
+	 */
+	public ByteBuffer getRGB() {
+
+		ByteBuffer bb = rgb;
+		if (bb == null) {
+			if (format == PixelFormat.RGB24 && stride == width * 3) {
+				bb = buffer;
+			} else {
+				byte[] data = new byte[width * height * 3];
+				toColor(data, false);
+				bb = ByteBuffer.wrap(data);
+			}
+			rgb = bb;
+		}
+
+		return bb.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Return frame luma, 1 byte per pixel, without padding. Luma of YUV and gray frames is taken
+	 * without conversion, and when rows are not padded, it is returned without copying. Luma of
+	 * RGB frames is computed once.
+	 *
+	 * @return Read-only luma buffer
+	 */
+	public ByteBuffer getGray() {
+
+		ByteBuffer bb = gray;
+		if (bb == null) {
+			if ((format == PixelFormat.GRAY8 || format.isPlanar()) && stride == width) {
+				bb = buffer.duplicate();
+				bb.limit(width * height);
+				bb = bb.slice();
+			} else {
+				bb = ByteBuffer.wrap(toGray());
+			}
+			gray = bb;
+		}
+
+		return bb.asReadOnlyBuffer();
+	}
+
+	private int get(int index) {
+		return buffer.get(index) & 0xFF;
+	}
+
+	private byte[] toGray() {
+
+		final byte[] dst = new byte[width * height];
+
+		int o = 0;
+
+		for (int y = 0; y < height; y++) {
+
+			final int row = y * stride;
+
+			for (int x = 0; x < width; x++) {
+				switch (format) {
+					case RGB24:
+						dst[o++] = luma(get(row + x * 3), get(row + x * 3 + 1), get(row + x * 3 + 2));
+						break;
+					case BGR24:
+						dst[o++] = luma(get(row + x * 3 + 2), get(row + x * 3 + 1), get(row + x * 3));
+						break;
+					case YUYV:
+						dst[o++] = buffer.get(row + x * 2);
+						break;
+					default:
+						dst[o++] = buffer.get(row + x);
+						break;
+				}
+			}
+		}
+
+		return dst;
+	}
+
+	/**
+	 * Convert frame to 3 bytes per pixel color.
+	 *
+	 * @param dst the destination, width * height * 3 bytes
+	 * @param bgr true for B, G, R order, false for R, G, B
+	 */
+	private void toColor(byte[] dst, boolean bgr) {
+
+		final int r0 = bgr ? 2 : 0;
+		final int b0 = bgr ? 0 : 2;
+		final int cstride = getChromaStride();
+
+		int o = 0;
+
+		for (int y = 0; y < height; y++) {
+
+			final int row = y * stride;
+			final int crow = (y >> 1) * cstride;
+
+			for (int x = 0; x < width; x++, o += 3) {
+				switch (format) {
+					case RGB24:
+					case BGR24:
+						final int i = row + x * 3;
+						final boolean swap = (format == PixelFormat.BGR24) != bgr;
+						dst[o] = buffer.get(swap ? i + 2 : i);
+						dst[o + 1] = buffer.get(i + 1);
+						dst[o + 2] = buffer.get(swap ? i : i + 2);
+						break;
+					case GRAY8:
+						dst[o] = dst[o + 1] = dst[o + 2] = buffer.get(row + x);
+						break;
+					case YUYV:
+						final int pair = row + (x >> 1) * 4;
+						yuv(dst, o, r0, b0, get(row + x * 2), get(pair + 1), get(pair + 3));
+						break;
+					case NV12:
+						final int uv = getChromaOffset(0) + crow + (x & ~1);
+						yuv(dst, o, r0, b0, get(row + x), get(uv), get(uv + 1));
+						break;
+					case I420:
+						yuv(dst, o, r0, b0, get(row + x), get(getChromaOffset(0) + crow + (x >> 1)), get(getChromaOffset(1) + crow + (x >> 1)));
+						break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Convert full range BT.601 YUV (as used by JPEG) to RGB.
+	 */
+	private static void yuv(byte[] dst, int o, int r0, int b0, int l, int u, int v) {
+		final int d = u - 128;
+		final int e = v - 128;
+		dst[o + r0] = clamp(l + ((91881 * e + 32768) >> 16));
+		dst[o + 1] = clamp(l - ((22554 * d + 46802 * e - 32768) >> 16));
+		dst[o + b0] = clamp(l + ((116130 * d + 32768) >> 16));
+	}
+
+	private static byte luma(int r, int g, int b) {
+		return (byte) ((77 * r + 150 * g + 29 * b + 128) >> 8);
+	}
+
+	private static byte clamp(int value) {
+		return (byte) (value < 0 ? 0 : value > 255 ? 255 : value);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s %dx%d, stride=%d, sequence=%d]", getClass().getSimpleName(), format, width, height, stride, sequence);
+	}
+}
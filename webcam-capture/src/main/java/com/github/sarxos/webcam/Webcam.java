@@ -1,6 +1,7 @@
 package com.github.sarxos.webcam;
 
 import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -9,13 +10,12 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,9 +29,14 @@ import com.github.sarxos.webcam.ds.buildin.WebcamDefaultDriver;
 import com.github.sarxos.webcam.ds.cgt.WebcamCloseTask;
 import com.github.sarxos.webcam.ds.cgt.WebcamDisposeTask;
 import com.github.sarxos.webcam.ds.cgt.WebcamGetBufferTask;
+import com.github.sarxos.webcam.ds.cgt.WebcamGetEncodedFrameTask;
+import com.github.sarxos.webcam.ds.cgt.WebcamGetFrameTask;
 import com.github.sarxos.webcam.ds.cgt.WebcamGetImageTask;
 import com.github.sarxos.webcam.ds.cgt.WebcamOpenTask;
 import com.github.sarxos.webcam.ds.cgt.WebcamReadBufferTask;
+import com.github.sarxos.webcam.util.FrameRing;
+import com.github.sarxos.webcam.util.ImagePool;
+import com.github.sarxos.webcam.util.PooledImage;
 
 
 /**
@@ -41,60 +46,6 @@ import com.github.sarxos.webcam.ds.cgt.WebcamReadBufferTask;
  */
 public class Webcam {
 
-	/**
-	 * Class used to asynchronously notify all webcam listeners about new image available.
-	 *
-	 * @author Bartosz Firyn (sarxos)
-	 */
-	private static final class ImageNotification implements Runnable {
-
-		/**
-		 * Camera.
-		 */
-		private final Webcam webcam;
-
-		/**
-		 * Acquired image.
-		 */
-		private final BufferedImage image;
-
-		/**
-		 * Create new notification.
-		 *
-		 * @param webcam the webcam from which image has been acquired
-		 * @param image the acquired image
-		 */
-		public ImageNotification(Webcam webcam, BufferedImage image) {
-			this.webcam = webcam;
-			this.image = image;
-		}
-
-		@Override
-		public void run() {
-			if (image != null) {
-				WebcamEvent we = new WebcamEvent(WebcamEventType.NEW_IMAGE, webcam, image);
-				for (WebcamListener l : webcam.getWebcamListeners()) {
-					try {
-						l.webcamImageObtained(we);
-					} catch (Exception e) {
-						LOG.error(String.format("Notify image acquired, exception when calling listener %s", l.getClass()), e);
-					}
-				}
-			}
-		}
-	}
-
-	private final class NotificationThreadFactory implements ThreadFactory {
-
-		@Override
-		public Thread newThread(Runnable r) {
-			Thread t = new Thread(r, String.format("notificator-[%s]", getName()));
-			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
-			t.setDaemon(true);
-			return t;
-		}
-	}
-
 	/**
 	 * Logger instance.
 	 */
@@ -192,9 +143,54 @@ public class Webcam {
 	private WebcamLock lock = null;
 
 	/**
-	 * Executor service for image notifications.
+	 * Dispatcher of image notifications.
+	 */
+	private WebcamNotificator notificator = null;
+
+	/**
+	 * Policy used to dispatch image notifications.
+	 */
+	private volatile WebcamDispatchPolicy dispatchPolicy = WebcamDispatchPolicy.BOUNDED;
+
+	/**
+	 * Maximum number of image notifications waiting to be dispatched.
+	 */
+	private volatile int dispatchQueueSize = 16;
+
+	/**
+	 * Number of image notifications dropped for all listeners.
+	 */
+	private final AtomicLong droppedNotifications = new AtomicLong(0);
+
+	/**
+	 * Number of image notifications dropped for particular listeners.
+	 */
+	private final ConcurrentHashMap<WebcamListener, AtomicLong> droppedListenerNotifications = new ConcurrentHashMap<WebcamListener, AtomicLong>();
+
+	/**
+	 * Sequence number of frames created from images in blocking mode.
+	 */
+	private final AtomicLong frameSequence = new AtomicLong(0);
+
+	/**
+	 * Pool of reusable images, created lazily.
+	 */
+	private volatile ImagePool pool = null;
+
+	/**
+	 * Maximum number of idle images kept in the pool.
+	 */
+	private volatile int poolCapacity = 4;
+
+	/**
+	 * Should non-blocking updater use pooled images.
+	 */
+	private volatile boolean pooling = false;
+
+	/**
+	 * Capture pipeline metrics.
 	 */
-	private ExecutorService notificator = null;
+	private final WebcamMetrics metrics;
 
 	/**
 	 * Webcam class.
@@ -208,11 +204,12 @@ public class Webcam {
 		}
 		this.device = device;
 		this.lock = new WebcamLock(this);
+		this.metrics = WebcamMetrics.create(device, driver);
 	}
 
 	/**
-	 * Asynchronously start new thread which will notify all webcam listeners about the new image
-	 * available.
+	 * Asynchronously notify all webcam listeners about the new image available. Notification is
+	 * dispatched in accordance with the {@link WebcamDispatchPolicy}.
 	 */
 	protected void notifyWebcamImageAcquired(BufferedImage image) {
 
@@ -221,7 +218,27 @@ public class Webcam {
 		// additional threads for no purpose
 
 		if (getWebcamListenersCount() > 0) {
-			notificator.execute(new ImageNotification(this, image));
+			notificator.notify(image, null);
+		}
+	}
+
+	/**
+	 * Asynchronously notify all webcam listeners about the new encoded frame available. Frame is
+	 * decoded only when listener asks for the event image.
+	 */
+	protected void notifyWebcamImageAcquired(EncodedFrame frame) {
+		if (getWebcamListenersCount() > 0) {
+			notificator.notify(frame);
+		}
+	}
+
+	/**
+	 * Asynchronously notify all webcam listeners about the new pooled image available. Pooled image
+	 * is retained until all listeners have been notified.
+	 */
+	protected void notifyWebcamImageAcquired(PooledImage image) {
+		if (getWebcamListenersCount() > 0 && image.tryRetain()) {
+			notificator.notify(image.getImage(), image);
 		}
 	}
 
@@ -282,7 +299,7 @@ public class Webcam {
 
 			assert lock != null;
 
-			notificator = Executors.newSingleThreadExecutor(new NotificationThreadFactory());
+			notificator = new WebcamNotificator(this, dispatchPolicy, dispatchQueueSize, droppedNotifications, droppedListenerNotifications);
 
 			// lock webcam for other Java (only) processes
 
@@ -307,6 +324,8 @@ public class Webcam {
 
 			LOG.debug("Webcam is now open {}", getName());
 
+			metrics.register();
+
 			// install shutdown hook
 
 			try {
@@ -480,6 +499,8 @@ public class Webcam {
 
 		removeShutdownHook();
 
+		metrics.dispose(device);
+
 		LOG.debug("Webcam disposed {}", getName());
 	}
 
@@ -508,7 +529,12 @@ public class Webcam {
 		if (image != null) {
 			WebcamImageTransformer tr = getImageTransformer();
 			if (tr != null) {
-				return tr.transform(image);
+				long t1 = System.nanoTime();
+				try {
+					return tr.transform(image);
+				} finally {
+					metrics.recordTransform(System.nanoTime() - t1);
+				}
 			}
 		}
 		return image;
@@ -658,9 +684,11 @@ public class Webcam {
 
 			// get image
 
-			t1 = System.currentTimeMillis();
-			BufferedImage image = transform(new WebcamGetImageTask(driver, device).getImage());
-			t2 = System.currentTimeMillis();
+			t1 = System.nanoTime();
+			BufferedImage image = new WebcamGetImageTask(driver, device).getImage();
+			metrics.recordCapture(System.nanoTime() - t1, image != null);
+			image = transform(image);
+			t2 = System.nanoTime();
 
 			if (image == null) {
 				return null;
@@ -668,12 +696,7 @@ public class Webcam {
 
 			// get FPS
 
-			if (device instanceof WebcamDevice.FPSSource) {
-				fps = ((WebcamDevice.FPSSource) device).getFPS();
-			} else {
-				// +1 to avoid division by zero
-				fps = (4 * fps + 1000 / (t2 - t1 + 1)) / 5;
-			}
+			updateFPS(t2 - t1);
 
 			// notify webcam listeners about new image available
 
@@ -683,6 +706,270 @@ public class Webcam {
 		}
 	}
 
+	/**
+	 * Create new cursor over the most recent images captured in non-blocking mode. Unlike
+	 * {@link #getImage()}, which always returns the latest image, cursor can be used to wait for
+	 * the next image and to find out how many images consumer has missed. Every consumer thread
+	 * should use its own cursor.
+	 *
+	 * @return New image cursor
+	 * @throws IllegalStateException when webcam is not open in non-blocking mode or image pooling
+	 *             is enabled
+	 */
+	public FrameRing.Cursor<BufferedImage> getImageCursor() {
+		if (!asynchronous || !open.get()) {
+			throw new IllegalStateException("Image cursor is available only when webcam is open in non-blocking mode");
+		}
+		return updater.getImageCursor();
+	}
+
+	/**
+	 * Return sequence number of the most recent image captured in non-blocking mode. It can be
+	 * passed to {@link #awaitImage(long, long, TimeUnit)} to wait for the next image.
+	 *
+	 * @return Image sequence number, 0 if no image has been captured yet
+	 * @throws IllegalStateException when webcam is not open in non-blocking mode
+	 */
+	public long getImageSequence() {
+		if (!asynchronous || !open.get()) {
+			throw new IllegalStateException("Image sequence is available only when webcam is open in non-blocking mode");
+		}
+		return updater.getImageSequence();
+	}
+
+	/**
+	 * Wait until image newer than the one with given sequence number has been captured in
+	 * non-blocking mode. This can be used to react on new frames instead of polling
+	 * {@link #getImage()} in fixed intervals.
+	 *
+	 * @param sequence the sequence number of the last known image
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit of the timeout argument
+	 * @return True if new image is available, false if timeout has elapsed
+	 * @throws InterruptedException when thread has been interrupted
+	 * @throws IllegalStateException when webcam is not open in non-blocking mode
+	 */
+	public boolean awaitImage(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+		if (!asynchronous || !open.get()) {
+			throw new IllegalStateException("Image wait is available only when webcam is open in non-blocking mode");
+		}
+		return updater.awaitImage(sequence, timeout, unit);
+	}
+
+	/**
+	 * @return True if webcam has been open in non-blocking mode
+	 */
+	public boolean isAsynchronous() {
+		return asynchronous;
+	}
+
+	/**
+	 * Capture image into the buffer leased from the webcam image pool. Devices supporting
+	 * {@link BufferAccess} copy image bytes directly into the pooled buffer, so steady-state capture
+	 * does not allocate any new images. For all other devices image is obtained as usual and copied
+	 * into the pooled one.<br>
+	 * <br>
+	 * Returned image <b>must</b> be released with {@link PooledImage#release()} when no longer used,
+	 * so it can be reused for next frames. Image transformer is <b>not</b> applied to pooled images.
+	 * If non-blocking mode is enabled together with {@link #setImagePooling(boolean)}, the most
+	 * recent image captured by the updater is returned.
+	 *
+	 * @return Pooled image or null if webcam is closed or disposed by JVM
+	 */
+	public PooledImage getPooledImage() {
+
+		if (!isReady()) {
+			return null;
+		}
+
+		if (asynchronous && pooling) {
+			return updater.getPooledImage();
+		}
+
+		long t1 = System.nanoTime();
+		PooledImage image = capturePooledImage();
+		long t2 = System.nanoTime();
+
+		metrics.recordCapture(t2 - t1, image != null);
+
+		if (image == null) {
+			return null;
+		}
+
+		updateFPS(t2 - t1);
+
+		notifyWebcamImageAcquired(image);
+
+		return image;
+	}
+
+	/**
+	 * Capture new image into the pooled buffer.
+	 *
+	 * @return Pooled image or null if it cannot be obtained
+	 */
+	protected PooledImage capturePooledImage() {
+
+		assert driver != null;
+		assert device != null;
+
+		if (device instanceof BufferAccess) {
+			PooledImage image = getImagePool(getViewSize()).lease();
+			try {
+				if (new WebcamReadBufferTask(driver, device, image.getBuffer()).readBuffer() == null) {
+					image.release();
+					return null;
+				}
+			} catch (RuntimeException e) {
+				image.release();
+				throw e;
+			}
+			return image;
+		}
+
+		BufferedImage bi = new WebcamGetImageTask(driver, device).getImage();
+		if (bi == null) {
+			return null;
+		}
+
+		PooledImage image = getImagePool(new Dimension(bi.getWidth(), bi.getHeight())).lease();
+		Graphics2D g2 = image.getImage().createGraphics();
+		try {
+			g2.drawImage(bi, 0, 0, null);
+		} finally {
+			g2.dispose();
+		}
+
+		return image;
+	}
+
+	private ImagePool getImagePool(Dimension size) {
+		ImagePool p = pool;
+		if (p == null || !p.getSize().equals(size)) {
+			synchronized (this) {
+				p = pool;
+				if (p == null || !p.getSize().equals(size)) {
+					pool = p = new ImagePool(size, poolCapacity);
+				}
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Return pool used to store images obtained by {@link #getPooledImage()}. The pool is created
+	 * when first pooled image is requested.
+	 *
+	 * @return Image pool or null if it was not yet created
+	 */
+	public ImagePool getImagePool() {
+		return pool;
+	}
+
+	/**
+	 * Set maximum number of idle images kept in the image pool. Takes effect when new pool is
+	 * created, i.e. when first pooled image is requested or resolution has been changed.
+	 *
+	 * @param capacity the pool capacity
+	 */
+	public void setImagePoolCapacity(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(String.format("Pool capacity must be positive (%d)", capacity));
+		}
+		this.poolCapacity = capacity;
+	}
+
+	/**
+	 * Enable or disable pooled images in non-blocking mode. When enabled, webcam updater captures
+	 * images into the pooled buffers, so no new images are allocated as long as all consumers use
+	 * {@link #getPooledImage()} and release obtained images. In this mode {@link #getImage()}
+	 * returns a transformed copy of the most recent pooled image, and images passed to listeners
+	 * are valid only until listener method returns. Must be set before webcam is open.
+	 *
+	 * @param pooling true to enable, false to disable
+	 */
+	public void setImagePooling(boolean pooling) {
+		if (open.get()) {
+			throw new IllegalStateException("Cannot change image pooling when webcam is open, please close it first");
+		}
+		this.pooling = pooling;
+	}
+
+	/**
+	 * @return True if non-blocking mode uses pooled images
+	 */
+	public boolean isImagePooling() {
+		return pooling;
+	}
+
+	/**
+	 * Set policy used to dispatch new image notifications to the webcam listeners. Default policy
+	 * is {@link WebcamDispatchPolicy#BOUNDED}. Must be set before webcam is open.
+	 *
+	 * @param policy the dispatch policy
+	 */
+	public void setDispatchPolicy(WebcamDispatchPolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException("Dispatch policy cannot be null");
+		}
+		if (open.get()) {
+			throw new IllegalStateException("Cannot change dispatch policy when webcam is open, please close it first");
+		}
+		this.dispatchPolicy = policy;
+	}
+
+	/**
+	 * @return Policy used to dispatch new image notifications
+	 */
+	public WebcamDispatchPolicy getDispatchPolicy() {
+		return dispatchPolicy;
+	}
+
+	/**
+	 * Set maximum number of new image notifications waiting to be dispatched, either for all
+	 * listeners or for every single listener, depending on the dispatch policy. Default is 16. Must
+	 * be set before webcam is open.
+	 *
+	 * @param size the queue size
+	 */
+	public void setDispatchQueueSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException(String.format("Dispatch queue size must be positive (%d)", size));
+		}
+		if (open.get()) {
+			throw new IllegalStateException("Cannot change dispatch queue size when webcam is open, please close it first");
+		}
+		this.dispatchQueueSize = size;
+	}
+
+	/**
+	 * @return Maximum number of new image notifications waiting to be dispatched
+	 */
+	public int getDispatchQueueSize() {
+		return dispatchQueueSize;
+	}
+
+	/**
+	 * Return number of new image notifications which have been dropped because listeners were not
+	 * able to consume them fast enough. Notification dropped for N listeners counts N times.
+	 *
+	 * @return Number of dropped notifications
+	 */
+	public long getDroppedNotifications() {
+		return droppedNotifications.get();
+	}
+
+	/**
+	 * Return number of new image notifications which have been dropped for the given listener.
+	 *
+	 * @param l the webcam listener
+	 * @return Number of notifications dropped for this listener
+	 */
+	public long getDroppedNotifications(WebcamListener l) {
+		AtomicLong counter = droppedListenerNotifications.get(l);
+		return counter == null ? 0 : counter.get();
+	}
+
 	public boolean isImageNew() {
 		if (asynchronous) {
 			return updater.isImageNew();
@@ -705,7 +992,8 @@ public class Webcam {
 	 * <b>IMPORTANT!</b><br>
 	 * Some drivers can return direct ByteBuffer, so there is no guarantee that underlying bytes
 	 * will not be released in next read image operation. Therefore, to avoid potential bugs you
-	 * should convert this ByteBuffer to bytes array before you fetch next image.
+	 * should convert this ByteBuffer to bytes array before you fetch next image. Use
+	 * {@link #getFrame()} to get frame in the device native pixel format.
 	 *
 	 * @return Byte buffer
 	 */
@@ -726,16 +1014,14 @@ public class Webcam {
 		// buffers, just convert image to RGB byte array
 
 		if (device instanceof BufferAccess) {
-			t1 = System.currentTimeMillis();
+			ByteBuffer buffer = null;
+			t1 = System.nanoTime();
 			try {
-				return new WebcamGetBufferTask(driver, device).getBuffer();
+				return buffer = new WebcamGetBufferTask(driver, device).getBuffer();
 			} finally {
-				t2 = System.currentTimeMillis();
-				if (device instanceof WebcamDevice.FPSSource) {
-					fps = ((WebcamDevice.FPSSource) device).getFPS();
-				} else {
-					fps = (4 * fps + 1000 / (t2 - t1 + 1)) / 5;
-				}
+				t2 = System.nanoTime();
+				metrics.recordCapture(t2 - t1, buffer != null);
+				updateFPS(t2 - t1);
 			}
 		} else {
 			throw new IllegalStateException(String.format("Driver %s does not support buffer access", driver.getClass().getName()));
@@ -770,22 +1056,112 @@ public class Webcam {
 		// buffers, just convert image to RGB byte array
 
 		if (device instanceof BufferAccess) {
-			t1 = System.currentTimeMillis();
+			ByteBuffer buffer = null;
+			t1 = System.nanoTime();
 			try {
-				new WebcamReadBufferTask(driver, device, target).readBuffer();
+				buffer = new WebcamReadBufferTask(driver, device, target).readBuffer();
 			} finally {
-				t2 = System.currentTimeMillis();
-				if (device instanceof WebcamDevice.FPSSource) {
-					fps = ((WebcamDevice.FPSSource) device).getFPS();
-				} else {
-					fps = (4 * fps + 1000 / (t2 - t1 + 1)) / 5;
-				}
+				t2 = System.nanoTime();
+				metrics.recordCapture(t2 - t1, buffer != null);
+				updateFPS(t2 - t1);
 			}
 		} else {
 			throw new IllegalStateException(String.format("Driver %s does not support buffer access", driver.getClass().getName()));
 		}
 	}
 
+	/**
+	 * Get frame in the native encoded form, e.g. JPEG received from IP camera, without decoding it
+	 * into {@link BufferedImage}. This is available only for devices implementing
+	 * {@link WebcamDevice.EncodedFrameSource}, and only when image transformer has not been set,
+	 * since encoded frame cannot be transformed without decoding. In blocking mode frame is fetched
+	 * directly from the device and webcam listeners are not notified about it. In non-blocking mode
+	 * device is never accessed, and the latest frame read by the updater is returned instead.
+	 *
+	 * @return Encoded frame or null if not available
+	 */
+	public EncodedFrame getEncodedFrame() {
+
+		if (!(device instanceof WebcamDevice.EncodedFrameSource) || getImageTransformer() != null) {
+			return null;
+		}
+
+		if (!isReady()) {
+			return null;
+		}
+
+		if (asynchronous) {
+			return updater.getEncodedFrame();
+		}
+
+		EncodedFrame frame = null;
+		long t1 = System.nanoTime();
+		try {
+			return frame = new WebcamGetEncodedFrameTask(driver, device).getFrame();
+		} finally {
+			long t2 = System.nanoTime();
+			metrics.recordCapture(t2 - t1, frame != null);
+			updateFPS(t2 - t1);
+		}
+	}
+
+	/**
+	 * Get frame in the device native pixel format, together with its capture timestamp and
+	 * sequence number. In blocking mode frame is fetched directly from devices implementing
+	 * {@link WebcamDevice.FrameSource}, unless image transformer has been set, and it is converted
+	 * to RGB only if consumer asks for it. For all the other devices, and for transformed images,
+	 * frame wraps the image returned by {@link #getImage()}. In non-blocking mode device is never
+	 * accessed, and the latest frame captured by the updater is returned, with the time when it has
+	 * been captured and the image sequence number. Frames of {@link WebcamDevice.FrameSource}
+	 * devices are kept by the updater in their native pixel format too.
+	 *
+	 * @return Frame or null if webcam is closed
+	 */
+	public Frame getFrame() {
+
+		if (!isReady()) {
+			return null;
+		}
+
+		if (asynchronous) {
+			return updater.getFrame();
+		}
+
+		if (device instanceof WebcamDevice.FrameSource && getImageTransformer() == null) {
+			Frame frame = null;
+			long t1 = System.nanoTime();
+			try {
+				return frame = new WebcamGetFrameTask(driver, device).getFrame();
+			} finally {
+				long t2 = System.nanoTime();
+				metrics.recordCapture(t2 - t1, frame != null);
+				updateFPS(t2 - t1);
+			}
+		}
+
+		BufferedImage image = getImage();
+		if (image == null) {
+			return null;
+		}
+
+		return Frame.of(image, System.nanoTime(), frameSequence.incrementAndGet());
+	}
+
+	/**
+	 * Update FPS on the base of the time needed to get the last frame, unless device reports its
+	 * own FPS.
+	 *
+	 * @param nanos the time needed to get the last frame, in nanoseconds
+	 */
+	private void updateFPS(long nanos) {
+		if (device instanceof WebcamDevice.FPSSource) {
+			fps = ((WebcamDevice.FPSSource) device).getFPS();
+		} else {
+			// +1 to avoid division by zero
+			fps = (4 * fps + 1000 / (nanos / 1000000 + 1)) / 5;
+		}
+	}
+
 	/**
 	 * If the underlying device implements Configurable interface, specified parameters are passed
 	 * to it. May be called before the open method or later in dependence of the device
@@ -1023,6 +1399,7 @@ public class Webcam {
 	 */
 	public boolean removeWebcamListener(WebcamListener l) {
 		assert listeners != null;
+		droppedListenerNotifications.remove(l);
 		return listeners.remove(l);
 	}
 
@@ -1255,12 +1632,18 @@ public class Webcam {
 	}
 
 	/**
-	 * Set image transformer.
+	 * Set image transformer. Use {@link WebcamImagePipeline} to run several expensive transformers
+	 * in parallel with image capture in non-blocking mode. Stage threads of the previously set
+	 * pipeline are stopped.
 	 *
 	 * @param transformer the transformer to be set
 	 */
 	public void setImageTransformer(WebcamImageTransformer transformer) {
+		WebcamImageTransformer previous = this.transformer;
 		this.transformer = transformer;
+		if (previous != transformer && previous instanceof WebcamImagePipeline) {
+			((WebcamImagePipeline) previous).stop();
+		}
 	}
 
 	/**
@@ -1272,6 +1655,16 @@ public class Webcam {
 		return lock;
 	}
 
+	/**
+	 * Return capture pipeline metrics of this webcam. Metrics of the driver can be obtained with
+	 * {@link WebcamMetrics#getParent()}.
+	 *
+	 * @return Webcam metrics
+	 */
+	public WebcamMetrics getMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * Shutdown webcam framework. This method should be used <b>ONLY</b> when you are exiting JVM,
 	 * but please <b>do not invoke it</b> if you really don't need to.
@@ -77,6 +77,81 @@ public interface WebcamDevice {
 		 */
 		void setParameters(Map<String, ?> parameters);
 	}
+
+	/**
+	 * Listener notified by {@link FrameNotifier} devices when new frame is
+	 * available.
+	 * 
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static interface FrameListener {
+
+		/**
+		 * New frame is available and can be obtained from the device. This
+		 * method is invoked from the device internal thread and must not
+		 * block.
+		 * 
+		 * @param device the device which has new frame
+		 */
+		void frameReady(WebcamDevice device);
+	}
+
+	/**
+	 * This interface should be implemented by devices which know when new
+	 * frame has arrived, e.g. because frames are pushed by the native library
+	 * or by the device internal refresher thread. Non-blocking webcam updater
+	 * fetches images from such devices only when notified, instead of polling
+	 * them in fixed intervals.
+	 * 
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static interface FrameNotifier {
+
+		/**
+		 * Set listener to be notified when new frame is available, or null to
+		 * remove it. Device has at most one listener.
+		 * 
+		 * @param listener the frame listener
+		 */
+		void setFrameListener(FrameListener listener);
+	}
+
+	/**
+	 * This interface should be implemented by devices which receive frames
+	 * already encoded, e.g. JPEG images from MJPEG stream, and can return
+	 * them without decoding. Such frames can be forwarded, for example by
+	 * {@link WebcamStreamer}, without being decoded and encoded again.
+	 * 
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static interface EncodedFrameSource {
+
+		/**
+		 * Fetch the next frame in its native encoded form.
+		 * 
+		 * @return Encoded frame or null if not available
+		 */
+		EncodedFrame getEncodedFrame();
+	}
+
+	/**
+	 * This interface should be implemented by devices which can return
+	 * frames in their native pixel format, e.g. YUYV or YUV420, without
+	 * converting them into RGB. Conversion is done by {@link Frame} only when
+	 * consumer asks for image or RGB bytes.
+	 * 
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static interface FrameSource {
+
+		/**
+		 * Fetch the next frame in its native pixel format. Frame buffer must
+		 * not be modified by the device after frame has been returned.
+		 * 
+		 * @return Frame or null if not available
+		 */
+		Frame getFrame();
+	}
 	
 	/**
 	 * Get device name.
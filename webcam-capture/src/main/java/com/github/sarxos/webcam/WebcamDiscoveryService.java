@@ -1,10 +1,14 @@
 package com.github.sarxos.webcam;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -18,6 +22,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.WebcamDiscoverySupport.NixVideoDevices;
+import com.github.sarxos.webcam.util.NixVideoDevUtils;
+import com.github.sarxos.webcam.util.NixVideoDevWatcher;
+import com.github.sarxos.webcam.util.OsUtils;
+
 
 public class WebcamDiscoveryService implements Runnable {
 
@@ -48,8 +57,18 @@ public class WebcamDiscoveryService implements Runnable {
 	private final WebcamDriver driver;
 	private final WebcamDiscoverySupport support;
 
+	/**
+	 * Are driver devices the video device files which can be watched?
+	 */
+	private final boolean nix;
+
 	private volatile List<Webcam> webcams = null;
 
+	/**
+	 * Video device files seen during the last check, sorted.
+	 */
+	private volatile File[] videoFiles = null;
+
 	private AtomicBoolean running = new AtomicBoolean(false);
 	private AtomicBoolean enabled = new AtomicBoolean(true);
 
@@ -63,6 +82,7 @@ public class WebcamDiscoveryService implements Runnable {
 
 		this.driver = driver;
 		this.support = (WebcamDiscoverySupport) (driver instanceof WebcamDiscoverySupport ? driver : null);
+		this.nix = driver instanceof NixVideoDevices && OsUtils.getOS() == OsUtils.NIX && new File("/dev").isDirectory();
 	}
 
 	private static List<Webcam> toWebcams(List<WebcamDevice> devices) {
@@ -73,19 +93,6 @@ public class WebcamDiscoveryService implements Runnable {
 		return webcams;
 	}
 
-	/**
-	 * Get list of devices used by webcams.
-	 * 
-	 * @return List of webcam devices
-	 */
-	private static List<WebcamDevice> getDevices(List<Webcam> webcams) {
-		List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
-		for (Webcam webcam : webcams) {
-			devices.add(webcam.getDevice());
-		}
-		return devices;
-	}
-
 	public List<Webcam> getWebcams(long timeout, TimeUnit tunit) throws TimeoutException {
 
 		if (timeout < 0) {
@@ -102,6 +109,8 @@ public class WebcamDiscoveryService implements Runnable {
 
 			if (webcams == null) {
 
+				isVideoFilesChanged();
+
 				WebcamsDiscovery discovery = new WebcamsDiscovery(driver);
 				ExecutorService executor = Executors.newSingleThreadExecutor(discovery);
 				Future<List<Webcam>> future = executor.submit(discovery);
@@ -147,90 +156,101 @@ public class WebcamDiscoveryService implements Runnable {
 	}
 
 	/**
-	 * Scan for newly added or already removed webcams.
+	 * Scan for newly added or already removed webcams. Devices are matched by name, webcams of
+	 * devices which are still present are kept, so they are not reopened.
 	 */
 	public void scan() {
 
 		WebcamDiscoveryListener[] listeners = Webcam.getDiscoveryListeners();
 
-		List<WebcamDevice> tmpnew = driver.getDevices();
-		List<WebcamDevice> tmpold = null;
+		isVideoFilesChanged();
+
+		List<WebcamDevice> devices = driver.getDevices();
+		List<Webcam> current = null;
 
 		try {
-			tmpold = getDevices(getWebcams(Long.MAX_VALUE, TimeUnit.MILLISECONDS));
+			current = getWebcams(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
 		} catch (TimeoutException e) {
 			throw new WebcamException(e);
 		}
 
-		// convert to linked list due to O(1) on remove operation on
-		// iterator versus O(n) for the same operation in array list
+		// index current webcams by device name, what remains in the index after matching new
+		// devices are the webcams which has been removed
 
-		List<WebcamDevice> oldones = new LinkedList<WebcamDevice>(tmpold);
-		List<WebcamDevice> newones = new LinkedList<WebcamDevice>(tmpnew);
-
-		Iterator<WebcamDevice> oi = oldones.iterator();
-		Iterator<WebcamDevice> ni = null;
+		Map<String, Webcam> gone = new LinkedHashMap<String, Webcam>(current.size() * 2);
+		for (Webcam webcam : current) {
+			gone.put(webcam.getDevice().getName(), webcam);
+		}
 
-		WebcamDevice od = null; // old device
-		WebcamDevice nd = null; // new device
+		List<Webcam> updated = new ArrayList<Webcam>(devices.size());
+		List<Webcam> added = new ArrayList<Webcam>();
 
-		// reduce lists
+		for (WebcamDevice device : devices) {
+			Webcam webcam = gone.remove(device.getName());
+			if (webcam == null) {
+				webcam = new Webcam(device);
+				added.add(webcam);
+			}
+			updated.add(webcam);
+		}
 
-		while (oi.hasNext()) {
+		if (gone.isEmpty() && added.isEmpty()) {
+			return;
+		}
 
-			od = oi.next();
-			ni = newones.iterator();
+		setCurrentWebcams(updated);
 
-			while (ni.hasNext()) {
+		for (Webcam webcam : gone.values()) {
+			notifyWebcamGone(webcam, listeners);
+			webcam.dispose();
+		}
 
-				nd = ni.next();
+		for (Webcam webcam : added) {
+			notifyWebcamFound(webcam, listeners);
+		}
+	}
 
-				// remove both elements, if device name is the same, which
-				// actually means that device is exactly the same
+	/**
+	 * Check if video device files have changed since the last check. Listing /dev is cheap when
+	 * compared to devices enumeration done by native drivers, so it is used to avoid needless
+	 * enumerations.
+	 *
+	 * @return True if video device files have changed or if this cannot be determined
+	 */
+	private boolean isVideoFilesChanged() {
 
-				if (nd.getName().equals(od.getName())) {
-					ni.remove();
-					oi.remove();
-					break;
-				}
-			}
+		if (!nix) {
+			return true;
 		}
 
-		// if any left in old ones it means that devices has been removed
-		if (oldones.size() > 0) {
-
-			List<Webcam> notified = new ArrayList<Webcam>();
+		File[] files = NixVideoDevUtils.getVideoFiles();
+		Arrays.sort(files);
 
-			for (WebcamDevice device : oldones) {
-				for (Webcam webcam : webcams) {
-					if (webcam.getDevice().getName().equals(device.getName())) {
-						notified.add(webcam);
-						break;
-					}
-				}
-			}
+		if (Arrays.equals(files, videoFiles)) {
+			return false;
+		}
 
-			setCurrentWebcams(tmpnew);
+		videoFiles = files;
 
-			for (Webcam webcam : notified) {
-				notifyWebcamGone(webcam, listeners);
-				webcam.dispose();
-			}
-		}
+		return true;
+	}
 
-		// if any left in new ones it means that devices has been added
-		if (newones.size() > 0) {
+	/**
+	 * Create watcher of video device files if driver supports this.
+	 *
+	 * @return Watcher or null if changes have to be polled
+	 */
+	private NixVideoDevWatcher createWatcher() {
 
-			setCurrentWebcams(tmpnew);
+		if (!nix) {
+			return null;
+		}
 
-			for (WebcamDevice device : newones) {
-				for (Webcam webcam : webcams) {
-					if (webcam.getDevice().getName().equals(device.getName())) {
-						notifyWebcamFound(webcam, listeners);
-						break;
-					}
-				}
-			}
+		try {
+			return new NixVideoDevWatcher();
+		} catch (IOException e) {
+			LOG.warn("Cannot watch video devices, falling back to periodic scan", e);
+			return null;
 		}
 	}
 
@@ -246,6 +266,32 @@ public class WebcamDiscoveryService implements Runnable {
 			return;
 		}
 
+		NixVideoDevWatcher watcher = createWatcher();
+
+		try {
+			if (watcher != null) {
+				watch(watcher);
+			} else {
+				poll();
+			}
+		} finally {
+			if (watcher != null) {
+				try {
+					watcher.close();
+				} catch (IOException e) {
+					LOG.trace("Cannot close video devices watcher", e);
+				}
+			}
+		}
+
+		LOG.debug("Webcam discovery service loop has been stopped");
+	}
+
+	/**
+	 * Scan periodically.
+	 */
+	private void poll() {
+
 		// wait initial time interval since devices has been initially
 		// discovered
 
@@ -262,15 +308,47 @@ public class WebcamDiscoveryService implements Runnable {
 				}
 			}
 
-			scan();
+			if (isVideoFilesChanged()) {
+				scan();
+			}
 
 		} while (running.get());
+	}
 
-		LOG.debug("Webcam discovery service loop has been stopped");
+	/**
+	 * Scan only when watcher reports video devices change. Scan interval is used only to check if
+	 * service is still running.
+	 *
+	 * @param watcher the video devices watcher
+	 */
+	private void watch(NixVideoDevWatcher watcher) {
+
+		LOG.debug("Webcam discovery service is waiting for video devices changes");
+
+		long interval = support.getScanInterval();
+		if (interval <= 0) {
+			interval = WebcamDiscoverySupport.DEFAULT_SCAN_INTERVAL;
+		}
+
+		// devices could have changed before watcher has been registered
+
+		if (isVideoFilesChanged()) {
+			scan();
+		}
+
+		while (running.get()) {
+			try {
+				if (watcher.await(interval, TimeUnit.MILLISECONDS)) {
+					scan();
+				}
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
 	}
 
-	private void setCurrentWebcams(List<WebcamDevice> devices) {
-		webcams = toWebcams(devices);
+	private void setCurrentWebcams(List<Webcam> current) {
+		webcams = current;
 		if (Webcam.isHandleTermSignal()) {
 			WebcamDeallocator.unstore();
 			WebcamDeallocator.store(webcams.toArray(new Webcam[webcams.size()]));
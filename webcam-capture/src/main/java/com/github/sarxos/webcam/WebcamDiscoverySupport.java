@@ -8,6 +8,17 @@ package com.github.sarxos.webcam;
  */
 public interface WebcamDiscoverySupport {
 
+	/**
+	 * This interface should be implemented by drivers which devices are Linux video device files
+	 * (/dev/videoN). For such drivers discovery service, when running on Linux, watches /dev
+	 * directory and scans only when video device is created or deleted, instead of scanning every
+	 * {@link WebcamDiscoverySupport#getScanInterval()} milliseconds.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static interface NixVideoDevices {
+	}
+
 	/**
 	 * Default webcam discovery scan interval in milliseconds.
 	 */
@@ -0,0 +1,31 @@
+package com.github.sarxos.webcam;
+
+/**
+ * Policy used to dispatch new image notifications to the webcam listeners. Notifications are
+ * always delivered asynchronously, and all the policies keep the number of pending notifications
+ * bounded, so slow listener cannot exhaust the memory with images waiting to be delivered.
+ * Notifications which have been dropped are counted, see {@link Webcam#getDroppedNotifications()}.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public enum WebcamDispatchPolicy {
+
+	/**
+	 * Only the most recent image is waiting to be delivered to the listeners. When new image
+	 * arrives before the previous one has been delivered, the previous one is dropped.
+	 */
+	LATEST_ONLY,
+
+	/**
+	 * Up to N images are waiting to be delivered to the listeners, where N is configured with
+	 * {@link Webcam#setDispatchQueueSize(int)}. When queue is full, the oldest image is dropped.
+	 */
+	BOUNDED,
+
+	/**
+	 * Every listener has its own thread and its own queue of up to N images, so slow listener
+	 * drops only its own notifications and it does not delay the other listeners.
+	 */
+	PER_LISTENER,
+
+}
@@ -11,6 +11,18 @@ import java.util.List;
  */
 public interface WebcamDriver {
 
+	/**
+	 * This interface should be implemented by drivers which are not thread-safe as a whole (see
+	 * {@link WebcamDriver#isThreadSafe()}), but whose devices do not share any native state, so
+	 * different devices can be accessed in parallel as long as every single device is accessed by
+	 * one thread at a time. Tasks for devices of such drivers are executed by
+	 * {@link WebcamProcessor} in per-device lanes instead of the global one.
+	 *
+	 * @author Bartosz Firyn (SarXos)
+	 */
+	public static interface ParallelDevices {
+	}
+
 	/**
 	 * Return all registered webcam devices.
 	 * 
@@ -18,6 +18,11 @@ public class WebcamEvent extends EventObject {
 	 */
 	private BufferedImage image = null;
 
+	/**
+	 * Encoded frame acquired from webcam, decoded when image is requested.
+	 */
+	private EncodedFrame frame = null;
+
 	/**
 	 * Event type.
 	 */
@@ -30,7 +35,7 @@ public class WebcamEvent extends EventObject {
 	 * @param w the webcam object
 	 */
 	public WebcamEvent(WebcamEventType type, Webcam w) {
-		this(type, w, null);
+		this(type, w, (BufferedImage) null);
 	}
 
 	/**
@@ -46,6 +51,19 @@ public class WebcamEvent extends EventObject {
 		this.image = image;
 	}
 
+	/**
+	 * Webcam event with encoded frame, which is decoded only if listener asks for the image.
+	 *
+	 * @param type the event type
+	 * @param w the webcam object
+	 * @param frame the encoded frame acquired from webcam
+	 */
+	WebcamEvent(WebcamEventType type, Webcam w, EncodedFrame frame) {
+		super(w);
+		this.type = type;
+		this.frame = frame;
+	}
+
 	@Override
 	public Webcam getSource() {
 		return (Webcam) super.getSource();
@@ -59,6 +77,9 @@ public class WebcamEvent extends EventObject {
 	 * @return Acquired image
 	 */
 	public BufferedImage getImage() {
+		if (image == null && frame != null) {
+			return frame.getImage();
+		}
 		return image;
 	}
 
@@ -0,0 +1,409 @@
+package com.github.sarxos.webcam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Group of webcams captured together, e.g. cameras of the inspection rig triggered at the same
+ * time. Group can grab frames in two ways:
+ * <ul>
+ * <li>{@link #grab()} fires captures of all webcams at the same moment, every capture in its own
+ * thread, so devices of thread-safe drivers and drivers implementing
+ * {@link WebcamDriver.ParallelDevices} are accessed in parallel, and</li>
+ * <li>{@link #grabLatest(long, long, TimeUnit)} takes the most recent images of the webcams open in
+ * non-blocking mode, waiting for the newer ones until all of them have been captured within the
+ * given time window.</li>
+ * </ul>
+ * Both return {@link FrameSet} with per-frame capture timestamps and the measured skew.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamGroup {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamGroup.class);
+
+	/**
+	 * Frames of all webcams of the group, in order of webcams in the group.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static final class FrameSet {
+
+		private final List<Webcam> webcams;
+		private final Frame[] frames;
+
+		private FrameSet(List<Webcam> webcams, Frame[] frames) {
+			this.webcams = webcams;
+			this.frames = frames;
+		}
+
+		/**
+		 * @return Number of webcams in the set
+		 */
+		public int size() {
+			return frames.length;
+		}
+
+		/**
+		 * @param index the webcam index in the group
+		 * @return Frame of the webcam or null if it could not be captured
+		 */
+		public Frame getFrame(int index) {
+			return frames[index];
+		}
+
+		/**
+		 * @param webcam the webcam from the group
+		 * @return Frame of the webcam or null if it could not be captured
+		 */
+		public Frame getFrame(Webcam webcam) {
+			int index = webcams.indexOf(webcam);
+			if (index == -1) {
+				throw new IllegalArgumentException(String.format("Webcam %s is not in the group", webcam));
+			}
+			return frames[index];
+		}
+
+		/**
+		 * @return Frames in order of webcams in the group, frames which could not be captured are
+		 *         null
+		 */
+		public List<Frame> getFrames() {
+			return Collections.unmodifiableList(Arrays.asList(frames.clone()));
+		}
+
+		/**
+		 * @return True if frames of all webcams have been captured
+		 */
+		public boolean isComplete() {
+			for (Frame frame : frames) {
+				if (frame == null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return Timestamp (in nanos) of the oldest frame, see {@link Frame#getTimestamp()}
+		 */
+		public long getTimestamp() {
+			long min = Long.MAX_VALUE;
+			for (Frame frame : frames) {
+				if (frame != null) {
+					min = Math.min(min, frame.getTimestamp());
+				}
+			}
+			return min == Long.MAX_VALUE ? -1 : min;
+		}
+
+		/**
+		 * @return Time (in nanos) between the oldest and the newest frame
+		 */
+		public long getSkew() {
+			long min = Long.MAX_VALUE;
+			long max = Long.MIN_VALUE;
+			for (Frame frame : frames) {
+				if (frame != null) {
+					min = Math.min(min, frame.getTimestamp());
+					max = Math.max(max, frame.getTimestamp());
+				}
+			}
+			return min == Long.MAX_VALUE ? 0 : max - min;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[size=%d, complete=%b, skew=%.3fms]", getClass().getSimpleName(), size(), isComplete(), getSkew() / 1000000d);
+		}
+	}
+
+	/**
+	 * Thread factory for group capture threads.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	private static final class GroupThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger number = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, String.format("webcam-group-%d", number.incrementAndGet()));
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	private static final GroupThreadFactory THREAD_FACTORY = new GroupThreadFactory();
+
+	private final List<Webcam> webcams;
+
+	/**
+	 * One thread per webcam, created lazily.
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 * Create group of webcams.
+	 *
+	 * @param webcams the webcams
+	 */
+	public WebcamGroup(Webcam... webcams) {
+		this(Arrays.asList(webcams));
+	}
+
+	/**
+	 * Create group of webcams.
+	 *
+	 * @param webcams the webcams
+	 */
+	public WebcamGroup(List<Webcam> webcams) {
+
+		if (webcams == null || webcams.isEmpty()) {
+			throw new IllegalArgumentException("Group needs at least one webcam");
+		}
+		if (webcams.contains(null)) {
+			throw new IllegalArgumentException("Webcam cannot be null");
+		}
+		if (new HashSet<Webcam>(webcams).size() != webcams.size()) {
+			throw new IllegalArgumentException("Webcam cannot be added to the group twice");
+		}
+
+		this.webcams = Collections.unmodifiableList(new ArrayList<Webcam>(webcams));
+	}
+
+	/**
+	 * @return Webcams in the group
+	 */
+	public List<Webcam> getWebcams() {
+		return webcams;
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(webcams.size(), THREAD_FACTORY);
+		}
+		return executor;
+	}
+
+	/**
+	 * Open all webcams in blocking mode.
+	 *
+	 * @return True if all webcams are open
+	 * @see Webcam#open()
+	 */
+	public boolean open() {
+		return open(false);
+	}
+
+	/**
+	 * Open all webcams in parallel.
+	 *
+	 * @param async true for non-blocking mode, required by {@link #grabLatest(long, long, TimeUnit)}
+	 * @return True if all webcams are open
+	 * @see Webcam#open(boolean)
+	 */
+	public boolean open(final boolean async) {
+
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (final Webcam webcam : webcams) {
+			tasks.add(new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws Exception {
+					return webcam.open(async);
+				}
+			});
+		}
+
+		boolean open = true;
+		Object[] results = collect(tasks);
+		for (int i = 0; i < results.length; i++) {
+			open &= Boolean.TRUE.equals(results[i]);
+		}
+
+		return open;
+	}
+
+	/**
+	 * Close all webcams and stop group threads.
+	 */
+	public void close() {
+
+		for (Webcam webcam : webcams) {
+			webcam.close();
+		}
+
+		synchronized (this) {
+			if (executor != null) {
+				executor.shutdown();
+				executor = null;
+			}
+		}
+	}
+
+	/**
+	 * @return True if all webcams are open
+	 */
+	public boolean isOpen() {
+		for (Webcam webcam : webcams) {
+			if (!webcam.isOpen()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Capture frames of all webcams. Every webcam is captured in its own thread and all threads
+	 * start at the same moment. Frames are fetched with {@link Webcam#getFrame()}, so in
+	 * non-blocking mode the most recent images are taken, use
+	 * {@link #grabLatest(long, long, TimeUnit)} to get them aligned in time.
+	 *
+	 * @return Frames of all webcams, frames which could not be captured are null
+	 */
+	public FrameSet grab() {
+
+		final CyclicBarrier barrier = new CyclicBarrier(webcams.size());
+
+		List<Callable<Frame>> tasks = new ArrayList<Callable<Frame>>();
+		for (final Webcam webcam : webcams) {
+			tasks.add(new Callable<Frame>() {
+
+				@Override
+				public Frame call() throws Exception {
+					barrier.await();
+					return webcam.getFrame();
+				}
+			});
+		}
+
+		Object[] results = collect(tasks);
+		Frame[] frames = new Frame[results.length];
+		for (int i = 0; i < results.length; i++) {
+			frames[i] = (Frame) results[i];
+		}
+
+		return new FrameSet(webcams, frames);
+	}
+
+	/**
+	 * Take the most recent frames of all webcams, and when they are not within the time window,
+	 * wait for the newer frames of the webcams which are behind, until all frames have been
+	 * captured within the window. Webcams have to be open in non-blocking mode. Frames are
+	 * timestamped by webcam updaters when images are captured.
+	 *
+	 * @param window the maximum time between the oldest and the newest frame
+	 * @param timeout the maximum time to wait for aligned frames
+	 * @param unit the time unit of window and timeout arguments
+	 * @return Frames of all webcams or null if timeout has elapsed
+	 * @throws InterruptedException when thread has been interrupted
+	 * @throws IllegalStateException when any of the webcams is not open in non-blocking mode
+	 */
+	public FrameSet grabLatest(long window, long timeout, TimeUnit unit) throws InterruptedException {
+
+		for (Webcam webcam : webcams) {
+			if (!webcam.isOpen() || !webcam.isAsynchronous()) {
+				throw new IllegalStateException(String.format("Webcam %s is not open in non-blocking mode", webcam.getName()));
+			}
+		}
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		final long delta = unit.toNanos(window);
+		final Frame[] frames = new Frame[webcams.size()];
+
+		for (int i = 0; i < frames.length; i++) {
+			if ((frames[i] = webcams.get(i).getFrame()) == null) {
+				return null;
+			}
+		}
+
+		for (;;) {
+
+			long newest = Long.MIN_VALUE;
+			for (Frame frame : frames) {
+				newest = Math.max(newest, frame.getTimestamp());
+			}
+
+			boolean aligned = true;
+
+			for (int i = 0; i < frames.length; i++) {
+
+				if (newest - frames[i].getTimestamp() <= delta) {
+					continue;
+				}
+
+				aligned = false;
+
+				Webcam webcam = webcams.get(i);
+				long remaining = deadline - System.nanoTime();
+
+				if (remaining <= 0 || !webcam.awaitImage(frames[i].getSequence(), remaining, TimeUnit.NANOSECONDS)) {
+					LOG.debug("Frames within {} ns have not been captured before timeout", delta);
+					return null;
+				}
+				if ((frames[i] = webcam.getFrame()) == null) {
+					return null;
+				}
+			}
+
+			if (aligned) {
+				return new FrameSet(webcams, frames);
+			}
+		}
+	}
+
+	/**
+	 * Execute one task per webcam in group threads and wait for all of them.
+	 *
+	 * @param tasks the tasks
+	 * @return Tasks results, null for tasks which failed
+	 */
+	private <T> Object[] collect(List<Callable<T>> tasks) {
+
+		List<Future<T>> futures = null;
+		try {
+			futures = getExecutor().invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new Object[tasks.size()];
+		}
+
+		Object[] results = new Object[futures.size()];
+
+		for (int i = 0; i < results.length; i++) {
+			try {
+				results[i] = futures.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				LOG.warn(String.format("Webcam %s task failed", webcams.get(i).getName()), e.getCause());
+			}
+		}
+
+		return results;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s%s", getClass().getSimpleName(), webcams);
+	}
+}
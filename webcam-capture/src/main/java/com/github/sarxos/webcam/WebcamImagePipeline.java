@@ -0,0 +1,446 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.util.LatencyHistogram;
+
+
+/**
+ * Image transformer composed of several stages, where every stage runs on its own thread and
+ * stages are connected by bounded queues. When set as webcam image transformer and webcam is open
+ * in non-blocking mode, the updater only submits captured image to the first stage, and image is
+ * published when it leaves the last stage. Stage N of frame k runs in parallel with stage N-1 of
+ * frame k+1, so frame rate is bound by the slowest stage, not by the sum of all of them.<br>
+ * <br>
+ * In all the other cases (blocking mode, image pooling, direct {@link #transform(BufferedImage)}
+ * call) stages are executed one after another in the calling thread.
+ *
+ * <pre>
+ * Webcam webcam = Webcam.getDefault();
+ * webcam.setImageTransformer(new WebcamImagePipeline(
+ * 	new WebcamImagePipeline.Stage(&quot;dewarp&quot;, dewarp),
+ * 	new WebcamImagePipeline.Stage(&quot;watermark&quot;, watermark, 2, DropPolicy.BLOCK)));
+ * webcam.open(true);
+ * </pre>
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamImagePipeline implements WebcamImageTransformer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamImagePipeline.class);
+
+	/**
+	 * Maximum time (in milliseconds) to wait for the stage thread to exit when pipeline is stopped.
+	 */
+	private static final long STOP_TIMEOUT = 5000;
+
+	/**
+	 * What to do when image is handed over to the stage which queue is full.
+	 */
+	public static enum DropPolicy {
+
+		/**
+		 * Wait until there is a space in the queue. Slow stage slows down the previous stages and,
+		 * in case of the first stage, the webcam updater.
+		 */
+		BLOCK,
+
+		/**
+		 * Drop the oldest image waiting in the queue, so stage always works on the most recent
+		 * images.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Drop the image being handed over, so images already waiting in the queue are kept.
+		 */
+		DROP_NEWEST,
+	}
+
+	/**
+	 * Receives images leaving the last stage.
+	 */
+	public static interface Sink {
+
+		/**
+		 * Called from the last stage thread when image has been transformed by all stages.
+		 *
+		 * @param image the transformed image
+		 * @param latency the time in nanoseconds since image has been submitted to the pipeline
+		 */
+		void imageReady(BufferedImage image, long latency);
+	}
+
+	/**
+	 * Image travelling through the stages.
+	 */
+	private static final class Frame {
+
+		private final BufferedImage image;
+		private final Sink sink;
+		private final long created;
+
+		public Frame(BufferedImage image, Sink sink, long created) {
+			this.image = image;
+			this.sink = sink;
+			this.created = created;
+		}
+	}
+
+	/**
+	 * Single pipeline stage. Stage has its own queue of images waiting to be transformed and its
+	 * own statistics.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static final class Stage implements Runnable {
+
+		/**
+		 * Default number of images waiting in the stage queue.
+		 */
+		public static final int DEFAULT_CAPACITY = 1;
+
+		private static final AtomicInteger number = new AtomicInteger(0);
+
+		private final String name;
+		private final WebcamImageTransformer transformer;
+		private final DropPolicy policy;
+		private final BlockingQueue<Frame> queue;
+
+		private final AtomicLong processed = new AtomicLong(0);
+		private final AtomicLong dropped = new AtomicLong(0);
+		private final AtomicLong failures = new AtomicLong(0);
+		private final LatencyHistogram time = new LatencyHistogram();
+
+		/**
+		 * Next stage, or null if this is the last one.
+		 */
+		private Stage next = null;
+
+		private Thread thread = null;
+
+		/**
+		 * Create stage with default capacity which drops the oldest images.
+		 *
+		 * @param name the stage name
+		 * @param transformer the stage transformer
+		 */
+		public Stage(String name, WebcamImageTransformer transformer) {
+			this(name, transformer, DEFAULT_CAPACITY, DropPolicy.DROP_OLDEST);
+		}
+
+		/**
+		 * Create stage.
+		 *
+		 * @param name the stage name
+		 * @param transformer the stage transformer
+		 * @param capacity the number of images which can wait in the stage queue
+		 * @param policy the policy used when queue is full
+		 */
+		public Stage(String name, WebcamImageTransformer transformer, int capacity, DropPolicy policy) {
+
+			if (name == null) {
+				throw new IllegalArgumentException("Stage name cannot be null");
+			}
+			if (transformer == null) {
+				throw new IllegalArgumentException("Stage transformer cannot be null");
+			}
+			if (capacity < 1) {
+				throw new IllegalArgumentException("Stage capacity must be positive");
+			}
+			if (policy == null) {
+				throw new IllegalArgumentException("Drop policy cannot be null");
+			}
+
+			this.name = name;
+			this.transformer = transformer;
+			this.policy = policy;
+			this.queue = new ArrayBlockingQueue<Frame>(capacity);
+		}
+
+		/**
+		 * Hand image over to this stage in accordance with the drop policy.
+		 *
+		 * @param frame the image to be transformed
+		 */
+		private void offer(Frame frame) {
+			switch (policy) {
+				case BLOCK:
+					try {
+						queue.put(frame);
+					} catch (InterruptedException e) {
+						dropped.incrementAndGet();
+						Thread.currentThread().interrupt();
+					}
+					break;
+				case DROP_OLDEST:
+					while (!queue.offer(frame)) {
+						if (queue.poll() != null) {
+							dropped.incrementAndGet();
+						}
+					}
+					break;
+				case DROP_NEWEST:
+					if (!queue.offer(frame)) {
+						dropped.incrementAndGet();
+					}
+					break;
+			}
+		}
+
+		/**
+		 * Transform image and measure the time.
+		 *
+		 * @param image the image to be transformed
+		 * @return Transformed image
+		 */
+		private BufferedImage apply(BufferedImage image) {
+			long t1 = System.nanoTime();
+			try {
+				return transformer.transform(image);
+			} finally {
+				time.record(System.nanoTime() - t1);
+				processed.incrementAndGet();
+			}
+		}
+
+		@Override
+		public void run() {
+
+			LOG.debug("Pipeline stage {} has been started", name);
+
+			while (!Thread.currentThread().isInterrupted()) {
+
+				Frame frame = null;
+				try {
+					frame = queue.take();
+				} catch (InterruptedException e) {
+					break;
+				}
+
+				BufferedImage image = null;
+				try {
+					image = apply(frame.image);
+				} catch (RuntimeException e) {
+					failures.incrementAndGet();
+					WebcamExceptionHandler.handle(e);
+					continue;
+				}
+
+				if (image == null) {
+					continue;
+				}
+
+				Frame out = new Frame(image, frame.sink, frame.created);
+				if (next != null) {
+					next.offer(out);
+				} else {
+					try {
+						out.sink.imageReady(out.image, System.nanoTime() - out.created);
+					} catch (RuntimeException e) {
+						WebcamExceptionHandler.handle(e);
+					}
+				}
+			}
+
+			LOG.debug("Pipeline stage {} has been stopped", name);
+		}
+
+		private void start() {
+			thread = new Thread(this, String.format("webcam-pipeline-%s-%d", name, number.incrementAndGet()));
+			thread.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private void stop() {
+			thread.interrupt();
+			try {
+				thread.join(STOP_TIMEOUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			// transformer which ignores interrupts can hold the thread for a long time, do not
+			// block the caller, which can be the webcam updater, because of it
+
+			if (thread.isAlive()) {
+				LOG.warn("Pipeline stage {} thread {} has not been stopped in {} ms", name, thread.getName(), STOP_TIMEOUT);
+			}
+
+			thread = null;
+			queue.clear();
+		}
+
+		/**
+		 * @return Stage name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Stage drop policy
+		 */
+		public DropPolicy getDropPolicy() {
+			return policy;
+		}
+
+		/**
+		 * @return Number of images waiting in the stage queue
+		 */
+		public int getQueueSize() {
+			return queue.size();
+		}
+
+		/**
+		 * @return Number of images transformed by this stage
+		 */
+		public long getProcessed() {
+			return processed.get();
+		}
+
+		/**
+		 * @return Number of images dropped because stage queue was full
+		 */
+		public long getDropped() {
+			return dropped.get();
+		}
+
+		/**
+		 * @return Number of images which transformation failed with exception
+		 */
+		public long getFailures() {
+			return failures.get();
+		}
+
+		/**
+		 * @return Time of image transformation in this stage
+		 */
+		public LatencyHistogram.Snapshot getTime() {
+			return time.snapshot();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[processed=%d, dropped=%d, failures=%d, time={%s}]", name, getProcessed(), getDropped(), getFailures(), time.snapshot());
+		}
+	}
+
+	private final List<Stage> stages;
+
+	private volatile boolean started = false;
+
+	/**
+	 * Create pipeline of given stages. Stage can be used in one pipeline only.
+	 *
+	 * @param stages the stages in order of execution
+	 */
+	public WebcamImagePipeline(Stage... stages) {
+
+		if (stages.length == 0) {
+			throw new IllegalArgumentException("Pipeline needs at least one stage");
+		}
+
+		for (int i = 0; i < stages.length - 1; i++) {
+			stages[i].next = stages[i + 1];
+		}
+
+		this.stages = Collections.unmodifiableList(Arrays.asList(stages.clone()));
+	}
+
+	/**
+	 * Transform image by all stages in the calling thread.
+	 *
+	 * @param image the image to be transformed
+	 * @return Transformed image or null if any of the stages returned null
+	 */
+	@Override
+	public BufferedImage transform(BufferedImage image) {
+		for (Stage stage : stages) {
+			if (image == null) {
+				break;
+			}
+			image = stage.apply(image);
+		}
+		return image;
+	}
+
+	/**
+	 * Submit image to the first stage, stage threads are started if necessary. This method does
+	 * not wait for the image to be transformed, it is passed to the sink when it leaves the last
+	 * stage. Image may be dropped on the way, in such case sink is not called at all.
+	 *
+	 * @param image the image to be transformed
+	 * @param sink the receiver of the transformed image
+	 */
+	public void submit(BufferedImage image, Sink sink) {
+
+		if (image == null) {
+			throw new IllegalArgumentException("Image cannot be null");
+		}
+		if (sink == null) {
+			throw new IllegalArgumentException("Sink cannot be null");
+		}
+
+		if (!started) {
+			start();
+		}
+
+		stages.get(0).offer(new Frame(image, sink, System.nanoTime()));
+	}
+
+	/**
+	 * Start stage threads. Called automatically when first image is submitted.
+	 */
+	public synchronized void start() {
+		if (!started) {
+			for (Stage stage : stages) {
+				stage.start();
+			}
+			started = true;
+		}
+	}
+
+	/**
+	 * Stop stage threads and drop all images waiting in the queues. Pipeline will be started again
+	 * when next image is submitted.
+	 */
+	public synchronized void stop() {
+		if (started) {
+			started = false;
+			for (Stage stage : stages) {
+				stage.stop();
+			}
+		}
+	}
+
+	/**
+	 * @return True if stage threads are running
+	 */
+	public boolean isStarted() {
+		return started;
+	}
+
+	/**
+	 * @return Pipeline stages in order of execution
+	 */
+	public List<Stage> getStages() {
+		return stages;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s%s", getClass().getSimpleName(), stages);
+	}
+}
@@ -0,0 +1,369 @@
+package com.github.sarxos.webcam;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Memory-mapped table of webcam locks shared by all processes on the host. Table is a file with
+ * fixed number of slots, every slot stores webcam name key, heartbeat timestamp and owner ID.
+ * Webcam is locked when its slot heartbeat is not older than two {@link WebcamLock#INTERVAL}s, so
+ * checking the lock is a memory read only. Heartbeats of all webcams locked in this process are
+ * updated by a single thread.<br>
+ * <br>
+ * Slot ownership is guarded by {@link FileChannel} region locks, which are released by the
+ * operating system when process dies. Region locks are taken beyond the mapped slots, because on
+ * some systems file locks are mandatory and would block reads of other processes.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+class WebcamLockTable {
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamLockTable.class);
+
+	/**
+	 * Lock table file name.
+	 */
+	private static final String NAME = ".webcam-lock-table";
+
+	/**
+	 * Number of slots in the table.
+	 */
+	static final int SLOTS = 256;
+
+	/**
+	 * Slot size in bytes (key, heartbeat, owner, reserved).
+	 */
+	private static final int SLOT_SIZE = 32;
+
+	private static final int KEY = 0;
+	private static final int HEARTBEAT = 8;
+	private static final int OWNER = 16;
+
+	/**
+	 * Size of mapped slots.
+	 */
+	private static final int TABLE_SIZE = SLOTS * SLOT_SIZE;
+
+	/**
+	 * Position of the region lock guarding table modifications, slot region locks follow it.
+	 */
+	private static final long GUARD = TABLE_SIZE;
+
+	/**
+	 * Random ID of this process.
+	 */
+	private static final long OWNER_ID = new Random().nextLong() | 1;
+
+	private static WebcamLockTable instance = null;
+
+	/**
+	 * Slot owned by this process.
+	 */
+	private static final class Slot {
+
+		private final int index;
+		private final FileLock lock;
+
+		public Slot(int index, FileLock lock) {
+			this.index = index;
+			this.lock = lock;
+		}
+	}
+
+	/**
+	 * Updates heartbeats of all slots owned by this process.
+	 */
+	private final class Heartbeat extends Thread {
+
+		public Heartbeat() {
+			setName("webcam-lock-heartbeat");
+			setDaemon(true);
+			setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+		}
+
+		@Override
+		public void run() {
+			while (beat()) {
+				try {
+					Thread.sleep(WebcamLock.INTERVAL);
+				} catch (InterruptedException e) {
+					LOG.debug("Lock heartbeat has been interrupted");
+					return;
+				}
+			}
+		}
+	}
+
+	private final File file;
+	private final FileChannel channel;
+	private final MappedByteBuffer table;
+
+	/**
+	 * Slots owned by this process, by webcam name.
+	 */
+	private final Map<String, Slot> owned = new HashMap<String, Slot>();
+
+	private Heartbeat heartbeat = null;
+
+	/**
+	 * Open lock table.
+	 *
+	 * @param file the table file, created if it does not exist
+	 * @throws IOException when file cannot be opened or mapped
+	 */
+	WebcamLockTable(File file) throws IOException {
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+		try {
+			if (raf.length() < TABLE_SIZE) {
+				raf.setLength(TABLE_SIZE);
+			}
+			this.channel = raf.getChannel();
+			this.table = channel.map(MapMode.READ_WRITE, 0, TABLE_SIZE);
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+
+		this.file = file;
+	}
+
+	/**
+	 * @return Lock table shared by all webcams
+	 * @throws WebcamException when table cannot be opened
+	 */
+	static synchronized WebcamLockTable getInstance() {
+		if (instance == null) {
+			File file = new File(System.getProperty("java.io.tmpdir"), NAME);
+			try {
+				instance = new WebcamLockTable(file);
+			} catch (IOException e) {
+				throw new WebcamException("Cannot open webcam lock table " + file, e);
+			}
+			LOG.debug("Webcam lock table {} has been opened", file);
+		}
+		return instance;
+	}
+
+	/**
+	 * Compute slot key from webcam name. This is 64-bit FNV-1a hash, never zero, zero key means
+	 * free slot.
+	 *
+	 * @param name the webcam name
+	 * @return Slot key
+	 */
+	static long key(String name) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < name.length(); i++) {
+			h ^= name.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h == 0 ? 1 : h;
+	}
+
+	private static boolean isAlive(long heartbeat, long now) {
+		return heartbeat > now - WebcamLock.INTERVAL * 2;
+	}
+
+	private static int offset(int index) {
+		return index * SLOT_SIZE;
+	}
+
+	/**
+	 * Find slot with given key which heartbeat is alive.
+	 *
+	 * @param key the slot key
+	 * @param now the current time
+	 * @return Slot index or -1 if there is no such slot
+	 */
+	private int findAlive(long key, long now) {
+		for (int i = 0; i < SLOTS; i++) {
+			int o = offset(i);
+			if (table.getLong(o + KEY) == key && isAlive(table.getLong(o + HEARTBEAT), now) && table.getLong(o + KEY) == key) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Check if webcam is locked by any process, including this one.
+	 *
+	 * @param name the webcam name
+	 * @return True if webcam is locked
+	 */
+	synchronized boolean isLocked(String name) {
+		return owned.containsKey(name) || findAlive(key(name), System.currentTimeMillis()) >= 0;
+	}
+
+	/**
+	 * Lock webcam.
+	 *
+	 * @param name the webcam name
+	 * @throws WebcamLockException when webcam is locked by other owner or table is full
+	 */
+	synchronized void lock(String name) {
+
+		if (owned.containsKey(name)) {
+			throw new WebcamLockException(String.format("Webcam %s has already been locked", name));
+		}
+
+		long key = key(name);
+		Slot slot = null;
+
+		// table modifications are serialized between processes, so two processes cannot claim two
+		// different slots for the same webcam
+
+		try (FileLock guard = channel.lock(GUARD, 1, false)) {
+
+			long now = System.currentTimeMillis();
+
+			if (findAlive(key, now) >= 0) {
+				throw new WebcamLockException(String.format("Webcam %s has already been locked", name));
+			}
+
+			// reuse stale slot of this webcam first, so its region lock is checked, then try free
+			// and stale slots
+
+			for (int pass = 0; pass < 2 && slot == null; pass++) {
+				for (int i = 0; i < SLOTS && slot == null; i++) {
+
+					int o = offset(i);
+					long k = table.getLong(o + KEY);
+
+					if (pass == 0 && k != key) {
+						continue;
+					}
+					if (pass == 1 && k != 0 && isAlive(table.getLong(o + HEARTBEAT), now)) {
+						continue;
+					}
+
+					FileLock lock = tryLock(i);
+					if (lock != null) {
+						slot = new Slot(i, lock);
+					} else if (pass == 0) {
+						throw new WebcamLockException(String.format("Webcam %s has been locked by other process", name));
+					}
+				}
+			}
+
+			if (slot == null) {
+				throw new WebcamLockException(String.format("No free slot in webcam lock table %s", file));
+			}
+
+			int o = offset(slot.index);
+			table.putLong(o + KEY, key);
+			table.putLong(o + OWNER, OWNER_ID);
+			table.putLong(o + HEARTBEAT, now);
+
+		} catch (IOException e) {
+			throw new WebcamLockException("Cannot access webcam lock table " + file, e);
+		}
+
+		owned.put(name, slot);
+
+		LOG.debug("Webcam {} locked in slot {}", name, slot.index);
+
+		if (heartbeat == null) {
+			heartbeat = new Heartbeat();
+			heartbeat.start();
+		}
+	}
+
+	/**
+	 * Try to get slot region lock.
+	 *
+	 * @param index the slot index
+	 * @return Region lock or null if slot is owned by other process or other table instance
+	 * @throws IOException when lock cannot be acquired
+	 */
+	private FileLock tryLock(int index) throws IOException {
+		try {
+			return channel.tryLock(GUARD + 1 + index, 1, false);
+		} catch (OverlappingFileLockException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Unlock webcam locked by this process. Does nothing when webcam is not locked here.
+	 *
+	 * @param name the webcam name
+	 */
+	synchronized void unlock(String name) {
+
+		Slot slot = owned.remove(name);
+		if (slot == null) {
+			return;
+		}
+
+		int o = offset(slot.index);
+		table.putLong(o + HEARTBEAT, -1);
+		table.putLong(o + OWNER, 0);
+		table.putLong(o + KEY, 0);
+
+		try {
+			slot.lock.release();
+		} catch (IOException e) {
+			LOG.debug("Cannot release lock of slot " + slot.index, e);
+		}
+
+		LOG.debug("Webcam {} unlocked from slot {}", name, slot.index);
+	}
+
+	/**
+	 * Update heartbeats of owned slots.
+	 *
+	 * @return False if there are no owned slots and heartbeat thread shall stop
+	 */
+	private synchronized boolean beat() {
+
+		if (owned.isEmpty()) {
+			heartbeat = null;
+			return false;
+		}
+
+		long now = System.currentTimeMillis();
+		for (Slot slot : owned.values()) {
+			table.putLong(offset(slot.index) + HEARTBEAT, now);
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return Lock table file
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Unlock all webcams locked by this table and close the file.
+	 *
+	 * @throws IOException when file cannot be closed
+	 */
+	synchronized void close() throws IOException {
+		for (String name : owned.keySet().toArray(new String[owned.size()])) {
+			unlock(name);
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,386 @@
+package com.github.sarxos.webcam;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.util.LatencyHistogram;
+
+
+/**
+ * Capture pipeline metrics. There is one instance per webcam and one per driver, the driver one
+ * aggregates metrics of all webcams using that driver. Metrics are recorded with
+ * {@link System#nanoTime()} on the capture path, in the processor, the updater and the listeners
+ * dispatcher. They can be read programmatically with {@link #getSnapshot()} or via JMX, webcam
+ * metrics are registered as <code>com.github.sarxos.webcam:type=Webcam,name=...</code> when webcam
+ * is open, and driver metrics as <code>com.github.sarxos.webcam:type=Driver,name=...</code>.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamMetrics implements WebcamMetricsMXBean {
+
+	/**
+	 * Immutable copy of the metrics.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static final class Snapshot {
+
+		private final String name;
+		private final long timestamp;
+		private final long frames;
+		private final long failures;
+		private final long dropped;
+		private final LatencyHistogram.Snapshot capture;
+		private final LatencyHistogram.Snapshot transform;
+		private final LatencyHistogram.Snapshot processorWait;
+		private final LatencyHistogram.Snapshot dispatch;
+
+		private Snapshot(WebcamMetrics metrics) {
+			this.name = metrics.name;
+			this.timestamp = System.currentTimeMillis();
+			this.frames = metrics.frames.get();
+			this.failures = metrics.failures.get();
+			this.dropped = metrics.dropped.get();
+			this.capture = metrics.capture.snapshot();
+			this.transform = metrics.transform.snapshot();
+			this.processorWait = metrics.processorWait.snapshot();
+			this.dispatch = metrics.dispatch.snapshot();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Time in milliseconds when snapshot has been taken
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public long getFrames() {
+			return frames;
+		}
+
+		public long getFailures() {
+			return failures;
+		}
+
+		public long getDroppedNotifications() {
+			return dropped;
+		}
+
+		public LatencyHistogram.Snapshot getCaptureLatency() {
+			return capture;
+		}
+
+		public LatencyHistogram.Snapshot getTransformTime() {
+			return transform;
+		}
+
+		public LatencyHistogram.Snapshot getProcessorWait() {
+			return processorWait;
+		}
+
+		public LatencyHistogram.Snapshot getDispatchLag() {
+			return dispatch;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[frames=%d, failures=%d, dropped=%d, capture={%s}, transform={%s}, wait={%s}, dispatch={%s}]", name, frames, failures, dropped, capture, transform, processorWait, dispatch);
+		}
+	}
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamMetrics.class);
+
+	/**
+	 * JMX domain.
+	 */
+	public static final String DOMAIN = "com.github.sarxos.webcam";
+
+	/**
+	 * Metrics of drivers, by driver name.
+	 */
+	private static final ConcurrentHashMap<String, WebcamMetrics> DRIVERS = new ConcurrentHashMap<String, WebcamMetrics>();
+
+	/**
+	 * Metrics of devices, used where only device is known, e.g. in processor.
+	 */
+	private static final ConcurrentHashMap<WebcamDevice, WebcamMetrics> DEVICES = new ConcurrentHashMap<WebcamDevice, WebcamMetrics>();
+
+	private static volatile boolean jmx = true;
+
+	private final String name;
+	private final String type;
+	private final WebcamMetrics parent;
+
+	private final AtomicLong frames = new AtomicLong(0);
+	private final AtomicLong failures = new AtomicLong(0);
+	private final AtomicLong dropped = new AtomicLong(0);
+
+	private final LatencyHistogram capture = new LatencyHistogram();
+	private final LatencyHistogram transform = new LatencyHistogram();
+	private final LatencyHistogram processorWait = new LatencyHistogram();
+	private final LatencyHistogram dispatch = new LatencyHistogram();
+
+	private ObjectName objectName = null;
+
+	private WebcamMetrics(String name, String type, WebcamMetrics parent) {
+		this.name = name;
+		this.type = type;
+		this.parent = parent;
+	}
+
+	/**
+	 * Create metrics of the webcam device.
+	 *
+	 * @param device the webcam device
+	 * @param driver the driver of this device, may be null
+	 * @return New webcam metrics
+	 */
+	static WebcamMetrics create(WebcamDevice device, WebcamDriver driver) {
+		WebcamMetrics metrics = new WebcamMetrics(device.getName(), "Webcam", driver == null ? null : getDriverMetrics(driver));
+		DEVICES.put(device, metrics);
+		return metrics;
+	}
+
+	/**
+	 * Return metrics of the device, if webcam for this device exists.
+	 *
+	 * @param device the device
+	 * @return Device metrics or null
+	 */
+	static WebcamMetrics get(WebcamDevice device) {
+		return device == null ? null : DEVICES.get(device);
+	}
+
+	/**
+	 * Return metrics aggregated for all webcams using given driver.
+	 *
+	 * @param driver the driver
+	 * @return Driver metrics
+	 */
+	public static WebcamMetrics getDriverMetrics(WebcamDriver driver) {
+
+		if (driver == null) {
+			throw new IllegalArgumentException("Driver cannot be null");
+		}
+
+		String name = driver.getClass().getSimpleName();
+		WebcamMetrics metrics = DRIVERS.get(name);
+
+		if (metrics == null) {
+			WebcamMetrics created = new WebcamMetrics(name, "Driver", null);
+			if ((metrics = DRIVERS.putIfAbsent(name, created)) == null) {
+				metrics = created;
+				metrics.register();
+			}
+		}
+
+		return metrics;
+	}
+
+	/**
+	 * @return Snapshots of metrics of all drivers used so far
+	 */
+	public static List<Snapshot> getDriversSnapshots() {
+		List<Snapshot> snapshots = new ArrayList<Snapshot>();
+		for (WebcamMetrics metrics : DRIVERS.values()) {
+			snapshots.add(metrics.getSnapshot());
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Enable or disable registration of metrics MBeans. Metrics are still recorded when disabled.
+	 * Takes effect for MBeans registered later on.
+	 *
+	 * @param enabled true to register MBeans, false otherwise
+	 */
+	public static void setJmxEnabled(boolean enabled) {
+		jmx = enabled;
+	}
+
+	/**
+	 * @return True if metrics MBeans are registered
+	 */
+	public static boolean isJmxEnabled() {
+		return jmx;
+	}
+
+	void recordCapture(long nanos, boolean ok) {
+		if (ok) {
+			capture.record(nanos);
+			frames.incrementAndGet();
+		} else {
+			failures.incrementAndGet();
+		}
+		if (parent != null) {
+			parent.recordCapture(nanos, ok);
+		}
+	}
+
+	void recordTransform(long nanos) {
+		transform.record(nanos);
+		if (parent != null) {
+			parent.recordTransform(nanos);
+		}
+	}
+
+	void recordProcessorWait(long nanos) {
+		processorWait.record(nanos);
+		if (parent != null) {
+			parent.recordProcessorWait(nanos);
+		}
+	}
+
+	void recordDispatch(long nanos) {
+		dispatch.record(nanos);
+		if (parent != null) {
+			parent.recordDispatch(nanos);
+		}
+	}
+
+	void recordDropped() {
+		dropped.incrementAndGet();
+		if (parent != null) {
+			parent.recordDropped();
+		}
+	}
+
+	/**
+	 * Register MBean, does nothing if already registered or JMX is disabled.
+	 */
+	synchronized void register() {
+
+		if (!jmx || objectName != null) {
+			return;
+		}
+
+		try {
+			ObjectName on = new ObjectName(String.format("%s:type=%s,name=%s", DOMAIN, type, ObjectName.quote(name)));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (!server.isRegistered(on)) {
+				server.registerMBean(this, on);
+				objectName = on;
+			}
+		} catch (Exception e) {
+			LOG.debug("Cannot register metrics MBean of " + name, e);
+		}
+	}
+
+	/**
+	 * Unregister MBean, does nothing if not registered.
+	 */
+	synchronized void unregister() {
+
+		if (objectName == null) {
+			return;
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (Exception e) {
+			LOG.debug("Cannot unregister metrics MBean of " + name, e);
+		} finally {
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Unregister MBean and forget device metrics.
+	 *
+	 * @param device the device of this webcam metrics
+	 */
+	void dispose(WebcamDevice device) {
+		unregister();
+		DEVICES.remove(device);
+	}
+
+	/**
+	 * @return Copy of the current metrics
+	 */
+	public Snapshot getSnapshot() {
+		return new Snapshot(this);
+	}
+
+	/**
+	 * @return Metrics of the driver, or null if this is driver metrics
+	 */
+	public WebcamMetrics getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return JMX object name or null if MBean is not registered
+	 */
+	public synchronized ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getFrames() {
+		return frames.get();
+	}
+
+	@Override
+	public long getFailures() {
+		return failures.get();
+	}
+
+	@Override
+	public long getDroppedNotifications() {
+		return dropped.get();
+	}
+
+	@Override
+	public LatencyHistogram.Snapshot getCaptureLatency() {
+		return capture.snapshot();
+	}
+
+	@Override
+	public LatencyHistogram.Snapshot getTransformTime() {
+		return transform.snapshot();
+	}
+
+	@Override
+	public LatencyHistogram.Snapshot getProcessorWait() {
+		return processorWait.snapshot();
+	}
+
+	@Override
+	public LatencyHistogram.Snapshot getDispatchLag() {
+		return dispatch.snapshot();
+	}
+
+	@Override
+	public void reset() {
+		frames.set(0);
+		failures.set(0);
+		dropped.set(0);
+		capture.reset();
+		transform.reset();
+		processorWait.reset();
+		dispatch.reset();
+	}
+
+	@Override
+	public String toString() {
+		return getSnapshot().toString();
+	}
+}
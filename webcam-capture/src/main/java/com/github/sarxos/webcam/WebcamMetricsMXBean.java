@@ -0,0 +1,58 @@
+package com.github.sarxos.webcam;
+
+import com.github.sarxos.webcam.util.LatencyHistogram;
+
+
+/**
+ * Management interface of {@link WebcamMetrics}. Latencies are exposed as composite attributes
+ * with count, mean, percentiles and maximum, all in milliseconds.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public interface WebcamMetricsMXBean {
+
+	/**
+	 * @return Webcam or driver name
+	 */
+	String getName();
+
+	/**
+	 * @return Number of frames captured
+	 */
+	long getFrames();
+
+	/**
+	 * @return Number of failed captures, i.e. no image or exception
+	 */
+	long getFailures();
+
+	/**
+	 * @return Number of image notifications dropped because listeners were too slow
+	 */
+	long getDroppedNotifications();
+
+	/**
+	 * @return Time of getting frame from the device
+	 */
+	LatencyHistogram.Snapshot getCaptureLatency();
+
+	/**
+	 * @return Time of image transformation
+	 */
+	LatencyHistogram.Snapshot getTransformTime();
+
+	/**
+	 * @return Time tasks wait in the processor queue
+	 */
+	LatencyHistogram.Snapshot getProcessorWait();
+
+	/**
+	 * @return Time from image acquisition to its delivery to the listener
+	 */
+	LatencyHistogram.Snapshot getDispatchLag();
+
+	/**
+	 * Reset all counters and histograms.
+	 */
+	void reset();
+}
@@ -253,6 +253,37 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 		this.areaThresholdMax = threshold;
 	}
 
+	/**
+	 * @return Pixel intensity difference threshold
+	 * @see #setPixelThreshold(int)
+	 */
+	public int getPixelThreshold() {
+		return pixelThreshold;
+	}
+
+	/**
+	 * @return Percentage fraction of image area threshold
+	 * @see #setAreaThreshold(double)
+	 */
+	public double getAreaThreshold() {
+		return areaThreshold;
+	}
+
+	/**
+	 * @return Max percentage fraction of image area threshold
+	 * @see #setMaxAreaThreshold(double)
+	 */
+	public double getMaxAreaThreshold() {
+		return areaThresholdMax;
+	}
+
+	/**
+	 * @return Rectangular zones where motion detection is ignored
+	 */
+	public List<Rectangle> getDoNotEngageZones() {
+		return doNotEnganeZones;
+	}
+
 	private static int combinePixels(int rgb1, int rgb2) {
 
 		// first ARGB
@@ -0,0 +1,531 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.sarxos.webcam.util.GrayBlurFilter;
+
+
+/**
+ * Motion detector algorithm which compares 8-bit grayscale pixels stored in row-major bytes array
+ * instead of reading ARGB values pixel by pixel. Image rows are split between threads of the
+ * {@link ForkJoinPool}, do-not-engage zones are precomputed into a bitmap, and the scratch buffers
+ * are reused between detections, so no objects are created per pixel. Area, center of gravity,
+ * points and thresholds are the same as the ones computed by
+ * {@link WebcamMotionDetectorDefaultAlgorithm} for opaque images.<br>
+ * <br>
+ * Images returned by {@link #filter(BufferedImage)} are {@link BufferedImage#TYPE_BYTE_GRAY} and
+ * two of them are reused alternately, so only the current and the previous filtered images are
+ * valid at a time, which is exactly what {@link WebcamMotionDetector} needs. This algorithm
+ * instance must not be shared between motion detectors.<br>
+ * <br>
+ * Images can be pre-filtered in two ways, see {@link PreFilter}. The fused one is much cheaper and
+ * does not allocate memory, but its results slightly differ from the default algorithm because of
+ * the different rounding.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamMotionDetectorParallelAlgorithm extends WebcamMotionDetectorDefaultAlgorithm {
+
+	/**
+	 * How images are prepared for motion detection.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static enum PreFilter {
+
+		/**
+		 * Blur all color channels and then convert to gray, the same as the default algorithm does.
+		 */
+		BLUR_AND_GRAY,
+
+		/**
+		 * Convert to 8-bit luma first and then blur this single channel, reusing the scratch
+		 * buffers owned by the algorithm instance.
+		 *
+		 * @see GrayBlurFilter
+		 */
+		FUSED_GRAY_BLUR,
+	}
+
+	/**
+	 * Blur radius, the same as the one used by default algorithm.
+	 */
+	private static final int BLUR_RADIUS = 6;
+
+	/**
+	 * Number of pixels below which rows are not split any further.
+	 */
+	private static final int PIXELS_PER_TASK = 1 << 16;
+
+	/**
+	 * Minimum size of the grid cell used to find points close to each other.
+	 */
+	private static final int MIN_CELL_SIZE = 16;
+
+	/**
+	 * Pool shared by all algorithm instances created without explicit pool.
+	 */
+	private static ForkJoinPool sharedPool = null;
+
+	private static synchronized ForkJoinPool getSharedPool() {
+		if (sharedPool == null) {
+			sharedPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+		return sharedPool;
+	}
+
+	/**
+	 * Compares range of rows and stores per-row results.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	private final class RowsTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int y1;
+		private final int y2;
+
+		public RowsTask(int y1, int y2) {
+			this.y1 = y1;
+			this.y2 = y2;
+		}
+
+		@Override
+		protected void compute() {
+			if (y2 - y1 == 1 || (y2 - y1) * width <= PIXELS_PER_TASK) {
+				compare(y1, y2);
+			} else {
+				int y = (y1 + y2) >>> 1;
+				invokeAll(new RowsTask(y1, y), new RowsTask(y, y2));
+			}
+		}
+	}
+
+	private final ForkJoinPool pool;
+
+	private volatile PreFilter preFilter = PreFilter.BLUR_AND_GRAY;
+	private GrayBlurFilter grayBlur = null;
+
+	private final BufferedImage[] outputs = new BufferedImage[2];
+	private int output = 0;
+	private int[] row = new int[0];
+
+	private byte[] currentScratch = new byte[0];
+	private byte[] previousScratch = new byte[0];
+
+	private byte[] current = null;
+	private byte[] previous = null;
+	private byte[] diff = new byte[0];
+	private int[] rowCount = new int[0];
+	private long[] rowSumX = new long[0];
+	private int width = 0;
+	private int height = 0;
+	private int threshold = 0;
+
+	private long[] mask = null;
+	private List<Rectangle> maskZones = null;
+	private int maskHash = 0;
+	private int maskWidth = 0;
+	private int maskHeight = 0;
+
+	private int[] cells = new int[0];
+	private int[] px = new int[0];
+	private int[] py = new int[0];
+	private int[] next = new int[0];
+
+	private int hits = 0;
+	private boolean thresholdsReady = true;
+
+	private double area = 0;
+	private Point cog = null;
+
+	/**
+	 * Creates parallel motion detector algorithm with default pixel and area thresholds.
+	 */
+	public WebcamMotionDetectorParallelAlgorithm() {
+		this(DEFAULT_PIXEL_THREASHOLD, DEFAULT_AREA_THREASHOLD);
+	}
+
+	/**
+	 * Creates parallel motion detector algorithm using pool shared by all instances.
+	 *
+	 * @param pixelThreshold intensity threshold (0 - 255)
+	 * @param areaThreshold percentage threshold of image covered by motion
+	 */
+	public WebcamMotionDetectorParallelAlgorithm(int pixelThreshold, double areaThreshold) {
+		this(pixelThreshold, areaThreshold, getSharedPool());
+	}
+
+	/**
+	 * Creates parallel motion detector algorithm.
+	 *
+	 * @param pixelThreshold intensity threshold (0 - 255)
+	 * @param areaThreshold percentage threshold of image covered by motion
+	 * @param pool the pool used to compare image rows
+	 */
+	public WebcamMotionDetectorParallelAlgorithm(int pixelThreshold, double areaThreshold, ForkJoinPool pool) {
+		super(pixelThreshold, areaThreshold);
+		if (pool == null) {
+			throw new IllegalArgumentException("Fork join pool cannot be null");
+		}
+		this.pool = pool;
+	}
+
+	/**
+	 * Set how images should be prepared for motion detection. Default is
+	 * {@link PreFilter#BLUR_AND_GRAY}.
+	 *
+	 * @param preFilter the pre-filter to use
+	 */
+	public void setPreFilter(PreFilter preFilter) {
+		if (preFilter == null) {
+			throw new IllegalArgumentException("Pre-filter cannot be null");
+		}
+		this.preFilter = preFilter;
+	}
+
+	/**
+	 * @return Pre-filter used to prepare images for motion detection
+	 */
+	public PreFilter getPreFilter() {
+		return preFilter;
+	}
+
+	@Override
+	public BufferedImage filter(BufferedImage original) {
+
+		int w = original.getWidth();
+		int h = original.getHeight();
+
+		BufferedImage gray = outputs[output];
+		if (gray == null || gray.getWidth() != w || gray.getHeight() != h) {
+			outputs[output] = gray = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+		}
+		output ^= 1;
+
+		if (preFilter == PreFilter.FUSED_GRAY_BLUR) {
+			if (grayBlur == null) {
+				grayBlur = new GrayBlurFilter(BLUR_RADIUS);
+			}
+			return grayBlur.filter(original, gray);
+		}
+
+		BufferedImage modified = super.filter(original);
+
+		if (row.length < w) {
+			row = new int[w];
+		}
+
+		// all color components of the gray image are the same, so any of them can be taken
+
+		byte[] data = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+		for (int y = 0, i = 0; y < h; y++) {
+			modified.getRGB(0, y, w, 1, row, 0, w);
+			for (int x = 0; x < w; x++) {
+				data[i++] = (byte) row[x];
+			}
+		}
+
+		return gray;
+	}
+
+	@Override
+	public boolean detect(BufferedImage previousModified, BufferedImage currentModified) {
+
+		points.clear();
+		thresholds.clear();
+		thresholdsReady = true;
+
+		final int w = currentModified.getWidth();
+		final int h = currentModified.getHeight();
+
+		long p = 0;
+		long cogX = 0;
+		long cogY = 0;
+
+		hits = 0;
+
+		if (previousModified != null) {
+
+			current = currentScratch = toGrayBytes(currentModified, currentScratch);
+			previous = previousScratch = toGrayBytes(previousModified, previousScratch);
+
+			prepare(w, h);
+
+			pool.invoke(new RowsTask(0, h));
+
+			for (int y = 0; y < h; y++) {
+				p += rowCount[y];
+				cogX += rowSumX[y];
+				cogY += (long) y * rowCount[y];
+			}
+
+			hits = (int) p;
+			thresholdsReady = p == 0;
+
+			if (p > 0) {
+				selectPoints();
+			}
+		}
+
+		area = p * 100d / (w * h);
+
+		if (p > 0 && area >= getAreaThreshold() && area <= getMaxAreaThreshold()) {
+			cog = new Point((int) (cogX / p), (int) (cogY / p));
+			return true;
+		} else {
+			cog = new Point(w / 2, h / 2);
+			return false;
+		}
+	}
+
+	/**
+	 * Return grayscale bytes of the image. Bytes of {@link BufferedImage#TYPE_BYTE_GRAY} images
+	 * are used directly, all other images are converted into the scratch buffer.
+	 */
+	private byte[] toGrayBytes(BufferedImage image, byte[] scratch) {
+
+		final int w = image.getWidth();
+		final int h = image.getHeight();
+
+		if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+			DataBufferByte buffer = (DataBufferByte) image.getRaster().getDataBuffer();
+			if (buffer.getNumBanks() == 1 && buffer.getOffset() == 0 && buffer.getSize() == w * h && image.getRaster().getParent() == null) {
+				return buffer.getData();
+			}
+		}
+
+		if (scratch.length < w * h) {
+			scratch = new byte[w * h];
+		}
+		if (row.length < w) {
+			row = new int[w];
+		}
+
+		for (int y = 0, i = 0; y < h; y++) {
+			image.getRGB(0, y, w, 1, row, 0, w);
+			for (int x = 0; x < w; x++) {
+				scratch[i++] = (byte) row[x];
+			}
+		}
+
+		return scratch;
+	}
+
+	private void prepare(int w, int h) {
+
+		width = w;
+		height = h;
+		threshold = getPixelThreshold();
+
+		if (diff.length < w * h) {
+			diff = new byte[w * h];
+		}
+		if (rowCount.length < h) {
+			rowCount = new int[h];
+			rowSumX = new long[h];
+		}
+
+		prepareMask(w, h);
+	}
+
+	/**
+	 * Rebuild do-not-engage zones bitmap if zones or image size have changed.
+	 */
+	private void prepareMask(int w, int h) {
+
+		List<Rectangle> zones = getDoNotEngageZones();
+
+		if (zones == null || zones.isEmpty()) {
+			mask = null;
+			maskZones = null;
+			return;
+		}
+
+		int hash = zones.hashCode();
+		if (mask != null && zones == maskZones && hash == maskHash && w == maskWidth && h == maskHeight) {
+			return;
+		}
+
+		int words = (w * h + 63) >>> 6;
+		if (mask == null || mask.length < words) {
+			mask = new long[words];
+		} else {
+			Arrays.fill(mask, 0L);
+		}
+
+		Rectangle bounds = new Rectangle(0, 0, w, h);
+		for (Rectangle zone : zones) {
+			Rectangle r = zone.intersection(bounds);
+			if (r.isEmpty()) {
+				continue;
+			}
+			for (int y = r.y; y < r.y + r.height; y++) {
+				for (int i = y * w + r.x, e = i + r.width; i < e; i++) {
+					mask[i >>> 6] |= 1L << (i & 63);
+				}
+			}
+		}
+
+		maskZones = zones;
+		maskHash = hash;
+		maskWidth = w;
+		maskHeight = h;
+	}
+
+	/**
+	 * Compare rows in range [y1, y2) and store number of hot pixels and sum of their x coordinates
+	 * for every row.
+	 */
+	private void compare(int y1, int y2) {
+
+		final byte[] c = current;
+		final byte[] q = previous;
+		final byte[] d = diff;
+		final long[] m = mask;
+		final int w = width;
+		final int t = threshold;
+
+		for (int y = y1; y < y2; y++) {
+
+			int count = 0;
+			long sum = 0;
+
+			for (int x = 0, i = y * w; x < w; x++, i++) {
+
+				int v = (c[i] & 0xff) - (q[i] & 0xff);
+				if (v < 0) {
+					v = -v;
+				}
+
+				d[i] = (byte) v;
+
+				if (v >= t && (m == null || (m[i >>> 6] & (1L << (i & 63))) == 0)) {
+					count++;
+					sum += x;
+				}
+			}
+
+			rowCount[y] = count;
+			rowSumX[y] = sum;
+		}
+	}
+
+	private boolean isHot(int i) {
+		return (diff[i] & 0xff) >= threshold && (mask == null || (mask[i >>> 6] & (1L << (i & 63))) == 0);
+	}
+
+	/**
+	 * Select points in the same column-major order as the default algorithm does. Points already
+	 * selected are kept in the grid of cells not smaller than point range, so only the neighboring
+	 * cells have to be checked.
+	 */
+	private void selectPoints() {
+
+		final int max = getMaxPoints();
+		if (max <= 0) {
+			return;
+		}
+
+		final int range = getPointRange();
+		final long range2 = (long) range * range;
+		final int size = Math.max(range, MIN_CELL_SIZE);
+		final int gw = (width + size - 1) / size;
+		final int gh = (height + size - 1) / size;
+
+		if (cells.length < gw * gh) {
+			cells = new int[gw * gh];
+		}
+		if (next.length < max) {
+			px = new int[max];
+			py = new int[max];
+			next = new int[max];
+		}
+
+		Arrays.fill(cells, 0, gw * gh, -1);
+
+		int visited = 0;
+		int j = 0;
+
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+
+				if (!isHot(y * width + x)) {
+					continue;
+				}
+
+				int cx = x / size;
+				int cy = y / size;
+
+				if (range < 0 || isFar(x, y, cx, cy, gw, gh, range2)) {
+					int cell = cy * gw + cx;
+					px[j] = x;
+					py[j] = y;
+					next[j] = cells[cell];
+					cells[cell] = j;
+					points.add(new Point(x, y));
+					j++;
+				}
+
+				if (j >= max || ++visited == hits) {
+					return;
+				}
+			}
+		}
+	}
+
+	private boolean isFar(int x, int y, int cx, int cy, int gw, int gh, long range2) {
+		for (int gy = Math.max(0, cy - 1); gy <= Math.min(gh - 1, cy + 1); gy++) {
+			for (int gx = Math.max(0, cx - 1); gx <= Math.min(gw - 1, cx + 1); gx++) {
+				for (int k = cells[gy * gw + gx]; k != -1; k = next[k]) {
+					long dx = px[k] - x;
+					long dy = py[k] - y;
+					if (dx * dx + dy * dy <= range2) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Thresholds are collected only when requested, in the same column-major order as the default
+	 * algorithm does, because this requires one boxed integer per each hot pixel.
+	 */
+	@Override
+	public ArrayList<Integer> getThresholds() {
+		if (!thresholdsReady) {
+			for (int x = 0, n = 0; x < width && n < hits; x++) {
+				for (int y = 0; y < height && n < hits; y++) {
+					int i = y * width + x;
+					if (isHot(i)) {
+						thresholds.add(diff[i] & 0xff);
+						n++;
+					}
+				}
+			}
+			thresholdsReady = true;
+		}
+		return thresholds;
+	}
+
+	@Override
+	public Point getCog() {
+		return cog;
+	}
+
+	@Override
+	public double getArea() {
+		return area;
+	}
+}
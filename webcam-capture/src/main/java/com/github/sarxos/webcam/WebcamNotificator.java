@@ -0,0 +1,357 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.util.PooledImage;
+
+
+/**
+ * Delivers new image notifications to the webcam listeners in accordance with the
+ * {@link WebcamDispatchPolicy}. Notifications wait in the bounded queues and when a queue is full
+ * the oldest notification is dropped. Pooled images are released when they have been delivered to
+ * or dropped for all the listeners.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+final class WebcamNotificator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamNotificator.class);
+
+	/**
+	 * Single image to be delivered to one or more listeners.
+	 */
+	private static final class Delivery {
+
+		private final WebcamEvent event;
+		private final PooledImage pooled;
+		private final AtomicInteger references;
+		private final long created = System.nanoTime();
+
+		public Delivery(WebcamEvent event, PooledImage pooled, int references) {
+			this.event = event;
+			this.pooled = pooled;
+			this.references = new AtomicInteger(references);
+		}
+
+		public void release() {
+			if (references.decrementAndGet() == 0 && pooled != null) {
+				pooled.release();
+			}
+		}
+	}
+
+	/**
+	 * Bounded queue of deliveries served by a single thread. Thread is scheduled only when there
+	 * is something in the queue.
+	 */
+	private final class Dispatcher implements Runnable {
+
+		/**
+		 * Listener served by this dispatcher, or null if all listeners are served.
+		 */
+		private final WebcamListener listener;
+		private final ArrayDeque<Delivery> queue = new ArrayDeque<Delivery>();
+		private final ExecutorService executor;
+		private boolean scheduled = false;
+
+		public Dispatcher(WebcamListener listener, String name) {
+			this.listener = listener;
+			this.executor = Executors.newSingleThreadExecutor(new NotificationThreadFactory(name));
+		}
+
+		public void offer(Delivery delivery) {
+
+			Delivery dropped = null;
+
+			synchronized (queue) {
+				if (queue.size() == capacity) {
+					dropped = queue.poll();
+				}
+				queue.add(delivery);
+				if (!scheduled) {
+					scheduled = true;
+					try {
+						executor.execute(this);
+					} catch (RejectedExecutionException e) {
+						scheduled = false;
+						queue.remove(delivery);
+						delivery.release();
+					}
+				}
+			}
+
+			if (dropped != null) {
+				drop(dropped);
+			}
+		}
+
+		private void drop(Delivery delivery) {
+			if (listener != null) {
+				count(listener);
+			} else {
+				for (WebcamListener l : webcam.getWebcamListeners()) {
+					count(l);
+				}
+			}
+			delivery.release();
+		}
+
+		private void count(WebcamListener l) {
+			dropped.incrementAndGet();
+			webcam.getMetrics().recordDropped();
+			AtomicLong counter = droppedPerListener.get(l);
+			if (counter == null) {
+				AtomicLong created = new AtomicLong(0);
+				if ((counter = droppedPerListener.putIfAbsent(l, created)) == null) {
+					counter = created;
+				}
+			}
+			counter.incrementAndGet();
+		}
+
+		@Override
+		public void run() {
+			for (;;) {
+
+				final Delivery delivery;
+
+				synchronized (queue) {
+					if ((delivery = queue.poll()) == null) {
+						scheduled = false;
+						return;
+					}
+				}
+
+				try {
+					if (listener != null) {
+						deliver(listener, delivery);
+					} else {
+						for (WebcamListener l : webcam.getWebcamListeners()) {
+							deliver(l, delivery);
+						}
+					}
+				} finally {
+					delivery.release();
+				}
+			}
+		}
+
+		private void deliver(WebcamListener l, Delivery delivery) {
+			webcam.getMetrics().recordDispatch(System.nanoTime() - delivery.created);
+			try {
+				l.webcamImageObtained(delivery.event);
+			} catch (Exception e) {
+				LOG.error(String.format("Notify image acquired, exception when calling listener %s", l.getClass()), e);
+			}
+		}
+	}
+
+	private final class NotificationThreadFactory implements ThreadFactory {
+
+		private final String name;
+
+		public NotificationThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, name);
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	private final Webcam webcam;
+	private final WebcamDispatchPolicy policy;
+	private final int capacity;
+	private final AtomicLong dropped;
+	private final ConcurrentHashMap<WebcamListener, AtomicLong> droppedPerListener;
+
+	/**
+	 * Dispatcher of all listeners, used in shared queue policies.
+	 */
+	private final Dispatcher shared;
+
+	/**
+	 * Dispatchers of particular listeners, used in per-listener policy.
+	 */
+	private final ConcurrentHashMap<WebcamListener, Dispatcher> dispatchers = new ConcurrentHashMap<WebcamListener, Dispatcher>();
+
+	private final AtomicInteger number = new AtomicInteger(0);
+
+	private volatile boolean running = true;
+
+	/**
+	 * @param webcam the webcam which listeners are notified
+	 * @param policy the dispatch policy
+	 * @param capacity the queue size, ignored in latest-only policy
+	 * @param dropped the counter of all dropped notifications
+	 * @param droppedPerListener the counters of notifications dropped for particular listeners
+	 */
+	public WebcamNotificator(Webcam webcam, WebcamDispatchPolicy policy, int capacity, AtomicLong dropped, ConcurrentHashMap<WebcamListener, AtomicLong> droppedPerListener) {
+
+		this.webcam = webcam;
+		this.policy = policy;
+		this.capacity = policy == WebcamDispatchPolicy.LATEST_ONLY ? 1 : capacity;
+		this.dropped = dropped;
+		this.droppedPerListener = droppedPerListener;
+
+		if (policy == WebcamDispatchPolicy.PER_LISTENER) {
+			this.shared = null;
+		} else {
+			this.shared = new Dispatcher(null, String.format("notificator-[%s]", webcam.getName()));
+		}
+	}
+
+	/**
+	 * Notify listeners about new image. Pooled image, if not null, has to be already retained by
+	 * the caller, and it is released when all listeners have been notified.
+	 *
+	 * @param image the new image
+	 * @param pooled the pooled image backing the new image, or null
+	 */
+	public void notify(BufferedImage image, PooledImage pooled) {
+		notify(new WebcamEvent(WebcamEventType.NEW_IMAGE, webcam, image), pooled);
+	}
+
+	/**
+	 * Notify listeners about new encoded frame. Frame is decoded only if some listener asks for
+	 * the event image, and then only once.
+	 *
+	 * @param frame the new encoded frame
+	 */
+	public void notify(EncodedFrame frame) {
+		notify(new WebcamEvent(WebcamEventType.NEW_IMAGE, webcam, frame), null);
+	}
+
+	private void notify(WebcamEvent we, PooledImage pooled) {
+
+		if (!running) {
+			new Delivery(we, pooled, 1).release();
+			return;
+		}
+
+		if (shared != null) {
+			shared.offer(new Delivery(we, pooled, 1));
+			return;
+		}
+
+		final WebcamListener[] listeners = webcam.getWebcamListeners();
+
+		// drop dispatchers of listeners which have been removed, number of listeners does not tell
+		// that, since removed listener could have been replaced by another one
+
+		for (Entry<WebcamListener, Dispatcher> entry : dispatchers.entrySet()) {
+			if (!contains(listeners, entry.getKey()) && dispatchers.remove(entry.getKey(), entry.getValue())) {
+				entry.getValue().executor.shutdown();
+			}
+		}
+
+		if (listeners.length == 0) {
+			new Delivery(we, pooled, 1).release();
+			return;
+		}
+
+		final Delivery delivery = new Delivery(we, pooled, listeners.length);
+
+		for (WebcamListener l : listeners) {
+			dispatcher(l).offer(delivery);
+		}
+	}
+
+	private static boolean contains(WebcamListener[] listeners, WebcamListener l) {
+		for (WebcamListener listener : listeners) {
+			if (listener == l) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Dispatcher dispatcher(WebcamListener l) {
+
+		Dispatcher dispatcher = dispatchers.get(l);
+		if (dispatcher != null) {
+			return dispatcher;
+		}
+
+		// executor thread is started lazily, so dispatcher which lost the race costs nothing
+
+		final Dispatcher created = new Dispatcher(l, String.format("notificator-[%s]-%d", webcam.getName(), number.incrementAndGet()));
+		if ((dispatcher = dispatchers.putIfAbsent(l, created)) == null) {
+			dispatcher = created;
+		}
+		if (!running) {
+			dispatcher.executor.shutdown();
+		}
+
+		return dispatcher;
+	}
+
+	/**
+	 * @return Dispatch policy
+	 */
+	public WebcamDispatchPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Stop accepting new notifications. Notifications which are already queued will still be
+	 * delivered.
+	 */
+	public void shutdown() {
+		running = false;
+		for (Dispatcher dispatcher : getDispatchers()) {
+			dispatcher.executor.shutdown();
+		}
+	}
+
+	/**
+	 * @return True if all queued notifications have been delivered after shutdown
+	 */
+	public boolean isTerminated() {
+		for (Dispatcher dispatcher : getDispatchers()) {
+			if (!dispatcher.executor.isTerminated()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Wait until all queued notifications have been delivered after shutdown.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the timeout unit
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Dispatcher dispatcher : getDispatchers()) {
+			dispatcher.executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private Iterable<Dispatcher> getDispatchers() {
+		if (shared != null) {
+			return Collections.singletonList(shared);
+		}
+		return dispatchers.values();
+	}
+}
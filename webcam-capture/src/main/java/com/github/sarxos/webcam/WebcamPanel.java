@@ -40,6 +40,8 @@ import javax.swing.SwingWorker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.util.PooledImage;
+
 
 /**
  * Simply implementation of JPanel allowing users to render pictures taken with webcam.
@@ -107,6 +109,56 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 		}
 	}
 
+	/**
+	 * Implementation of {@link ImageSupplier} which uses {@link Webcam#getPooledImage()}, so no new
+	 * images are allocated while panel is being rendered. It keeps the two most recent pooled images
+	 * (the one being displayed and the previous one which can still be painted) and releases the
+	 * older ones. All images are released when panel is stopped.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static class PooledImageSupplier implements ImageSupplier {
+
+		private final Webcam webcam;
+		private PooledImage current = null;
+		private PooledImage previous = null;
+
+		public PooledImageSupplier(Webcam webcam) {
+			this.webcam = webcam;
+		}
+
+		@Override
+		public synchronized BufferedImage get() {
+
+			PooledImage pi = webcam.getPooledImage();
+			if (pi == null) {
+				return null;
+			}
+
+			if (previous != null) {
+				previous.release();
+			}
+
+			previous = current;
+			current = pi;
+
+			return pi.getImage();
+		}
+
+		/**
+		 * Release all pooled images held by this supplier.
+		 */
+		public synchronized void release() {
+			for (PooledImage pi : new PooledImage[] { previous, current }) {
+				if (pi != null) {
+					pi.release();
+				}
+			}
+			previous = null;
+			current = null;
+		}
+	}
+
 	/**
 	 * Interface of the painter used to draw image in panel.
 	 *
@@ -438,6 +490,11 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 	 */
 	private static final ThreadFactory THREAD_FACTORY = new PanelThreadFactory();
 
+	/**
+	 * Maximum time (in millis) to wait for new image before checking if panel is still running.
+	 */
+	private static final long FRAME_WAIT_TIMEOUT = 250;
+
 	public static final Map<RenderingHints.Key, Object> DEFAULT_IMAGE_RENDERING_HINTS = new HashMap<RenderingHints.Key, Object>();
 	static {
 		DEFAULT_IMAGE_RENDERING_HINTS.put(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
@@ -493,12 +550,15 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 
 				repaintPanel();
 
-				// loop when starting, to wait for images
-				while (starting) {
-					try {
-						Thread.sleep(50);
-					} catch (InterruptedException e) {
-						throw new RuntimeException(e);
+				// wait when starting, until webcam is open
+
+				synchronized (startLock) {
+					while (starting) {
+						try {
+							startLock.wait();
+						} catch (InterruptedException e) {
+							throw new RuntimeException(e);
+						}
 					}
 				}
 
@@ -516,8 +576,14 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 						// TODO: rename FPS value in panel to rendering
 						// frequency
 
+						// non-blocking webcam tells when new image is captured, so
+						// panel is updated only when there is something new to draw,
+						// all other webcams have to be polled
+
 						if (isFPSLimited()) {
 							executor.scheduleAtFixedRate(updater, 0, (long) (1000 / frequency), TimeUnit.MILLISECONDS);
+						} else if (webcam.isAsynchronous()) {
+							executor.execute(new FrameWaiter());
 						} else {
 							executor.scheduleWithFixedDelay(updater, 100, 1, TimeUnit.MILLISECONDS);
 						}
@@ -536,6 +602,43 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 			}
 		}
 
+		/**
+		 * Updates panel every time webcam captures new image.
+		 *
+		 * @author Bartosz Firyn (sarxos)
+		 */
+		private class FrameWaiter implements Runnable {
+
+			@Override
+			public void run() {
+
+				long sequence = 0;
+
+				try {
+					while (running.get() && webcam.isOpen()) {
+						if (webcam.awaitImage(sequence, FRAME_WAIT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+							sequence = webcam.getImageSequence();
+							ImageUpdater.this.run();
+						}
+					}
+				} catch (InterruptedException e) {
+					return;
+				} catch (IllegalStateException e) {
+					LOG.trace("Webcam has been closed while waiting for image", e);
+				}
+
+				// webcam has been closed, go back to scheduler to wait until it is open again
+
+				if (running.get()) {
+					try {
+						executor.schedule(scheduler, 500, TimeUnit.MILLISECONDS);
+					} catch (RejectedExecutionException e) {
+						LOG.trace("Executor rejected paint update", e);
+					}
+				}
+			}
+		}
+
 		/**
 		 * Update scheduler thread.
 		 */
@@ -675,6 +778,11 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 	 */
 	private volatile boolean starting = false;
 
+	/**
+	 * Monitor used to wait until webcam is started.
+	 */
+	private final Object startLock = new Object();
+
 	/**
 	 * Painting is paused.
 	 */
@@ -828,7 +936,7 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 
 		updater.start();
 
-		starting = true;
+		setStarting(true);
 
 		final SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
 
@@ -843,7 +951,7 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 					errored = true;
 					throw e;
 				} finally {
-					starting = false;
+					setStarting(false);
 					repaintPanel();
 				}
 
@@ -874,6 +982,10 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 
 		image = null;
 
+		if (supplier instanceof PooledImageSupplier) {
+			((PooledImageSupplier) supplier).release();
+		}
+
 		final SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
 
 			@Override
@@ -896,6 +1008,13 @@ public class WebcamPanel extends JPanel implements WebcamListener, PropertyChang
 		worker.execute();
 	}
 
+	private void setStarting(boolean starting) {
+		synchronized (startLock) {
+			this.starting = starting;
+			startLock.notifyAll();
+		}
+	}
+
 	/**
 	 * Repaint panel in Swing asynchronous manner.
 	 */
@@ -1,22 +1,90 @@
 package com.github.sarxos.webcam;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Processor executes webcam tasks of drivers which are not thread-safe. Tasks are executed in
+ * lanes. Every lane is served by a single thread, so all tasks submitted to the same lane are
+ * executed one after another, in the order they were submitted. There is always one global lane,
+ * used for all drivers which are not thread-safe, and a bounded pool of per-device lanes used for
+ * drivers implementing {@link WebcamDriver.ParallelDevices}, so different devices of such drivers
+ * can be accessed in parallel.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
 public class WebcamProcessor {
 
 	private static final Logger LOG = LoggerFactory.getLogger(WebcamProcessor.class);
 
+	/**
+	 * Processor mode.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static enum Mode {
+
+		/**
+		 * All tasks are executed in a single global lane, one after another, no matter which
+		 * device they belong to.
+		 */
+		GLOBAL,
+
+		/**
+		 * Tasks of drivers implementing {@link WebcamDriver.ParallelDevices} are executed in
+		 * per-device lanes, all other ones in a single global lane.
+		 */
+		PER_DEVICE,
+	}
+
+	/**
+	 * Implementation of this interface decides which lane given device is bound to. It's called
+	 * only once per device, after that device stays in the same lane until it's closed or processor
+	 * is shut down.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static interface LaneAffinity {
+
+		/**
+		 * Select lane for the device.
+		 *
+		 * @param device the device to select lane for
+		 * @param lanes the number of available lanes
+		 * @return Lane index, from 0 (inclusive) to lanes (exclusive)
+		 */
+		int select(WebcamDevice device, int lanes);
+	}
+
+	/**
+	 * Default lane affinity which bind devices to lanes in round-robin fashion, so every device
+	 * gets its own lane as long as there are less devices than lanes.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static class RoundRobinAffinity implements LaneAffinity {
+
+		private final AtomicInteger next = new AtomicInteger(0);
+
+		@Override
+		public int select(WebcamDevice device, int lanes) {
+			return (next.getAndIncrement() & Integer.MAX_VALUE) % lanes;
+		}
+	}
+
 	/**
 	 * Thread doing supersync processing.
 	 *
@@ -48,77 +116,203 @@ public class WebcamProcessor {
 	}
 
 	/**
-	 * Heart of overall processing system. This class process all native calls wrapped in tasks, by
-	 * doing this all tasks executions are super-synchronized.
+	 * Task waiting in the lane queue.
+	 */
+	private static final class Job {
+
+		private final WebcamTask task;
+		private final long submitted;
+
+		public Job(WebcamTask task) {
+			this.task = task;
+			this.submitted = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Heart of overall processing system. Lane process all native calls wrapped in tasks, by doing
+	 * this all tasks executions within the same lane are super-synchronized. Lane also collects
+	 * some basic statistics which can be used to monitor processor load.
 	 *
 	 * @author Bartosz Firyn (SarXos)
 	 */
-	private static final class AtomicProcessor implements Runnable {
+	public static final class Lane implements Runnable {
+
+		private final String name;
+		private final BlockingQueue<Job> queue = new LinkedBlockingQueue<Job>();
+		private final AtomicLong processed = new AtomicLong(0);
+		private final AtomicLong waitTime = new AtomicLong(0);
+		private final AtomicLong executionTime = new AtomicLong(0);
+		private final AtomicLong maxLatency = new AtomicLong(0);
+		private final AtomicInteger devices = new AtomicInteger(0);
+		private Thread thread = null;
+		private volatile boolean running = true;
+
+		private Lane(String name) {
+			this.name = name;
+		}
 
-		private SynchronousQueue<WebcamTask> inbound = new SynchronousQueue<WebcamTask>(true);
-		private SynchronousQueue<WebcamTask> outbound = new SynchronousQueue<WebcamTask>(true);
+		private void start() {
+			thread = THREAD_FACTORY.newThread(this);
+			thread.start();
+		}
 
-		/**
-		 * Process task.
-		 *
-		 * @param task the task to be processed
-		 * @throws InterruptedException when thread has been interrupted
-		 */
-		public void process(WebcamTask task) throws InterruptedException {
-			inbound.put(task);
+		private synchronized void submit(WebcamTask task) {
+			if (!running) {
+				throw new RejectedExecutionException(String.format("Cannot process because lane %s has been already shut down", name));
+			}
+			queue.add(new Job(task));
+		}
+
+		private synchronized void stop() {
 
-			Throwable t = outbound.take().getThrowable();
-			if (t != null) {
-				throw new WebcamException("Cannot execute task", t);
+			running = false;
+			thread.interrupt();
+
+			// complete all tasks which will never be processed, so the threads waiting for them
+			// are released
+
+			Job job = null;
+			while ((job = queue.poll()) != null) {
+				job.task.setThrowable(new RejectedExecutionException("Processor has been shut down"));
+				job.task.complete();
 			}
 		}
 
 		@Override
 		public void run() {
-			while (true) {
-				WebcamTask t = null;
+			while (running) {
+
+				Job job = null;
 				try {
-					(t = inbound.take()).handle();
+					job = queue.take();
 				} catch (InterruptedException e) {
 					break;
+				}
+
+				long t1 = System.nanoTime();
+				try {
+					job.task.handle();
 				} catch (Throwable e) {
-					if (t != null) {
-						t.setThrowable(e);
-					}
-				} finally {
-					if (t != null) {
-						try {
-							outbound.put(t);
-						} catch (InterruptedException e) {
-							break;
-						} catch (Exception e) {
-							throw new RuntimeException("Cannot put task into outbound queue", e);
-						}
-					}
+					job.task.setThrowable(e);
+				}
+				long t2 = System.nanoTime();
+
+				processed.incrementAndGet();
+				waitTime.addAndGet(t1 - job.submitted);
+				executionTime.addAndGet(t2 - t1);
+
+				WebcamMetrics metrics = WebcamMetrics.get(job.task.getDevice());
+				if (metrics != null) {
+					metrics.recordProcessorWait(t1 - job.submitted);
+				}
+
+				long latency = t2 - job.submitted;
+				long max = maxLatency.get();
+				while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+					max = maxLatency.get();
 				}
+
+				job.task.complete();
 			}
 		}
+
+		/**
+		 * @return Lane name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Number of tasks waiting in this lane to be processed
+		 */
+		public int getQueueDepth() {
+			return queue.size();
+		}
+
+		/**
+		 * @return Number of devices bound to this lane
+		 */
+		public int getDevicesCount() {
+			return devices.get();
+		}
+
+		/**
+		 * @return Number of tasks processed by this lane
+		 */
+		public long getProcessedCount() {
+			return processed.get();
+		}
+
+		/**
+		 * @return Average time (in milliseconds) task waits in the queue before it's processed
+		 */
+		public double getAverageWaitTime() {
+			long n = processed.get();
+			return n == 0 ? 0 : waitTime.get() / 1000000d / n;
+		}
+
+		/**
+		 * @return Average time (in milliseconds) of task execution
+		 */
+		public double getAverageExecutionTime() {
+			long n = processed.get();
+			return n == 0 ? 0 : executionTime.get() / 1000000d / n;
+		}
+
+		/**
+		 * @return Maximum time (in milliseconds) from task submission to its completion
+		 */
+		public double getMaxLatency() {
+			return maxLatency.get() / 1000000d;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[queue=%d, processed=%d, wait=%.3fms, exec=%.3fms, max=%.3fms]", name, getQueueDepth(), getProcessedCount(), getAverageWaitTime(), getAverageExecutionTime(), getMaxLatency());
+		}
 	}
 
 	/**
-	 * Is processor started?
+	 * Thread factory used by all lanes.
 	 */
-	private static final AtomicBoolean started = new AtomicBoolean(false);
+	private static final ThreadFactory THREAD_FACTORY = new ProcessorThreadFactory();
 
 	/**
-	 * Execution service.
+	 * Singleton instance.
 	 */
-	private static ExecutorService runner = null;
+	private static final WebcamProcessor INSTANCE = new WebcamProcessor();
 
 	/**
-	 * Static processor.
+	 * Processor mode.
 	 */
-	private static final AtomicProcessor processor = new AtomicProcessor();
+	private volatile Mode mode = Mode.PER_DEVICE;
 
 	/**
-	 * Singleton instance.
+	 * Maximum number of per-device lanes.
+	 */
+	private int maxLanes = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Per-device lanes affinity.
+	 */
+	private LaneAffinity affinity = new RoundRobinAffinity();
+
+	/**
+	 * Global lane, used by all drivers which cannot access devices in parallel.
+	 */
+	private Lane global = null;
+
+	/**
+	 * Per-device lanes, created lazily.
 	 */
-	private static final WebcamProcessor INSTANCE = new WebcamProcessor();;
+	private Lane[] lanes = null;
+
+	/**
+	 * Devices bound to the per-device lanes.
+	 */
+	private final Map<WebcamDevice, Lane> assignments = new WeakHashMap<WebcamDevice, Lane>();
 
 	private WebcamProcessor() {
 	}
@@ -131,41 +325,198 @@ public class WebcamProcessor {
 	 */
 	public void process(WebcamTask task) throws InterruptedException {
 
-		if (started.compareAndSet(false, true)) {
-			runner = Executors.newSingleThreadExecutor(new ProcessorThreadFactory());
-			runner.execute(processor);
+		Lane lane = getLane(task);
+
+		// task submitted by another task running in the same lane would wait for itself, so it's
+		// handled directly, but tasks of devices bound to other lanes still go to their lanes
+
+		if (lane.thread == Thread.currentThread()) {
+			task.handle();
+			return;
 		}
 
-		if (!runner.isShutdown()) {
-			processor.process(task);
-		} else {
-			throw new RejectedExecutionException("Cannot process because processor runner has been already shut down");
+		lane.submit(task);
+		task.await();
+
+		Throwable t = task.getThrowable();
+		if (t instanceof RejectedExecutionException) {
+			throw (RejectedExecutionException) t;
+		}
+		if (t != null) {
+			throw new WebcamException("Cannot execute task", t);
 		}
 	}
 
-	public void shutdown() {
-		if (started.compareAndSet(true, false)) {
+	/**
+	 * Return lane in which given task should be processed. Start lane if necessary.
+	 *
+	 * @param task the task to find lane for
+	 * @return Lane
+	 */
+	private synchronized Lane getLane(WebcamTask task) {
 
-			LOG.debug("Shutting down webcam processor");
+		if (mode == Mode.GLOBAL || !task.isParallel()) {
+			if (global == null) {
+				global = new Lane("global");
+				global.start();
+			}
+			return global;
+		}
 
-			runner.shutdown();
+		WebcamDevice device = task.getDevice();
+		Lane lane = assignments.get(device);
 
-			LOG.debug("Awaiting tasks termination");
+		if (lane == null) {
 
-			while (runner.isTerminated()) {
+			if (lanes == null) {
+				lanes = new Lane[maxLanes];
+			}
 
-				try {
-					runner.awaitTermination(100, TimeUnit.MILLISECONDS);
-				} catch (InterruptedException e) {
-					return;
-				}
+			int index = affinity.select(device, lanes.length);
+			if (index < 0 || index >= lanes.length) {
+				throw new IllegalStateException(String.format("Lane affinity returned index %d out of range [0, %d)", index, lanes.length));
+			}
+
+			lane = lanes[index];
+			if (lane == null) {
+				lane = lanes[index] = new Lane(String.format("lane-%d", index));
+				lane.start();
+			}
+
+			lane.devices.incrementAndGet();
+			assignments.put(device, lane);
+
+			LOG.debug("Device {} bound to processor {}", device.getName(), lane.getName());
+		}
+
+		return lane;
+	}
+
+	/**
+	 * Unbind device from its per-device lane, so it no longer counts toward the lane placement. It
+	 * should be called when device has been closed. Device is bound to the lane again when its next
+	 * task is processed.
+	 *
+	 * @param device the device to unbind
+	 */
+	public synchronized void release(WebcamDevice device) {
+		Lane lane = assignments.remove(device);
+		if (lane != null) {
+			lane.devices.decrementAndGet();
+			LOG.debug("Device {} released from processor {}", device.getName(), lane.getName());
+		}
+	}
+
+	/**
+	 * Shutdown all processor lanes. Tasks which are still waiting to be processed are rejected.
+	 * Lanes will be started again when next task is submitted.
+	 */
+	public synchronized void shutdown() {
+
+		if (global == null && lanes == null) {
+			return;
+		}
+
+		LOG.debug("Shutting down webcam processor");
+
+		for (Lane lane : getLanesInternal()) {
+			lane.stop();
+		}
 
-				runner.shutdownNow();
+		global = null;
+		lanes = null;
+		assignments.clear();
+
+		LOG.debug("All tasks has been terminated");
+	}
+
+	private List<Lane> getLanesInternal() {
+		List<Lane> all = new ArrayList<Lane>();
+		if (global != null) {
+			all.add(global);
+		}
+		if (lanes != null) {
+			for (Lane lane : lanes) {
+				if (lane != null) {
+					all.add(lane);
+				}
 			}
+		}
+		return all;
+	}
+
+	/**
+	 * Return all currently running lanes, global one first. Can be used to monitor processor
+	 * queues depth and tasks latency.
+	 *
+	 * @return List of lanes
+	 */
+	public synchronized List<Lane> getLanes() {
+		return Collections.unmodifiableList(getLanesInternal());
+	}
+
+	/**
+	 * @return Processor mode
+	 */
+	public Mode getMode() {
+		return mode;
+	}
 
-			LOG.debug("All tasks has been terminated");
+	/**
+	 * Set processor mode. Can be changed only when processor is not running.
+	 *
+	 * @param mode the new processor mode
+	 * @throws IllegalStateException when processor is running
+	 */
+	public synchronized void setMode(Mode mode) {
+		if (mode == null) {
+			throw new IllegalArgumentException("Processor mode cannot be null");
 		}
+		checkNotRunning();
+		this.mode = mode;
+	}
 
+	/**
+	 * @return Maximum number of per-device lanes
+	 */
+	public synchronized int getMaxLanes() {
+		return maxLanes;
+	}
+
+	/**
+	 * Set maximum number of per-device lanes. When there are more devices than lanes, some of them
+	 * will share the same lane. Can be changed only when processor is not running.
+	 *
+	 * @param maxLanes the maximum number of lanes
+	 * @throws IllegalStateException when processor is running
+	 */
+	public synchronized void setMaxLanes(int maxLanes) {
+		if (maxLanes < 1) {
+			throw new IllegalArgumentException(String.format("Number of lanes must be positive (%d)", maxLanes));
+		}
+		checkNotRunning();
+		this.maxLanes = maxLanes;
+	}
+
+	/**
+	 * Set lane affinity used to bind devices to per-device lanes. Can be changed only when
+	 * processor is not running.
+	 *
+	 * @param affinity the lane affinity
+	 * @throws IllegalStateException when processor is running
+	 */
+	public synchronized void setLaneAffinity(LaneAffinity affinity) {
+		if (affinity == null) {
+			throw new IllegalArgumentException("Lane affinity cannot be null");
+		}
+		checkNotRunning();
+		this.affinity = affinity;
+	}
+
+	private void checkNotRunning() {
+		if (global != null || lanes != null) {
+			throw new IllegalStateException("Processor is running, please shut it down first");
+		}
 	}
 
 	public static synchronized WebcamProcessor getInstance() {
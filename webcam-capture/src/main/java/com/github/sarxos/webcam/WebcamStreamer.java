@@ -8,24 +8,48 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.util.ImageUtils;
+
 
 /**
  * This is very simple class which allows video from webcam to be exposed as MJPEG stream on a given
  * port. The mapping between webcam and port is one-to-one, which means that a single port need to
- * be allocated for every webcam you want to stream from.
+ * be allocated for every webcam you want to stream from.<br>
+ * <br>
+ * Streamer can work in one of two modes (see {@link Mode}). In the default
+ * {@link Mode#THREAD_PER_CONNECTION} mode every client is served by its own thread which fetch and
+ * encode image independently. In the {@link Mode#SELECTOR} mode there is only one thread which
+ * captures and encodes every frame exactly once, and one selector thread which writes this encoded
+ * frame to all connected clients. Clients which cannot consume frames as fast as they are produced
+ * will simply skip them, so they never slow down the other ones.<br>
+ * <br>
+ * When webcam device is able to provide JPEG frames directly (see
+ * {@link WebcamDevice.EncodedFrameSource}), these are streamed as they are, without being decoded
+ * and encoded again.
  *
  * @author Bartoisz Firyn (sarxos)
  */
@@ -37,6 +61,480 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 
 	private static final String CRLF = "\r\n";
 
+	/**
+	 * Streamer server mode.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static enum Mode {
+
+		/**
+		 * Every client connection is handled by a separate thread which captures and encodes
+		 * images on its own.
+		 */
+		THREAD_PER_CONNECTION,
+
+		/**
+		 * All client connections are multiplexed by a single non-blocking selector thread and every
+		 * frame is captured and encoded only once, no matter how many clients are connected.
+		 */
+		SELECTOR,
+	}
+
+	/**
+	 * HTTP response header sent to every client in selector mode.
+	 */
+	private static final byte[] HTTP_HEADER = new StringBuilder()
+		.append("HTTP/1.0 200 OK").append(CRLF)
+		.append("Connection: close").append(CRLF)
+		.append("Cache-Control: no-cache").append(CRLF)
+		.append("Cache-Control: private").append(CRLF)
+		.append("Pragma: no-cache").append(CRLF)
+		.append("Content-type: multipart/x-mixed-replace; boundary=--").append(BOUNDARY).append(CRLF)
+		.append(CRLF)
+		.toString()
+		.getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Frame terminator sent after every JPEG in selector mode.
+	 */
+	private static final ByteBuffer FRAME_TAIL = ByteBuffer.wrap(CRLF.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+
+	/**
+	 * Maximum size of the HTTP request we are willing to read from the client in selector mode.
+	 */
+	private static final int REQUEST_MAX_LENGTH = 8 * 1024;
+
+	/**
+	 * Output stream which gives direct access to its internal buffer, so encoded JPEG does not have
+	 * to be copied before it's sent to the clients. Instances are recycled.
+	 */
+	private static final class FrameOutputStream extends ByteArrayOutputStream {
+
+		public FrameOutputStream() {
+			super(64 * 1024);
+		}
+
+		public ByteBuffer toByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+		}
+	}
+
+	/**
+	 * Single encoded MJPEG frame shared by all clients. Frame is reference-counted and its internal
+	 * buffer, if it comes from the pool, is returned there when the last client has finished
+	 * writing it.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	private final class SharedFrame {
+
+		private final AtomicInteger references = new AtomicInteger(1);
+		private final FrameOutputStream data;
+		private final ByteBuffer head;
+		private final ByteBuffer body;
+		private final long sequence;
+
+		public SharedFrame(FrameOutputStream data, long sequence) {
+			this(data, data.toByteBuffer(), sequence);
+		}
+
+		public SharedFrame(EncodedFrame frame, long sequence) {
+			this(null, frame.getBuffer(), sequence);
+		}
+
+		private SharedFrame(FrameOutputStream data, ByteBuffer body, long sequence) {
+
+			StringBuilder sb = new StringBuilder();
+			sb.append("--").append(BOUNDARY).append(CRLF);
+			sb.append("Content-type: image/jpeg").append(CRLF);
+			sb.append("Content-Length: ").append(body.remaining()).append(CRLF);
+			sb.append(CRLF);
+
+			this.data = data;
+			this.head = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+			this.body = body;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Increment reference count if frame is still alive.
+		 *
+		 * @return True if frame has been retained, false if it has been already released
+		 */
+		public boolean retain() {
+			for (;;) {
+				int n = references.get();
+				if (n <= 0) {
+					return false;
+				}
+				if (references.compareAndSet(n, n + 1)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Decrement reference count and recycle buffer when it reached zero.
+		 */
+		public void release() {
+			if (references.decrementAndGet() == 0 && data != null) {
+				buffers.offer(data);
+			}
+		}
+
+		/**
+		 * @return New set of buffers to be used by a single client in gathering write
+		 */
+		public ByteBuffer[] buffers() {
+			return new ByteBuffer[] { head.duplicate(), body.duplicate(), FRAME_TAIL.duplicate() };
+		}
+
+		public long getSequence() {
+			return sequence;
+		}
+	}
+
+	/**
+	 * State of a single client connection in selector mode.
+	 */
+	private static final class Session {
+
+		private final SocketChannel channel;
+		private ByteBuffer request = ByteBuffer.allocate(512);
+		private ByteBuffer[] pending = null;
+		private SharedFrame frame = null;
+		private long sequence = -1;
+		private boolean streaming = false;
+
+		public Session(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		public boolean isIdle() {
+			return streaming && pending == null;
+		}
+
+		/**
+		 * @return True if the complete HTTP request header has been received
+		 */
+		public boolean isRequestComplete() {
+			int n = request.position();
+			for (int i = 3; i < n; i++) {
+				if (request.get(i - 3) == '\r' && request.get(i - 2) == '\n' && request.get(i - 1) == '\r' && request.get(i) == '\n') {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public void releaseFrame() {
+			if (frame != null) {
+				frame.release();
+				frame = null;
+			}
+		}
+	}
+
+	/**
+	 * Capture and encode images once for all connected clients in selector mode.
+	 */
+	private class FrameProducer implements Runnable {
+
+		@Override
+		public void run() {
+
+			long sequence = 0;
+
+			while (started.get()) {
+
+				long t1 = System.currentTimeMillis();
+
+				if (sessions.get() > 0 && webcam.isOpen()) {
+					EncodedFrame encoded = webcam.getEncodedFrame();
+					if (encoded != null && encoded.isJpeg()) {
+						publish(new SharedFrame(encoded, sequence++));
+					} else {
+						BufferedImage image = webcam.getImage();
+						SharedFrame frame = image == null ? null : encode(image, sequence);
+						if (frame != null) {
+							sequence++;
+							publish(frame);
+						}
+					}
+				}
+
+				long sleep = delay - (System.currentTimeMillis() - t1);
+				if (sleep > 0) {
+					try {
+						Thread.sleep(sleep);
+					} catch (InterruptedException e) {
+						break;
+					}
+				}
+			}
+
+			publish(null);
+		}
+
+		/**
+		 * Encode image into the pooled buffer. Failure is logged and the frame is skipped, so
+		 * connected clients keep receiving the next frames.
+		 *
+		 * @param image the image to encode
+		 * @param sequence the frame sequence number
+		 * @return Encoded frame or null if image could not be encoded
+		 */
+		private SharedFrame encode(BufferedImage image, long sequence) {
+
+			FrameOutputStream fos = buffers.poll();
+			if (fos == null) {
+				fos = new FrameOutputStream();
+			} else {
+				fos.reset();
+			}
+
+			try {
+				ImageUtils.writeJpeg(image, fos);
+			} catch (IOException e) {
+				LOG.error("Cannot encode image, frame has been skipped", e);
+				buffers.offer(fos);
+				return null;
+			}
+
+			return new SharedFrame(fos, sequence);
+		}
+
+		private void publish(SharedFrame frame) {
+
+			SharedFrame previous = latest.getAndSet(frame);
+			if (previous != null) {
+				previous.release();
+			}
+
+			Selector s = selector;
+			if (s != null) {
+				s.wakeup();
+			}
+		}
+	}
+
+	/**
+	 * Non-blocking server which multiplex all client connections in selector mode.
+	 */
+	private class SelectorServer implements Runnable {
+
+		private long dispatched = -1;
+
+		@Override
+		public void run() {
+
+			try (Selector sel = Selector.open(); ServerSocketChannel server = ServerSocketChannel.open()) {
+
+				server.configureBlocking(false);
+				server.socket().bind(new InetSocketAddress(InetAddress.getByName("0.0.0.0"), port), 50);
+				server.register(sel, SelectionKey.OP_ACCEPT);
+
+				selector = sel;
+
+				while (started.get()) {
+
+					sel.select(1000);
+
+					Iterator<SelectionKey> keys = sel.selectedKeys().iterator();
+					while (keys.hasNext()) {
+
+						SelectionKey key = keys.next();
+						keys.remove();
+
+						try {
+							if (!key.isValid()) {
+								continue;
+							}
+							if (key.isAcceptable()) {
+								accept(server, sel);
+								continue;
+							}
+							if (key.isReadable()) {
+								read(key);
+							}
+							if (key.isValid() && key.isWritable()) {
+								write(key);
+							}
+						} catch (IOException e) {
+							LOG.debug("I/O exception on client connection", e);
+							close(key);
+						}
+					}
+
+					dispatch(sel);
+				}
+
+				for (SelectionKey key : sel.keys()) {
+					if (key.attachment() instanceof Session) {
+						close(key);
+					}
+				}
+
+			} catch (Exception e) {
+				LOG.error("Selector server failure", e);
+			} finally {
+				selector = null;
+			}
+		}
+
+		private void accept(ServerSocketChannel server, Selector sel) throws IOException {
+
+			SocketChannel channel = server.accept();
+			if (channel == null) {
+				return;
+			}
+
+			LOG.info("New connection from {}", channel.socket().getRemoteSocketAddress());
+
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			channel.socket().setKeepAlive(false);
+			channel.register(sel, SelectionKey.OP_READ, new Session(channel));
+
+			sessions.incrementAndGet();
+		}
+
+		private void read(SelectionKey key) throws IOException {
+
+			Session session = (Session) key.attachment();
+
+			if (session.streaming) {
+
+				// discard anything client is sending after request, we only need to detect EOF
+
+				session.request.clear();
+				if (session.channel.read(session.request) < 0) {
+					close(key);
+				}
+				return;
+			}
+
+			if (!session.request.hasRemaining()) {
+				if (session.request.capacity() >= REQUEST_MAX_LENGTH) {
+					throw new IOException("Request header too long");
+				}
+				ByteBuffer bigger = ByteBuffer.allocate(session.request.capacity() * 2);
+				session.request.flip();
+				bigger.put(session.request);
+				session.request = bigger;
+			}
+
+			if (session.channel.read(session.request) < 0) {
+				close(key);
+				return;
+			}
+
+			if (session.isRequestComplete()) {
+				session.streaming = true;
+				session.request = ByteBuffer.allocate(64);
+				session.pending = new ByteBuffer[] { ByteBuffer.wrap(HTTP_HEADER) };
+				write(key);
+			}
+		}
+
+		private void write(SelectionKey key) throws IOException {
+
+			Session session = (Session) key.attachment();
+
+			while (session.pending != null) {
+
+				ByteBuffer[] pending = session.pending;
+				session.channel.write(pending);
+
+				if (pending[pending.length - 1].hasRemaining()) {
+
+					// socket send buffer is full, wait for channel to be writable again
+
+					key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					return;
+				}
+
+				session.pending = null;
+				session.releaseFrame();
+
+				// client is idle now, so it can take the most recent frame if it hasn't seen it
+				// yet, all the frames produced while it was busy are dropped
+
+				assign(session);
+			}
+
+			key.interestOps(SelectionKey.OP_READ);
+		}
+
+		private void dispatch(Selector sel) throws IOException {
+
+			SharedFrame frame = latest.get();
+			if (frame == null || frame.getSequence() == dispatched) {
+				return;
+			}
+
+			dispatched = frame.getSequence();
+
+			for (SelectionKey key : sel.keys()) {
+				if (!key.isValid() || !(key.attachment() instanceof Session)) {
+					continue;
+				}
+				Session session = (Session) key.attachment();
+				if (session.isIdle()) {
+					try {
+						if (assign(session)) {
+							write(key);
+						}
+					} catch (IOException e) {
+						LOG.debug("I/O exception on client connection", e);
+						close(key);
+					}
+				}
+			}
+		}
+
+		private boolean assign(Session session) {
+
+			SharedFrame frame = null;
+			do {
+				frame = latest.get();
+				if (frame == null || frame.getSequence() == session.sequence) {
+					return false;
+				}
+			} while (!frame.retain());
+
+			if (session.sequence >= 0) {
+				dropped.addAndGet(frame.getSequence() - session.sequence - 1);
+			}
+
+			session.frame = frame;
+			session.sequence = frame.getSequence();
+			session.pending = frame.buffers();
+
+			return true;
+		}
+
+		private void close(SelectionKey key) {
+
+			Session session = (Session) key.attachment();
+
+			key.cancel();
+			session.releaseFrame();
+			session.pending = null;
+
+			if (session.channel.isOpen()) {
+				LOG.info("Closing connection from {}", session.channel.socket().getRemoteSocketAddress());
+				try {
+					session.channel.close();
+				} catch (IOException e) {
+					LOG.debug("Cannot close socket", e);
+				}
+				sessions.decrementAndGet();
+			}
+		}
+	}
+
 	private class Acceptor implements Runnable {
 
 		@Override
@@ -123,22 +621,34 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 
 						baos.reset();
 
-						long now = System.currentTimeMillis();
-						if (now > last + delay) {
-							image = webcam.getImage();
-						}
+						// forward JPEG as it is if device can provide it, encode image otherwise
+
+						EncodedFrame encoded = webcam.getEncodedFrame();
+						if (encoded == null || !encoded.isJpeg()) {
 
-						ImageIO.write(image, "JPG", baos);
+							encoded = null;
+
+							long now = System.currentTimeMillis();
+							if (now > last + delay) {
+								image = webcam.getImage();
+							}
+
+							ImageUtils.writeJpeg(image, baos);
+						}
 
 						sb.delete(0, sb.length());
 						sb.append("--").append(BOUNDARY).append(CRLF);
 						sb.append("Content-type: image/jpeg").append(CRLF);
-						sb.append("Content-Length: ").append(baos.size()).append(CRLF);
+						sb.append("Content-Length: ").append(encoded != null ? encoded.getLength() : baos.size()).append(CRLF);
 						sb.append(CRLF);
 
 						try {
 							bos.write(sb.toString().getBytes());
-							bos.write(baos.toByteArray());
+							if (encoded != null) {
+								encoded.writeTo(bos);
+							} else {
+								baos.writeTo(bos);
+							}
 							bos.write(CRLF.getBytes());
 							bos.flush();
 						} catch (SocketException e) {
@@ -216,19 +726,62 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 	private long last = -1;
 	private long delay = -1;
 	private BufferedImage image = null;
+	private Mode mode = Mode.THREAD_PER_CONNECTION;
 	private ExecutorService executor = Executors.newCachedThreadPool(this);
 	private AtomicBoolean started = new AtomicBoolean(false);
 
+	/**
+	 * Most recent encoded frame (selector mode only).
+	 */
+	private final AtomicReference<SharedFrame> latest = new AtomicReference<SharedFrame>();
+
+	/**
+	 * Pool of output buffers which can be reused to encode next frames (selector mode only).
+	 */
+	private final Queue<FrameOutputStream> buffers = new ConcurrentLinkedQueue<FrameOutputStream>();
+
+	/**
+	 * Number of connected clients (selector mode only).
+	 */
+	private final AtomicInteger sessions = new AtomicInteger(0);
+
+	/**
+	 * Number of frames skipped by slow clients (selector mode only).
+	 */
+	private final AtomicLong dropped = new AtomicLong(0);
+
+	/**
+	 * Selector used by the server (selector mode only).
+	 */
+	private volatile Selector selector = null;
+
 	public WebcamStreamer(int port, Webcam webcam, double fps, boolean start) {
+		this(port, webcam, fps, start, Mode.THREAD_PER_CONNECTION);
+	}
+
+	/**
+	 * Create new streamer.
+	 *
+	 * @param port the port on which stream should be exposed
+	 * @param webcam the webcam to stream images from
+	 * @param fps the expected frames per second rate
+	 * @param start should streamer be started immediately
+	 * @param mode the server mode
+	 */
+	public WebcamStreamer(int port, Webcam webcam, double fps, boolean start, Mode mode) {
 
 		if (webcam == null) {
 			throw new IllegalArgumentException("Webcam for streaming cannot be null");
 		}
+		if (mode == null) {
+			throw new IllegalArgumentException("Streamer mode cannot be null");
+		}
 
 		this.port = port;
 		this.webcam = webcam;
 		this.fps = fps;
 		this.delay = (long) (1000 / fps);
+		this.mode = mode;
 
 		if (start) {
 			start();
@@ -247,12 +800,21 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 		if (started.compareAndSet(false, true)) {
 			webcam.addWebcamListener(this);
 			webcam.open();
-			executor.execute(new Acceptor());
+			if (mode == Mode.SELECTOR) {
+				executor.execute(new SelectorServer());
+				executor.execute(new FrameProducer());
+			} else {
+				executor.execute(new Acceptor());
+			}
 		}
 	}
 
 	public void stop() {
 		if (started.compareAndSet(true, false)) {
+			Selector s = selector;
+			if (s != null) {
+				s.wakeup();
+			}
 			executor.shutdown();
 			webcam.removeWebcamListener(this);
 			webcam.close();
@@ -289,4 +851,18 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 		return port;
 	}
 
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Return number of frames which were not sent to clients because they were still busy writing
+	 * the previous ones. Works only in {@link Mode#SELECTOR} mode.
+	 *
+	 * @return Number of frames dropped for all clients
+	 */
+	public long getDroppedFrames() {
+		return dropped.get();
+	}
+
 }
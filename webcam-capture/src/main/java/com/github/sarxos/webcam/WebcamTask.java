@@ -1,13 +1,16 @@
 package com.github.sarxos.webcam;
 
+import java.util.concurrent.CountDownLatch;
 
 
 public abstract class WebcamTask {
 
 	private boolean doSync = true;
+	private boolean parallel = false;
 	private WebcamProcessor processor = null;
 	private WebcamDevice device = null;
 	private Throwable throwable = null;
+	private final CountDownLatch done = new CountDownLatch(1);
 
 	public WebcamTask(boolean threadSafe, WebcamDevice device) {
 		this.doSync = !threadSafe;
@@ -17,6 +20,7 @@ public abstract class WebcamTask {
 
 	public WebcamTask(WebcamDriver driver, WebcamDevice device) {
 		this(driver.isThreadSafe(), device);
+		this.parallel = driver instanceof WebcamDriver.ParallelDevices;
 	}
 
 	public WebcamTask(WebcamDevice device) {
@@ -27,26 +31,29 @@ public abstract class WebcamTask {
 		return device;
 	}
 
+	/**
+	 * Can this task be executed in parallel with tasks of other devices. When false, task is
+	 * always executed in the global processor lane.
+	 *
+	 * @return True if task can be executed in per-device lane, false otherwise
+	 */
+	public boolean isParallel() {
+		return parallel && device != null;
+	}
+
 	/**
 	 * Process task by processor thread.
 	 * 
 	 * @throws InterruptedException when thread has been interrupted
 	 */
 	public void process() throws InterruptedException {
-
-		boolean alreadyInSync = Thread.currentThread() instanceof WebcamProcessor.ProcessorThread;
-
-		if (alreadyInSync) {
-			handle();
-		} else {
-			if (doSync) {
-				if (processor == null) {
-					throw new RuntimeException("Driver should be synchronized, but processor is null");
-				}
-				processor.process(this);
-			} else {
-				handle();
+		if (doSync) {
+			if (processor == null) {
+				throw new RuntimeException("Driver should be synchronized, but processor is null");
 			}
+			processor.process(this);
+		} else {
+			handle();
 		}
 	}
 
@@ -58,5 +65,21 @@ public abstract class WebcamTask {
 		this.throwable = t;
 	}
 
+	/**
+	 * Mark task as completed. Called by processor after task has been handled.
+	 */
+	void complete() {
+		done.countDown();
+	}
+
+	/**
+	 * Wait for processor to complete this task.
+	 *
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	void await() throws InterruptedException {
+		done.await();
+	}
+
 	protected abstract void handle();
 }
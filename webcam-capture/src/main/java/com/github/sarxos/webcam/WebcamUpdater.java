@@ -15,12 +15,26 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.ds.cgt.WebcamGetEncodedFrameTask;
+import com.github.sarxos.webcam.ds.cgt.WebcamGetFrameTask;
 import com.github.sarxos.webcam.ds.cgt.WebcamGetImageTask;
+import com.github.sarxos.webcam.util.FrameRing;
+import com.github.sarxos.webcam.util.PooledImage;
 
 
 /**
  * The goal of webcam updater class is to update image in parallel, so all calls to fetch image
- * invoked on webcam instance will be non-blocking (will return immediately).
+ * invoked on webcam instance will be non-blocking (will return immediately). Devices implementing
+ * {@link WebcamDevice.FrameNotifier} are read only when they report new frame, all the other
+ * devices are polled with delay calculated by {@link DelayCalculator}. When webcam image
+ * transformer is a {@link WebcamImagePipeline}, images are transformed outside of the updater
+ * thread and published when they leave the last pipeline stage. Devices implementing
+ * {@link WebcamDevice.EncodedFrameSource} are read for encoded frames, so the latest encoded frame
+ * can be served without reading the device again. Encoded frame is decoded into image only when
+ * it is requested for the first time, so consumers which only forward encoded frames, e.g.
+ * {@link WebcamStreamer}, never pay for decoding. Similarly, devices implementing
+ * {@link WebcamDevice.FrameSource} are read for frames in their native pixel format, which are
+ * converted only when image is requested.
  * 
  * @author Bartosz Firyn (sarxos)
  */
@@ -83,6 +97,116 @@ public class WebcamUpdater implements Runnable {
 
 	}
 
+	/**
+	 * Image, encoded frame or native frame captured by the updater, published in the frames ring.
+	 * Encoded and native frames are converted to image when it is requested for the first time,
+	 * and then cached by the frame. Capture is published only once, so the {@link Frame} with the
+	 * ring sequence number and timestamp is created once as well. In pooling mode capture keeps
+	 * the pooled image, so it can be read together with its sequence number and timestamp, but it
+	 * does not hold a reference to it, image has to be retained before use.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	private static final class Capture {
+
+		private final BufferedImage image;
+		private final EncodedFrame encoded;
+		private final Frame frame;
+		private final PooledImage pooled;
+
+		/**
+		 * Frame with the ring sequence number, lazily created.
+		 */
+		private volatile Frame published = null;
+
+		private Capture(BufferedImage image, EncodedFrame encoded, Frame frame, PooledImage pooled) {
+			this.image = image;
+			this.encoded = encoded;
+			this.frame = frame;
+			this.pooled = pooled;
+		}
+
+		private static Capture of(BufferedImage image) {
+			return image == null ? null : new Capture(image, null, null, null);
+		}
+
+		private static Capture of(EncodedFrame encoded) {
+			return encoded == null ? null : new Capture(null, encoded, null, null);
+		}
+
+		private static Capture of(Frame frame) {
+			return frame == null ? null : new Capture(null, null, frame, null);
+		}
+
+		private static Capture of(PooledImage pooled) {
+			return new Capture(pooled.getImage(), null, null, pooled);
+		}
+
+		/**
+		 * @return Image of capture which has not been published
+		 */
+		private BufferedImage toImage() {
+			if (image != null) {
+				return image;
+			} else if (encoded != null) {
+				return encoded.getImage();
+			} else {
+				return frame.getImage();
+			}
+		}
+
+		/**
+		 * @param entry the ring entry of this capture
+		 * @return Image of the published capture
+		 */
+		private BufferedImage getImage(FrameRing.Entry<Capture> entry) {
+			if (frame == null) {
+				return toImage();
+			}
+			return getFrame(entry).getImage();
+		}
+
+		/**
+		 * @param entry the ring entry of this capture
+		 * @return Frame of the published capture or null if encoded frame cannot be decoded
+		 */
+		private Frame getFrame(FrameRing.Entry<Capture> entry) {
+
+			Frame f = published;
+			if (f != null) {
+				return f;
+			}
+
+			synchronized (this) {
+				if ((f = published) == null) {
+					if (frame != null) {
+						f = new Frame(frame.getFormat(), frame.getWidth(), frame.getHeight(), frame.getStride(), frame.getSliceHeight(), frame.getBuffer(), entry.getTimestamp(), entry.getSequence());
+					} else {
+						BufferedImage bi = toImage();
+						if (bi == null) {
+							return null;
+						}
+						f = Frame.of(bi, entry.getTimestamp(), entry.getSequence());
+					}
+					published = f;
+				}
+			}
+
+			return f;
+		}
+	}
+
+	/**
+	 * Maps captures read by image cursors into images.
+	 */
+	private static final FrameRing.Mapper<Capture, BufferedImage> IMAGES = new FrameRing.Mapper<Capture, BufferedImage>() {
+
+		@Override
+		public BufferedImage map(FrameRing.Entry<Capture> entry) {
+			return entry.getValue().getImage(entry);
+		}
+	};
+
 	/**
 	 * Logger.
 	 */
@@ -93,6 +217,16 @@ public class WebcamUpdater implements Runnable {
 	 */
 	private static final int TARGET_FPS = 50;
 
+	/**
+	 * Default number of recent frames kept by the updater.
+	 */
+	public static final int DEFAULT_RING_SIZE = 4;
+
+	/**
+	 * Maximum time (in millis) to wait for the first image.
+	 */
+	private static final long FIRST_IMAGE_TIMEOUT = 10000;
+
 	private static final UpdaterThreadFactory THREAD_FACTORY = new UpdaterThreadFactory();
 
 	/**
@@ -101,9 +235,14 @@ public class WebcamUpdater implements Runnable {
 	private ScheduledExecutorService executor = null;
 
 	/**
-	 * Cached image.
+	 * Ring of the most recent images.
+	 */
+	private final FrameRing<Capture> frames;
+
+	/**
+	 * Cached pooled image, used instead of {@link #frames} when webcam image pooling is enabled.
 	 */
-	private final AtomicReference<BufferedImage> image = new AtomicReference<BufferedImage>();
+	private final AtomicReference<PooledImage> pooled = new AtomicReference<PooledImage>();
 
 	/**
 	 * Webcam to which this updater is attached.
@@ -120,6 +259,55 @@ public class WebcamUpdater implements Runnable {
 	 */
 	private AtomicBoolean running = new AtomicBoolean(false);
 
+	/**
+	 * Device notifying about new frames, null if device has to be polled.
+	 */
+	private volatile WebcamDevice.FrameNotifier notifier = null;
+
+	/**
+	 * Is update already requested by the frame listener.
+	 */
+	private final AtomicBoolean pending = new AtomicBoolean(false);
+
+	/**
+	 * Time (in nanos) when the last frame has been received from the notifying device.
+	 */
+	private long last = -1;
+
+	/**
+	 * Requests update when device notifies about new frame. Many notifications received before
+	 * update starts are coalesced into one.
+	 */
+	private final WebcamDevice.FrameListener listener = new WebcamDevice.FrameListener() {
+
+		@Override
+		public void frameReady(WebcamDevice device) {
+			if (pending.compareAndSet(false, true)) {
+				try {
+					executor.execute(WebcamUpdater.this);
+				} catch (RejectedExecutionException e) {
+					pending.set(false);
+					LOG.trace("Webcam update has been rejected", e);
+				}
+			}
+		}
+	};
+
+	/**
+	 * Publishes images transformed by the {@link WebcamImagePipeline}.
+	 */
+	private final WebcamImagePipeline.Sink sink = new WebcamImagePipeline.Sink() {
+
+		@Override
+		public void imageReady(BufferedImage image, long latency) {
+			webcam.getMetrics().recordTransform(latency);
+			if (running.get() && webcam.isOpen() && setImage(image, System.nanoTime() - latency)) {
+				imageNew = true;
+				webcam.notifyWebcamImageAcquired(image);
+			}
+		}
+	};
+
 	private volatile boolean imageNew = false;
 
 	/**
@@ -143,7 +331,19 @@ public class WebcamUpdater implements Runnable {
 	 * @param delayCalculator implementation
 	 */
 	public WebcamUpdater(Webcam webcam, DelayCalculator delayCalculator) {
+		this(webcam, delayCalculator, DEFAULT_RING_SIZE);
+	}
+
+	/**
+	 * Construct new webcam updater.
+	 *
+	 * @param webcam the webcam to which updater shall be attached
+	 * @param delayCalculator implementation
+	 * @param ringSize the number of recent images kept for image cursors
+	 */
+	public WebcamUpdater(Webcam webcam, DelayCalculator delayCalculator, int ringSize) {
 		this.webcam = webcam;
+		this.frames = new FrameRing<Capture>(ringSize);
 		if (delayCalculator == null) {
 			this.delayCalculator = new DefaultDelayCalculator();
 		} else {
@@ -158,10 +358,23 @@ public class WebcamUpdater implements Runnable {
 
 		if (running.compareAndSet(false, true)) {
 
-			image.set(new WebcamGetImageTask(Webcam.getDriver(), webcam.getDevice()).getImage());
+			if (webcam.isImagePooling()) {
+				setPooledImage(webcam.capturePooledImage());
+			} else {
+				publish(capture(Webcam.getDriver(), webcam.getDevice()), System.nanoTime());
+			}
 
 			executor = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
-			executor.execute(this);
+
+			WebcamDevice device = webcam.getDevice();
+			if (device instanceof WebcamDevice.FrameNotifier) {
+				last = -1;
+				notifier = (WebcamDevice.FrameNotifier) device;
+				notifier.setFrameListener(listener);
+				LOG.debug("Webcam updater will be driven by device {} frames", device.getName());
+			} else {
+				executor.execute(this);
+			}
 
 			LOG.debug("Webcam updater has been started");
 		} else {
@@ -175,6 +388,11 @@ public class WebcamUpdater implements Runnable {
 	public void stop() {
 		if (running.compareAndSet(true, false)) {
 
+			if (notifier != null) {
+				notifier.setFrameListener(null);
+				notifier = null;
+			}
+
 			executor.shutdown();
 			while (!executor.isTerminated()) {
 				try {
@@ -184,6 +402,15 @@ public class WebcamUpdater implements Runnable {
 				}
 			}
 
+			// stage threads would otherwise keep waiting for images and hold the queued ones
+
+			WebcamImageTransformer tr = webcam.getImageTransformer();
+			if (tr instanceof WebcamImagePipeline) {
+				((WebcamImagePipeline) tr).stop();
+			}
+
+			setPooledImage(null);
+
 			LOG.debug("Webcam updater has been stopped");
 		} else {
 			LOG.debug("Webcam updater is already stopped");
@@ -206,6 +433,13 @@ public class WebcamUpdater implements Runnable {
 
 	private void tick() {
 
+		// frames notified from now on will request another update
+
+		boolean push = notifier != null;
+		if (push) {
+			pending.set(false);
+		}
+
 		if (!webcam.isOpen()) {
 			return;
 		}
@@ -218,24 +452,69 @@ public class WebcamUpdater implements Runnable {
 		assert driver != null;
 		assert device != null;
 
+		WebcamMetrics metrics = webcam.getMetrics();
+
 		boolean imageOk = false;
-		long t1 = System.currentTimeMillis();
+		long t1 = System.nanoTime();
 		try {
-			image.set(webcam.transform(new WebcamGetImageTask(driver, device).getImage()));
-			imageNew = true;
-			imageOk = true;
+			if (webcam.isImagePooling()) {
+				PooledImage pi = webcam.capturePooledImage();
+				metrics.recordCapture(System.nanoTime() - t1, pi != null);
+				if (pi != null) {
+					setPooledImage(pi);
+					imageOk = true;
+				}
+				imageNew = imageOk;
+			} else {
+				Capture capture = capture(driver, device);
+				long captured = System.nanoTime();
+				metrics.recordCapture(captured - t1, capture != null);
+				WebcamImageTransformer tr = webcam.getImageTransformer();
+				if (capture != null && tr instanceof WebcamImagePipeline) {
+
+					// image will be published and listeners notified by the sink, when it leaves
+					// the last pipeline stage
+
+					((WebcamImagePipeline) tr).submit(capture.toImage(), sink);
+
+					// pipeline could have been replaced in the meantime, and then started again
+					// by the above submit, do not leave its threads running
+
+					if (webcam.getImageTransformer() != tr) {
+						((WebcamImagePipeline) tr).stop();
+					}
+				} else {
+
+					// transformer could have been set after encoded or native frame has been read
+
+					if (capture != null && tr != null) {
+						capture = Capture.of(webcam.transform(capture.toImage()));
+					}
+
+					imageOk = publish(capture, captured);
+					imageNew = imageOk;
+				}
+			}
 		} catch (WebcamException e) {
+			metrics.recordCapture(System.nanoTime() - t1, false);
 			handle(e);
 		}
-		long t2 = System.currentTimeMillis();
+		long t2 = System.nanoTime();
 
 		double deviceFps = -1;
 		if (device instanceof WebcamDevice.FPSSource) {
 			deviceFps = ((WebcamDevice.FPSSource) device).getFPS();
 		}
 
-		long duration = t2 - t1;
-		long delay = delayCalculator.calculateDelay(duration, deviceFps);
+		long duration = (t2 - t1) / 1000000;
+
+		// in push mode frames rate is determined by the time between frames, not by the time
+		// needed to fetch one
+
+		if (push) {
+			duration = last == -1 ? duration : (t2 - last) / 1000000;
+			last = t2;
+		}
 
 		long delta = duration + 1; // +1 to avoid division by zero
 		if (deviceFps >= 0) {
@@ -244,9 +523,10 @@ public class WebcamUpdater implements Runnable {
 			fps = (4 * fps + 1000 / delta) / 5;
 		}
 
-		// reschedule task
+		// reschedule task, unless the next one will be requested by the device
 
-		if (webcam.isOpen()) {
+		if (!push && webcam.isOpen()) {
+			long delay = delayCalculator.calculateDelay(duration, deviceFps);
 			try {
 				executor.schedule(this, delay, TimeUnit.MILLISECONDS);
 			} catch (RejectedExecutionException e) {
@@ -257,10 +537,112 @@ public class WebcamUpdater implements Runnable {
 		// notify webcam listeners about the new image available
 
 		if (imageOk) {
-			webcam.notifyWebcamImageAcquired(image.get());
+			if (webcam.isImagePooling()) {
+
+				// pooled image is replaced only by this thread, so it cannot be released here
+
+				webcam.notifyWebcamImageAcquired(pooled.get());
+			} else {
+
+				// encoded frame is decoded only if some listener asks for the image
+
+				FrameRing.Entry<Capture> entry = frames.latestEntry();
+				Capture capture = entry.getValue();
+				if (capture.encoded != null) {
+					webcam.notifyWebcamImageAcquired(capture.encoded);
+				} else if (webcam.getWebcamListenersCount() > 0) {
+					webcam.notifyWebcamImageAcquired(capture.getImage(entry));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read image from the device. Devices providing encoded or native frames are read for them,
+	 * unless image transformer is set, and the frame is not converted until its image is requested.
+	 *
+	 * @param driver the webcam driver
+	 * @param device the webcam device
+	 * @return New capture or null if not available
+	 */
+	private Capture capture(WebcamDriver driver, WebcamDevice device) {
+		if (device instanceof WebcamDevice.EncodedFrameSource && webcam.getImageTransformer() == null) {
+			return Capture.of(new WebcamGetEncodedFrameTask(driver, device).getFrame());
+		} else if (device instanceof WebcamDevice.FrameSource && webcam.getImageTransformer() == null) {
+			return Capture.of(new WebcamGetFrameTask(driver, device).getFrame());
+		} else {
+			return Capture.of(new WebcamGetImageTask(driver, device).getImage());
+		}
+	}
+
+	/**
+	 * Publish new image in the frames ring.
+	 *
+	 * @param bi the new image
+	 * @param timestamp the time (in nanos) when image has been captured
+	 * @return True if image has been published, false if it was null
+	 */
+	private boolean setImage(BufferedImage bi, long timestamp) {
+		return publish(Capture.of(bi), timestamp);
+	}
+
+	/**
+	 * Publish new capture in the frames ring. Native frames are published with the time when they
+	 * have been captured by the device.
+	 *
+	 * @param capture the new capture
+	 * @param timestamp the time (in nanos) when image has been captured
+	 * @return True if capture has been published, false if it was null
+	 */
+	private boolean publish(Capture capture, long timestamp) {
+		if (capture == null) {
+			return false;
+		}
+		frames.publish(capture, capture.frame != null ? capture.frame.getTimestamp() : timestamp);
+		return true;
+	}
+
+	/**
+	 * Replace cached pooled image and release the previous one.
+	 *
+	 * @param pi the new pooled image
+	 */
+	private void setPooledImage(PooledImage pi) {
+
+		PooledImage previous = pooled.getAndSet(pi);
+
+		// pooled image is published to count frames, wake up waiting consumers and keep its
+		// sequence number and timestamp, cursors are not available in pooling mode, and it is
+		// published before the previous one is released, so readers which find the previous one
+		// released can always find the new one
+
+		if (pi != null) {
+			frames.publish(Capture.of(pi));
+		}
+
+		if (previous != null) {
+			previous.release();
 		}
 	}
 
+	/**
+	 * Return currently available pooled image. Returned image is retained and must be released by
+	 * the caller when no longer used.
+	 *
+	 * @return Retained pooled image or null if there is no image available
+	 */
+	public PooledImage getPooledImage() {
+		PooledImage pi = null;
+		do {
+			pi = pooled.get();
+			if (pi == null) {
+				return null;
+			}
+		} while (!pi.tryRetain());
+		imageNew = false;
+		return pi;
+	}
+
 	/**
 	 * Return currently available image. This method will return immediately while it was been
 	 * called after camera has been open. In case when there are parallel threads running and there
@@ -272,30 +654,158 @@ public class WebcamUpdater implements Runnable {
 	 */
 	public BufferedImage getImage() {
 
-		int i = 0;
-		while (image.get() == null) {
-
-			// Just in case if another thread starts calling this method before
-			// updater has been properly started. This will loop while image is
-			// not available.
+		if (!awaitFirstImage()) {
+			return null;
+		}
 
+		if (webcam.isImagePooling()) {
+			PooledImage pi = getPooledImage();
+			if (pi == null) {
+				return null;
+			}
 			try {
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
+				return webcam.transform(pi.copy());
+			} finally {
+				pi.release();
+			}
+		}
+
+		imageNew = false;
+
+		FrameRing.Entry<Capture> entry = frames.latestEntry();
+		return entry == null ? null : entry.getValue().getImage(entry);
+	}
+
+	/**
+	 * Return currently available image as frame, together with the time when it has been captured
+	 * and its sequence number. Frames read from {@link WebcamDevice.FrameSource} devices are
+	 * returned in their native pixel format. Blocks until the first image is available, the same
+	 * way as {@link #getImage()}.
+	 *
+	 * @return Frame of the image stored in cache
+	 */
+	public Frame getFrame() {
+
+		if (!awaitFirstImage()) {
+			return null;
+		}
+
+		FrameRing.Entry<Capture> entry = frames.latestEntry();
+		if (entry == null) {
+			return null;
+		}
+
+		if (webcam.isImagePooling()) {
+			return getPooledFrame(entry);
+		}
+
+		imageNew = false;
+
+		return entry.getValue().getFrame(entry);
+	}
+
+	/**
+	 * Copy the most recent pooled image into frame. Image is taken from the same ring entry as its
+	 * sequence number and timestamp, and when it has been released before it could be retained,
+	 * the entry which replaced it is read instead.
+	 *
+	 * @param entry the most recent ring entry
+	 * @return Frame with the copy of the pooled image, or null if updater has been stopped
+	 */
+	private Frame getPooledFrame(FrameRing.Entry<Capture> entry) {
+
+		while (entry != null && entry.getValue().pooled != null) {
+
+			PooledImage pi = entry.getValue().pooled;
+			if (pi.tryRetain()) {
+				try {
+					BufferedImage image = webcam.transform(pi.copy());
+					imageNew = false;
+					return image == null ? null : Frame.of(image, entry.getTimestamp(), entry.getSequence());
+				} finally {
+					pi.release();
+				}
 			}
 
-			// Return null if more than 10 seconds passed (timeout).
+			// no newer entry means pooled image has been released by stopping updater
 
-			if (i++ > 100) {
-				LOG.error("Image has not been found for more than 10 seconds");
+			FrameRing.Entry<Capture> next = frames.latestEntry();
+			if (next == null || next.getSequence() == entry.getSequence()) {
 				return null;
 			}
+
+			entry = next;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Return the most recent frame in the device native encoded form. Blocks until the first image
+	 * is available, the same way as {@link #getImage()}.
+	 *
+	 * @return Encoded frame or null if device does not provide encoded frames
+	 */
+	public EncodedFrame getEncodedFrame() {
+		if (!awaitFirstImage()) {
+			return null;
+		}
+		Capture capture = frames.latest();
+		return capture == null ? null : capture.encoded;
+	}
+
+	/**
+	 * Just in case if another thread starts asking for image before updater has been properly
+	 * started. This will block until first image is available.
+	 *
+	 * @return True if image is available, false if timeout has elapsed
+	 */
+	private boolean awaitFirstImage() {
+		try {
+			if (!frames.await(1, FIRST_IMAGE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				LOG.error("Image has not been found for more than 10 seconds");
+				return false;
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
 		}
+		return true;
+	}
 
-		imageNew = false;
+	/**
+	 * Create new cursor over the most recent images. Every consumer should use its own cursor, so
+	 * it can wait for the next image, skip to the latest one and count images it has missed,
+	 * independently of other consumers. Cursor will return images captured after it has been
+	 * created. Not available when image pooling is enabled, because pooled images are reused.
+	 *
+	 * @return New image cursor
+	 * @throws IllegalStateException when image pooling is enabled
+	 */
+	public FrameRing.Cursor<BufferedImage> getImageCursor() {
+		if (webcam.isImagePooling()) {
+			throw new IllegalStateException("Image cursors are not available when image pooling is enabled");
+		}
+		return frames.cursor(IMAGES);
+	}
 
-		return image.get();
+	/**
+	 * @return Sequence number of the most recent image, 0 if no image has been captured yet
+	 */
+	public long getImageSequence() {
+		return frames.getSequence();
+	}
+
+	/**
+	 * Wait until image newer than the one with given sequence number is available.
+	 *
+	 * @param sequence the sequence number of the last known image
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit of the timeout argument
+	 * @return True if new image is available, false if timeout has elapsed
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	public boolean awaitImage(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+		return frames.await(sequence + 1, timeout, unit);
 	}
 
 	protected boolean isImageNew() {
@@ -1,36 +1,30 @@
 package com.github.sarxos.webcam;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Locale;
 import java.util.PropertyResourceBundle;
 import java.util.ResourceBundle;
 
-import javax.imageio.ImageIO;
-
 import com.github.sarxos.webcam.util.ImageUtils;
 
 
 public class WebcamUtils {
 
 	public static final void capture(Webcam webcam, File file) {
-		if (!webcam.isOpen()) {
-			webcam.open();
-		}
-		try {
-			ImageIO.write(webcam.getImage(), ImageUtils.FORMAT_JPG, file);
-		} catch (IOException e) {
-			throw new WebcamException(e);
-		}
+		capture(webcam, file, ImageUtils.FORMAT_JPG);
 	}
 
 	public static final void capture(Webcam webcam, File file, String format) {
 		if (!webcam.isOpen()) {
 			webcam.open();
 		}
-		try {
-			ImageIO.write(webcam.getImage(), format, file);
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+			ImageUtils.write(webcam.getImage(), format, os);
 		} catch (IOException e) {
 			throw new WebcamException(e);
 		}
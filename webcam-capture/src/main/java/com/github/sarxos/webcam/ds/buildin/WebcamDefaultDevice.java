@@ -14,11 +14,13 @@ import java.awt.image.WritableRaster;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.bridj.Pointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.sarxos.webcam.Frame;
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamDevice.BufferAccess;
 import com.github.sarxos.webcam.WebcamException;
@@ -30,7 +32,7 @@ import com.github.sarxos.webcam.ds.buildin.natives.DeviceList;
 import com.github.sarxos.webcam.ds.buildin.natives.OpenIMAJGrabber;
 
 
-public class WebcamDefaultDevice implements WebcamDevice, BufferAccess, Runnable, WebcamDevice.FPSSource {
+public class WebcamDefaultDevice implements WebcamDevice, BufferAccess, Runnable, WebcamDevice.FPSSource, WebcamDevice.FrameNotifier, WebcamDevice.FrameSource {
 
 	/**
 	 * Logger.
@@ -127,6 +129,11 @@ public class WebcamDefaultDevice implements WebcamDevice, BufferAccess, Runnable
 	 */
 	private final AtomicBoolean fresh = new AtomicBoolean(false);
 
+	/**
+	 * Sequence number of the last frame.
+	 */
+	private final AtomicLong sequence = new AtomicLong(0);
+
 	private Thread refresher = null;
 
 	private String name = null;
@@ -141,6 +148,11 @@ public class WebcamDefaultDevice implements WebcamDevice, BufferAccess, Runnable
 	 */
 	private volatile double fps = 0;
 
+	/**
+	 * Listener notified by refresher when new frame is available.
+	 */
+	private volatile FrameListener listener = null;
+
 	protected WebcamDefaultDevice(Device device) {
 		this.device = device;
 		this.name = device.getNameStr();
@@ -273,6 +285,25 @@ public class WebcamDefaultDevice implements WebcamDevice, BufferAccess, Runnable
 
 	}
 
+	/**
+	 * Grabber native format is RGB, so frame is a copy of the grabber buffer, without creating
+	 * image.
+	 */
+	@Override
+	public Frame getFrame() {
+
+		ByteBuffer bytes = getImageBytes();
+		if (bytes == null) {
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(bytes.remaining());
+		buffer.put(bytes);
+		buffer.flip();
+
+		return new Frame(Frame.PixelFormat.RGB24, size.width, size.height, buffer, System.nanoTime(), sequence.incrementAndGet());
+	}
+
 	@Override
 	public BufferedImage getImage() {
 
@@ -486,6 +517,11 @@ public class WebcamDefaultDevice implements WebcamDevice, BufferAccess, Runnable
 			LOG.error("Timeout when requesting image!");
 		} else if (result < -1) {
 			LOG.error("Error requesting new frame!");
+		} else {
+			FrameListener l = listener;
+			if (l != null) {
+				l.frameReady(this);
+			}
 		}
 	}
 
@@ -513,4 +549,9 @@ public class WebcamDefaultDevice implements WebcamDevice, BufferAccess, Runnable
 	public double getFPS() {
 		return fps;
 	}
+
+	@Override
+	public void setFrameListener(FrameListener listener) {
+		this.listener = listener;
+	}
 }
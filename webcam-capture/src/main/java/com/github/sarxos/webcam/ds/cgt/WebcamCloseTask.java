@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 
 import com.github.sarxos.webcam.WebcamDevice;
 import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamProcessor;
 import com.github.sarxos.webcam.WebcamTask;
 
 
@@ -18,6 +19,7 @@ public class WebcamCloseTask extends WebcamTask {
 
 	public void close() throws InterruptedException {
 		process();
+		WebcamProcessor.getInstance().release(getDevice());
 	}
 
 	@Override
@@ -0,0 +1,47 @@
+package com.github.sarxos.webcam.ds.cgt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.EncodedFrame;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDevice.EncodedFrameSource;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamTask;
+
+
+public class WebcamGetEncodedFrameTask extends WebcamTask {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamGetEncodedFrameTask.class);
+
+	private volatile EncodedFrame frame = null;
+
+	public WebcamGetEncodedFrameTask(WebcamDriver driver, WebcamDevice device) {
+		super(driver, device);
+	}
+
+	public EncodedFrame getFrame() {
+		try {
+			process();
+		} catch (InterruptedException e) {
+			LOG.debug("Encoded frame request interrupted", e);
+			return null;
+		}
+		return frame;
+	}
+
+	@Override
+	protected void handle() {
+
+		WebcamDevice device = getDevice();
+		if (!device.isOpen()) {
+			return;
+		}
+
+		if (!(device instanceof EncodedFrameSource)) {
+			return;
+		}
+
+		frame = ((EncodedFrameSource) device).getEncodedFrame();
+	}
+}
@@ -0,0 +1,47 @@
+package com.github.sarxos.webcam.ds.cgt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.Frame;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDevice.FrameSource;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamTask;
+
+
+public class WebcamGetFrameTask extends WebcamTask {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamGetFrameTask.class);
+
+	private volatile Frame frame = null;
+
+	public WebcamGetFrameTask(WebcamDriver driver, WebcamDevice device) {
+		super(driver, device);
+	}
+
+	public Frame getFrame() {
+		try {
+			process();
+		} catch (InterruptedException e) {
+			LOG.debug("Frame request interrupted", e);
+			return null;
+		}
+		return frame;
+	}
+
+	@Override
+	protected void handle() {
+
+		WebcamDevice device = getDevice();
+		if (!device.isOpen()) {
+			return;
+		}
+
+		if (!(device instanceof FrameSource)) {
+			return;
+		}
+
+		frame = ((FrameSource) device).getFrame();
+	}
+}
@@ -9,7 +9,7 @@ import com.github.sarxos.webcam.WebcamDiscoverySupport;
 import com.github.sarxos.webcam.WebcamDriver;
 
 
-public class WebcamDummyDriver implements WebcamDriver, WebcamDiscoverySupport {
+public class WebcamDummyDriver implements WebcamDriver, WebcamDriver.ParallelDevices, WebcamDiscoverySupport {
 
 	private int count;
 
@@ -4,49 +4,225 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
-import javax.imageio.IIOImage;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
-import javax.imageio.stream.MemoryCacheImageOutputStream;
-
 
 /**
  * This class will save {@link BufferedImage} into a byte array and try to compress it a given size.
+ * Writer keeps the history of the stream it writes, so the quality of the next frame is predicted
+ * from the size-to-quality curve of the previous frames, and then corrected in both directions with
+ * a bounded number of encodings. This way quality goes up again when scene becomes simpler, and the
+ * worst-case frame does not cost more than {@link #MAX_ENCODES} encodings.<br>
+ * <br>
+ * Instead of, or in addition to, the per-frame size limit, writer can keep the stream within the
+ * given bitrate (see {@link #setBitrate(int)}). Then the size of every frame is derived from the
+ * time elapsed since the previous one, and the bytes over- or under-spent are compensated in the
+ * next frames.<br>
+ * <br>
+ * This class is not thread-safe, use one writer per stream.
  *
  * @author Bartosz Firyn (sarxos)
  */
 public class AdaptiveSizeWriter {
 
+	/**
+	 * Maximum number of encodings done for a single frame.
+	 */
+	public static final int MAX_ENCODES = 4;
+
 	private static final float INITIAL_QUALITY = 1f;
+	private static final float MIN_QUALITY = 0.01f;
+
+	/**
+	 * Frame which is smaller than its target by less than this fraction is good enough.
+	 */
+	private static final double TOLERANCE = 0.1;
+
+	/**
+	 * Initial slope of log(size) against quality, typical for camera images.
+	 */
+	private static final double INITIAL_SLOPE = 2;
+	private static final double MIN_SLOPE = 0.5;
+	private static final double MAX_SLOPE = 20;
+
+	/**
+	 * Frame interval assumed before the second frame is written.
+	 */
+	private static final long INITIAL_INTERVAL = 100000000; // 100 ms
 
 	private volatile int size;
-	private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-	private float quality = 1f; // 1f = 100% quality, at the beginning
+	private volatile int bitrate = 0;
+
+	private ByteArrayOutputStream baos = new ByteArrayOutputStream();
+	private ByteArrayOutputStream best = new ByteArrayOutputStream();
+
+	private float quality = INITIAL_QUALITY; // 1f = 100% quality, at the beginning
+	private int written = -1;
+	private double slope = INITIAL_SLOPE;
+
+	private long last = -1;
+	private double interval = INITIAL_INTERVAL;
+	private double credit = 0;
 
 	public AdaptiveSizeWriter(int size) {
 		this.size = size;
 	}
 
 	public byte[] write(final BufferedImage bi) {
+		return write(bi, System.nanoTime());
+	}
+
+	/**
+	 * Write frame captured at the given time.
+	 *
+	 * @param bi the {@link BufferedImage} to compress into byte array
+	 * @param now the current time in nanoseconds
+	 * @return Compressed image bytes
+	 */
+	byte[] write(final BufferedImage bi, final long now) {
+
+		final long target = target(now);
 
-		// loop and try to compress until compressed image bytes array is not longer than a given
-		// maximum value, reduce quality by 25% in every step
+		// first encoding uses quality predicted from previous frames, next ones search between the
+		// best quality which fits and the worst one which does not, and extrapolate with the slope
+		// learned from the stream when target is not yet bracketed
 
-		int m = size;
-		int s = 0;
-		int i = 0;
-		do {
-			if ((s = compress(bi, quality)) > m) {
-				quality *= 0.75;
-				if (i++ >= 20) {
+		float fitQuality = -1;
+		int fitSize = -1;
+		float overQuality = -1;
+		int overSize = -1;
+		float lastQuality = -1;
+		int lastSize = -1;
+
+		float q = written > 0 ? extrapolate(quality, written, target) : quality;
+
+		for (int i = 0; i < MAX_ENCODES; i++) {
+
+			final int s = compress(bi, q);
+
+			if (lastQuality >= 0 && lastQuality != q) {
+				learn(lastQuality, lastSize, q, s);
+			}
+
+			lastQuality = q;
+			lastSize = s;
+
+			if (s <= target) {
+				if (s > fitSize) {
+					fitQuality = q;
+					fitSize = s;
+					swap();
+				}
+				if (s >= target * (1 - TOLERANCE) || q >= 1) {
+					break;
+				}
+			} else {
+				if (overQuality < 0 || q < overQuality) {
+					overQuality = q;
+					overSize = s;
+				}
+				if (fitSize < 0 && (q <= MIN_QUALITY || i == MAX_ENCODES - 1)) {
+					fitQuality = q;
+					fitSize = s;
+					swap();
 					break;
 				}
 			}
-		} while (s > m);
 
-		return baos.toByteArray();
+			final float next;
+			if (fitSize >= 0 && overSize >= 0) {
+				next = interpolate(fitQuality, fitSize, overQuality, overSize, target);
+			} else {
+				next = extrapolate(q, s, target);
+			}
+
+			final boolean converged = Math.abs(next - q) < 0.005 || next == fitQuality || next == overQuality;
+			if (converged && fitSize >= 0) {
+				break;
+			}
+
+			// current frame must always be written, so when target is still not met and search
+			// has converged, or the next attempt is the last one, use minimum quality
+
+			q = fitSize < 0 && (converged || i == MAX_ENCODES - 2) ? MIN_QUALITY : next;
+		}
+
+		quality = fitQuality;
+		written = fitSize;
+		credit -= fitSize;
+
+		return best.toByteArray();
+	}
+
+	/**
+	 * @param now the current time in nanoseconds
+	 * @return Maximum size of the next frame
+	 */
+	private long target(long now) {
+
+		final int m = size;
+		final int b = bitrate;
+
+		if (b <= 0) {
+			credit = 0;
+			last = now;
+			return m > 0 ? m : Long.MAX_VALUE;
+		}
+
+		if (last >= 0) {
+			interval = interval * 0.8 + Math.max(now - last, 0) * 0.2;
+			credit += b * (Math.max(now - last, 0) / 1e9);
+		} else {
+			credit += b * (interval / 1e9);
+		}
+
+		last = now;
+
+		// bytes over- or under-spent are compensated within one second
+
+		credit = Math.max(-b, Math.min(credit, b));
+
+		final double frames = Math.max(1e9 / interval, 1);
+		final double perFrame = b / frames;
+		final long target = (long) Math.max(perFrame + (credit - perFrame) / frames, perFrame * 0.1);
+
+		return m > 0 ? Math.min(m, target) : target;
+	}
+
+	/**
+	 * Update the slope of log(size) against quality with two encodings of the same frame.
+	 */
+	private void learn(float q1, int s1, float q2, int s2) {
+		if (s1 <= 0 || s2 <= 0) {
+			return;
+		}
+		final double k = (Math.log(s2) - Math.log(s1)) / (q2 - q1);
+		if (k > 0) {
+			slope = Math.max(MIN_SLOPE, Math.min(MAX_SLOPE, slope * 0.5 + k * 0.5));
+		}
+	}
+
+	private float extrapolate(float q, int s, long target) {
+		final double next = q + (Math.log(target * (1 - TOLERANCE / 2)) - Math.log(Math.max(s, 1))) / slope;
+		return clamp(next);
+	}
+
+	private float interpolate(float q1, int s1, float q2, int s2, long target) {
+		final double l1 = Math.log(Math.max(s1, 1));
+		final double l2 = Math.log(Math.max(s2, 1));
+		if (l2 <= l1) {
+			return clamp((q1 + q2) / 2);
+		}
+		final double t = (Math.log(target * (1 - TOLERANCE / 2)) - l1) / (l2 - l1);
+		return clamp(q1 + (q2 - q1) * Math.max(0, Math.min(1, t)));
+	}
+
+	private static float clamp(double q) {
+		return (float) Math.max(MIN_QUALITY, Math.min(1, q));
+	}
+
+	private void swap() {
+		final ByteArrayOutputStream tmp = best;
+		best = baos;
+		baos = tmp;
 	}
 
 	/**
@@ -60,14 +236,8 @@ public class AdaptiveSizeWriter {
 
 		baos.reset();
 
-		final JPEGImageWriteParam params = new JPEGImageWriteParam(null);
-		params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-		params.setCompressionQuality(quality);
-
-		try (MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(baos)) {
-			final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
-			writer.setOutput(mcios);
-			writer.write(null, new IIOImage(bi, null, null), params);
+		try {
+			ImageUtils.getJpegEncoder().encode(bi, quality, baos);
 		} catch (IOException e) {
 			throw new IllegalStateException(e);
 		}
@@ -79,10 +249,33 @@ public class AdaptiveSizeWriter {
 		return size;
 	}
 
+	/**
+	 * @param size the maximum size of the frame in bytes, zero or less for no limit
+	 */
 	public void setSize(int size) {
-		if (this.size != size) {
-			this.size = size;
-			this.quality = INITIAL_QUALITY;
-		}
+		this.size = size;
+	}
+
+	/**
+	 * @return Target bitrate in bytes per second, zero if disabled
+	 */
+	public int getBitrate() {
+		return bitrate;
+	}
+
+	/**
+	 * Set target bitrate. When both bitrate and size are set, frames are limited by both.
+	 *
+	 * @param bitrate the target bitrate in bytes per second, zero or less to disable
+	 */
+	public void setBitrate(int bitrate) {
+		this.bitrate = bitrate;
+	}
+
+	/**
+	 * @return Quality of the last written frame
+	 */
+	public float getQuality() {
+		return quality;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,122 @@
+package com.github.sarxos.webcam.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Single slot mailbox holding the most recent frame. It is meant to be used between native
+ * capture callback and the consumer calling {@link com.github.sarxos.webcam.WebcamDevice#getImage()}.
+ * Frames are {@link PooledImage}s. Producer leases image from the {@link ImagePool}, writes frame
+ * into it and publishes it, and from that moment the reference it got from the pool belongs to the
+ * mailbox. Publishing never blocks, new frame simply replaces the one which has not been taken yet,
+ * and the replaced frame is released, so it goes back to the pool. Frame taken from the mailbox
+ * belongs to the consumer, which has to release it when it's no longer needed. This way producer
+ * and consumer reuse the same few images, and new one is allocated only when all of them are in
+ * use.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class FrameMailbox {
+
+	/**
+	 * Frame which has not been taken by consumer yet.
+	 */
+	private final AtomicReference<PooledImage> slot = new AtomicReference<PooledImage>();
+
+	/**
+	 * Notified when new frame is published.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * Number of consumers waiting for frame, publisher does not lock when there is none.
+	 */
+	private volatile int waiting = 0;
+
+	/**
+	 * Publish new frame. This method never blocks. Frame which has not been taken by consumer is
+	 * released.
+	 *
+	 * @param frame the frame to publish, caller must not release it
+	 */
+	public void publish(PooledImage frame) {
+
+		if (frame == null) {
+			throw new IllegalArgumentException("Frame cannot be null");
+		}
+
+		final PooledImage replaced = slot.getAndSet(frame);
+		if (replaced != null) {
+			replaced.release();
+		}
+
+		if (waiting > 0) {
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Take frame if there is one, without waiting. Returned frame must be released by the caller.
+	 *
+	 * @return Most recent frame or null if no new frame has been published since the last take
+	 */
+	public PooledImage poll() {
+		return slot.getAndSet(null);
+	}
+
+	/**
+	 * Take the most recent frame, wait for it if no new frame has been published since the last
+	 * take. Returned frame must be released by the caller.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit of the timeout argument
+	 * @return Most recent frame or null if timeout has elapsed
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	public PooledImage take(long timeout, TimeUnit unit) throws InterruptedException {
+
+		PooledImage frame = slot.getAndSet(null);
+		if (frame != null) {
+			return frame;
+		}
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		synchronized (lock) {
+			waiting++;
+			try {
+				while ((frame = slot.getAndSet(null)) == null) {
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						return null;
+					}
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				}
+			} finally {
+				waiting--;
+			}
+		}
+
+		return frame;
+	}
+
+	/**
+	 * Release frame which has not been taken yet, if there is one.
+	 */
+	public void clear() {
+		final PooledImage frame = slot.getAndSet(null);
+		if (frame != null) {
+			frame.release();
+		}
+	}
+
+	/**
+	 * @return True if there is a frame which has not been taken yet
+	 */
+	public boolean isFull() {
+		return slot.get() != null;
+	}
+}
@@ -0,0 +1,389 @@
+package com.github.sarxos.webcam.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * Bounded ring of the most recent frames. Every published frame gets sequence number, starting
+ * from 1. Ring keeps only the last N frames, older ones are overwritten. Publishing is lock-free
+ * and can be done from many threads. Frames are consumed by {@link Cursor}s, every consumer should
+ * have its own cursor, so consumers do not interfere with each other, and can detect how many
+ * frames they have missed because they were too slow.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the frame type
+ */
+public class FrameRing<T> {
+
+	/**
+	 * Converts frames read by the cursor, so consumers can get different view of the ring
+	 * frames, e.g. images of frames which are kept in another form.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 * @param <T> the frame type
+	 * @param <R> the type of value returned by the cursor
+	 */
+	public static interface Mapper<T, R> {
+
+		/**
+		 * @param entry the entry read from the ring, with its sequence number and timestamp
+		 * @return Value to be returned by the cursor
+		 */
+		R map(Entry<T> entry);
+	}
+
+	/**
+	 * Immutable ring entry.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 * @param <T> the frame type
+	 */
+	public static final class Entry<T> {
+
+		private final long sequence;
+		private final long timestamp;
+		private final T value;
+
+		private Entry(long sequence, long timestamp, T value) {
+			this.sequence = sequence;
+			this.timestamp = timestamp;
+			this.value = value;
+		}
+
+		/**
+		 * @return Frame sequence number
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * @return Frame timestamp in nanoseconds, see {@link System#nanoTime()}
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * @return The frame
+		 */
+		public T getValue() {
+			return value;
+		}
+	}
+
+	/**
+	 * Consumer position in the ring. Cursor is not thread-safe, it should be used by a single
+	 * consumer thread.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 * @param <T> the type of value returned by the cursor
+	 */
+	public static final class Cursor<T> {
+
+		private final FrameRing<?> ring;
+		private final Mapper<Object, T> mapper;
+		private long next;
+		private long sequence = 0;
+		private long missed = 0;
+
+		private Cursor(FrameRing<?> ring, long next, Mapper<Object, T> mapper) {
+			this.ring = ring;
+			this.next = next;
+			this.mapper = mapper;
+		}
+
+		/**
+		 * Return next frame if it's already available, without waiting.
+		 *
+		 * @return Next frame or null if there is no new frame or ring has been cleared
+		 */
+		public T poll() {
+			if (next > ring.getSequence()) {
+				return null;
+			}
+			return read(next);
+		}
+
+		/**
+		 * Wait for the next frame. If consumer has been too slow and next frame was overwritten,
+		 * the oldest available frame is returned, and skipped frames are counted as missed.
+		 *
+		 * @param timeout the maximum time to wait
+		 * @param unit the time unit of the timeout argument
+		 * @return Next frame or null if timeout has elapsed or ring has been cleared
+		 * @throws InterruptedException when thread has been interrupted
+		 */
+		public T next(long timeout, TimeUnit unit) throws InterruptedException {
+			if (!ring.await(next, timeout, unit)) {
+				return null;
+			}
+			return read(next);
+		}
+
+		/**
+		 * Return the most recent frame and skip all the older ones. Skipped frames are counted as
+		 * missed.
+		 *
+		 * @return The most recent frame or null if nothing has been published yet or ring has been
+		 *         cleared
+		 */
+		public T latest() {
+			long head = ring.getSequence();
+			if (head == 0) {
+				return null;
+			}
+			if (head > next) {
+				missed += head - next;
+			}
+			return read(head);
+		}
+
+		private T read(long s) {
+			for (;;) {
+				Entry<?> e = ring.entries.get(ring.index(s));
+
+				// ring has been cleared, frames published so far are gone, so skip them all
+
+				if (e == null) {
+					long head = ring.getSequence();
+					if (head >= s) {
+						missed += head - s + 1;
+						next = head + 1;
+					}
+					return null;
+				}
+
+				if (e.sequence == s) {
+					next = s + 1;
+					sequence = s;
+					return map(e);
+				}
+
+				// entry has been overwritten, move to the oldest one still available
+
+				long oldest = Math.max(1, ring.getSequence() - ring.capacity + 1);
+				if (oldest > s) {
+					missed += oldest - s;
+					s = oldest;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private T map(Entry<?> e) {
+			return mapper == null ? (T) e.value : mapper.map((Entry<Object>) e);
+		}
+
+		/**
+		 * @return Sequence number of the last frame returned by this cursor, 0 if none
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * @return Number of frames this cursor has skipped because they were overwritten or because
+		 *         consumer asked for the latest one
+		 */
+		public long getMissed() {
+			return missed;
+		}
+
+		/**
+		 * @return Number of published frames this cursor has not yet consumed
+		 */
+		public long getPending() {
+			return Math.max(0, ring.getSequence() - next + 1);
+		}
+	}
+
+	private final int capacity;
+	private final AtomicReferenceArray<Entry<T>> entries;
+
+	/**
+	 * Last sequence claimed by producers.
+	 */
+	private final AtomicLong claimed = new AtomicLong(0);
+
+	/**
+	 * Last sequence visible to consumers.
+	 */
+	private final AtomicLong published = new AtomicLong(0);
+
+	/**
+	 * Number of threads waiting for new frame, producers do not touch monitor when it's zero.
+	 */
+	private final AtomicInteger waiting = new AtomicInteger(0);
+
+	private final Object monitor = new Object();
+
+	/**
+	 * Create new frames ring.
+	 *
+	 * @param capacity the maximum number of frames kept in the ring
+	 */
+	public FrameRing(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(String.format("Ring capacity must be positive (%d)", capacity));
+		}
+		this.capacity = capacity;
+		this.entries = new AtomicReferenceArray<Entry<T>>(capacity);
+	}
+
+	private int index(long sequence) {
+		return (int) (sequence % capacity);
+	}
+
+	/**
+	 * Publish new frame with the current time as its timestamp.
+	 *
+	 * @param value the frame to publish
+	 * @return Sequence number of the published frame
+	 */
+	public long publish(T value) {
+		return publish(value, System.nanoTime());
+	}
+
+	/**
+	 * Publish new frame.
+	 *
+	 * @param value the frame to publish
+	 * @param timestamp the frame timestamp in nanoseconds, see {@link System#nanoTime()}
+	 * @return Sequence number of the published frame
+	 */
+	public long publish(T value, long timestamp) {
+
+		long sequence = claimed.incrementAndGet();
+		entries.set(index(sequence), new Entry<T>(sequence, timestamp, value));
+
+		// make frames visible in order, other producers may still be writing older ones
+
+		while (!published.compareAndSet(sequence - 1, sequence)) {
+			Thread.yield();
+		}
+
+		if (waiting.get() > 0) {
+			synchronized (monitor) {
+				monitor.notifyAll();
+			}
+		}
+
+		return sequence;
+	}
+
+	/**
+	 * Wait until frame with given sequence has been published.
+	 *
+	 * @param sequence the sequence number to wait for
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit of the timeout argument
+	 * @return True if frame has been published, false if timeout has elapsed
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	public boolean await(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+
+		if (published.get() >= sequence) {
+			return true;
+		}
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		waiting.incrementAndGet();
+		try {
+			synchronized (monitor) {
+				while (published.get() < sequence) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						return false;
+					}
+					TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+				}
+			}
+		} finally {
+			waiting.decrementAndGet();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Create new cursor positioned after the most recent frame, so the first frame returned by
+	 * {@link Cursor#next(long, TimeUnit)} will be the next published one.
+	 *
+	 * @return New cursor
+	 */
+	public Cursor<T> cursor() {
+		return new Cursor<T>(this, getSequence() + 1, null);
+	}
+
+	/**
+	 * Create new cursor which returns frames converted by the given mapper. Frame is converted
+	 * when cursor reads it, so frames skipped by the consumer are never converted.
+	 *
+	 * @param mapper the frames mapper
+	 * @param <R> the type of value returned by the cursor
+	 * @return New cursor
+	 * @see #cursor()
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> Cursor<R> cursor(Mapper<T, R> mapper) {
+		if (mapper == null) {
+			throw new IllegalArgumentException("Mapper cannot be null");
+		}
+		return new Cursor<R>(this, getSequence() + 1, (Mapper<Object, R>) (Mapper<?, R>) mapper);
+	}
+
+	/**
+	 * @return The most recent frame or null if nothing has been published yet or ring has been
+	 *         cleared
+	 */
+	public T latest() {
+		Entry<T> e = latestEntry();
+		return e == null ? null : e.value;
+	}
+
+	/**
+	 * @return The most recent frame with its sequence number and timestamp, or null if nothing has
+	 *         been published yet or ring has been cleared
+	 */
+	public Entry<T> latestEntry() {
+		for (;;) {
+			long s = published.get();
+			if (s == 0) {
+				return null;
+			}
+			Entry<T> e = entries.get(index(s));
+			if (e == null || e.sequence == s) {
+				return e;
+			}
+		}
+	}
+
+	/**
+	 * @return Sequence number of the most recent frame, 0 if nothing has been published yet
+	 */
+	public long getSequence() {
+		return published.get();
+	}
+
+	/**
+	 * @return Maximum number of frames kept in the ring
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Remove all frames from the ring, so they can be garbage collected. Sequence numbers are not
+	 * reset, readers get null until next frame is published, and cursors skip removed frames.
+	 */
+	public void clear() {
+		for (int i = 0; i < capacity; i++) {
+			entries.set(i, null);
+		}
+	}
+}
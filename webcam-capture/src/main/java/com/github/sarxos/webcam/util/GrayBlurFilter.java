@@ -0,0 +1,224 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+
+
+/**
+ * Fused grayscale and box blur filter. Image is first converted to 8-bit luma, using the same NTSC
+ * weights as {@link com.github.sarxos.webcam.util.jh.JHGrayFilter}, and then blurred with the
+ * separable box blur on this single channel, with edge pixels clamped the same way as
+ * {@link com.github.sarxos.webcam.util.jh.JHBlurFilter} does. This is roughly equivalent to the
+ * blur followed by gray filter, but three times less pixels are blurred, and all the intermediate
+ * buffers are owned by the filter and reused, so filtering does not allocate memory as long as
+ * image size does not change.<br>
+ * <br>
+ * Filter instance is not thread-safe.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class GrayBlurFilter {
+
+	private final int radius;
+	private final int[] divide;
+
+	private int[] rgb = new int[0];
+	private byte[] samples = new byte[0];
+	private byte[] luma = new byte[0];
+	private byte[] horizontal = new byte[0];
+	private int[] sums = new int[0];
+
+	/**
+	 * Create new filter.
+	 *
+	 * @param radius the blur radius, 0 to disable blur
+	 */
+	public GrayBlurFilter(int radius) {
+
+		if (radius < 0) {
+			throw new IllegalArgumentException(String.format("Blur radius cannot be negative (%d)", radius));
+		}
+
+		int size = 2 * radius + 1;
+
+		this.radius = radius;
+		this.divide = new int[256 * size];
+
+		for (int i = 0; i < divide.length; i++) {
+			divide[i] = i / size;
+		}
+	}
+
+	/**
+	 * @return Blur radius
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Filter image into the {@link BufferedImage#TYPE_BYTE_GRAY} destination image.
+	 *
+	 * @param src the source image
+	 * @param dst the destination image, new one is created if null or of different size or type
+	 * @return Destination image
+	 */
+	public BufferedImage filter(BufferedImage src, BufferedImage dst) {
+
+		final int w = src.getWidth();
+		final int h = src.getHeight();
+
+		if (dst == null || dst.getType() != BufferedImage.TYPE_BYTE_GRAY || dst.getWidth() != w || dst.getHeight() != h) {
+			dst = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+		}
+
+		filterBytes(src, ((DataBufferByte) dst.getRaster().getDataBuffer()).getData());
+
+		return dst;
+	}
+
+	/**
+	 * Filter image into the bytes array, one byte per pixel, in row-major order.
+	 *
+	 * @param src the source image
+	 * @param dst the destination bytes, must have at least width * height elements
+	 */
+	public void filterBytes(BufferedImage src, byte[] dst) {
+
+		final int w = src.getWidth();
+		final int h = src.getHeight();
+		final int n = w * h;
+
+		if (dst.length < n) {
+			throw new IllegalArgumentException(String.format("Destination is too small, %d bytes required", n));
+		}
+
+		if (radius == 0) {
+			toLuma(src, dst);
+			return;
+		}
+
+		if (luma.length < n) {
+			luma = new byte[n];
+			horizontal = new byte[n];
+		}
+
+		toLuma(src, luma);
+		blurRows(luma, horizontal, w, h);
+		blurColumns(horizontal, dst, w, h);
+	}
+
+	private void toLuma(BufferedImage src, byte[] dst) {
+
+		final int w = src.getWidth();
+		final int h = src.getHeight();
+		final int type = src.getType();
+		final Raster raster = src.getRaster();
+
+		if (type == BufferedImage.TYPE_3BYTE_BGR) {
+
+			if (samples.length < w * 3) {
+				samples = new byte[w * 3];
+			}
+
+			// data elements are returned in bands order, which is RGB, not in the BGR memory order
+
+			for (int y = 0, i = 0; y < h; y++) {
+				raster.getDataElements(0, y, w, 1, samples);
+				for (int x = 0, j = 0; x < w; x++, j += 3) {
+					int r = samples[j] & 0xff;
+					int g = samples[j + 1] & 0xff;
+					int b = samples[j + 2] & 0xff;
+					dst[i++] = (byte) ((r * 77 + g * 151 + b * 28) >> 8);
+				}
+			}
+
+			return;
+		}
+
+		if (rgb.length < w) {
+			rgb = new int[w];
+		}
+
+		final boolean direct = type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB;
+
+		for (int y = 0, i = 0; y < h; y++) {
+			if (direct) {
+				raster.getDataElements(0, y, w, 1, rgb);
+			} else {
+				src.getRGB(0, y, w, 1, rgb, 0, w);
+			}
+			for (int x = 0; x < w; x++) {
+				int p = rgb[x];
+				int r = (p >> 16) & 0xff;
+				int g = (p >> 8) & 0xff;
+				int b = p & 0xff;
+				dst[i++] = (byte) ((r * 77 + g * 151 + b * 28) >> 8);
+			}
+		}
+	}
+
+	/**
+	 * Horizontal box blur with running sum and edge pixels clamped.
+	 */
+	private void blurRows(byte[] in, byte[] out, int w, int h) {
+
+		final int r = radius;
+		final int last = w - 1;
+
+		for (int y = 0, row = 0; y < h; y++, row += w) {
+
+			int sum = 0;
+			for (int i = -r; i <= r; i++) {
+				sum += in[row + clamp(i, last)] & 0xff;
+			}
+
+			for (int x = 0; x < w; x++) {
+				out[row + x] = (byte) divide[sum];
+				sum += (in[row + Math.min(x + r + 1, last)] & 0xff) - (in[row + Math.max(x - r, 0)] & 0xff);
+			}
+		}
+	}
+
+	/**
+	 * Vertical box blur. Columns sums are kept for the whole row, so image is read row by row.
+	 */
+	private void blurColumns(byte[] in, byte[] out, int w, int h) {
+
+		final int r = radius;
+		final int last = h - 1;
+
+		if (sums.length < w) {
+			sums = new int[w];
+		}
+
+		for (int x = 0; x < w; x++) {
+			sums[x] = 0;
+		}
+		for (int i = -r; i <= r; i++) {
+			int row = clamp(i, last) * w;
+			for (int x = 0; x < w; x++) {
+				sums[x] += in[row + x] & 0xff;
+			}
+		}
+
+		for (int y = 0, row = 0; y < h; y++, row += w) {
+
+			for (int x = 0; x < w; x++) {
+				out[row + x] = (byte) divide[sums[x]];
+			}
+
+			int add = Math.min(y + r + 1, last) * w;
+			int sub = Math.max(y - r, 0) * w;
+
+			for (int x = 0; x < w; x++) {
+				sums[x] += (in[add + x] & 0xff) - (in[sub + x] & 0xff);
+			}
+		}
+	}
+
+	private static int clamp(int i, int last) {
+		return i < 0 ? 0 : i > last ? last : i;
+	}
+}
@@ -0,0 +1,248 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStreamImpl;
+
+
+/**
+ * Default {@link JpegEncoder} based on ImageIO. Looking up JPEG writer and creating its output
+ * stream is much more expensive than encoding small frames, so writers are kept in a pool together
+ * with their write parameters and in-memory output buffers. Every encoding borrows one of them, so
+ * writer is used by a single thread at a time, and returns it when done, so steady-state encoding
+ * does not allocate anything but the encoder internal structures.<br>
+ * <br>
+ * Images of {@link BufferedImage#TYPE_3BYTE_BGR}, {@link BufferedImage#TYPE_INT_RGB} and other
+ * opaque types are encoded directly from their rasters. Images with alpha channel, which cannot be
+ * stored in JPEG, are drawn on the reused opaque image first.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class ImageIOJpegEncoder implements JpegEncoder {
+
+	/**
+	 * Default maximum number of idle writers kept in the pool.
+	 */
+	public static final int DEFAULT_POOL_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+	/**
+	 * In-memory image output stream, reused for all frames encoded by the same writer.
+	 */
+	private static final class BufferOutputStream extends ImageOutputStreamImpl {
+
+		private byte[] buf = new byte[64 * 1024];
+		private int count = 0;
+
+		private void ensure(long capacity) {
+			if (capacity > buf.length) {
+				buf = Arrays.copyOf(buf, (int) Math.max(capacity, buf.length * 2L));
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			flushBits();
+			ensure(streamPos + 1);
+			buf[(int) streamPos++] = (byte) b;
+			count = (int) Math.max(count, streamPos);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			flushBits();
+			ensure(streamPos + len);
+			System.arraycopy(b, off, buf, (int) streamPos, len);
+			streamPos += len;
+			count = (int) Math.max(count, streamPos);
+		}
+
+		@Override
+		public int read() throws IOException {
+			bitOffset = 0;
+			return streamPos < count ? buf[(int) streamPos++] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			bitOffset = 0;
+			if (streamPos >= count) {
+				return -1;
+			}
+			int n = (int) Math.min(len, count - streamPos);
+			System.arraycopy(buf, (int) streamPos, b, off, n);
+			streamPos += n;
+			return n;
+		}
+
+		@Override
+		public long length() {
+			return count;
+		}
+
+		/**
+		 * Rewind stream so it can be used for the next frame.
+		 */
+		public void clear() {
+			streamPos = 0;
+			flushedPos = 0;
+			bitOffset = 0;
+			count = 0;
+		}
+
+		public void writeTo(OutputStream os) throws IOException {
+			os.write(buf, 0, count);
+		}
+	}
+
+	/**
+	 * Writer with its parameters, output and opaque image used for conversion.
+	 */
+	private static final class Context {
+
+		private final ImageWriter writer;
+		private final ImageWriteParam param;
+		private final BufferOutputStream output = new BufferOutputStream();
+		private BufferedImage opaque = null;
+
+		public Context(ImageWriter writer) {
+			this.writer = writer;
+			this.param = writer.getDefaultWriteParam();
+		}
+
+		/**
+		 * @param image the image with alpha channel
+		 * @return Image drawn on the reused opaque image
+		 */
+		public BufferedImage toOpaque(BufferedImage image) {
+
+			final int w = image.getWidth();
+			final int h = image.getHeight();
+
+			if (opaque == null || opaque.getWidth() != w || opaque.getHeight() != h) {
+				opaque = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+			}
+
+			Graphics2D g2 = opaque.createGraphics();
+			try {
+				g2.drawImage(image, 0, 0, null);
+			} finally {
+				g2.dispose();
+			}
+
+			return opaque;
+		}
+	}
+
+	private final ConcurrentLinkedQueue<Context> pool = new ConcurrentLinkedQueue<Context>();
+	private final AtomicInteger idle = new AtomicInteger(0);
+	private final int capacity;
+
+	/**
+	 * Create encoder with default pool capacity.
+	 */
+	public ImageIOJpegEncoder() {
+		this(DEFAULT_POOL_CAPACITY);
+	}
+
+	/**
+	 * Create encoder.
+	 *
+	 * @param capacity the maximum number of idle writers kept in the pool
+	 */
+	public ImageIOJpegEncoder(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Pool capacity cannot be negative");
+		}
+		this.capacity = capacity;
+	}
+
+	private Context borrow() throws IOException {
+
+		Context context = pool.poll();
+		if (context != null) {
+			idle.decrementAndGet();
+			return context;
+		}
+
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
+		if (!writers.hasNext()) {
+			throw new IOException("No JPEG image writer available");
+		}
+
+		return new Context(writers.next());
+	}
+
+	private void giveBack(Context context) {
+		if (idle.incrementAndGet() <= capacity) {
+			pool.offer(context);
+		} else {
+			idle.decrementAndGet();
+			context.writer.dispose();
+		}
+	}
+
+	@Override
+	public void encode(BufferedImage image, float quality, OutputStream os) throws IOException {
+
+		if (image == null) {
+			throw new IllegalArgumentException("Image cannot be null");
+		}
+		if (quality > 1) {
+			throw new IllegalArgumentException(String.format("Quality must be in range [0, 1] (%f)", quality));
+		}
+
+		final Context context = borrow();
+
+		boolean ok = false;
+		try {
+
+			final ImageWriteParam param = context.param;
+			if (quality < 0) {
+				param.setCompressionMode(ImageWriteParam.MODE_DEFAULT);
+			} else {
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(quality);
+			}
+
+			final BufferedImage opaque = image.getColorModel().hasAlpha() ? context.toOpaque(image) : image;
+			final BufferOutputStream output = context.output;
+
+			output.clear();
+			context.writer.setOutput(output);
+			context.writer.write(null, new IIOImage(opaque, null, null), param);
+			context.writer.setOutput(null);
+
+			ok = true;
+
+			output.writeTo(os);
+
+		} finally {
+
+			// writer which failed may be left in inconsistent state
+
+			if (ok) {
+				giveBack(context);
+			} else {
+				context.writer.dispose();
+			}
+		}
+	}
+
+	/**
+	 * @return Number of idle writers in the pool
+	 */
+	public int getIdleCount() {
+		return idle.get();
+	}
+}
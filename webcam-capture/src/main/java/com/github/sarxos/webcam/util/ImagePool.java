@@ -0,0 +1,279 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.Dimension;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Pool of reusable images of the same size. Every image is backed by a bytes array in 3 bytes per
+ * pixel RGB sRGB format, which is the same format used by {@link java.nio.ByteBuffer} returned from
+ * devices supporting buffer access, so image data can be copied there directly, without any
+ * intermediate allocation.<br>
+ * <br>
+ * Images are obtained from the pool with {@link #lease()} and have to be given back with
+ * {@link PooledImage#release()} when no longer needed. Leased images which were garbage collected
+ * before being released are reported as leaks.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class ImagePool {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ImagePool.class);
+
+	/**
+	 * RGB offsets.
+	 */
+	private static final int[] BAND_OFFSETS = new int[] { 0, 1, 2 };
+
+	/**
+	 * Number of bytes in each pixel.
+	 */
+	private static final int[] BITS = { 8, 8, 8 };
+
+	/**
+	 * Image offset.
+	 */
+	private static final int[] OFFSET = new int[] { 0 };
+
+	/**
+	 * Image color space.
+	 */
+	private static final ColorSpace COLOR_SPACE = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+	/**
+	 * Image together with its backing bytes array.
+	 */
+	static final class Slot {
+
+		final byte[] data;
+		final BufferedImage image;
+
+		Slot(byte[] data, BufferedImage image) {
+			this.data = data;
+			this.image = image;
+		}
+	}
+
+	/**
+	 * Weak reference used to detect pooled images which were never released.
+	 */
+	static final class Lease extends WeakReference<PooledImage> {
+
+		final Slot slot;
+		final Throwable origin;
+
+		Lease(PooledImage image, Slot slot, Throwable origin, ReferenceQueue<PooledImage> queue) {
+			super(image, queue);
+			this.slot = slot;
+			this.origin = origin;
+		}
+	}
+
+	private final Dimension size;
+	private final int capacity;
+	private final ComponentSampleModel smodel;
+	private final ColorModel cmodel;
+
+	private final Queue<Slot> free = new ConcurrentLinkedQueue<Slot>();
+	private final AtomicInteger idle = new AtomicInteger(0);
+	private final Set<Lease> leases = Collections.newSetFromMap(new ConcurrentHashMap<Lease, Boolean>());
+	private final ReferenceQueue<PooledImage> collected = new ReferenceQueue<PooledImage>();
+	private final AtomicLong allocated = new AtomicLong(0);
+	private final AtomicLong leaks = new AtomicLong(0);
+
+	/**
+	 * Record stack trace of every lease so leaks can be easily found.
+	 */
+	private volatile boolean tracing = false;
+
+	/**
+	 * Create new image pool.
+	 *
+	 * @param size the size of images in the pool
+	 * @param capacity the maximum number of idle images kept in the pool
+	 */
+	public ImagePool(Dimension size, int capacity) {
+
+		if (size == null) {
+			throw new IllegalArgumentException("Image size cannot be null");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException(String.format("Pool capacity must be positive (%d)", capacity));
+		}
+
+		this.size = new Dimension(size);
+		this.capacity = capacity;
+		this.smodel = new ComponentSampleModel(DataBuffer.TYPE_BYTE, size.width, size.height, 3, size.width * 3, BAND_OFFSETS);
+		this.cmodel = new ComponentColorModel(COLOR_SPACE, BITS, false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+	}
+
+	/**
+	 * Lease image from the pool. New image is created only if there is no idle one available.
+	 * Returned image content is undefined. It must be released when no longer used.
+	 *
+	 * @return Pooled image
+	 */
+	public PooledImage lease() {
+
+		detectLeaks();
+
+		Slot slot = free.poll();
+		if (slot == null) {
+			slot = allocate();
+		} else {
+			idle.decrementAndGet();
+		}
+
+		AtomicInteger references = new AtomicInteger(1);
+		PooledImage image = new PooledImage(this, slot, references);
+		Lease lease = new Lease(image, slot, tracing ? new Throwable("Leased here") : null, collected);
+
+		image.setLease(lease);
+		leases.add(lease);
+
+		return image;
+	}
+
+	/**
+	 * Give image back to the pool. Called when the last reference has been released.
+	 *
+	 * @param lease the lease to be finished
+	 */
+	void recycle(Lease lease) {
+
+		if (!leases.remove(lease)) {
+			return;
+		}
+
+		lease.clear();
+
+		if (idle.incrementAndGet() <= capacity) {
+			free.offer(lease.slot);
+		} else {
+			idle.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Create copy of the pooled image which is not attached to the pool.
+	 *
+	 * @param slot the slot to copy
+	 * @return New image
+	 */
+	BufferedImage copy(Slot slot) {
+		return wrap(slot.data.clone());
+	}
+
+	private Slot allocate() {
+		byte[] data = new byte[size.width * size.height * 3];
+		allocated.incrementAndGet();
+		return new Slot(data, wrap(data));
+	}
+
+	private BufferedImage wrap(byte[] data) {
+		DataBufferByte dbuf = new DataBufferByte(new byte[][] { data }, data.length, OFFSET);
+		WritableRaster raster = Raster.createWritableRaster(smodel, dbuf, null);
+		return new BufferedImage(cmodel, raster, false, null);
+	}
+
+	private void detectLeaks() {
+
+		Lease lease = null;
+		while ((lease = (Lease) collected.poll()) != null) {
+
+			// images which have been garbage collected before being released are not given back
+			// to the pool because someone can still hold reference to the image itself
+
+			if (leases.remove(lease)) {
+				leaks.incrementAndGet();
+				if (lease.origin != null) {
+					LOG.warn("Pooled image {}x{} has been garbage collected without being released", size.width, size.height, lease.origin);
+				} else {
+					LOG.warn("Pooled image {}x{} has been garbage collected without being released, enable leak tracing to find where it was leased", size.width, size.height);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return Size of images in this pool
+	 */
+	public Dimension getSize() {
+		return new Dimension(size);
+	}
+
+	/**
+	 * @return Maximum number of idle images kept in the pool
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return Number of images which are currently leased
+	 */
+	public int getLeasedCount() {
+		return leases.size();
+	}
+
+	/**
+	 * @return Number of idle images available in the pool
+	 */
+	public int getIdleCount() {
+		return idle.get();
+	}
+
+	/**
+	 * @return Number of images allocated by this pool since it has been created
+	 */
+	public long getAllocatedCount() {
+		return allocated.get();
+	}
+
+	/**
+	 * @return Number of leased images which has been garbage collected without being released
+	 */
+	public long getLeaksCount() {
+		detectLeaks();
+		return leaks.get();
+	}
+
+	/**
+	 * Enable or disable leak tracing. When enabled, stack trace is recorded for every lease and
+	 * logged when image leak is detected. This has significant overhead and should be used only
+	 * for debugging.
+	 *
+	 * @param tracing true to enable, false to disable
+	 */
+	public void setLeakTracing(boolean tracing) {
+		this.tracing = tracing;
+	}
+
+	/**
+	 * @return True if leak tracing is enabled
+	 */
+	public boolean isLeakTracing() {
+		return tracing;
+	}
+}
@@ -5,6 +5,7 @@ import java.awt.image.DataBufferByte;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import javax.imageio.ImageIO;
 
@@ -38,6 +39,63 @@ public class ImageUtils {
 	 */
 	public static final String FORMAT_WBMP = "WBMP";
 
+	/**
+	 * Encoder used for all JPEG images.
+	 */
+	private static volatile JpegEncoder jpegEncoder = new ImageIOJpegEncoder();
+
+	/**
+	 * @return Encoder used for all JPEG images
+	 */
+	public static JpegEncoder getJpegEncoder() {
+		return jpegEncoder;
+	}
+
+	/**
+	 * Set encoder to be used for all JPEG images.
+	 * 
+	 * @param encoder the encoder, or null to use the default {@link ImageIOJpegEncoder}
+	 */
+	public static void setJpegEncoder(JpegEncoder encoder) {
+		jpegEncoder = encoder == null ? new ImageIOJpegEncoder() : encoder;
+	}
+
+	/**
+	 * @param format the image format name
+	 * @return True if this is JPEG format
+	 */
+	public static boolean isJpeg(String format) {
+		return FORMAT_JPG.equalsIgnoreCase(format) || "JPEG".equalsIgnoreCase(format);
+	}
+
+	/**
+	 * Encode image into JPEG with the default quality, using {@link #getJpegEncoder()}.
+	 * 
+	 * @param image the image to be encoded
+	 * @param os the output stream, it is not closed
+	 * @throws IOException when image cannot be encoded or written
+	 */
+	public static void writeJpeg(BufferedImage image, OutputStream os) throws IOException {
+		jpegEncoder.encode(image, JpegEncoder.DEFAULT_QUALITY, os);
+	}
+
+	/**
+	 * Write image in the given format. JPEG images are encoded with {@link #getJpegEncoder()}, all
+	 * the other ones with {@link ImageIO}.
+	 * 
+	 * @param image the image to be written
+	 * @param format the output image format
+	 * @param os the output stream, it is not closed
+	 * @throws IOException when image cannot be encoded or written
+	 */
+	public static void write(BufferedImage image, String format, OutputStream os) throws IOException {
+		if (isJpeg(format)) {
+			writeJpeg(image, os);
+		} else if (!ImageIO.write(image, format, os)) {
+			throw new IOException("No image writer for format " + format);
+		}
+	}
+
 	/**
 	 * Convert {@link BufferedImage} to byte array.
 	 * 
@@ -51,7 +109,7 @@ public class ImageUtils {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
 		try {
-			ImageIO.write(image, format, baos);
+			write(image, format, baos);
 			bytes = baos.toByteArray();
 		} catch (IOException e) {
 			throw new WebcamException(e);
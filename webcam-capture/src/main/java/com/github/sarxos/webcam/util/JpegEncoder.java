@@ -0,0 +1,34 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Encodes images into JPEG. All the places where webcam images are encoded into JPEG, e.g.
+ * {@link com.github.sarxos.webcam.WebcamStreamer}, {@link ImageUtils#toByteArray(BufferedImage, String)}
+ * or {@link AdaptiveSizeWriter}, use encoder returned by {@link ImageUtils#getJpegEncoder()}, so
+ * different implementation, e.g. hardware or native one, can be plugged in with
+ * {@link ImageUtils#setJpegEncoder(JpegEncoder)}. Implementations must be thread-safe.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public interface JpegEncoder {
+
+	/**
+	 * Quality value meaning encoder default quality.
+	 */
+	float DEFAULT_QUALITY = -1;
+
+	/**
+	 * Encode image into JPEG and write it to the output stream. Stream is not closed.
+	 *
+	 * @param image the image to be encoded
+	 * @param quality the compression quality from 0 to 1, or {@link #DEFAULT_QUALITY}
+	 * @param os the output stream
+	 * @throws IOException when image cannot be encoded or written
+	 */
+	void encode(BufferedImage image, float quality, OutputStream os) throws IOException;
+
+}
@@ -0,0 +1,228 @@
+package com.github.sarxos.webcam.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Lock-free histogram of latencies given in nanoseconds. Values are counted in log-linear buckets,
+ * the same way as in HdrHistogram, every power of two range is split into 32 sub-buckets, so the
+ * value reported for a percentile is within ~3% of the recorded one. Values from 0 to about 18
+ * minutes are tracked, larger ones are counted as the maximum trackable value.<br>
+ * <br>
+ * Recording is wait-free and does not allocate, so it can be done on the capture path. Statistics
+ * are read from {@link Snapshot}s.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Immutable copy of the histogram state. All times are in milliseconds.
+	 *
+	 * @author Bartosz Firyn (sarxos)
+	 */
+	public static final class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+		private final long min;
+		private final long max;
+		private final long sum;
+
+		private Snapshot(long[] counts, long min, long max, long sum) {
+
+			long n = 0;
+			for (long c : counts) {
+				n += c;
+			}
+
+			this.counts = counts;
+			this.count = n;
+			this.min = n == 0 ? 0 : min;
+			this.max = n == 0 ? 0 : max;
+			this.sum = sum;
+		}
+
+		/**
+		 * @return Number of recorded values
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return Minimum recorded value
+		 */
+		public double getMin() {
+			return toMillis(min);
+		}
+
+		/**
+		 * @return Maximum recorded value
+		 */
+		public double getMax() {
+			return toMillis(max);
+		}
+
+		/**
+		 * @return Mean of recorded values
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : toMillis(sum) / count;
+		}
+
+		/**
+		 * @return Median
+		 */
+		public double getP50() {
+			return getPercentile(50);
+		}
+
+		/**
+		 * @return 90th percentile
+		 */
+		public double getP90() {
+			return getPercentile(90);
+		}
+
+		/**
+		 * @return 99th percentile
+		 */
+		public double getP99() {
+			return getPercentile(99);
+		}
+
+		/**
+		 * @return 99.9th percentile
+		 */
+		public double getP999() {
+			return getPercentile(99.9);
+		}
+
+		/**
+		 * Get value below which given percent of recorded values fall.
+		 *
+		 * @param percentile the percentile, from 0 to 100
+		 * @return Percentile value
+		 */
+		public double getPercentile(double percentile) {
+
+			if (percentile < 0 || percentile > 100) {
+				throw new IllegalArgumentException(String.format("Percentile must be in range [0, 100] (%f)", percentile));
+			}
+
+			if (count == 0) {
+				return 0;
+			}
+
+			final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+
+			long total = 0;
+			for (int i = 0; i < counts.length; i++) {
+				total += counts[i];
+				if (total >= rank) {
+					return toMillis(Math.max(min, Math.min(max, highest(i))));
+				}
+			}
+
+			return toMillis(max);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, max=%.3fms", count, getMean(), getP50(), getP99(), getMax());
+		}
+	}
+
+	/**
+	 * Number of bits of sub-bucket index, 64 sub-buckets in the first bucket, and 32 in the next
+	 * ones, since their lower half is covered by the previous bucket.
+	 */
+	private static final int SUB_BITS = 6;
+
+	private static final int HALF = 1 << (SUB_BITS - 1);
+
+	/**
+	 * Maximum trackable value (2^40 ns, about 18 minutes).
+	 */
+	private static final long MAX_VALUE = (1L << 40) - 1;
+
+	private static final int LENGTH = index(MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(LENGTH);
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(0);
+	private final AtomicLong sum = new AtomicLong(0);
+
+	/**
+	 * Index of the counter of given value.
+	 *
+	 * @param value the value
+	 * @return Counter index
+	 */
+	private static int index(long value) {
+		final int bucket = 63 - Long.numberOfLeadingZeros(value | (HALF * 2 - 1)) - (SUB_BITS - 1);
+		return (bucket << (SUB_BITS - 1)) + (int) (value >>> bucket);
+	}
+
+	/**
+	 * Highest value counted by given counter.
+	 *
+	 * @param index the counter index
+	 * @return Highest value
+	 */
+	private static long highest(int index) {
+		final int bucket = Math.max(0, (index >> (SUB_BITS - 1)) - 1);
+		final long sub = index - (bucket << (SUB_BITS - 1));
+		return ((sub + 1) << bucket) - 1;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000d;
+	}
+
+	/**
+	 * Record value.
+	 *
+	 * @param nanos the latency in nanoseconds, negative values are counted as zero
+	 */
+	public void record(long nanos) {
+
+		final long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+
+		counts.incrementAndGet(index(value));
+		sum.addAndGet(value);
+
+		long m;
+		while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+			// retry
+		}
+		while (value < (m = min.get()) && !min.compareAndSet(m, value)) {
+			// retry
+		}
+	}
+
+	/**
+	 * @return Copy of the current histogram state
+	 */
+	public Snapshot snapshot() {
+		final long[] copy = new long[LENGTH];
+		for (int i = 0; i < LENGTH; i++) {
+			copy[i] = counts.get(i);
+		}
+		return new Snapshot(copy, min.get(), max.get(), sum.get());
+	}
+
+	/**
+	 * Remove all recorded values. Values recorded concurrently with reset may be partially lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < LENGTH; i++) {
+			counts.set(i, 0);
+		}
+		sum.set(0);
+		max.set(0);
+		min.set(Long.MAX_VALUE);
+	}
+}
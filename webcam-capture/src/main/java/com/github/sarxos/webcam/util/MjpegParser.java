@@ -0,0 +1,425 @@
+package com.github.sarxos.webcam.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+
+/**
+ * Streaming MJPEG parser. Bytes are read from the underlying {@link InputStream} in bulk into the
+ * growable buffer owned by the parser, and the JPEG frames are found directly in this buffer. When
+ * part header contains Content-Length, frame end is computed from it, otherwise the End Of Image
+ * marker is searched. Markers are searched eight bytes at a time, only words containing 0xFF byte
+ * are inspected byte by byte.<br>
+ * <br>
+ * Frames are returned as {@link ByteBuffer} slices of the internal buffer, so no frame bytes are
+ * copied. Such slice is valid only until the next call to {@link #next()}, or until more bytes are
+ * passed to the parser, caller which needs to keep the frame for longer has to copy it, e.g. with
+ * {@link #toBytes(ByteBuffer)}. Parser can also be used with non-blocking channels, see
+ * {@link #poll()}.<br>
+ * <br>
+ * Parser instance is not thread-safe.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class MjpegParser {
+
+	/**
+	 * Start Of Image marker is FFh D8h, this is the second byte.
+	 */
+	private static final byte SOI = (byte) 0xD8;
+
+	/**
+	 * End Of Image marker is FFh D9h, this is the second byte.
+	 */
+	private static final byte EOI = (byte) 0xD9;
+
+	/**
+	 * Content length header name, lower case.
+	 */
+	private static final byte[] CONTENT_LENGTH = "content-length".getBytes();
+
+	/**
+	 * Default initial buffer capacity (64 kB).
+	 */
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+	/**
+	 * Default maximum length of part headers and frame together (32 MB).
+	 */
+	public static final int DEFAULT_MAX_FRAME_LENGTH = 32 * 1024 * 1024;
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGHS = 0x8080808080808080L;
+
+	private final InputStream in;
+	private final int maxFrameLength;
+
+	private byte[] buffer;
+	private ByteBuffer words;
+
+	/**
+	 * Index of the first not consumed byte.
+	 */
+	private int head = 0;
+
+	/**
+	 * Index after the last byte read from stream.
+	 */
+	private int tail = 0;
+
+	/**
+	 * Index from which markers search should be continued.
+	 */
+	private int scan = 0;
+
+	/**
+	 * Index of the SOI marker of frame being parsed, or -1 if SOI has not been found yet.
+	 */
+	private int soi = -1;
+
+	/**
+	 * Content length of frame being parsed, or -1 if part has no valid Content-Length header.
+	 */
+	private int length = -1;
+
+	private long frames = 0;
+
+	/**
+	 * Create new parser with default capacity and default maximum frame length.
+	 *
+	 * @param in the input stream to read MJPEG from
+	 */
+	public MjpegParser(InputStream in) {
+		this(in, DEFAULT_CAPACITY, DEFAULT_MAX_FRAME_LENGTH);
+	}
+
+	/**
+	 * Create new parser.
+	 *
+	 * @param in the input stream to read MJPEG from
+	 * @param capacity the initial buffer capacity, buffer grows when frame does not fit in it
+	 * @param maxFrameLength the maximum length of part headers and frame together
+	 */
+	public MjpegParser(InputStream in, int capacity, int maxFrameLength) {
+		this(capacity, maxFrameLength, in);
+		if (in == null) {
+			throw new IllegalArgumentException("Input stream cannot be null");
+		}
+	}
+
+	/**
+	 * Create new parser without input stream. Bytes have to be passed to the parser with
+	 * {@link #read(ReadableByteChannel)} or {@link #feed(ByteBuffer)}, and frames obtained with
+	 * {@link #poll()}.
+	 *
+	 * @param capacity the initial buffer capacity, buffer grows when frame does not fit in it
+	 * @param maxFrameLength the maximum length of part headers and frame together
+	 */
+	public MjpegParser(int capacity, int maxFrameLength) {
+		this(capacity, maxFrameLength, null);
+	}
+
+	private MjpegParser(int capacity, int maxFrameLength, InputStream in) {
+
+		if (capacity < 16) {
+			throw new IllegalArgumentException(String.format("Capacity must be at least 16 (%d)", capacity));
+		}
+		if (maxFrameLength < capacity) {
+			throw new IllegalArgumentException(String.format("Max frame length (%d) cannot be smaller than capacity (%d)", maxFrameLength, capacity));
+		}
+
+		this.in = in;
+		this.maxFrameLength = maxFrameLength;
+		this.buffer = new byte[capacity];
+		this.words = ByteBuffer.wrap(buffer);
+	}
+
+	/**
+	 * Read next JPEG frame. Returned buffer position is zero and its limit is frame length. The
+	 * buffer is a slice of parser internal memory and it is valid only until the next call of this
+	 * method, and must not be modified.
+	 *
+	 * @return Next JPEG frame bytes, starting with SOI and ending with EOI marker, or null when
+	 *         stream ended before the next frame started
+	 * @throws EOFException when stream ended in the middle of the frame
+	 * @throws IOException when frame cannot be read from the stream
+	 */
+	public ByteBuffer next() throws IOException {
+
+		if (in == null) {
+			throw new IllegalStateException("Parser has no input stream, bytes have to be read or fed");
+		}
+
+		ByteBuffer frame;
+
+		while ((frame = poll()) == null) {
+			if (!fill()) {
+				if (soi < 0) {
+					return null;
+				}
+				if (length > 0) {
+					throw new EOFException("Stream ended in the middle of MJPEG frame");
+				}
+				throw new EOFException("Stream ended before EOI (0xFF,0xD9) has been found");
+			}
+		}
+
+		return frame;
+	}
+
+	/**
+	 * Return next JPEG frame if it is already complete in the bytes read so far, without reading
+	 * more bytes. This, together with {@link #read(ReadableByteChannel)} or
+	 * {@link #feed(ByteBuffer)}, can be used to parse non-blocking streams. Returned buffer is valid
+	 * only until next bytes are read or fed, and must not be modified.
+	 *
+	 * @return Next JPEG frame bytes or null if frame is not complete yet
+	 */
+	public ByteBuffer poll() {
+
+		if (soi < 0) {
+
+			final int i = indexOf(scan, tail, SOI);
+			if (i < 0) {
+				scan = Math.max(head, tail - 1);
+				return null;
+			}
+
+			soi = i;
+			scan = i + 2;
+			length = parseContentLength(head, soi);
+		}
+
+		final int end;
+
+		if (length > 0) {
+			if (tail - soi < length) {
+				return null;
+			}
+			end = soi + length;
+		} else {
+			final int eoi = indexOf(scan, tail, EOI);
+			if (eoi < 0) {
+				scan = Math.max(soi + 2, tail - 1);
+				return null;
+			}
+			end = eoi + 2;
+		}
+
+		final ByteBuffer frame = ByteBuffer.wrap(buffer, soi, end - soi).slice();
+
+		head = end;
+		scan = end;
+		soi = -1;
+		frames++;
+
+		return frame;
+	}
+
+	/**
+	 * Read available bytes from the channel. Bytes are read directly into the parser buffer. This
+	 * invalidates the frame returned previously.
+	 *
+	 * @param channel the channel to read from, usually non-blocking one
+	 * @return Number of bytes read, possibly zero, or -1 if channel has reached end of stream
+	 * @throws IOException when bytes cannot be read or frame is too long
+	 */
+	public int read(ReadableByteChannel channel) throws IOException {
+
+		ensureSpace();
+
+		final int n = channel.read(ByteBuffer.wrap(buffer, tail, buffer.length - tail));
+		if (n > 0) {
+			tail += n;
+		}
+
+		return n;
+	}
+
+	/**
+	 * Copy bytes to the parser buffer. This invalidates the frame returned previously.
+	 *
+	 * @param bytes the bytes to be parsed, all remaining bytes are consumed
+	 * @throws IOException when frame is too long
+	 */
+	public void feed(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			ensureSpace();
+			final int n = Math.min(bytes.remaining(), buffer.length - tail);
+			bytes.get(buffer, tail, n);
+			tail += n;
+		}
+	}
+
+	/**
+	 * @return Number of frames read so far
+	 */
+	public long getFramesCount() {
+		return frames;
+	}
+
+	/**
+	 * @return Current capacity of internal buffer
+	 */
+	public int getCapacity() {
+		return buffer.length;
+	}
+
+	/**
+	 * Copy frame bytes into the new array. Frame buffer position is not changed.
+	 *
+	 * @param frame the frame returned from {@link #next()}
+	 * @return New array with frame bytes
+	 */
+	public static byte[] toBytes(ByteBuffer frame) {
+		final byte[] bytes = new byte[frame.remaining()];
+		frame.duplicate().get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Read more bytes from the stream.
+	 *
+	 * @return False if end of stream has been reached
+	 * @throws IOException when bytes cannot be read or frame is too long
+	 */
+	private boolean fill() throws IOException {
+
+		ensureSpace();
+
+		final int n = in.read(buffer, tail, buffer.length - tail);
+		if (n < 0) {
+			return false;
+		}
+
+		tail += n;
+
+		return true;
+	}
+
+	/**
+	 * Make space for new bytes if buffer is full. Consumed bytes are dropped from the buffer when
+	 * possible, and buffer grows if this is still not enough.
+	 *
+	 * @throws IOException when frame is too long
+	 */
+	private void ensureSpace() throws IOException {
+
+		if (tail < buffer.length) {
+			return;
+		}
+
+		final int size = tail - head;
+
+		if (head > 0 && size < buffer.length / 2 + 1) {
+			System.arraycopy(buffer, head, buffer, 0, size);
+		} else {
+
+			if (size >= maxFrameLength) {
+				throw new IOException(String.format("MJPEG frame exceeds maximum length of %d bytes", maxFrameLength));
+			}
+
+			final byte[] grown = new byte[(int) Math.min((long) buffer.length * 2, maxFrameLength)];
+
+			System.arraycopy(buffer, head, grown, 0, size);
+
+			buffer = grown;
+			words = ByteBuffer.wrap(buffer);
+		}
+
+		// all positions are shifted by the number of dropped bytes
+
+		if (soi >= 0) {
+			soi -= head;
+		}
+
+		scan -= head;
+		tail = size;
+		head = 0;
+	}
+
+	/**
+	 * Find FFh followed by the given marker byte in the buffer.
+	 *
+	 * @param from the start index, inclusive
+	 * @param to the end index, exclusive
+	 * @param marker the second marker byte
+	 * @return Index of the FFh byte or -1 if marker has not been found
+	 */
+	private int indexOf(int from, int to, byte marker) {
+
+		final byte[] b = buffer;
+		final int last = to - 1;
+
+		int i = from;
+
+		// xor with all ones turns FFh bytes into zeros, and the word has a zero byte when
+		// (x - 0x01..01) & ~x & 0x80..80 is not zero
+
+		for (; i + 8 <= last; i += 8) {
+			final long x = ~words.getLong(i);
+			if (((x - ONES) & ~x & HIGHS) != 0) {
+				for (int j = i; j < i + 8; j++) {
+					if (b[j] == (byte) 0xFF && b[j + 1] == marker) {
+						return j;
+					}
+				}
+			}
+		}
+
+		for (; i < last; i++) {
+			if (b[i] == (byte) 0xFF && b[i + 1] == marker) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Find Content-Length header in the part headers and parse its value.
+	 *
+	 * @param from the headers start index, inclusive
+	 * @param to the headers end index, exclusive
+	 * @return Content length or -1 if header is missing or invalid
+	 */
+	private int parseContentLength(int from, int to) {
+
+		final byte[] b = buffer;
+		final int n = CONTENT_LENGTH.length;
+
+		outer: for (int i = from; i + n < to; i++) {
+
+			for (int j = 0; j < n; j++) {
+				if (Character.toLowerCase((char) b[i + j]) != CONTENT_LENGTH[j]) {
+					continue outer;
+				}
+			}
+
+			int k = i + n;
+			while (k < to && (b[k] == ' ' || b[k] == '\t')) {
+				k++;
+			}
+			if (k == to || b[k++] != ':') {
+				continue;
+			}
+			while (k < to && (b[k] == ' ' || b[k] == '\t')) {
+				k++;
+			}
+
+			long length = 0;
+			int digits = 0;
+			while (k < to && b[k] >= '0' && b[k] <= '9' && length <= Integer.MAX_VALUE) {
+				length = length * 10 + b[k++] - '0';
+				digits++;
+			}
+
+			return digits > 0 && length <= maxFrameLength ? (int) length : -1;
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,166 @@
+package com.github.sarxos.webcam.util;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Watches the /dev directory for video device files being created or deleted. On Linux the
+ * {@link WatchService} is backed by inotify, so the change is noticed as soon as the device node
+ * appears or disappears, without listing the directory periodically.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class NixVideoDevWatcher implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(NixVideoDevWatcher.class);
+
+	/**
+	 * Default time in milliseconds to wait for more events after the first one. Device node is
+	 * usually followed by other nodes and attributes changes, so events are coalesced.
+	 */
+	public static final long DEFAULT_SETTLE_TIME = 200;
+
+	private static final NixVideoDevUtils FILTER = new NixVideoDevUtils();
+
+	private final File dir;
+	private final WatchService service;
+	private final long settle;
+
+	/**
+	 * Create watcher of the /dev directory with default settle time.
+	 *
+	 * @throws IOException when watch service cannot be created
+	 */
+	public NixVideoDevWatcher() throws IOException {
+		this(NixVideoDevUtils.DEV, DEFAULT_SETTLE_TIME);
+	}
+
+	/**
+	 * Create watcher of the given directory.
+	 *
+	 * @param dir the devices directory, must be named dev
+	 * @param settle the time in milliseconds to wait for more events after the first one
+	 * @throws IOException when watch service cannot be created
+	 */
+	public NixVideoDevWatcher(File dir, long settle) throws IOException {
+
+		if (dir == null) {
+			throw new IllegalArgumentException("Directory cannot be null");
+		}
+		if (settle < 0) {
+			throw new IllegalArgumentException("Settle time cannot be negative");
+		}
+
+		final Path path = dir.toPath();
+
+		this.dir = dir;
+		this.settle = settle;
+		this.service = FileSystems.getDefault().newWatchService();
+
+		try {
+			path.register(service, ENTRY_CREATE, ENTRY_DELETE);
+		} catch (IOException e) {
+			service.close();
+			throw e;
+		}
+
+		LOG.debug("Watching {} for video devices changes", dir);
+	}
+
+	/**
+	 * Wait until video device is created or deleted. When change has been detected, events
+	 * arriving in the settle time are consumed as well, so single hotplug is reported once.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit of the timeout argument
+	 * @return True if video devices have changed, false if timeout has elapsed or watcher has been
+	 *         closed
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+
+		try {
+
+			final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+			boolean changed = false;
+
+			while (!changed) {
+
+				final long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+
+				final WatchKey key = service.poll(remaining, TimeUnit.NANOSECONDS);
+				if (key == null) {
+					return false;
+				}
+
+				changed = consume(key);
+			}
+
+			WatchKey key;
+			while ((key = service.poll(settle, TimeUnit.MILLISECONDS)) != null) {
+				consume(key);
+			}
+
+			return true;
+
+		} catch (ClosedWatchServiceException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Consume key events.
+	 *
+	 * @param key the signalled key
+	 * @return True if any of the events relates to video device
+	 */
+	private boolean consume(WatchKey key) {
+
+		boolean changed = false;
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+
+			if (event.kind() == OVERFLOW) {
+				changed = true;
+				continue;
+			}
+
+			final String name = event.context().toString();
+			if (FILTER.accept(dir, name)) {
+				LOG.debug("Video device {} {}", name, event.kind() == ENTRY_CREATE ? "created" : "deleted");
+				changed = true;
+			}
+		}
+
+		if (!key.reset()) {
+			LOG.warn("Directory {} is no longer watched", dir);
+		}
+
+		return changed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		service.close();
+	}
+}
@@ -0,0 +1,131 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.sarxos.webcam.util.ImagePool.Lease;
+import com.github.sarxos.webcam.util.ImagePool.Slot;
+
+
+/**
+ * Image leased from {@link ImagePool}. Pooled image is reference-counted. It's created with one
+ * reference held by the caller who leased it, and every consumer which wants to keep it for longer
+ * has to {@link #retain()} it. Image is given back to the pool when the last reference has been
+ * released. Content of the image must not be used after it has been released, because it will be
+ * overwritten by the next frame.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class PooledImage implements AutoCloseable {
+
+	private final ImagePool pool;
+	private final Slot slot;
+	private final AtomicInteger references;
+	private Lease lease = null;
+
+	PooledImage(ImagePool pool, Slot slot, AtomicInteger references) {
+		this.pool = pool;
+		this.slot = slot;
+		this.references = references;
+	}
+
+	void setLease(Lease lease) {
+		this.lease = lease;
+	}
+
+	/**
+	 * @return The image backed by the pooled buffer
+	 */
+	public BufferedImage getImage() {
+		return slot.image;
+	}
+
+	/**
+	 * Return the image bytes, 3 bytes per pixel, where RGB components are on (0, 1, 2) and color
+	 * space is sRGB.
+	 *
+	 * @return Bytes backing the image
+	 */
+	public byte[] getData() {
+		return slot.data;
+	}
+
+	/**
+	 * @return New buffer wrapping image bytes, can be used to copy data directly into the image
+	 */
+	public ByteBuffer getBuffer() {
+		return ByteBuffer.wrap(slot.data);
+	}
+
+	/**
+	 * Create copy of this image which is not attached to the pool and can be used after this
+	 * pooled image has been released.
+	 *
+	 * @return New image
+	 */
+	public BufferedImage copy() {
+		return pool.copy(slot);
+	}
+
+	/**
+	 * Increment reference count if image has not yet been released.
+	 *
+	 * @return True if image has been retained, false if it has been already released
+	 */
+	public boolean tryRetain() {
+		for (;;) {
+			int n = references.get();
+			if (n <= 0) {
+				return false;
+			}
+			if (references.compareAndSet(n, n + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Increment reference count. Every call to this method must be followed by exactly one
+	 * {@link #release()}.
+	 *
+	 * @return This image
+	 * @throws IllegalStateException when image has been already released
+	 */
+	public PooledImage retain() {
+		if (!tryRetain()) {
+			throw new IllegalStateException("Pooled image has been already released");
+		}
+		return this;
+	}
+
+	/**
+	 * Decrement reference count and give the image back to the pool when it reached zero.
+	 *
+	 * @throws IllegalStateException when image has been already released
+	 */
+	public void release() {
+		int n = references.decrementAndGet();
+		if (n == 0) {
+			pool.recycle(lease);
+		} else if (n < 0) {
+			references.incrementAndGet();
+			throw new IllegalStateException("Pooled image has been already released");
+		}
+	}
+
+	/**
+	 * @return True if all references to this image have been released
+	 */
+	public boolean isReleased() {
+		return references.get() <= 0;
+	}
+
+	/**
+	 * Same as {@link #release()}, so pooled image can be used in try-with-resources statement.
+	 */
+	@Override
+	public void close() {
+		release();
+	}
+}
@@ -0,0 +1,134 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.Frame.PixelFormat;
+
+
+/**
+ * This test case is to cover {@link Frame} class.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class FrameTest {
+
+	// red in full range BT.601
+
+	private static final int Y = 81;
+	private static final int U = 90;
+	private static final int V = 240;
+
+	private static final byte[] RED = new byte[] { (byte) 238, 14, 14 };
+
+	private static void assertAllPixels(ByteBuffer rgb, int count) {
+
+		Assertions
+			.assertThat(rgb.remaining())
+			.isEqualTo(count * 3);
+
+		for (int i = 0; i < count; i++) {
+			for (int c = 0; c < 3; c++) {
+				Assertions
+					.assertThat(rgb.get(i * 3 + c) & 0xFF)
+					.isBetween((RED[c] & 0xFF) - 1, (RED[c] & 0xFF) + 1);
+			}
+		}
+	}
+
+	@Test
+	public void test_paddedI420() {
+
+		// 4x2 frame in 8x4 luma plane, chroma planes 4x2
+
+		byte[] bytes = new byte[8 * 4 + 2 * 4 * 2];
+		Arrays.fill(bytes, 0, 32, (byte) Y);
+		Arrays.fill(bytes, 32, 40, (byte) U);
+		Arrays.fill(bytes, 40, 48, (byte) V);
+
+		Frame frame = new Frame(PixelFormat.I420, 4, 2, 8, 4, ByteBuffer.wrap(bytes), 1, 2);
+
+		assertAllPixels(frame.getRGB(), 8);
+
+		Assertions
+			.assertThat(frame.getGray().remaining())
+			.isEqualTo(8);
+		Assertions
+			.assertThat(frame.getGray().get(7))
+			.isEqualTo((byte) Y);
+		Assertions
+			.assertThat(frame.getImage().getRGB(3, 1) & 0xFFFFFF)
+			.isEqualTo(frame.getImage().getRGB(0, 0) & 0xFFFFFF);
+	}
+
+	@Test
+	public void test_YUYV() {
+
+		byte[] bytes = new byte[4 * 2 * 2];
+		for (int i = 0; i < bytes.length; i += 4) {
+			bytes[i] = (byte) Y;
+			bytes[i + 1] = (byte) U;
+			bytes[i + 2] = (byte) Y;
+			bytes[i + 3] = (byte) V;
+		}
+
+		Frame frame = new Frame(PixelFormat.YUYV, 4, 2, ByteBuffer.wrap(bytes), 1, 2);
+
+		assertAllPixels(frame.getRGB(), 8);
+
+		Assertions
+			.assertThat(frame.getGray().get(5))
+			.isEqualTo((byte) Y);
+	}
+
+	@Test
+	public void test_NV12GrayWithoutCopy() {
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(4 * 2 + 4);
+		for (int i = 0; i < 8; i++) {
+			buffer.put((byte) Y);
+		}
+		buffer.put((byte) U).put((byte) V).put((byte) U).put((byte) V);
+		buffer.flip();
+
+		Frame frame = new Frame(PixelFormat.NV12, 4, 2, buffer, 1, 2);
+
+		Assertions
+			.assertThat(frame.getGray().isDirect())
+			.isTrue();
+
+		assertAllPixels(frame.getRGB(), 8);
+	}
+
+	@Test
+	public void test_ofImage() {
+
+		BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_3BYTE_BGR);
+		image.setRGB(1, 1, 0x102030);
+
+		Frame frame = Frame.of(image, 5, 6);
+		ByteBuffer rgb = frame.getRGB();
+
+		Assertions
+			.assertThat(frame.getFormat())
+			.isEqualTo(PixelFormat.BGR24);
+		Assertions
+			.assertThat(frame.getImage())
+			.isSameAs(image);
+		Assertions
+			.assertThat(frame.getSequence())
+			.isEqualTo(6);
+		Assertions
+			.assertThat(new byte[] { rgb.get(9), rgb.get(10), rgb.get(11) })
+			.containsExactly((byte) 0x10, (byte) 0x20, (byte) 0x30);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_bufferTooSmall() {
+		new Frame(PixelFormat.RGB24, 4, 4, ByteBuffer.allocate(47), 0, 0);
+	}
+}
@@ -0,0 +1,161 @@
+package com.github.sarxos.webcam;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.Frame.PixelFormat;
+import com.github.sarxos.webcam.WebcamGroup.FrameSet;
+import com.github.sarxos.webcam.ds.test.DummyDevice;
+import com.github.sarxos.webcam.ds.test.DummyDriver;
+
+
+/**
+ * This test case is to cover {@link WebcamGroup} class.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamGroupTest {
+
+	/**
+	 * Device with its own frame sequence, unrelated to the updater one.
+	 */
+	private static final class FrameSourceDevice extends DummyDevice implements WebcamDevice.FrameSource {
+
+		private final AtomicInteger reads = new AtomicInteger(0);
+
+		@Override
+		public Frame getFrame() {
+			final int w = getResolution().width;
+			final int h = getResolution().height;
+			return new Frame(PixelFormat.GRAY8, w, h, ByteBuffer.allocate(w * h), System.nanoTime(), 1000000 + reads.incrementAndGet());
+		}
+	}
+
+	private static final class FrameSourceDriver implements WebcamDriver {
+
+		private final List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+
+		public FrameSourceDriver() {
+			devices.add(new FrameSourceDevice());
+			devices.add(new FrameSourceDevice());
+		}
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			return devices;
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return false;
+		}
+	}
+
+	private WebcamGroup group = null;
+
+	@Before
+	public void before() {
+		Webcam.setDriver(new DummyDriver());
+		group = new WebcamGroup(Webcam.getWebcams().subList(0, 3));
+	}
+
+	@After
+	public void after() {
+		group.close();
+		Webcam.resetDriver();
+	}
+
+	@Test
+	public void test_grab() {
+
+		Assertions
+			.assertThat(group.open())
+			.isTrue();
+
+		final FrameSet set = group.grab();
+
+		Assertions
+			.assertThat(set.size())
+			.isEqualTo(3);
+		Assertions
+			.assertThat(set.isComplete())
+			.isTrue();
+		Assertions
+			.assertThat(set.getFrame(group.getWebcams().get(2)))
+			.isSameAs(set.getFrame(2));
+		Assertions
+			.assertThat(set.getSkew())
+			.isGreaterThanOrEqualTo(0);
+	}
+
+	@Test
+	public void test_grabLatest() throws InterruptedException {
+
+		Assertions
+			.assertThat(group.open(true))
+			.isTrue();
+
+		final FrameSet set = group.grabLatest(500, 5000, TimeUnit.MILLISECONDS);
+
+		Assertions
+			.assertThat(set)
+			.isNotNull();
+		Assertions
+			.assertThat(set.isComplete())
+			.isTrue();
+		Assertions
+			.assertThat(set.getSkew())
+			.isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+		Assertions
+			.assertThat(set.getFrame(0).getSequence())
+			.isGreaterThan(0);
+	}
+
+	@Test
+	public void test_grabLatestFromFrameSource() throws InterruptedException {
+
+		final FrameSourceDriver driver = new FrameSourceDriver();
+
+		Webcam.setDriver(driver);
+		group = new WebcamGroup(Webcam.getWebcams());
+
+		Assertions
+			.assertThat(group.open(true))
+			.isTrue();
+
+		final FrameSet set = group.grabLatest(500, 5000, TimeUnit.MILLISECONDS);
+
+		Assertions
+			.assertThat(set)
+			.isNotNull();
+		Assertions
+			.assertThat(set.isComplete())
+			.isTrue();
+
+		// in non-blocking mode frames come from updaters, in device native format, but with the
+		// updater sequence
+
+		for (int i = 0; i < set.size(); i++) {
+			Assertions
+				.assertThat(set.getFrame(i).getSequence())
+				.isLessThan(1000000);
+			Assertions
+				.assertThat(set.getFrame(i).getFormat())
+				.isEqualTo(PixelFormat.GRAY8);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_grabLatestInBlockingMode() throws InterruptedException {
+		group.open();
+		group.grabLatest(1, 1, TimeUnit.SECONDS);
+	}
+}
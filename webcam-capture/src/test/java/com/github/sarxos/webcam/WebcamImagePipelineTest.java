@@ -0,0 +1,324 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.WebcamImagePipeline.DropPolicy;
+import com.github.sarxos.webcam.WebcamImagePipeline.Stage;
+import com.github.sarxos.webcam.ds.test.DummyDriver;
+
+
+/**
+ * This test case is to cover {@link WebcamImagePipeline} class.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamImagePipelineTest {
+
+	private static final class CollectingSink implements WebcamImagePipeline.Sink {
+
+		private final List<BufferedImage> images = new CopyOnWriteArrayList<BufferedImage>();
+		private final CountDownLatch latch;
+
+		public CollectingSink(int count) {
+			this.latch = new CountDownLatch(count);
+		}
+
+		@Override
+		public void imageReady(BufferedImage image, long latency) {
+			images.add(image);
+			latch.countDown();
+		}
+	}
+
+	private WebcamImagePipeline pipeline = null;
+
+	@After
+	public void after() {
+		if (pipeline != null) {
+			pipeline.stop();
+		}
+	}
+
+	private static BufferedImage image() {
+		return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+	}
+
+	@Test
+	public void test_stagesOverlap() throws InterruptedException {
+
+		final BufferedImage i1 = image();
+		final BufferedImage i2 = image();
+		final CountDownLatch second = new CountDownLatch(1);
+		final AtomicBoolean overlapped = new AtomicBoolean(false);
+
+		// first stage does not finish the second image until the second stage is working on the
+		// first one, which is possible only if stages run in parallel
+
+		final WebcamImageTransformer first = new WebcamImageTransformer() {
+
+			@Override
+			public BufferedImage transform(BufferedImage image) {
+				if (image == i2) {
+					try {
+						overlapped.set(second.await(5, TimeUnit.SECONDS));
+					} catch (InterruptedException e) {
+						return null;
+					}
+				}
+				return image;
+			}
+		};
+
+		final WebcamImageTransformer last = new WebcamImageTransformer() {
+
+			@Override
+			public BufferedImage transform(BufferedImage image) {
+				second.countDown();
+				return image;
+			}
+		};
+
+		final CollectingSink sink = new CollectingSink(2);
+
+		pipeline = new WebcamImagePipeline(new Stage("first", first, 2, DropPolicy.BLOCK), new Stage("last", last));
+		pipeline.submit(i1, sink);
+		pipeline.submit(i2, sink);
+
+		Assertions
+			.assertThat(sink.latch.await(10, TimeUnit.SECONDS))
+			.isTrue();
+		Assertions
+			.assertThat(overlapped.get())
+			.isTrue();
+		Assertions
+			.assertThat(sink.images)
+			.containsExactly(i1, i2);
+		Assertions
+			.assertThat(pipeline.getStages().get(1).getProcessed())
+			.isEqualTo(2);
+	}
+
+	@Test
+	public void test_dropNewest() throws InterruptedException {
+
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final WebcamImageTransformer slow = new WebcamImageTransformer() {
+
+			@Override
+			public BufferedImage transform(BufferedImage image) {
+				entered.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return null;
+				}
+				return image;
+			}
+		};
+
+		final BufferedImage i1 = image();
+		final BufferedImage i2 = image();
+		final CollectingSink sink = new CollectingSink(2);
+		final Stage stage = new Stage("slow", slow, 1, DropPolicy.DROP_NEWEST);
+
+		pipeline = new WebcamImagePipeline(stage);
+		pipeline.submit(i1, sink);
+
+		Assertions
+			.assertThat(entered.await(5, TimeUnit.SECONDS))
+			.isTrue();
+
+		pipeline.submit(i2, sink);
+		pipeline.submit(image(), sink);
+		pipeline.submit(image(), sink);
+		release.countDown();
+
+		Assertions
+			.assertThat(sink.latch.await(10, TimeUnit.SECONDS))
+			.isTrue();
+		Assertions
+			.assertThat(sink.images)
+			.containsExactly(i1, i2);
+		Assertions
+			.assertThat(stage.getDropped())
+			.isEqualTo(2);
+	}
+
+	@Test
+	public void test_stageThreadsExitWhenWebcamIsClosed() throws InterruptedException {
+
+		final WebcamImageTransformer identity = new WebcamImageTransformer() {
+
+			@Override
+			public BufferedImage transform(BufferedImage image) {
+				return image;
+			}
+		};
+
+		pipeline = new WebcamImagePipeline(new Stage("closing", identity));
+
+		Webcam.setDriver(new DummyDriver());
+
+		final Webcam webcam = Webcam.getDefault();
+		webcam.setImageTransformer(pipeline);
+		webcam.open(true);
+
+		try {
+			Assertions
+				.assertThat(webcam.awaitImage(webcam.getImageSequence(), 5, TimeUnit.SECONDS))
+				.isTrue();
+			Assertions
+				.assertThat(pipeline.isStarted())
+				.isTrue();
+		} finally {
+			webcam.close();
+			webcam.setImageTransformer(null);
+			Webcam.resetDriver();
+		}
+
+		Assertions
+			.assertThat(pipeline.isStarted())
+			.isFalse();
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			Assertions
+				.assertThat(thread.getName().startsWith("webcam-pipeline-closing-"))
+				.isFalse();
+		}
+	}
+
+	@Test
+	public void test_previousPipelineIsStoppedWhenTransformerIsReplaced() throws InterruptedException {
+
+		final WebcamImageTransformer identity = new WebcamImageTransformer() {
+
+			@Override
+			public BufferedImage transform(BufferedImage image) {
+				return image;
+			}
+		};
+
+		pipeline = new WebcamImagePipeline(new Stage("replaced", identity));
+
+		Webcam.setDriver(new DummyDriver());
+
+		final Webcam webcam = Webcam.getDefault();
+		webcam.setImageTransformer(pipeline);
+		webcam.open(true);
+
+		try {
+
+			Assertions
+				.assertThat(webcam.awaitImage(webcam.getImageSequence(), 5, TimeUnit.SECONDS))
+				.isTrue();
+			Assertions
+				.assertThat(pipeline.isStarted())
+				.isTrue();
+
+			webcam.setImageTransformer(identity);
+
+			Assertions
+				.assertThat(pipeline.isStarted())
+				.isFalse();
+			Assertions
+				.assertThat(webcam.awaitImage(webcam.getImageSequence(), 5, TimeUnit.SECONDS))
+				.isTrue();
+			Assertions
+				.assertThat(pipeline.isStarted())
+				.isFalse();
+
+		} finally {
+			webcam.close();
+			webcam.setImageTransformer(null);
+			Webcam.resetDriver();
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void test_stopDoesNotWaitForeverForStuckStage() throws InterruptedException {
+
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final WebcamImageTransformer stuck = new WebcamImageTransformer() {
+
+			@Override
+			public BufferedImage transform(BufferedImage image) {
+				entered.countDown();
+				boolean interrupted = false;
+				while (release.getCount() > 0) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				return image;
+			}
+		};
+
+		pipeline = new WebcamImagePipeline(new Stage("stuck", stuck));
+		pipeline.submit(image(), new CollectingSink(1));
+
+		try {
+
+			Assertions
+				.assertThat(entered.await(5, TimeUnit.SECONDS))
+				.isTrue();
+
+			final long t1 = System.currentTimeMillis();
+
+			pipeline.stop();
+
+			Assertions
+				.assertThat(System.currentTimeMillis() - t1)
+				.isLessThan(10000);
+			Assertions
+				.assertThat(pipeline.isStarted())
+				.isFalse();
+
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void test_transformInCallingThread() {
+
+		final WebcamImageTransformer half = new WebcamImageTransformer() {
+
+			@Override
+			public BufferedImage transform(BufferedImage image) {
+				return new BufferedImage(image.getWidth() / 2, image.getHeight() / 2, image.getType());
+			}
+		};
+
+		pipeline = new WebcamImagePipeline(new Stage("a", half), new Stage("b", half));
+
+		final BufferedImage image = pipeline.transform(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB));
+
+		Assertions
+			.assertThat(image.getWidth())
+			.isEqualTo(2);
+		Assertions
+			.assertThat(pipeline.isStarted())
+			.isFalse();
+		Assertions
+			.assertThat(pipeline.getStages().get(0).getTime().getCount())
+			.isEqualTo(1);
+	}
+}
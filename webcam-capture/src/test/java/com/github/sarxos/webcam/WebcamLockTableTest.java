@@ -0,0 +1,81 @@
+package com.github.sarxos.webcam;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * This test case is to cover {@link WebcamLockTable} class.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamLockTableTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void test_lockVisibleInOtherTable() throws IOException {
+
+		final File file = new File(folder.getRoot(), "table");
+		final WebcamLockTable first = new WebcamLockTable(file);
+		final WebcamLockTable second = new WebcamLockTable(file);
+
+		try {
+
+			first.lock("webcam-a");
+
+			Assertions
+				.assertThat(second.isLocked("webcam-a"))
+				.isTrue();
+			Assertions
+				.assertThat(second.isLocked("webcam-b"))
+				.isFalse();
+
+			try {
+				second.lock("webcam-a");
+				Assertions.fail("Lock should fail when webcam is locked by other table");
+			} catch (WebcamLockException e) {
+				// expected
+			}
+
+			second.lock("webcam-b");
+			first.unlock("webcam-a");
+
+			Assertions
+				.assertThat(second.isLocked("webcam-a"))
+				.isFalse();
+			Assertions
+				.assertThat(first.isLocked("webcam-b"))
+				.isTrue();
+
+		} finally {
+			first.close();
+			second.close();
+		}
+	}
+
+	@Test
+	public void test_staleSlotIsReused() throws IOException {
+
+		final File file = new File(folder.getRoot(), "table");
+		final WebcamLockTable table = new WebcamLockTable(file);
+
+		try {
+			for (int i = 0; i < WebcamLockTable.SLOTS * 2; i++) {
+				table.lock("webcam-" + i);
+				table.unlock("webcam-" + i);
+			}
+			Assertions
+				.assertThat(table.isLocked("webcam-0"))
+				.isFalse();
+		} finally {
+			table.close();
+		}
+	}
+}
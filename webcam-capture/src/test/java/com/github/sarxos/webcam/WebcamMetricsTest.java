@@ -0,0 +1,72 @@
+package com.github.sarxos.webcam;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * This test case is to cover {@link WebcamMetrics} class.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class WebcamMetricsTest {
+
+	@Test
+	public void test_recordedInWebcamAndDriverMetrics() throws Exception {
+
+		final WebcamDummyDevice device = new WebcamDummyDevice(123);
+		final WebcamMetrics metrics = WebcamMetrics.create(device, new WebcamDummyDriver(1));
+		final WebcamMetrics driver = metrics.getParent();
+		final long frames = driver.getFrames();
+
+		try {
+
+			metrics.recordCapture(5000000, true);
+			metrics.recordCapture(1000000, false);
+			metrics.recordDispatch(2000000);
+			metrics.register();
+
+			Assertions
+				.assertThat(WebcamMetrics.get(device))
+				.isSameAs(metrics);
+			Assertions
+				.assertThat(metrics.getSnapshot().getFrames())
+				.isEqualTo(1);
+			Assertions
+				.assertThat(metrics.getSnapshot().getFailures())
+				.isEqualTo(1);
+			Assertions
+				.assertThat(driver.getFrames())
+				.isEqualTo(frames + 1);
+
+			final ObjectName name = metrics.getObjectName();
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+			Assertions
+				.assertThat(name)
+				.isNotNull();
+			Assertions
+				.assertThat(server.getAttribute(name, "Frames"))
+				.isEqualTo(1L);
+			Assertions
+				.assertThat(((CompositeData) server.getAttribute(name, "DispatchLag")).get("max"))
+				.isEqualTo(2.0);
+
+		} finally {
+			metrics.dispose(device);
+		}
+
+		Assertions
+			.assertThat(WebcamMetrics.get(device))
+			.isNull();
+	}
+}
@@ -0,0 +1,129 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+
+public class WebcamMotionDetectorParallelAlgorithmTest {
+
+	private static BufferedImage image(long seed, int bx, int by) {
+
+		final BufferedImage bi = new BufferedImage(320, 240, BufferedImage.TYPE_3BYTE_BGR);
+		final Random random = new Random(seed);
+		final Graphics2D g2 = bi.createGraphics();
+
+		try {
+			g2.setColor(Color.DARK_GRAY);
+			g2.fillRect(0, 0, bi.getWidth(), bi.getHeight());
+			for (int i = 0; i < 200; i++) {
+				g2.setColor(new Color(random.nextInt(0xFFFFFF)));
+				g2.fillRect(random.nextInt(320), random.nextInt(240), 2, 2);
+			}
+			g2.setColor(Color.WHITE);
+			g2.fillOval(bx, by, 60, 60);
+		} finally {
+			g2.dispose();
+		}
+
+		return bi;
+	}
+
+	private static void assertSameOutputs(WebcamMotionDetectorDefaultAlgorithm expected, WebcamMotionDetectorParallelAlgorithm actual, BufferedImage a, BufferedImage b) {
+
+		boolean e = expected.detect(expected.filter(a), expected.filter(b));
+		boolean r = actual.detect(actual.filter(a), actual.filter(b));
+
+		Assertions
+			.assertThat(r)
+			.isEqualTo(e);
+		Assertions
+			.assertThat(actual.getArea())
+			.isEqualTo(expected.getArea());
+		Assertions
+			.assertThat(actual.getCog())
+			.isEqualTo(expected.getCog());
+		Assertions
+			.assertThat(actual.getPoints())
+			.isEqualTo(expected.getPoints());
+		Assertions
+			.assertThat(actual.getThresholds())
+			.isEqualTo(expected.getThresholds());
+	}
+
+	@Test
+	public void test_sameOutputsAsDefaultAlgorithm() {
+
+		final WebcamMotionDetectorDefaultAlgorithm expected = new WebcamMotionDetectorDefaultAlgorithm();
+		final WebcamMotionDetectorParallelAlgorithm actual = new WebcamMotionDetectorParallelAlgorithm();
+
+		expected.setPointRange(20);
+		actual.setPointRange(20);
+
+		assertSameOutputs(expected, actual, image(1, 40, 40), image(2, 180, 120));
+
+		Assertions
+			.assertThat(actual.getPoints().size())
+			.isGreaterThan(1);
+	}
+
+	@Test
+	public void test_sameOutputsWithDoNotEngageZones() {
+
+		final WebcamMotionDetectorDefaultAlgorithm expected = new WebcamMotionDetectorDefaultAlgorithm(10, 0.1);
+		final WebcamMotionDetectorParallelAlgorithm actual = new WebcamMotionDetectorParallelAlgorithm(10, 0.1);
+
+		final Rectangle[] zones = new Rectangle[] {
+			new Rectangle(0, 0, 100, 100),
+			new Rectangle(300, 200, 100, 100),
+		};
+
+		expected.setDoNotEngageZones(Arrays.asList(zones));
+		actual.setDoNotEngageZones(Arrays.asList(zones));
+
+		assertSameOutputs(expected, actual, image(3, 50, 50), image(4, 150, 100));
+	}
+
+	@Test
+	public void test_fusedPreFilterDetectsMotion() {
+
+		final WebcamMotionDetectorParallelAlgorithm algorithm = new WebcamMotionDetectorParallelAlgorithm();
+		algorithm.setPreFilter(WebcamMotionDetectorParallelAlgorithm.PreFilter.FUSED_GRAY_BLUR);
+
+		final BufferedImage previous = algorithm.filter(image(1, 40, 40));
+		final BufferedImage current = algorithm.filter(image(2, 180, 120));
+
+		Assertions
+			.assertThat(current)
+			.isNotSameAs(previous);
+		Assertions
+			.assertThat(algorithm.detect(previous, current))
+			.isTrue();
+		Assertions
+			.assertThat(algorithm.getPoints())
+			.isNotEmpty();
+	}
+
+	@Test
+	public void test_noMotionOnSameImage() {
+
+		final WebcamMotionDetectorParallelAlgorithm algorithm = new WebcamMotionDetectorParallelAlgorithm();
+		final BufferedImage image = image(5, 10, 10);
+
+		Assertions
+			.assertThat(algorithm.detect(algorithm.filter(image), algorithm.filter(image)))
+			.isFalse();
+		Assertions
+			.assertThat(algorithm.getArea())
+			.isEqualTo(0);
+		Assertions
+			.assertThat(algorithm.getPoints())
+			.isEmpty();
+	}
+}
@@ -0,0 +1,212 @@
+package com.github.sarxos.webcam;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.ds.test.DummyDevice;
+import com.github.sarxos.webcam.ds.test.DummyDriver;
+
+
+public class WebcamNotificatorTest {
+
+	private static class CountingListener implements WebcamListener {
+
+		private final AtomicInteger images = new AtomicInteger(0);
+		private final CountDownLatch latch;
+
+		public CountingListener(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void webcamImageObtained(WebcamEvent we) {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				return;
+			}
+			images.incrementAndGet();
+		}
+
+		@Override
+		public void webcamOpen(WebcamEvent we) {
+		}
+
+		@Override
+		public void webcamClosed(WebcamEvent we) {
+		}
+
+		@Override
+		public void webcamDisposed(WebcamEvent we) {
+		}
+	}
+
+	private static Webcam open(WebcamDispatchPolicy policy, int size) {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final Webcam webcam = new Webcam(new DummyDevice());
+		webcam.setDispatchPolicy(policy);
+		webcam.setDispatchQueueSize(size);
+		webcam.open();
+
+		return webcam;
+	}
+
+	@Test
+	public void test_latestOnlyDropsPendingImages() {
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CountingListener listener = new CountingListener(latch);
+		final Webcam webcam = open(WebcamDispatchPolicy.LATEST_ONLY, 8);
+
+		webcam.addWebcamListener(listener);
+
+		try {
+			for (int i = 0; i < 10; i++) {
+				webcam.getImage();
+			}
+		} finally {
+			latch.countDown();
+			webcam.close();
+		}
+
+		Assertions
+			.assertThat(listener.images.get())
+			.isBetween(1, 2);
+		Assertions
+			.assertThat(listener.images.get() + webcam.getDroppedNotifications())
+			.isEqualTo(10);
+		Assertions
+			.assertThat(webcam.getDroppedNotifications(listener))
+			.isEqualTo(webcam.getDroppedNotifications());
+	}
+
+	@Test
+	public void test_boundedKeepsNewestImages() {
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CountingListener listener = new CountingListener(latch);
+		final Webcam webcam = open(WebcamDispatchPolicy.BOUNDED, 3);
+
+		webcam.addWebcamListener(listener);
+
+		try {
+			for (int i = 0; i < 10; i++) {
+				webcam.getImage();
+			}
+		} finally {
+			latch.countDown();
+			webcam.close();
+		}
+
+		Assertions
+			.assertThat(listener.images.get())
+			.isBetween(3, 4);
+		Assertions
+			.assertThat(listener.images.get() + webcam.getDroppedNotifications())
+			.isEqualTo(10);
+	}
+
+	@Test
+	public void test_slowListenerDoesNotBlockOthers() throws InterruptedException {
+
+		final CountDownLatch slowLatch = new CountDownLatch(1);
+		final CountDownLatch fastLatch = new CountDownLatch(0);
+		final CountingListener slow = new CountingListener(slowLatch);
+		final CountingListener fast = new CountingListener(fastLatch);
+		final Webcam webcam = open(WebcamDispatchPolicy.PER_LISTENER, 2);
+
+		webcam.addWebcamListener(slow);
+		webcam.addWebcamListener(fast);
+
+		try {
+
+			for (int i = 0; i < 10; i++) {
+				webcam.getImage();
+				Thread.sleep(5);
+			}
+
+			for (int i = 0; i < 100 && fast.images.get() < 10; i++) {
+				Thread.sleep(10);
+			}
+
+			Assertions
+				.assertThat(fast.images.get())
+				.isEqualTo(10);
+			Assertions
+				.assertThat(slow.images.get())
+				.isEqualTo(0);
+
+		} finally {
+			slowLatch.countDown();
+			webcam.close();
+		}
+
+		Assertions
+			.assertThat(webcam.getDroppedNotifications(fast))
+			.isEqualTo(0);
+		Assertions
+			.assertThat(webcam.getDroppedNotifications(slow))
+			.isEqualTo(10 - slow.images.get());
+		Assertions
+			.assertThat(webcam.getDispatchPolicy())
+			.isEqualTo(WebcamDispatchPolicy.PER_LISTENER);
+	}
+
+	private static int dispatcherThreads(Webcam webcam) {
+		final String prefix = "notificator-[" + webcam.getName() + "]-";
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && thread.getName().startsWith(prefix)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void test_replacedListenerDispatcherIsStopped() throws InterruptedException {
+
+		final CountDownLatch latch = new CountDownLatch(0);
+		final CountingListener removed = new CountingListener(latch);
+		final CountingListener added = new CountingListener(latch);
+		final Webcam webcam = open(WebcamDispatchPolicy.PER_LISTENER, 2);
+
+		try {
+
+			webcam.addWebcamListener(removed);
+			webcam.getImage();
+
+			// number of listeners is the same, but the dispatcher of removed one must go away
+
+			webcam.removeWebcamListener(removed);
+			webcam.addWebcamListener(added);
+			webcam.getImage();
+
+			for (int i = 0; i < 500 && dispatcherThreads(webcam) != 1; i++) {
+				Thread.sleep(10);
+			}
+
+			Assertions
+				.assertThat(dispatcherThreads(webcam))
+				.isEqualTo(1);
+
+		} finally {
+			webcam.close();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_policyCannotBeChangedWhenOpen() {
+		final Webcam webcam = open(WebcamDispatchPolicy.BOUNDED, 4);
+		try {
+			webcam.setDispatchPolicy(WebcamDispatchPolicy.LATEST_ONLY);
+		} finally {
+			webcam.close();
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.github.sarxos.webcam;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.WebcamProcessor.Lane;
+import com.github.sarxos.webcam.WebcamProcessor.Mode;
+import com.github.sarxos.webcam.ds.cgt.WebcamCloseTask;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+public class WebcamProcessorTest {
+
+	private static final long SLEEP = 200;
+
+	private static final class SleepTask extends WebcamTask {
+
+		public SleepTask(WebcamDriver driver, WebcamDevice device) {
+			super(driver, device);
+		}
+
+		@Override
+		protected void handle() {
+			try {
+				Thread.sleep(SLEEP);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static final class ThreadTask extends WebcamTask {
+
+		private final WebcamTask nested;
+		private Thread thread = null;
+
+		public ThreadTask(WebcamDriver driver, WebcamDevice device, WebcamTask nested) {
+			super(driver, device);
+			this.nested = nested;
+		}
+
+		@Override
+		protected void handle() {
+			thread = Thread.currentThread();
+			if (nested != null) {
+				try {
+					nested.process();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+	}
+
+	private static int devicesCount(List<Lane> lanes) {
+		int count = 0;
+		for (Lane lane : lanes) {
+			count += lane.getDevicesCount();
+		}
+		return count;
+	}
+
+	private static long processInParallel(final WebcamDriver driver, WebcamDevice... devices) throws InterruptedException {
+
+		Thread[] threads = new Thread[devices.length];
+		for (int i = 0; i < devices.length; i++) {
+			final WebcamDevice device = devices[i];
+			threads[i] = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						new SleepTask(driver, device).process();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			};
+		}
+
+		long t1 = System.currentTimeMillis();
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		return System.currentTimeMillis() - t1;
+	}
+
+	@After
+	public void cleanup() {
+		WebcamProcessor.getInstance().shutdown();
+		WebcamProcessor.getInstance().setMode(Mode.PER_DEVICE);
+		WebcamProcessor.getInstance().setMaxLanes(Runtime.getRuntime().availableProcessors());
+	}
+
+	@Test
+	public void test_devicesProcessedInParallel() throws InterruptedException {
+
+		final WebcamProcessor processor = WebcamProcessor.getInstance();
+		processor.shutdown();
+		processor.setMaxLanes(2);
+		processor.setMode(Mode.PER_DEVICE);
+
+		final long time = processInParallel(new WebcamDummyDriver(2), new WebcamDummyDevice(1), new WebcamDummyDevice(2));
+		final List<Lane> lanes = processor.getLanes();
+
+		Assertions
+			.assertThat(time)
+			.isLessThan(2 * SLEEP);
+		Assertions
+			.assertThat(lanes)
+			.hasSize(2);
+		Assertions
+			.assertThat(lanes.get(0).getProcessedCount())
+			.isEqualTo(1);
+		Assertions
+			.assertThat(lanes.get(1).getProcessedCount())
+			.isEqualTo(1);
+	}
+
+	@Test
+	public void test_globalModeProcessedSerially() throws InterruptedException {
+
+		final WebcamProcessor processor = WebcamProcessor.getInstance();
+		processor.shutdown();
+		processor.setMode(Mode.GLOBAL);
+
+		final long time = processInParallel(new WebcamDummyDriver(2), new WebcamDummyDevice(1), new WebcamDummyDevice(2));
+		final List<Lane> lanes = processor.getLanes();
+
+		Assertions
+			.assertThat(time)
+			.isGreaterThanOrEqualTo(2 * SLEEP);
+		Assertions
+			.assertThat(lanes)
+			.hasSize(1);
+		Assertions
+			.assertThat(lanes.get(0).getProcessedCount())
+			.isEqualTo(2);
+	}
+
+	@Test
+	public void test_closedDeviceIsReleasedFromLane() throws InterruptedException {
+
+		final WebcamProcessor processor = WebcamProcessor.getInstance();
+		processor.shutdown();
+		processor.setMaxLanes(2);
+		processor.setMode(Mode.PER_DEVICE);
+
+		final WebcamDriver driver = new WebcamDummyDriver(2);
+		final WebcamDevice device = new WebcamDummyDevice(1);
+
+		new ThreadTask(driver, device, null).process();
+
+		Assertions
+			.assertThat(devicesCount(processor.getLanes()))
+			.isEqualTo(1);
+
+		new WebcamCloseTask(driver, device).close();
+
+		Assertions
+			.assertThat(devicesCount(processor.getLanes()))
+			.isEqualTo(0);
+
+		// device is bound again when it's used after being closed
+
+		new ThreadTask(driver, device, null).process();
+
+		Assertions
+			.assertThat(devicesCount(processor.getLanes()))
+			.isEqualTo(1);
+	}
+
+	@Test(timeout = 5000)
+	public void test_nestedTaskIsProcessedInItsDeviceLane() throws InterruptedException {
+
+		final WebcamProcessor processor = WebcamProcessor.getInstance();
+		processor.shutdown();
+		processor.setMaxLanes(2);
+		processor.setMode(Mode.PER_DEVICE);
+
+		final WebcamDriver driver = new WebcamDummyDriver(2);
+		final WebcamDevice d1 = new WebcamDummyDevice(1);
+		final WebcamDevice d2 = new WebcamDummyDevice(2);
+
+		// bind devices to different lanes
+
+		new ThreadTask(driver, d1, null).process();
+		new ThreadTask(driver, d2, null).process();
+
+		final ThreadTask same = new ThreadTask(driver, d1, null);
+		final ThreadTask other = new ThreadTask(driver, d2, null);
+		final ThreadTask outer = new ThreadTask(driver, d1, new ThreadTask(driver, d1, same));
+		final ThreadTask outer2 = new ThreadTask(driver, d1, other);
+
+		outer.process();
+		outer2.process();
+
+		Assertions
+			.assertThat(same.thread)
+			.isSameAs(outer.thread);
+		Assertions
+			.assertThat(other.thread)
+			.isNotSameAs(outer2.thread);
+		Assertions
+			.assertThat(other.thread)
+			.isInstanceOf(WebcamProcessor.ProcessorThread.class);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_cannotReconfigureWhenRunning() throws InterruptedException {
+
+		final WebcamProcessor processor = WebcamProcessor.getInstance();
+		processor.shutdown();
+
+		new SleepTask(new WebcamDummyDriver(1), new WebcamDummyDevice(1)).process();
+
+		processor.setMaxLanes(3);
+	}
+}
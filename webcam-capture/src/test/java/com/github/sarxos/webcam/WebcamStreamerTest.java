@@ -0,0 +1,247 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.WebcamStreamer.Mode;
+import com.github.sarxos.webcam.ds.test.DummyDevice;
+import com.github.sarxos.webcam.ds.test.DummyDriver;
+import com.github.sarxos.webcam.util.ImageUtils;
+import com.github.sarxos.webcam.util.JpegEncoder;
+
+
+public class WebcamStreamerTest {
+
+	private static final byte[] JPEG = ImageUtils.toByteArray(new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB), ImageUtils.FORMAT_JPG);
+
+	private static final class EncodedDevice extends DummyDevice implements WebcamDevice.EncodedFrameSource {
+
+		private final AtomicInteger decoded = new AtomicInteger(0);
+		private final Set<String> readers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		@Override
+		public BufferedImage getImage() {
+			decoded.incrementAndGet();
+			return super.getImage();
+		}
+
+		@Override
+		public EncodedFrame getEncodedFrame() {
+			readers.add(Thread.currentThread().getName());
+			return new EncodedFrame(EncodedFrame.JPEG, JPEG);
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket ss = new ServerSocket(0)) {
+			return ss.getLocalPort();
+		}
+	}
+
+	private static String readUntil(InputStream is, String marker) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		int b;
+		while ((b = is.read()) != -1) {
+			baos.write(b);
+			if (baos.toString("US-ASCII").endsWith(marker)) {
+				break;
+			}
+		}
+		return baos.toString("US-ASCII");
+	}
+
+	@Test
+	public void test_selectorModeServesMultipleClients() throws Exception {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final Webcam w = Webcam.getDefault();
+		final int port = freePort();
+		final WebcamStreamer streamer = new WebcamStreamer(port, w, 20, true, Mode.SELECTOR);
+
+		Thread.sleep(200);
+
+		try (Socket s1 = new Socket("localhost", port); Socket s2 = new Socket("localhost", port)) {
+
+			s1.setSoTimeout(5000);
+			s2.setSoTimeout(5000);
+
+			for (Socket s : new Socket[] { s1, s2 }) {
+
+				OutputStream os = s.getOutputStream();
+				os.write("GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+				os.flush();
+
+				InputStream is = s.getInputStream();
+
+				String header = readUntil(is, "\r\n\r\n");
+				String part = readUntil(is, "\r\n\r\n");
+
+				Assertions
+					.assertThat(header)
+					.startsWith("HTTP/1.0 200 OK")
+					.contains("multipart/x-mixed-replace");
+				Assertions
+					.assertThat(part)
+					.contains("Content-type: image/jpeg")
+					.contains("Content-Length: ");
+
+				// JPEG must start with SOI marker
+
+				Assertions
+					.assertThat(is.read())
+					.isEqualTo(0xFF);
+				Assertions
+					.assertThat(is.read())
+					.isEqualTo(0xD8);
+			}
+		} finally {
+			streamer.stop();
+		}
+
+		Assertions
+			.assertThat(streamer.getMode())
+			.isEqualTo(Mode.SELECTOR);
+	}
+
+	@Test
+	public void test_encodingFailureDoesNotStopProducer() throws Exception {
+
+		final AtomicInteger failures = new AtomicInteger(3);
+		final JpegEncoder encoder = ImageUtils.getJpegEncoder();
+
+		ImageUtils.setJpegEncoder(new JpegEncoder() {
+
+			@Override
+			public void encode(BufferedImage image, float quality, OutputStream os) throws IOException {
+				if (failures.getAndDecrement() > 0) {
+					throw new IOException("Test failure");
+				}
+				encoder.encode(image, quality, os);
+			}
+		});
+
+		Webcam.setDriver(new DummyDriver());
+
+		final Webcam w = Webcam.getDefault();
+		final int port = freePort();
+		final WebcamStreamer streamer = new WebcamStreamer(port, w, 20, true, Mode.SELECTOR);
+
+		Thread.sleep(200);
+
+		try (Socket s = new Socket("localhost", port)) {
+
+			s.setSoTimeout(5000);
+
+			OutputStream os = s.getOutputStream();
+			os.write("GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+			os.flush();
+
+			InputStream is = s.getInputStream();
+
+			readUntil(is, "\r\n\r\n");
+
+			Assertions
+				.assertThat(readUntil(is, "\r\n\r\n"))
+				.contains("Content-type: image/jpeg");
+
+		} finally {
+			streamer.stop();
+			ImageUtils.setJpegEncoder(null);
+		}
+
+		Assertions
+			.assertThat(failures.get())
+			.isLessThan(0);
+	}
+
+	@Test
+	public void test_encodedFramesAreForwarded() throws Exception {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final EncodedDevice device = new EncodedDevice();
+		final Webcam w = new Webcam(device);
+		final int port = freePort();
+		final WebcamStreamer streamer = new WebcamStreamer(port, w, 20, true, Mode.SELECTOR);
+
+		Thread.sleep(200);
+
+		try (Socket s = new Socket("localhost", port)) {
+
+			s.setSoTimeout(5000);
+
+			OutputStream os = s.getOutputStream();
+			os.write("GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+			os.flush();
+
+			InputStream is = s.getInputStream();
+
+			readUntil(is, "\r\n\r\n");
+
+			Assertions
+				.assertThat(readUntil(is, "\r\n\r\n"))
+				.contains("Content-Length: " + JPEG.length);
+
+			byte[] body = new byte[JPEG.length];
+			for (int i = 0; i < body.length; i++) {
+				body[i] = (byte) is.read();
+			}
+
+			Assertions
+				.assertThat(body)
+				.isEqualTo(JPEG);
+
+		} finally {
+			streamer.stop();
+		}
+
+		Assertions
+			.assertThat(device.decoded.get())
+			.isEqualTo(0);
+	}
+
+	@Test
+	public void test_encodedFrameInNonBlockingModeComesFromUpdater() {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final EncodedDevice device = new EncodedDevice();
+		final Webcam w = new Webcam(device);
+
+		w.open(true);
+
+		// first image is read by the thread opening webcam
+
+		device.readers.clear();
+
+		try {
+			for (int i = 0; i < 10; i++) {
+				Assertions
+					.assertThat(w.getEncodedFrame().getBytes())
+					.isEqualTo(JPEG);
+			}
+		} finally {
+			w.close();
+		}
+
+		// device must be read only by the updater, not by the caller
+
+		Assertions
+			.assertThat(device.readers)
+			.doesNotContain(Thread.currentThread().getName());
+	}
+}
@@ -0,0 +1,302 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.Frame.PixelFormat;
+import com.github.sarxos.webcam.ds.test.DummyDevice;
+import com.github.sarxos.webcam.ds.test.DummyDriver;
+import com.github.sarxos.webcam.util.ImageUtils;
+
+
+public class WebcamUpdaterTest {
+
+	private static class NotifyingDevice extends DummyDevice implements WebcamDevice.FrameNotifier {
+
+		final AtomicInteger reads = new AtomicInteger(0);
+		private volatile FrameListener listener;
+
+		@Override
+		public BufferedImage getImage() {
+			reads.incrementAndGet();
+			return super.getImage();
+		}
+
+		@Override
+		public void setFrameListener(FrameListener listener) {
+			this.listener = listener;
+		}
+
+		public void push() {
+			listener.frameReady(this);
+		}
+	}
+
+	private static final class EncodedDevice extends NotifyingDevice implements WebcamDevice.EncodedFrameSource {
+
+		private static final byte[] JPEG = ImageUtils.toByteArray(new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB), ImageUtils.FORMAT_JPG);
+
+		private final Queue<EncodedFrame> frames = new ConcurrentLinkedQueue<EncodedFrame>();
+
+		@Override
+		public EncodedFrame getEncodedFrame() {
+			EncodedFrame frame = new EncodedFrame(EncodedFrame.JPEG, JPEG);
+			frames.add(frame);
+			return frame;
+		}
+	}
+
+	private static final class NativeDevice extends NotifyingDevice implements WebcamDevice.FrameSource {
+
+		private volatile Frame last;
+
+		@Override
+		public Frame getFrame() {
+			final int w = getResolution().width;
+			final int h = getResolution().height;
+			return last = new Frame(PixelFormat.YUYV, w, h, ByteBuffer.allocate(w * h * 2), System.nanoTime(), 1000);
+		}
+	}
+
+	/**
+	 * Device which images are filled with the number of image read.
+	 */
+	private static final class NumberingDevice extends NotifyingDevice {
+
+		@Override
+		public BufferedImage getImage() {
+			final int n = reads.incrementAndGet();
+			final BufferedImage bi = new BufferedImage(getResolution().width, getResolution().height, BufferedImage.TYPE_INT_RGB);
+			final Graphics2D g2 = bi.createGraphics();
+			g2.setColor(new Color(n, n, n));
+			g2.fillRect(0, 0, bi.getWidth(), bi.getHeight());
+			g2.dispose();
+			return bi;
+		}
+	}
+
+	private static final class CountingListener implements WebcamListener {
+
+		private final AtomicInteger images = new AtomicInteger(0);
+
+		@Override
+		public void webcamOpen(WebcamEvent we) {
+		}
+
+		@Override
+		public void webcamClosed(WebcamEvent we) {
+		}
+
+		@Override
+		public void webcamDisposed(WebcamEvent we) {
+		}
+
+		@Override
+		public void webcamImageObtained(WebcamEvent we) {
+			images.incrementAndGet();
+		}
+	}
+
+	@Test
+	public void test_notifyingDeviceIsReadOnlyWhenNotified() throws InterruptedException {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final NotifyingDevice device = new NotifyingDevice();
+		final Webcam webcam = new Webcam(device);
+
+		webcam.open(true);
+		try {
+
+			Thread.sleep(200);
+
+			Assertions
+				.assertThat(device.reads.get())
+				.isEqualTo(1);
+			Assertions
+				.assertThat(webcam.getImageSequence())
+				.isEqualTo(1);
+
+			for (int i = 0; i < 3; i++) {
+				long sequence = webcam.getImageSequence();
+				device.push();
+				Assertions
+					.assertThat(webcam.awaitImage(sequence, 5, TimeUnit.SECONDS))
+					.isTrue();
+			}
+
+			Assertions
+				.assertThat(webcam.getImageSequence())
+				.isEqualTo(4);
+			Assertions
+				.assertThat(device.reads.get())
+				.isEqualTo(4);
+
+		} finally {
+			webcam.close();
+		}
+
+		Assertions
+			.assertThat(device.listener)
+			.isNull();
+	}
+
+	@Test
+	public void test_encodedFramesAreDecodedOnlyWhenImageIsRequested() throws InterruptedException {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final EncodedDevice device = new EncodedDevice();
+		final Webcam webcam = new Webcam(device);
+		final CountingListener listener = new CountingListener();
+
+		webcam.addWebcamListener(listener);
+		webcam.open(true);
+		try {
+
+			for (int i = 0; i < 3; i++) {
+				long sequence = webcam.getImageSequence();
+				device.push();
+				Assertions
+					.assertThat(webcam.awaitImage(sequence, 5, TimeUnit.SECONDS))
+					.isTrue();
+			}
+
+			for (int i = 0; i < 100 && listener.images.get() < 3; i++) {
+				Thread.sleep(10);
+			}
+
+			// listener which does not ask for image does not cause decoding
+
+			Assertions
+				.assertThat(listener.images.get())
+				.isEqualTo(3);
+			Assertions
+				.assertThat(webcam.getEncodedFrame().isDecoded())
+				.isFalse();
+
+			Assertions
+				.assertThat(webcam.getImage())
+				.isNotNull();
+			Assertions
+				.assertThat(webcam.getEncodedFrame().isDecoded())
+				.isTrue();
+
+			// only the latest frame has been decoded
+
+			int decoded = 0;
+			for (EncodedFrame frame : device.frames) {
+				if (frame.isDecoded()) {
+					decoded++;
+				}
+			}
+
+			Assertions
+				.assertThat(decoded)
+				.isEqualTo(1);
+			Assertions
+				.assertThat(device.reads.get())
+				.isEqualTo(0);
+
+		} finally {
+			webcam.close();
+		}
+	}
+
+	@Test
+	public void test_pooledFrameMatchesItsSequence() throws InterruptedException {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final NumberingDevice device = new NumberingDevice();
+		final Webcam webcam = new Webcam(device);
+
+		webcam.setImagePooling(true);
+		webcam.open(true);
+
+		final Thread pusher = new Thread() {
+
+			@Override
+			public void run() {
+				for (int i = 0; i < 200; i++) {
+					device.push();
+					Thread.yield();
+				}
+			}
+		};
+
+		try {
+
+			pusher.start();
+
+			// every device read is published, so image number is the same as frame sequence
+
+			while (pusher.isAlive()) {
+				final Frame frame = webcam.getFrame();
+				Assertions
+					.assertThat((long) (frame.getImage().getRGB(0, 0) & 0xFF))
+					.isEqualTo(frame.getSequence());
+			}
+
+		} finally {
+			pusher.join();
+			webcam.close();
+		}
+	}
+
+	@Test
+	public void test_nativeFramesAreServedWithUpdaterSequence() throws InterruptedException {
+
+		Webcam.setDriver(new DummyDriver());
+
+		final NativeDevice device = new NativeDevice();
+		final Webcam webcam = new Webcam(device);
+
+		webcam.open(true);
+		try {
+
+			long sequence = webcam.getImageSequence();
+			device.push();
+
+			Assertions
+				.assertThat(webcam.awaitImage(sequence, 5, TimeUnit.SECONDS))
+				.isTrue();
+
+			final Frame frame = webcam.getFrame();
+
+			Assertions
+				.assertThat(frame.getFormat())
+				.isEqualTo(PixelFormat.YUYV);
+			Assertions
+				.assertThat(frame.getSequence())
+				.isEqualTo(webcam.getImageSequence());
+			Assertions
+				.assertThat(frame.getTimestamp())
+				.isEqualTo(device.last.getTimestamp());
+
+			// frame is converted once, for both image and frame consumers
+
+			Assertions
+				.assertThat(webcam.getFrame())
+				.isSameAs(frame);
+			Assertions
+				.assertThat(webcam.getImage())
+				.isSameAs(frame.getImage());
+			Assertions
+				.assertThat(device.reads.get())
+				.isEqualTo(0);
+
+		} finally {
+			webcam.close();
+		}
+	}
+}
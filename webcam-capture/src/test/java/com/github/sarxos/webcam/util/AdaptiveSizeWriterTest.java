@@ -0,0 +1,176 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class AdaptiveSizeWriterTest {
+
+	/**
+	 * Counts encodings done by the default encoder.
+	 */
+	private static final class CountingEncoder implements JpegEncoder {
+
+		private final JpegEncoder encoder = new ImageIOJpegEncoder();
+		private int count = 0;
+
+		@Override
+		public void encode(BufferedImage image, float quality, OutputStream os) throws IOException {
+			count++;
+			encoder.encode(image, quality, os);
+		}
+	}
+
+	private CountingEncoder encoder = null;
+
+	private static BufferedImage noise(long seed) {
+		final Random random = new Random(seed);
+		final BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, random.nextInt());
+			}
+		}
+		return image;
+	}
+
+	private static BufferedImage gradient() {
+		final BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g2 = image.createGraphics();
+		g2.setPaint(new GradientPaint(0, 0, Color.RED, 320, 240, Color.BLUE));
+		g2.fillRect(0, 0, 320, 240);
+		g2.dispose();
+		return image;
+	}
+
+	@Before
+	public void before() {
+		ImageUtils.setJpegEncoder(encoder = new CountingEncoder());
+	}
+
+	@After
+	public void after() {
+		ImageUtils.setJpegEncoder(null);
+	}
+
+	@Test
+	public void test_frameFitsSize() throws IOException {
+
+		final AdaptiveSizeWriter writer = new AdaptiveSizeWriter(20000);
+
+		for (int i = 0; i < 5; i++) {
+
+			encoder.count = 0;
+
+			final byte[] bytes = writer.write(noise(i));
+
+			Assertions
+				.assertThat(bytes.length)
+				.isLessThanOrEqualTo(20000);
+			Assertions
+				.assertThat(encoder.count)
+				.isLessThanOrEqualTo(AdaptiveSizeWriter.MAX_ENCODES);
+			Assertions
+				.assertThat(ImageIO.read(new ByteArrayInputStream(bytes)))
+				.isNotNull();
+		}
+	}
+
+	private static long distance(BufferedImage a, BufferedImage b) {
+		long d = 0;
+		for (int y = 0; y < a.getHeight(); y++) {
+			for (int x = 0; x < a.getWidth(); x++) {
+				final int p = a.getRGB(x, y);
+				final int r = b.getRGB(x, y);
+				d += Math.abs((p >> 16 & 0xFF) - (r >> 16 & 0xFF));
+				d += Math.abs((p >> 8 & 0xFF) - (r >> 8 & 0xFF));
+				d += Math.abs((p & 0xFF) - (r & 0xFF));
+			}
+		}
+		return d;
+	}
+
+	@Test
+	public void test_frameJustOverSizeIsWritten() throws IOException {
+
+		// noise frames which are only slightly bigger than the limit at the high quality
+
+		final AdaptiveSizeWriter writer = new AdaptiveSizeWriter(151500);
+
+		BufferedImage previous = null;
+
+		for (int i = 0; i < 6; i++) {
+
+			final BufferedImage current = noise(i);
+			final BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(writer.write(current)));
+
+			Assertions
+				.assertThat(decoded)
+				.isNotNull();
+			Assertions
+				.assertThat(writer.getQuality())
+				.isBetween(0f, 1f);
+
+			if (previous != null) {
+				Assertions
+					.assertThat(distance(decoded, current))
+					.isLessThan(distance(decoded, previous));
+			}
+
+			previous = current;
+		}
+	}
+
+	@Test
+	public void test_qualityRecoversAfterComplexFrame() {
+
+		final AdaptiveSizeWriter writer = new AdaptiveSizeWriter(20000);
+
+		writer.write(noise(0));
+
+		final float low = writer.getQuality();
+
+		writer.write(gradient());
+		writer.write(gradient());
+
+		Assertions
+			.assertThat(writer.getQuality())
+			.isGreaterThan(low);
+	}
+
+	@Test
+	public void test_bitrate() {
+
+		final AdaptiveSizeWriter writer = new AdaptiveSizeWriter(0);
+		writer.setBitrate(100000);
+
+		final long step = 100000000; // 100 ms, 10 FPS
+		long total = 0;
+
+		for (int i = 0; i < 20; i++) {
+			total += writer.write(noise(i), i * step).length;
+		}
+
+		// 2 seconds of stream, bytes spent above the rate are compensated within one second
+
+		Assertions
+			.assertThat(total)
+			.isLessThanOrEqualTo(2 * 100000 + 100000 / 10);
+		Assertions
+			.assertThat(total)
+			.isGreaterThan(2 * 100000 / 2);
+	}
+}
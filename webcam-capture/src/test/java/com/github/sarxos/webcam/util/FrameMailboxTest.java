@@ -0,0 +1,100 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.Dimension;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+
+public class FrameMailboxTest {
+
+	private final ImagePool pool = new ImagePool(new Dimension(4, 3), 4);
+
+	@Test
+	public void test_replacedFrameGoesBackToPool() {
+
+		final FrameMailbox mailbox = new FrameMailbox();
+		final PooledImage p1 = pool.lease();
+		final PooledImage p2 = pool.lease();
+
+		mailbox.publish(p1);
+		mailbox.publish(p2);
+
+		Assertions
+			.assertThat(p1.isReleased())
+			.isTrue();
+		Assertions
+			.assertThat(mailbox.poll())
+			.isSameAs(p2);
+		Assertions
+			.assertThat(mailbox.poll())
+			.isNull();
+
+		// frame taken by consumer is not released by the mailbox
+
+		mailbox.publish(pool.lease());
+
+		Assertions
+			.assertThat(p2.isReleased())
+			.isFalse();
+
+		p2.release();
+		mailbox.clear();
+
+		Assertions
+			.assertThat(pool.getLeasedCount())
+			.isEqualTo(0);
+	}
+
+	@Test
+	public void test_producerReusesImagesReleasedByConsumer() {
+
+		final FrameMailbox mailbox = new FrameMailbox();
+
+		for (int i = 0; i < 100; i++) {
+			mailbox.publish(pool.lease());
+			if (i % 2 == 0) {
+				mailbox.poll().release();
+			}
+		}
+
+		mailbox.clear();
+
+		Assertions
+			.assertThat(pool.getAllocatedCount())
+			.isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	public void test_takeWaitsForPublishedFrame() throws InterruptedException {
+
+		final FrameMailbox mailbox = new FrameMailbox();
+		final PooledImage image = pool.lease();
+
+		Thread publisher = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+				mailbox.publish(image);
+			}
+		};
+
+		publisher.start();
+
+		Assertions
+			.assertThat(mailbox.take(5, TimeUnit.SECONDS))
+			.isSameAs(image);
+		Assertions
+			.assertThat(mailbox.take(50, TimeUnit.MILLISECONDS))
+			.isNull();
+
+		publisher.join();
+		image.release();
+	}
+}
@@ -0,0 +1,196 @@
+package com.github.sarxos.webcam.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.util.FrameRing.Cursor;
+
+
+public class FrameRingTest {
+
+	@Test
+	public void test_cursorsAreIndependent() throws InterruptedException {
+
+		final FrameRing<String> ring = new FrameRing<String>(4);
+		final Cursor<String> a = ring.cursor();
+		final Cursor<String> b = ring.cursor();
+
+		ring.publish("1");
+		ring.publish("2");
+
+		Assertions
+			.assertThat(a.next(1, TimeUnit.SECONDS))
+			.isEqualTo("1");
+		Assertions
+			.assertThat(a.next(1, TimeUnit.SECONDS))
+			.isEqualTo("2");
+		Assertions
+			.assertThat(b.next(1, TimeUnit.SECONDS))
+			.isEqualTo("1");
+		Assertions
+			.assertThat(b.getPending())
+			.isEqualTo(1);
+		Assertions
+			.assertThat(a.poll())
+			.isNull();
+	}
+
+	@Test
+	public void test_slowCursorMissesOverwrittenFrames() throws InterruptedException {
+
+		final FrameRing<Integer> ring = new FrameRing<Integer>(3);
+		final Cursor<Integer> cursor = ring.cursor();
+
+		for (int i = 1; i <= 10; i++) {
+			ring.publish(i);
+		}
+
+		Assertions
+			.assertThat(cursor.next(1, TimeUnit.SECONDS))
+			.isEqualTo(8);
+		Assertions
+			.assertThat(cursor.getSequence())
+			.isEqualTo(8);
+		Assertions
+			.assertThat(cursor.getMissed())
+			.isEqualTo(7);
+		Assertions
+			.assertThat(cursor.latest())
+			.isEqualTo(10);
+		Assertions
+			.assertThat(cursor.getMissed())
+			.isEqualTo(8);
+	}
+
+	@Test
+	public void test_mappedCursorConvertsOnlyReadFrames() {
+
+		final FrameRing<Integer> ring = new FrameRing<Integer>(4);
+		final AtomicInteger mapped = new AtomicInteger(0);
+		final Cursor<String> cursor = ring.cursor(new FrameRing.Mapper<Integer, String>() {
+
+			@Override
+			public String map(FrameRing.Entry<Integer> entry) {
+				mapped.incrementAndGet();
+				return entry.getSequence() + "#" + entry.getValue();
+			}
+		});
+
+		for (int i = 1; i <= 3; i++) {
+			ring.publish(i);
+		}
+
+		Assertions
+			.assertThat(cursor.latest())
+			.isEqualTo("3#3");
+		Assertions
+			.assertThat(cursor.getMissed())
+			.isEqualTo(2);
+		Assertions
+			.assertThat(mapped.get())
+			.isEqualTo(1);
+	}
+
+	@Test
+	public void test_nextWaitsForPublish() throws InterruptedException {
+
+		final FrameRing<String> ring = new FrameRing<String>(2);
+		final Cursor<String> cursor = ring.cursor();
+
+		Thread producer = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+				ring.publish("x");
+			}
+		};
+		producer.start();
+
+		Assertions
+			.assertThat(cursor.next(5, TimeUnit.SECONDS))
+			.isEqualTo("x");
+		Assertions
+			.assertThat(cursor.next(50, TimeUnit.MILLISECONDS))
+			.isNull();
+
+		producer.join();
+	}
+
+	@Test(timeout = 5000)
+	public void test_readersReturnNullAfterClear() throws InterruptedException {
+
+		final FrameRing<String> ring = new FrameRing<String>(4);
+		final Cursor<String> cursor = ring.cursor();
+
+		ring.publish("1");
+		ring.publish("2");
+		ring.clear();
+
+		Assertions
+			.assertThat(ring.latest())
+			.isNull();
+		Assertions
+			.assertThat(ring.latestEntry())
+			.isNull();
+		Assertions
+			.assertThat(cursor.next(1, TimeUnit.SECONDS))
+			.isNull();
+		Assertions
+			.assertThat(cursor.getMissed())
+			.isEqualTo(2);
+		Assertions
+			.assertThat(cursor.getPending())
+			.isEqualTo(0);
+
+		// sequence is not reset, next frame is read as usual
+
+		Assertions
+			.assertThat(ring.publish("3"))
+			.isEqualTo(3);
+		Assertions
+			.assertThat(ring.latest())
+			.isEqualTo("3");
+		Assertions
+			.assertThat(cursor.next(1, TimeUnit.SECONDS))
+			.isEqualTo("3");
+	}
+
+	@Test
+	public void test_concurrentProducers() throws InterruptedException {
+
+		final FrameRing<Integer> ring = new FrameRing<Integer>(8);
+		final int n = 1000;
+
+		Thread[] producers = new Thread[4];
+		for (int i = 0; i < producers.length; i++) {
+			producers[i] = new Thread() {
+
+				@Override
+				public void run() {
+					for (int j = 0; j < n; j++) {
+						ring.publish(j);
+					}
+				}
+			};
+			producers[i].start();
+		}
+		for (Thread t : producers) {
+			t.join();
+		}
+
+		Assertions
+			.assertThat(ring.getSequence())
+			.isEqualTo(n * producers.length);
+		Assertions
+			.assertThat(ring.latest())
+			.isNotNull();
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Random;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.sarxos.webcam.util.jh.JHBlurFilter;
+import com.github.sarxos.webcam.util.jh.JHGrayFilter;
+
+
+public class GrayBlurFilterTest {
+
+	private static BufferedImage image(int type) {
+
+		final BufferedImage bi = new BufferedImage(160, 120, type);
+		final Random random = new Random(1);
+		final Graphics2D g2 = bi.createGraphics();
+
+		try {
+			for (int i = 0; i < 300; i++) {
+				g2.setColor(new Color(random.nextInt(0xFFFFFF)));
+				g2.fillRect(random.nextInt(160), random.nextInt(120), 8, 8);
+			}
+		} finally {
+			g2.dispose();
+		}
+
+		return bi;
+	}
+
+	@Test
+	public void test_closeToBlurAndGray() {
+
+		final BufferedImage src = image(BufferedImage.TYPE_3BYTE_BGR);
+		final BufferedImage expected = new JHGrayFilter().filter(new JHBlurFilter(6, 6, 1).filter(src, null), null);
+		final BufferedImage actual = new GrayBlurFilter(6).filter(src, null);
+		final byte[] data = ((DataBufferByte) actual.getRaster().getDataBuffer()).getData();
+
+		// skip image border, JH fractional blur copies the very first and the very last image
+		// pixel there
+
+		int max = 0;
+		for (int y = 1; y < src.getHeight() - 1; y++) {
+			for (int x = 1; x < src.getWidth() - 1; x++) {
+				int e = expected.getRGB(x, y) & 0xff;
+				int a = data[y * src.getWidth() + x] & 0xff;
+				max = Math.max(max, Math.abs(e - a));
+			}
+		}
+
+		Assertions
+			.assertThat(max)
+			.isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	public void test_destinationIsReused() {
+
+		final GrayBlurFilter filter = new GrayBlurFilter(2);
+		final BufferedImage dst = filter.filter(image(BufferedImage.TYPE_INT_RGB), null);
+
+		Assertions
+			.assertThat(filter.filter(image(BufferedImage.TYPE_INT_RGB), dst))
+			.isSameAs(dst);
+		Assertions
+			.assertThat(dst.getType())
+			.isEqualTo(BufferedImage.TYPE_BYTE_GRAY);
+	}
+
+	@Test
+	public void test_uniformImageStaysUniform() {
+
+		final BufferedImage src = new BufferedImage(50, 40, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g2 = src.createGraphics();
+		g2.setColor(new Color(100, 100, 100));
+		g2.fillRect(0, 0, 50, 40);
+		g2.dispose();
+
+		final byte[] dst = new byte[50 * 40];
+		new GrayBlurFilter(6).filterBytes(src, dst);
+
+		for (byte b : dst) {
+			Assertions
+				.assertThat(b & 0xff)
+				.isEqualTo(100);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+
+public class ImageIOJpegEncoderTest {
+
+	private static BufferedImage image(int type) {
+		BufferedImage image = new BufferedImage(160, 120, type);
+		Graphics2D g2 = image.createGraphics();
+		g2.setPaint(new GradientPaint(0, 0, Color.RED, 160, 120, Color.BLUE));
+		g2.fillRect(0, 0, 160, 120);
+		g2.dispose();
+		return image;
+	}
+
+	private static byte[] encode(JpegEncoder encoder, BufferedImage image, float quality) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		encoder.encode(image, quality, baos);
+		return baos.toByteArray();
+	}
+
+	@Test
+	public void test_encodeImageTypes() throws IOException {
+
+		final ImageIOJpegEncoder encoder = new ImageIOJpegEncoder();
+		final int[] types = { BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB };
+
+		for (int type : types) {
+
+			final BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encode(encoder, image(type), JpegEncoder.DEFAULT_QUALITY)));
+
+			Assertions
+				.assertThat(decoded)
+				.isNotNull();
+			Assertions
+				.assertThat(decoded.getWidth())
+				.isEqualTo(160);
+			Assertions
+				.assertThat(decoded.getHeight())
+				.isEqualTo(120);
+		}
+	}
+
+	@Test
+	public void test_lowerQualityIsSmaller() throws IOException {
+
+		final ImageIOJpegEncoder encoder = new ImageIOJpegEncoder();
+		final BufferedImage image = image(BufferedImage.TYPE_3BYTE_BGR);
+
+		Assertions
+			.assertThat(encode(encoder, image, 0.1f).length)
+			.isLessThan(encode(encoder, image, 0.9f).length);
+	}
+
+	@Test
+	public void test_writerIsReused() throws IOException {
+
+		final ImageIOJpegEncoder encoder = new ImageIOJpegEncoder(1);
+		final BufferedImage image = image(BufferedImage.TYPE_INT_RGB);
+
+		final byte[] first = encode(encoder, image, 0.5f);
+
+		Assertions
+			.assertThat(encoder.getIdleCount())
+			.isEqualTo(1);
+
+		final byte[] second = encode(encoder, image, 0.5f);
+
+		Assertions
+			.assertThat(encoder.getIdleCount())
+			.isEqualTo(1);
+		Assertions
+			.assertThat(second)
+			.isEqualTo(first);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_qualityOutOfRange() throws IOException {
+		encode(new ImageIOJpegEncoder(), image(BufferedImage.TYPE_INT_RGB), 1.5f);
+	}
+}
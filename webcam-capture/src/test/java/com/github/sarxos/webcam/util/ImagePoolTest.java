@@ -0,0 +1,117 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+
+public class ImagePoolTest {
+
+	private final Dimension size = new Dimension(64, 48);
+
+	@Test
+	public void test_releasedImageIsReused() {
+
+		final ImagePool pool = new ImagePool(size, 2);
+
+		final PooledImage a = pool.lease();
+		final BufferedImage image = a.getImage();
+		a.release();
+
+		final PooledImage b = pool.lease();
+
+		Assertions
+			.assertThat(b.getImage())
+			.isSameAs(image);
+		Assertions
+			.assertThat(pool.getAllocatedCount())
+			.isEqualTo(1);
+		Assertions
+			.assertThat(pool.getLeasedCount())
+			.isEqualTo(1);
+
+		b.release();
+	}
+
+	@Test
+	public void test_imageIsBackedByBytes() {
+
+		final ImagePool pool = new ImagePool(size, 1);
+
+		try (PooledImage pi = pool.lease()) {
+
+			pi.getBuffer().put(new byte[] { (byte) 0xFF, 0x00, 0x00 });
+
+			Assertions
+				.assertThat(pi.getData().length)
+				.isEqualTo(size.width * size.height * 3);
+			Assertions
+				.assertThat(pi.getImage().getRGB(0, 0) & 0xFFFFFF)
+				.isEqualTo(0xFF0000);
+			Assertions
+				.assertThat(pi.copy().getRGB(0, 0) & 0xFFFFFF)
+				.isEqualTo(0xFF0000);
+		}
+	}
+
+	@Test
+	public void test_retainedImageIsNotReused() {
+
+		final ImagePool pool = new ImagePool(size, 2);
+
+		final PooledImage a = pool.lease();
+		a.retain();
+		a.release();
+
+		final PooledImage b = pool.lease();
+
+		Assertions
+			.assertThat(b.getImage())
+			.isNotSameAs(a.getImage());
+		Assertions
+			.assertThat(a.isReleased())
+			.isFalse();
+
+		a.release();
+		b.release();
+
+		Assertions
+			.assertThat(a.isReleased())
+			.isTrue();
+		Assertions
+			.assertThat(a.tryRetain())
+			.isFalse();
+		Assertions
+			.assertThat(pool.getIdleCount())
+			.isEqualTo(2);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_doubleRelease() {
+		final PooledImage pi = new ImagePool(size, 1).lease();
+		pi.release();
+		pi.release();
+	}
+
+	@Test
+	public void test_leakDetection() throws InterruptedException {
+
+		final ImagePool pool = new ImagePool(size, 1);
+
+		pool.lease();
+
+		for (int i = 0; i < 50 && pool.getLeaksCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+
+		Assertions
+			.assertThat(pool.getLeaksCount())
+			.isEqualTo(1);
+		Assertions
+			.assertThat(pool.getLeasedCount())
+			.isEqualTo(0);
+	}
+}
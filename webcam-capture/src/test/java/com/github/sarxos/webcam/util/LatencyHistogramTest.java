@@ -0,0 +1,73 @@
+package com.github.sarxos.webcam.util;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void test_percentilesWithinPrecision() {
+
+		final LatencyHistogram histogram = new LatencyHistogram();
+
+		// 1 ms to 1000 ms
+
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000000L);
+		}
+
+		final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		Assertions
+			.assertThat(snapshot.getCount())
+			.isEqualTo(1000);
+		Assertions
+			.assertThat(snapshot.getMin())
+			.isEqualTo(1.0);
+		Assertions
+			.assertThat(snapshot.getMax())
+			.isEqualTo(1000.0);
+		Assertions
+			.assertThat(snapshot.getMean())
+			.isCloseTo(500.5, Offset.offset(0.001));
+		Assertions
+			.assertThat(snapshot.getP50())
+			.isCloseTo(500, Offset.offset(500 * 0.04));
+		Assertions
+			.assertThat(snapshot.getP99())
+			.isCloseTo(990, Offset.offset(990 * 0.04));
+		Assertions
+			.assertThat(snapshot.getPercentile(100))
+			.isEqualTo(1000.0);
+	}
+
+	@Test
+	public void test_smallAndHugeValues() {
+
+		final LatencyHistogram histogram = new LatencyHistogram();
+
+		histogram.record(-5);
+		histogram.record(7);
+		histogram.record(Long.MAX_VALUE);
+
+		final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		Assertions
+			.assertThat(snapshot.getCount())
+			.isEqualTo(3);
+		Assertions
+			.assertThat(snapshot.getMin())
+			.isEqualTo(0.0);
+		Assertions
+			.assertThat(snapshot.getP50())
+			.isEqualTo(7 / 1000000d);
+
+		histogram.reset();
+
+		Assertions
+			.assertThat(histogram.snapshot().getCount())
+			.isEqualTo(0);
+	}
+}
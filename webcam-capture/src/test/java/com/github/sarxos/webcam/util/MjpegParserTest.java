@@ -0,0 +1,186 @@
+package com.github.sarxos.webcam.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+
+public class MjpegParserTest {
+
+	/**
+	 * Stream returning at most few bytes from every read.
+	 */
+	private static class TrickleInputStream extends FilterInputStream {
+
+		public TrickleInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, 7));
+		}
+	}
+
+	private static byte[] jpeg(int width, int height) throws IOException {
+
+		final BufferedImage bi = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		final Random random = new Random(width);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				bi.setRGB(x, y, random.nextInt(0xFFFFFF));
+			}
+		}
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(bi, "jpg", baos);
+
+		return baos.toByteArray();
+	}
+
+	private static void part(ByteArrayOutputStream baos, byte[] jpeg, boolean length) throws IOException {
+		baos.write("--boundary\r\nContent-Type: image/jpeg\r\n".getBytes());
+		if (length) {
+			baos.write(("content-length : " + jpeg.length + "\r\n").getBytes());
+		}
+		baos.write("\r\n".getBytes());
+		baos.write(jpeg);
+		baos.write("\r\n".getBytes());
+	}
+
+	@Test
+	public void test_framesWithAndWithoutContentLength() throws IOException {
+
+		final byte[] small = jpeg(32, 24);
+		final byte[] large = jpeg(640, 480);
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		part(baos, small, true);
+		part(baos, large, false);
+		part(baos, large, true);
+		part(baos, small, false);
+
+		Assertions
+			.assertThat(large.length)
+			.isGreaterThan(100000);
+
+		final MjpegParser parser = new MjpegParser(new TrickleInputStream(new ByteArrayInputStream(baos.toByteArray())), 16, 1024 * 1024);
+
+		for (byte[] expected : new byte[][] { small, large, large, small }) {
+			Assertions
+				.assertThat(MjpegParser.toBytes(parser.next()))
+				.isEqualTo(expected);
+		}
+
+		Assertions
+			.assertThat(parser.next())
+			.isNull();
+		Assertions
+			.assertThat(parser.getFramesCount())
+			.isEqualTo(4);
+	}
+
+	@Test
+	public void test_frameIsSliceOfParserBuffer() throws IOException {
+
+		final byte[] small = jpeg(32, 24);
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		part(baos, small, true);
+
+		final ByteBuffer frame = new MjpegParser(new ByteArrayInputStream(baos.toByteArray())).next();
+
+		Assertions
+			.assertThat(frame.hasArray())
+			.isTrue();
+		Assertions
+			.assertThat(frame.arrayOffset())
+			.isGreaterThan(0);
+		Assertions
+			.assertThat(frame.remaining())
+			.isEqualTo(small.length);
+	}
+
+	@Test(expected = EOFException.class)
+	public void test_truncatedFrame() throws IOException {
+
+		final byte[] small = jpeg(32, 24);
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		part(baos, small, false);
+
+		final byte[] bytes = baos.toByteArray();
+
+		new MjpegParser(new ByteArrayInputStream(bytes, 0, bytes.length - 10)).next();
+	}
+
+	@Test
+	public void test_readFrameFromMjpegInputStream() throws IOException {
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		part(baos, jpeg(640, 480), false);
+
+		try (MjpegInputStream mis = new MjpegInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+
+			final BufferedImage bi = mis.readFrame();
+
+			Assertions
+				.assertThat(bi)
+				.isNotNull();
+			Assertions
+				.assertThat(bi.getWidth())
+				.isEqualTo(640);
+		}
+	}
+
+	@Test
+	public void test_feedAndPoll() throws IOException {
+
+		final byte[] small = jpeg(32, 24);
+		final byte[] large = jpeg(640, 480);
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		part(baos, large, true);
+		part(baos, small, false);
+		part(baos, large, false);
+
+		final byte[] bytes = baos.toByteArray();
+		final MjpegParser parser = new MjpegParser(64, 1024 * 1024);
+		final List<byte[]> frames = new ArrayList<byte[]>();
+
+		for (int i = 0; i < bytes.length; i += 1000) {
+			parser.feed(ByteBuffer.wrap(bytes, i, Math.min(1000, bytes.length - i)));
+			ByteBuffer frame;
+			while ((frame = parser.poll()) != null) {
+				frames.add(MjpegParser.toBytes(frame));
+			}
+		}
+
+		Assertions
+			.assertThat(frames)
+			.hasSize(3);
+		Assertions
+			.assertThat(frames.get(0))
+			.isEqualTo(large);
+		Assertions
+			.assertThat(frames.get(1))
+			.isEqualTo(small);
+		Assertions
+			.assertThat(frames.get(2))
+			.isEqualTo(large);
+	}
+}
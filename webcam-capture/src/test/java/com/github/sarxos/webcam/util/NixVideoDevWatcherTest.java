@@ -0,0 +1,48 @@
+package com.github.sarxos.webcam.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class NixVideoDevWatcherTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void test_videoDeviceCreatedAndDeleted() throws IOException, InterruptedException {
+
+		final File dev = folder.newFolder("dev");
+
+		try (NixVideoDevWatcher watcher = new NixVideoDevWatcher(dev, 50)) {
+
+			Assertions
+				.assertThat(new File(dev, "null").createNewFile())
+				.isTrue();
+			Assertions
+				.assertThat(watcher.await(300, TimeUnit.MILLISECONDS))
+				.isFalse();
+
+			final File video = new File(dev, "video0");
+
+			Assertions
+				.assertThat(video.createNewFile())
+				.isTrue();
+			Assertions
+				.assertThat(watcher.await(15, TimeUnit.SECONDS))
+				.isTrue();
+			Assertions
+				.assertThat(video.delete())
+				.isTrue();
+			Assertions
+				.assertThat(watcher.await(15, TimeUnit.SECONDS))
+				.isTrue();
+		}
+	}
+}